@@ -0,0 +1,81 @@
+package org.qora.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.qora.account.PrivateKeyAccount;
+import org.qora.block.BlockGenerator;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.BaseTransactionData;
+import org.qora.data.transaction.PaymentTransactionData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.test.common.AccountUtils;
+import org.qora.test.common.Common;
+import org.qora.transaction.Transaction;
+import org.qora.transaction.Transaction.ValidationResult;
+
+/**
+ * Test blockchain, in the same in-memory repository used by unit tests, for benchmarks.
+ * <p>
+ * Benchmarks must run from project directory, as test settings refer to test chain config by relative path.
+ */
+public class BenchmarkChain {
+
+	public static final String[] ACCOUNT_NAMES = new String[] { "alice", "bob", "chloe", "dilbert" };
+
+	public static final BigDecimal PAYMENT_AMOUNT = BigDecimal.valueOf(10L).setScale(8);
+
+	private BenchmarkChain() {
+	}
+
+	/** Resets in-memory repository to test chain's genesis block, using default test settings. */
+	public static void setUp() throws DataException {
+		// As done by JUnit before test class, so settings can then be (re)applied
+		Common.setRepository();
+		Common.useDefaultSettings();
+	}
+
+	/** Closes in-memory repository. */
+	public static void tearDown() throws DataException {
+		Common.closeRepository();
+	}
+
+	/** Returns signed, but not yet imported, payments from each test account to the next. */
+	public static List<TransactionData> buildPayments(Repository repository) throws DataException {
+		List<TransactionData> payments = new ArrayList<>();
+
+		for (int i = 0; i < ACCOUNT_NAMES.length; ++i) {
+			PrivateKeyAccount sender = Common.getTestAccount(repository, ACCOUNT_NAMES[i]);
+			PrivateKeyAccount recipient = Common.getTestAccount(repository, ACCOUNT_NAMES[(i + 1) % ACCOUNT_NAMES.length]);
+
+			byte[] reference = sender.getLastReference();
+			long timestamp = repository.getTransactionRepository().fromSignature(reference).getTimestamp() + 1;
+
+			BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, AccountUtils.txGroupId, reference, sender.getPublicKey(), AccountUtils.fee, null);
+			TransactionData transactionData = new PaymentTransactionData(baseTransactionData, recipient.getAddress(), PAYMENT_AMOUNT);
+
+			Transaction.fromData(repository, transactionData).sign(sender);
+
+			payments.add(transactionData);
+		}
+
+		return payments;
+	}
+
+	/** Forges a block, using "alice" account, containing payments from each test account. */
+	public static BlockData forgePayments(Repository repository) throws DataException {
+		for (TransactionData transactionData : buildPayments(repository)) {
+			ValidationResult result = Transaction.fromData(repository, transactionData).importAsUnconfirmed();
+			if (result != ValidationResult.OK)
+				throw new IllegalStateException(String.format("Benchmark payment invalid: %s", result.name()));
+		}
+
+		BlockGenerator.generateTestingBlock(repository, Common.getTestAccount(repository, "alice"));
+
+		return repository.getBlockRepository().getLastBlock();
+	}
+
+}
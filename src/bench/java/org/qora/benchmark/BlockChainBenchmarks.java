@@ -0,0 +1,99 @@
+package org.qora.benchmark;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.qora.account.PrivateKeyAccount;
+import org.qora.block.BlockChain;
+import org.qora.data.block.BlockSummaryData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.AccountUtils;
+import org.qora.test.common.Common;
+
+/**
+ * Comparison of competing chains, as done by Synchronizer and BlockGenerator.
+ * <p>
+ * Uses test chain config where new block distance algorithm applies from height 10,
+ * so chains are mostly forged by proxy-forging accounts, as on the live chain.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlockChainBenchmarks {
+
+	private static final int CHAIN_COUNT = 2;
+	private static final int CHAIN_LENGTH = 500;
+
+	private Repository repository;
+
+	private BlockSummaryData parentBlockSummary;
+	private List<List<BlockSummaryData>> chains;
+
+	@Setup
+	public void setUp() throws DataException {
+		Common.setRepository();
+		Common.useSettings("test-settings-v2-subsets.json");
+		this.repository = RepositoryManager.getRepository();
+
+		// Root forgers and proxy-forging accounts
+		List<byte[]> generatorPublicKeys = new ArrayList<>();
+		for (String forger : new String[] { "alice", "bob", "chloe" }) {
+			generatorPublicKeys.add(Common.getTestAccount(this.repository, forger).getPublicKey());
+
+			byte[] proxyPrivateKey = AccountUtils.proxyForging(this.repository, forger, "dilbert", new BigDecimal("0.5"));
+			generatorPublicKeys.add(new PrivateKeyAccount(this.repository, proxyPrivateKey).getPublicKey());
+		}
+
+		this.parentBlockSummary = new BlockSummaryData(this.repository.getBlockRepository().getLastBlock());
+
+		// Fixed seed so each run compares the same chains
+		Random random = new Random(0L);
+
+		this.chains = new ArrayList<>(CHAIN_COUNT);
+		for (int ci = 0; ci < CHAIN_COUNT; ++ci) {
+			List<BlockSummaryData> blockSummaries = new ArrayList<>(CHAIN_LENGTH);
+
+			for (int bi = 1; bi <= CHAIN_LENGTH; ++bi) {
+				byte[] signature = new byte[64];
+				random.nextBytes(signature);
+				byte[] generatorPublicKey = generatorPublicKeys.get(random.nextInt(generatorPublicKeys.size()));
+
+				blockSummaries.add(new BlockSummaryData(this.parentBlockSummary.getHeight() + bi, signature, generatorPublicKey));
+			}
+
+			this.chains.add(blockSummaries);
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.repository.close();
+		BenchmarkChain.tearDown();
+	}
+
+	@Benchmark
+	public List<BigInteger> calcBlockchainDistances() throws DataException {
+		return BlockChain.calcBlockchainDistances(this.repository, this.parentBlockSummary, this.chains);
+	}
+
+}
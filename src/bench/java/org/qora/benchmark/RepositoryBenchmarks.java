@@ -0,0 +1,97 @@
+package org.qora.benchmark;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.qora.block.Block;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.transaction.Transaction;
+
+/** Repository lookups on hot paths, e.g. transaction references and incoming network transactions. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RepositoryBenchmarks {
+
+	private static final int BLOCK_COUNT = 20;
+
+	private Repository repository;
+
+	private BlockData[] blocks;
+	private int blockIndex = 0;
+
+	private byte[][] signatures;
+	private byte[] unknownSignature;
+	private int signatureIndex = 0;
+
+	@Setup
+	public void setUp() throws DataException {
+		BenchmarkChain.setUp();
+		this.repository = RepositoryManager.getRepository();
+
+		this.blocks = new BlockData[BLOCK_COUNT];
+		List<byte[]> signatures = new ArrayList<>();
+
+		for (int i = 0; i < BLOCK_COUNT; ++i) {
+			BlockData blockData = BenchmarkChain.forgePayments(this.repository);
+			this.blocks[i] = blockData;
+
+			for (Transaction transaction : new Block(this.repository, blockData).getTransactions())
+				signatures.add(transaction.getTransactionData().getSignature());
+		}
+
+		this.signatures = signatures.toArray(new byte[signatures.size()][]);
+
+		this.unknownSignature = new byte[64];
+		new SecureRandom().nextBytes(this.unknownSignature);
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.repository.close();
+		BenchmarkChain.tearDown();
+	}
+
+	@Benchmark
+	public TransactionData transactionFromSignature() throws DataException {
+		byte[] signature = this.signatures[this.signatureIndex];
+		this.signatureIndex = (this.signatureIndex + 1) % this.signatures.length;
+
+		return this.repository.getTransactionRepository().fromSignature(signature);
+	}
+
+	@Benchmark
+	public TransactionData transactionFromUnknownSignature() throws DataException {
+		return this.repository.getTransactionRepository().fromSignature(this.unknownSignature);
+	}
+
+	/** Loads all of a block's transactions, as when validating, processing or serving a block. */
+	@Benchmark
+	public List<Transaction> blockTransactions() throws DataException {
+		BlockData blockData = this.blocks[this.blockIndex];
+		this.blockIndex = (this.blockIndex + 1) % this.blocks.length;
+
+		return new Block(this.repository, blockData).getTransactions();
+	}
+
+}
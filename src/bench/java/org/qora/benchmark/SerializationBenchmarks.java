@@ -0,0 +1,124 @@
+package org.qora.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.qora.block.Block;
+import org.qora.data.at.ATStateData;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.network.message.BlockMessage;
+import org.qora.network.message.Message;
+import org.qora.network.message.Message.MessageException;
+import org.qora.network.message.TransactionMessage;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.transaction.Transaction;
+import org.qora.transform.TransformationException;
+import org.qora.transform.block.BlockTransformer;
+import org.qora.transform.transaction.TransactionTransformer;
+import org.qora.utils.Triple;
+
+/** Block, transaction and network message (de)serialization. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SerializationBenchmarks {
+
+	private Repository repository;
+
+	private Block block;
+	private byte[] blockBytes;
+	private byte[] blockMessageBytes;
+
+	private TransactionData transactionData;
+	private byte[] transactionBytes;
+	private byte[] transactionMessageBytes;
+
+	@Setup
+	public void setUp() throws DataException, TransformationException, MessageException {
+		BenchmarkChain.setUp();
+		this.repository = RepositoryManager.getRepository();
+
+		BlockData blockData = BenchmarkChain.forgePayments(this.repository);
+		this.block = new Block(this.repository, blockData);
+		// Load block's transactions now so they're not part of measurement
+		this.block.getTransactions();
+		this.blockBytes = BlockTransformer.toBytes(this.block);
+		this.blockMessageBytes = new BlockMessage(this.block).toBytes();
+
+		this.transactionData = this.block.getTransactions().get(0).getTransactionData();
+		this.transactionBytes = TransactionTransformer.toBytes(this.transactionData);
+		this.transactionMessageBytes = new TransactionMessage(this.transactionData).toBytes();
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.repository.close();
+		BenchmarkChain.tearDown();
+	}
+
+	@Benchmark
+	public byte[] blockToBytes() throws TransformationException {
+		return BlockTransformer.toBytes(this.block);
+	}
+
+	@Benchmark
+	public Triple<BlockData, List<TransactionData>, List<ATStateData>> blockFromBytes() throws TransformationException {
+		return BlockTransformer.fromBytes(this.blockBytes);
+	}
+
+	@Benchmark
+	public byte[] transactionToBytes() throws TransformationException {
+		return TransactionTransformer.toBytes(this.transactionData);
+	}
+
+	@Benchmark
+	public TransactionData transactionFromBytes() throws TransformationException {
+		return TransactionTransformer.fromBytes(this.transactionBytes);
+	}
+
+	@Benchmark
+	public Transaction transactionFromData() {
+		return Transaction.fromData(this.repository, this.transactionData);
+	}
+
+	@Benchmark
+	public int transactionDataLength() throws TransformationException {
+		return TransactionTransformer.getDataLength(this.transactionData);
+	}
+
+	@Benchmark
+	public Message blockMessageFromByteBuffer() throws MessageException {
+		return Message.fromByteBuffer(receivedBuffer(this.blockMessageBytes));
+	}
+
+	@Benchmark
+	public Message transactionMessageFromByteBuffer() throws MessageException {
+		return Message.fromByteBuffer(receivedBuffer(this.transactionMessageBytes));
+	}
+
+	/** Returns buffer in the state Peer leaves it after reading from socket, i.e. ready for more writes. */
+	private static ByteBuffer receivedBuffer(byte[] messageBytes) {
+		ByteBuffer byteBuffer = ByteBuffer.allocate(messageBytes.length);
+		byteBuffer.put(messageBytes);
+		return byteBuffer;
+	}
+
+}
@@ -0,0 +1,142 @@
+package org.qora.benchmark;
+
+import java.math.BigDecimal;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.qora.account.PrivateKeyAccount;
+import org.qora.asset.Asset;
+import org.qora.asset.Order;
+import org.qora.block.Block;
+import org.qora.block.Block.ValidationResult;
+import org.qora.data.PaymentData;
+import org.qora.data.asset.OrderData;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.AssetUtils;
+import org.qora.payment.Payment;
+import org.qora.test.common.Common;
+import org.qora.transaction.Transaction;
+
+/**
+ * Block validation, payment validation and asset order matching.
+ * <p>
+ * No benchmark changes repository: block validation rolls back its own changes,
+ * payment validation only reads, and order processing is rolled back after each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ValidationBenchmarks {
+
+	/** Number of open orders matched by each processed order. */
+	private static final int OPEN_ORDER_COUNT = 10;
+
+	private static final BigDecimal OPEN_ORDER_AMOUNT = BigDecimal.valueOf(10L).setScale(8);
+	private static final BigDecimal PRICE = new BigDecimal("1.5").setScale(8);
+
+	private Repository repository;
+
+	private Block block;
+
+	private byte[] paymentSenderPublicKey;
+	private List<PaymentData> payments;
+
+	private byte[] orderId;
+	private byte[] orderCreatorPublicKey;
+	private BigDecimal orderAmount;
+	private long orderTimestamp;
+
+	@Setup
+	public void setUp() throws DataException {
+		BenchmarkChain.setUp();
+		this.repository = RepositoryManager.getRepository();
+
+		// Open orders, offering test asset, for our processed order to match against
+		for (int i = 0; i < OPEN_ORDER_COUNT; ++i)
+			AssetUtils.createOrder(this.repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, OPEN_ORDER_AMOUNT, PRICE);
+
+		// Processed order takes all open orders. As it's rolled back each time, it can reuse the same order ID.
+		this.orderId = new byte[64];
+		new SecureRandom().nextBytes(this.orderId);
+		this.orderCreatorPublicKey = Common.getTestAccount(this.repository, "bob").getPublicKey();
+		this.orderAmount = OPEN_ORDER_AMOUNT.multiply(BigDecimal.valueOf(OPEN_ORDER_COUNT)).multiply(PRICE).setScale(8);
+		this.orderTimestamp = System.currentTimeMillis();
+
+		// Signed, but unprocessed, block containing payments
+		BlockData parentBlockData = this.repository.getBlockRepository().getLastBlock();
+		PrivateKeyAccount generator = Common.getTestAccount(this.repository, "alice");
+		this.block = new Block(this.repository, parentBlockData, generator, System.currentTimeMillis());
+
+		for (TransactionData transactionData : BenchmarkChain.buildPayments(this.repository))
+			this.block.addTransaction(transactionData);
+
+		this.block.sign();
+
+		ValidationResult result = this.block.isValid();
+		if (result != ValidationResult.OK)
+			throw new IllegalStateException(String.format("Benchmark block invalid: %s", result.name()));
+
+		// Multi-payment, in QORA and test asset, from "alice" to every other test account
+		this.paymentSenderPublicKey = Common.getTestAccount(this.repository, "alice").getPublicKey();
+		this.payments = new ArrayList<>();
+		for (int i = 1; i < BenchmarkChain.ACCOUNT_NAMES.length; ++i) {
+			String recipient = Common.getTestAccount(this.repository, BenchmarkChain.ACCOUNT_NAMES[i]).getAddress();
+			this.payments.add(new PaymentData(recipient, Asset.QORA, BenchmarkChain.PAYMENT_AMOUNT));
+			this.payments.add(new PaymentData(recipient, AssetUtils.testAssetId, BenchmarkChain.PAYMENT_AMOUNT));
+		}
+
+		Transaction.ValidationResult paymentResult = this.paymentIsValid();
+		if (paymentResult != Transaction.ValidationResult.OK)
+			throw new IllegalStateException(String.format("Benchmark payments invalid: %s", paymentResult.name()));
+	}
+
+	@TearDown
+	public void tearDown() throws DataException {
+		this.repository.close();
+		BenchmarkChain.tearDown();
+	}
+
+	@Benchmark
+	public ValidationResult blockIsValid() throws DataException {
+		return this.block.isValid();
+	}
+
+	@Benchmark
+	public Transaction.ValidationResult paymentIsValid() throws DataException {
+		return new Payment(this.repository).isValid(this.paymentSenderPublicKey, this.payments, AssetUtils.fee);
+	}
+
+	@Benchmark
+	public void orderProcess() throws DataException {
+		OrderData orderData = new OrderData(this.orderId, this.orderCreatorPublicKey, AssetUtils.otherAssetId, AssetUtils.testAssetId,
+				this.orderAmount, PRICE, this.orderTimestamp);
+
+		this.repository.setSavepoint();
+		try {
+			new Order(this.repository, orderData).process();
+		} finally {
+			this.repository.rollbackToSavepoint();
+		}
+	}
+
+}
@@ -1,17 +1,16 @@
 package org.qora.account;
 
 import java.math.BigDecimal;
-import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qora.asset.Asset;
 import org.qora.block.Block;
 import org.qora.block.BlockChain;
+import org.qora.controller.Mempool;
 import org.qora.data.account.AccountBalanceData;
 import org.qora.data.account.AccountData;
 import org.qora.data.block.BlockData;
-import org.qora.data.transaction.TransactionData;
 import org.qora.repository.BlockRepository;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
@@ -65,25 +64,11 @@ public class Account {
 	public BigDecimal getGeneratingBalance() throws DataException {
 		BigDecimal balance = this.getConfirmedBalance(Asset.QORA);
 
-		BlockRepository blockRepository = this.repository.getBlockRepository();
-		BlockData blockData = blockRepository.getLastBlock();
-
-		for (int i = 1; i < BlockChain.getInstance().getBlockDifficultyInterval() && blockData != null && blockData.getHeight() > 1; ++i) {
-			Block block = new Block(this.repository, blockData);
-
-			// CIYAM AT transactions should be fetched from repository so no special handling needed here
-			for (Transaction transaction : block.getTransactions()) {
-				if (transaction.isInvolved(this)) {
-					final BigDecimal amount = transaction.getAmount(this);
+		// Amounts received in the last (blockDifficultyInterval - 1) blocks, excluding genesis block
+		int blockchainHeight = this.repository.getBlockRepository().getBlockchainHeight();
+		int afterHeight = Math.max(1, blockchainHeight - BlockChain.getInstance().getBlockDifficultyInterval() + 1);
 
-					// Subtract positive amounts only
-					if (amount.compareTo(BigDecimal.ZERO) > 0)
-						balance = balance.subtract(amount);
-				}
-			}
-
-			blockData = block.getParent();
-		}
+		balance = balance.subtract(this.repository.getAccountRepository().getRecentInflows(this.address, afterHeight));
 
 		// Do not go below 0
 		balance = balance.max(BigDecimal.ZERO);
@@ -98,12 +83,21 @@ public class Account {
 		if (confirmations == 1)
 			return this.getConfirmedBalance(assetId);
 
+		BlockRepository blockRepository = this.repository.getBlockRepository();
+		BigDecimal balance = this.getConfirmedBalance(assetId);
+
+		// Recent QORA amounts are kept in repository so use those if possible
+		if (assetId == Asset.QORA && confirmations - 1 <= BlockChain.getInstance().getRecentInflowsWindow()) {
+			// Note: lower bound of 1 to make sure we don't include genesis block
+			int afterHeight = Math.max(1, blockRepository.getBlockchainHeight() - confirmations + 1);
+
+			return balance.subtract(this.repository.getAccountRepository().getRecentNetAmounts(this.address, afterHeight));
+		}
+
 		/*
 		 * For a balance with more confirmations work back from last block, undoing transactions involving this account, until we have processed required number
 		 * of blocks.
 		 */
-		BlockRepository blockRepository = this.repository.getBlockRepository();
-		BigDecimal balance = this.getConfirmedBalance(assetId);
 		BlockData blockData = blockRepository.getLastBlock();
 
 		// Note: "blockData.getHeight() > 1" to make sure we don't examine genesis block
@@ -168,24 +162,14 @@ public class Account {
 	/**
 	 * Fetch last reference for account, considering unconfirmed transactions only, or return null.
 	 * <p>
-	 * NOTE: calls Transaction.getUnconfirmedTransactions which discards uncommitted
-	 * repository changes.
+	 * Follows chain of unconfirmed transactions, created by this account,
+	 * starting from account's confirmed last reference.
 	 * 
 	 * @return byte[] reference, or null if no unconfirmed transactions for this account.
 	 * @throws DataException
 	 */
 	public byte[] getUnconfirmedLastReference() throws DataException {
-		// Newest unconfirmed transaction takes priority
-		List<TransactionData> unconfirmedTransactions = Transaction.getUnconfirmedTransactions(repository);
-
-		byte[] reference = null;
-
-		for (TransactionData transactionData : unconfirmedTransactions) {
-			String address = PublicKeyAccount.getAddress(transactionData.getCreatorPublicKey());
-
-			if (address.equals(this.address))
-				reference = transactionData.getSignature();
-		}
+		byte[] reference = Mempool.getInstance().getLastReference(this.address, this.getLastReference());
 
 		final byte[] loggingReference = reference;
 		LOGGER.trace(() -> String.format("Last unconfirmed reference for %s is %s", this.address, loggingReference == null ? "null" : Base58.encode(loggingReference)));
@@ -1,8 +1,8 @@
 package org.qora.account;
 
 import org.bouncycastle.crypto.params.Ed25519PublicKeyParameters;
-import org.bouncycastle.math.ec.rfc8032.Ed25519;
 import org.qora.crypto.Crypto;
+import org.qora.crypto.SignatureVerifier;
 import org.qora.data.account.AccountData;
 import org.qora.repository.Repository;
 
@@ -38,11 +38,7 @@ public class PublicKeyAccount extends Account {
 	}
 
 	public static boolean verify(byte[] publicKey, byte[] signature, byte[] message) {
-		try {
-			return Ed25519.verify(signature, 0, publicKey, 0, message, 0, message.length);
-		} catch (Exception e) {
-			return false;
-		}
+		return SignatureVerifier.verify(publicKey, signature, message);
 	}
 
 	public static String getAddress(byte[] publicKey) {
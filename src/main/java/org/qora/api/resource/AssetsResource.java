@@ -32,6 +32,7 @@ import org.qora.api.model.AggregatedOrder;
 import org.qora.api.model.TradeWithOrderInfo;
 import org.qora.api.resource.TransactionsResource.ConfirmationStatus;
 import org.qora.asset.Asset;
+import org.qora.asset.OrderBook;
 import org.qora.crypto.Crypto;
 import org.qora.data.account.AccountBalanceData;
 import org.qora.data.account.AccountData;
@@ -273,13 +274,16 @@ public class AssetsResource {
 		ref = "reverse"
 	) @QueryParam("reverse") Boolean reverse) {
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			if (!repository.getAssetRepository().assetExists(assetId))
+			AssetData assetData = repository.getAssetRepository().fromAssetId(assetId);
+			if (assetData == null)
 				throw ApiExceptionFactory.INSTANCE.createException(request, ApiError.INVALID_ASSET_ID);
 
-			if (!repository.getAssetRepository().assetExists(otherAssetId))
+			AssetData otherAssetData = repository.getAssetRepository().fromAssetId(otherAssetId);
+			if (otherAssetData == null)
 				throw ApiExceptionFactory.INSTANCE.createException(request, ApiError.INVALID_ASSET_ID);
 
-			List<OrderData> orders = repository.getAssetRepository().getAggregatedOpenOrders(assetId, otherAssetId, limit, offset, reverse);
+			// Served from in-memory order book to save aggregating in repository every call
+			List<OrderData> orders = OrderBook.getInstance().getAggregatedOpenOrders(assetData, otherAssetData, limit, offset, reverse);
 
 			// Map to aggregated form
 			return orders.stream().map(orderData -> new AggregatedOrder(orderData)).collect(Collectors.toList());
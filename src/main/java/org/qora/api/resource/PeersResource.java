@@ -29,8 +29,6 @@ import org.qora.data.network.PeerData;
 import org.qora.network.Network;
 import org.qora.network.PeerAddress;
 import org.qora.repository.DataException;
-import org.qora.repository.Repository;
-import org.qora.repository.RepositoryManager;
 
 @Path("/peers")
 @Tag(name = "Peers")
@@ -80,8 +78,8 @@ public class PeersResource {
 		ApiError.REPOSITORY_ISSUE
 	})
 	public List<PeerData> getKnownPeers() {
-		try (final Repository repository = RepositoryManager.getRepository()) {
-			return repository.getNetworkRepository().getAllPeers();
+		try {
+			return Network.getInstance().getKnownPeers();
 		} catch (DataException e) {
 			throw ApiExceptionFactory.INSTANCE.createException(request, ApiError.REPOSITORY_ISSUE, e);
 		}
@@ -142,12 +140,10 @@ public class PeersResource {
 	public String addPeer(String address) {
 		Security.checkApiCallAllowed(request);
 
-		try (final Repository repository = RepositoryManager.getRepository()) {
+		try {
 			PeerAddress peerAddress = PeerAddress.fromString(address);
 
-			PeerData peerData = new PeerData(peerAddress, System.currentTimeMillis(), "API");
-			repository.getNetworkRepository().save(peerData);
-			repository.saveChanges();
+			Network.getInstance().addPeer(peerAddress, "API");
 
 			return "true";
 		} catch (IllegalArgumentException e) {
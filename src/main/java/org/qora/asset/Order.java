@@ -15,7 +15,6 @@ import org.qora.block.BlockChain;
 import org.qora.data.asset.AssetData;
 import org.qora.data.asset.OrderData;
 import org.qora.data.asset.TradeData;
-import org.qora.repository.AssetRepository;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
 import org.qora.utils.Base58;
@@ -259,8 +258,6 @@ public class Order {
 	}
 
 	public void process() throws DataException {
-		AssetRepository assetRepository = this.repository.getAssetRepository();
-
 		AssetData haveAssetData = getHaveAsset();
 		AssetData wantAssetData = getWantAsset();
 
@@ -279,9 +276,9 @@ public class Order {
 		logOrder("Processing our order", true, this.orderData);
 
 		// Fetch corresponding open orders that might potentially match, hence reversed want/have assetIDs.
-		// Returned orders are sorted with lowest "price" first.
-		List<OrderData> orders = assetRepository.getOpenOrdersForTrading(wantAssetId, haveAssetId, isOurOrderNewPricing ? this.orderData.getPrice() : null);
-		LOGGER.trace("Open orders fetched from repository: " + orders.size());
+		// Returned orders are sorted with best "price" first, including uncommitted orders from earlier in this block.
+		List<OrderData> orders = OrderBook.getInstance().getOpenOrdersForTrading(this.repository, wantAssetId, haveAssetId, isOurOrderNewPricing ? this.orderData.getPrice() : null);
+		LOGGER.trace("Open orders fetched from order book: " + orders.size());
 
 		if (orders.isEmpty())
 			return;
@@ -0,0 +1,351 @@
+package org.qora.asset;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.data.asset.AssetData;
+import org.qora.data.asset.OrderData;
+import org.qora.repository.AssetOrdersListener;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.utils.ByteArray;
+
+/**
+ * In-memory book of open asset orders, for each asset pair.
+ * <p>
+ * Each pair's orders are held in price levels, sorted by price,
+ * with each level holding its orders in time-priority order, along with their total unfulfilled amount.
+ * <p>
+ * Populated lazily from repository on first use, then kept in sync via
+ * {@link AssetOrdersListener} callbacks, which only occur after
+ * repository changes have been committed.
+ * <p>
+ * Order matching needs to see orders created, traded, cancelled, reopened or deleted
+ * earlier in the same, uncommitted, block, so these are overlaid from the caller's repository session,
+ * see {@link #getOpenOrdersForTrading(Repository, long, long, BigDecimal)}.
+ */
+public class OrderBook implements AssetOrdersListener {
+
+	private static final Logger LOGGER = LogManager.getLogger(OrderBook.class);
+
+	/** Repository holds amounts and prices to 8 decimal places. */
+	private static final int AMOUNT_SCALE = 8;
+
+	private static final Comparator<OrderData> TIME_PRIORITY_COMPARATOR = Comparator.comparingLong(OrderData::getTimestamp)
+			.thenComparing(orderData -> new ByteArray(orderData.getOrderId()));
+
+	private static final Comparator<OrderData> ASCENDING_PRICE_COMPARATOR = Comparator.comparing(OrderData::getPrice).thenComparing(TIME_PRIORITY_COMPARATOR);
+	private static final Comparator<OrderData> DESCENDING_PRICE_COMPARATOR = Comparator.comparing(OrderData::getPrice, Comparator.reverseOrder())
+			.thenComparing(TIME_PRIORITY_COMPARATOR);
+
+	private static OrderBook instance;
+
+	/** Open orders with the same price, for one asset pair. */
+	private static class PriceLevel {
+		private final TreeSet<OrderData> orders = new TreeSet<>(TIME_PRIORITY_COMPARATOR);
+		private BigDecimal unfulfilled = BigDecimal.ZERO.setScale(AMOUNT_SCALE);
+	}
+
+	/** Open orders offering have-asset in return for want-asset. */
+	private static class AssetPair {
+		private final long haveAssetId;
+		private final long wantAssetId;
+
+		public AssetPair(long haveAssetId, long wantAssetId) {
+			this.haveAssetId = haveAssetId;
+			this.wantAssetId = wantAssetId;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other)
+				return true;
+
+			if (!(other instanceof AssetPair))
+				return false;
+
+			AssetPair otherAssetPair = (AssetPair) other;
+
+			return this.haveAssetId == otherAssetPair.haveAssetId && this.wantAssetId == otherAssetPair.wantAssetId;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.haveAssetId) * 31 + Long.hashCode(this.wantAssetId);
+		}
+	}
+
+	private boolean isLoaded = false;
+	private final Map<ByteArray, OrderData> ordersById = new HashMap<>();
+	private final Map<AssetPair, TreeMap<BigDecimal, PriceLevel>> priceLevelsByPair = new HashMap<>();
+
+	// Constructors
+
+	private OrderBook() {
+	}
+
+	public static synchronized OrderBook getInstance() {
+		if (instance == null) {
+			instance = new OrderBook();
+			RepositoryManager.setAssetOrdersListener(instance);
+		}
+
+		return instance;
+	}
+
+	// Listener callbacks
+
+	@Override
+	public synchronized void onOrderSaved(OrderData orderData) {
+		// If we're not loaded yet then repository will have this order when we do load
+		if (!this.isLoaded)
+			return;
+
+		this.remove(orderData.getOrderId());
+
+		if (!orderData.getIsClosed() && !orderData.getIsFulfilled())
+			this.add(orderData);
+	}
+
+	@Override
+	public synchronized void onOrderDeleted(byte[] orderId) {
+		if (!this.isLoaded)
+			return;
+
+		this.remove(orderId);
+	}
+
+	@Override
+	public synchronized void onRepositoryClosed() {
+		this.clear();
+	}
+
+	// Queries
+
+	/** Returns number of open orders, across all asset pairs. */
+	public synchronized int size() throws DataException {
+		this.ensureLoaded();
+
+		return this.ordersById.size();
+	}
+
+	/**
+	 * Returns open orders, offering have-asset for want-asset, in price then time-priority order.
+	 * <p>
+	 * Returned orders exclude optional API fields.
+	 */
+	public synchronized List<OrderData> getOpenOrders(long haveAssetId, long wantAssetId) throws DataException {
+		this.ensureLoaded();
+
+		List<OrderData> orders = new ArrayList<>();
+
+		TreeMap<BigDecimal, PriceLevel> priceLevels = this.priceLevelsByPair.get(new AssetPair(haveAssetId, wantAssetId));
+		if (priceLevels == null)
+			return orders;
+
+		for (PriceLevel priceLevel : priceLevels.values())
+			orders.addAll(priceLevel.orders);
+
+		return orders;
+	}
+
+	/**
+	 * Returns open orders, offering have-asset for want-asset, that might match an order offering want-asset for have-asset.
+	 * <p>
+	 * Includes changes made by <tt>repository</tt>'s session that aren't yet committed,
+	 * e.g. orders created earlier in the block being processed.
+	 * <p>
+	 * If <tt>minimumPrice</tt> is null ('old' pricing), orders are returned highest price first.<br>
+	 * Otherwise ('new' pricing), only orders with prices at least as good as <tt>minimumPrice</tt> are returned, best price first.
+	 * Under 'new' pricing, best price is highest if have-asset ID is lower than want-asset ID, otherwise lowest.<br>
+	 * Orders with the same price are returned in time-priority order.
+	 * <p>
+	 * Returned orders are copies, excluding optional API fields.
+	 *
+	 * @param repository caller's repository session
+	 * @param haveAssetId have-asset of returned orders
+	 * @param wantAssetId want-asset of returned orders
+	 * @param minimumPrice worst acceptable price, or null
+	 * @return matchable orders, best price first
+	 * @throws DataException
+	 */
+	public List<OrderData> getOpenOrdersForTrading(Repository repository, long haveAssetId, long wantAssetId, BigDecimal minimumPrice) throws DataException {
+		// Fetch before locking, as repository call might block
+		Map<ByteArray, OrderData> uncommittedOrders = repository.getAssetRepository().getUncommittedOrders();
+
+		final boolean isHighestPriceFirst = minimumPrice == null || haveAssetId < wantAssetId;
+
+		List<OrderData> orders = new ArrayList<>();
+
+		synchronized (this) {
+			this.ensureLoaded();
+
+			TreeMap<BigDecimal, PriceLevel> priceLevels = this.priceLevelsByPair.get(new AssetPair(haveAssetId, wantAssetId));
+			if (priceLevels != null) {
+				NavigableMap<BigDecimal, PriceLevel> matchablePriceLevels = isHighestPriceFirst ? priceLevels.descendingMap() : priceLevels;
+
+				if (minimumPrice != null)
+					matchablePriceLevels = matchablePriceLevels.headMap(minimumPrice, true);
+
+				for (PriceLevel priceLevel : matchablePriceLevels.values())
+					for (OrderData orderData : priceLevel.orders)
+						// Uncommitted changes are added below
+						if (!uncommittedOrders.containsKey(new ByteArray(orderData.getOrderId())))
+							orders.add(copyForTrading(orderData));
+			}
+		}
+
+		boolean hasUncommittedOrders = false;
+
+		for (OrderData orderData : uncommittedOrders.values()) {
+			// Deleted, or not for this asset pair?
+			if (orderData == null || orderData.getHaveAssetId() != haveAssetId || orderData.getWantAssetId() != wantAssetId)
+				continue;
+
+			if (orderData.getIsClosed() || orderData.getIsFulfilled())
+				continue;
+
+			if (minimumPrice != null) {
+				int priceComparison = orderData.getPrice().compareTo(minimumPrice);
+
+				if (isHighestPriceFirst ? priceComparison < 0 : priceComparison > 0)
+					continue;
+			}
+
+			orders.add(copyForTrading(orderData));
+			hasUncommittedOrders = true;
+		}
+
+		// Committed orders are already in order, so only need sorting if uncommitted orders were added
+		if (hasUncommittedOrders)
+			orders.sort(isHighestPriceFirst ? DESCENDING_PRICE_COMPARATOR : ASCENDING_PRICE_COMPARATOR);
+
+		return orders;
+	}
+
+	/**
+	 * Returns one entry per price level, offering have-asset for want-asset, in price order.
+	 * <p>
+	 * Each entry's amount is total unfulfilled amount at that price,
+	 * with timestamp of most recent order at that price.
+	 */
+	public synchronized List<OrderData> getAggregatedOpenOrders(AssetData haveAssetData, AssetData wantAssetData, Integer limit, Integer offset, Boolean reverse)
+			throws DataException {
+		this.ensureLoaded();
+
+		List<OrderData> orders = new ArrayList<>();
+
+		TreeMap<BigDecimal, PriceLevel> priceLevels = this.priceLevelsByPair.get(new AssetPair(haveAssetData.getAssetId(), wantAssetData.getAssetId()));
+		if (priceLevels == null)
+			return orders;
+
+		NavigableMap<BigDecimal, PriceLevel> orderedPriceLevels = reverse != null && reverse ? priceLevels.descendingMap() : priceLevels;
+
+		int skip = offset != null ? offset : 0;
+		for (Map.Entry<BigDecimal, PriceLevel> entry : orderedPriceLevels.entrySet()) {
+			if (skip > 0) {
+				--skip;
+				continue;
+			}
+
+			if (limit != null && limit > 0 && orders.size() >= limit)
+				break;
+
+			PriceLevel priceLevel = entry.getValue();
+			long timestamp = priceLevel.orders.last().getTimestamp();
+
+			orders.add(new OrderData(null, null, haveAssetData.getAssetId(), wantAssetData.getAssetId(), priceLevel.unfulfilled, BigDecimal.ZERO,
+					entry.getKey(), timestamp, false, false, haveAssetData.getName(), wantAssetData.getName()));
+		}
+
+		return orders;
+	}
+
+	// Loading / maintenance
+
+	private void ensureLoaded() throws DataException {
+		if (this.isLoaded)
+			return;
+
+		// Use our own repository session so we don't see caller's uncommitted changes
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			List<OrderData> orders = repository.getAssetRepository().getAllOpenOrders();
+
+			for (OrderData orderData : orders)
+				this.add(orderData);
+		}
+
+		this.isLoaded = true;
+
+		LOGGER.debug(() -> String.format("Loaded %d open asset orders", this.ordersById.size()));
+	}
+
+	private void clear() {
+		this.ordersById.clear();
+		this.priceLevelsByPair.clear();
+
+		this.isLoaded = false;
+	}
+
+	private void add(OrderData orderData) {
+		this.ordersById.put(new ByteArray(orderData.getOrderId()), orderData);
+
+		TreeMap<BigDecimal, PriceLevel> priceLevels = this.priceLevelsByPair.computeIfAbsent(new AssetPair(orderData.getHaveAssetId(), orderData.getWantAssetId()),
+				assetPair -> new TreeMap<>());
+		PriceLevel priceLevel = priceLevels.computeIfAbsent(toPriceKey(orderData.getPrice()), price -> new PriceLevel());
+
+		priceLevel.orders.add(orderData);
+		priceLevel.unfulfilled = priceLevel.unfulfilled.add(Order.getAmountLeft(orderData));
+	}
+
+	private void remove(byte[] orderId) {
+		OrderData orderData = this.ordersById.remove(new ByteArray(orderId));
+		if (orderData == null)
+			return;
+
+		AssetPair assetPair = new AssetPair(orderData.getHaveAssetId(), orderData.getWantAssetId());
+		TreeMap<BigDecimal, PriceLevel> priceLevels = this.priceLevelsByPair.get(assetPair);
+		if (priceLevels == null)
+			return;
+
+		BigDecimal price = toPriceKey(orderData.getPrice());
+		PriceLevel priceLevel = priceLevels.get(price);
+		if (priceLevel == null || !priceLevel.orders.remove(orderData))
+			return;
+
+		if (priceLevel.orders.isEmpty()) {
+			priceLevels.remove(price);
+
+			if (priceLevels.isEmpty())
+				this.priceLevelsByPair.remove(assetPair);
+
+			return;
+		}
+
+		priceLevel.unfulfilled = priceLevel.unfulfilled.subtract(Order.getAmountLeft(orderData));
+	}
+
+	/** Returns copy of order, with amounts and price to same scale as repository, as order matching uses them in calculations. */
+	private static OrderData copyForTrading(OrderData orderData) {
+		return new OrderData(orderData.getOrderId(), orderData.getCreatorPublicKey(), orderData.getHaveAssetId(), orderData.getWantAssetId(),
+				orderData.getAmount().setScale(AMOUNT_SCALE, RoundingMode.DOWN), orderData.getFulfilled().setScale(AMOUNT_SCALE, RoundingMode.DOWN),
+				toPriceKey(orderData.getPrice()), orderData.getTimestamp(), false, false);
+	}
+
+	/** Returns price with same scale as repository, so output matches and equal prices share a level. */
+	private static BigDecimal toPriceKey(BigDecimal price) {
+		return price.setScale(AMOUNT_SCALE, RoundingMode.DOWN);
+	}
+
+}
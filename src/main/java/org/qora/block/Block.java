@@ -8,8 +8,12 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
@@ -22,13 +26,16 @@ import org.qora.asset.Asset;
 import org.qora.at.AT;
 import org.qora.block.BlockChain.BlockTimingByHeight;
 import org.qora.crypto.Crypto;
+import org.qora.crypto.SignatureVerifier;
 import org.qora.data.account.ProxyForgerData;
+import org.qora.data.account.RecentInflowData;
 import org.qora.data.at.ATData;
 import org.qora.data.at.ATStateData;
 import org.qora.data.block.BlockData;
 import org.qora.data.block.BlockTransactionData;
 import org.qora.data.transaction.TransactionData;
 import org.qora.repository.ATRepository;
+import org.qora.repository.AccountRepository;
 import org.qora.repository.BlockRepository;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
@@ -42,6 +49,7 @@ import org.qora.transform.Transformer;
 import org.qora.transform.block.BlockTransformer;
 import org.qora.transform.transaction.TransactionTransformer;
 import org.qora.utils.Base58;
+import org.qora.utils.ByteArray;
 import org.qora.utils.NTP;
 
 import com.google.common.primitives.Bytes;
@@ -758,6 +766,34 @@ public class Block {
 		return true;
 	}
 
+	/**
+	 * Verifies generator's signature and signatures of this block's transactions in parallel.
+	 * <p>
+	 * Successfully verified signatures are cached, so a subsequent call to {@link #isSignatureValid()}
+	 * only needs to verify the block's transactions signature.
+	 * 
+	 * @return true if all signatures are valid, false otherwise
+	 * @throws DataException
+	 */
+	public boolean preVerifySignatures() throws DataException {
+		List<BooleanSupplier> checks = new ArrayList<>();
+
+		checks.add(() -> {
+			try {
+				return this.generator.verify(this.blockData.getGeneratorSignature(), BlockTransformer.getBytesForGeneratorSignature(this.blockData));
+			} catch (TransformationException e) {
+				return false;
+			}
+		});
+
+		for (Transaction transaction : this.getTransactions())
+			// AT transactions aren't signed - see BlockTransformer.getBytesForTransactionsSignature()
+			if (transaction.getTransactionData().getType() != TransactionType.AT)
+				checks.add(transaction::isSignatureValid);
+
+		return SignatureVerifier.verifyAll(checks, BooleanSupplier::getAsBoolean);
+	}
+
 	/**
 	 * Returns whether Block's timestamp is valid.
 	 * <p>
@@ -794,6 +830,128 @@ public class Block {
 		return ValidationResult.OK;
 	}
 
+	/**
+	 * Adds valid transactions, from passed candidates, to this new block while there is space.
+	 * <p>
+	 * Used when constructing a new block during forging, instead of repeatedly calling
+	 * {@link #addTransaction(TransactionData)} then {@link #isValid()}, which re-processes all
+	 * of block's transactions for each candidate.
+	 * <p>
+	 * Block's existing transactions, then each candidate in turn, are trial-processed under a single
+	 * repository savepoint, so each candidate is validated against the state left by those already accepted.
+	 * A rejected candidate only has its own changes rolled back. All changes are rolled back on return.
+	 * <p>
+	 * Candidates should be in block order, i.e. sorted using {@link Transaction#getDataComparator()},
+	 * so that the finished block validates the same way.
+	 * <p>
+	 * Requires block's {@code generator} being a {@code PrivateKeyAccount} so block's transactions signature can be recalculated.
+	 * 
+	 * @param candidateTransactions
+	 * @return number of transactions added
+	 * @throws IllegalStateException
+	 *             if block's {@code generator} is not a {@code PrivateKeyAccount}.
+	 */
+	public int addValidTransactions(List<TransactionData> candidateTransactions) throws DataException {
+		// Can't add to transactions if we haven't loaded existing ones yet
+		if (this.transactions == null)
+			throw new IllegalStateException("Attempted to add transactions to partially loaded database Block");
+
+		if (!(this.generator instanceof PrivateKeyAccount))
+			throw new IllegalStateException("Block's generator has no private key");
+
+		if (this.blockData.getGeneratorSignature() == null)
+			throw new IllegalStateException("Cannot calculate transactions signature as block has no generator signature");
+
+		int blockLength;
+		try {
+			blockLength = BlockTransformer.getDataLength(this);
+		} catch (TransformationException e) {
+			throw new DataException("Unable to determine new block's length", e);
+		}
+
+		Set<ByteArray> includedSignatures = new HashSet<>();
+		for (Transaction transaction : this.transactions)
+			includedSignatures.add(new ByteArray(transaction.getTransactionData().getSignature()));
+
+		List<Transaction> acceptedTransactions = new ArrayList<>();
+
+		this.repository.setSavepoint();
+		try {
+			// Existing (e.g. AT) transactions come first in block so need processing first
+			for (Transaction transaction : this.transactions)
+				if (this.trialProcessTransaction(transaction) != ValidationResult.OK)
+					return 0;
+
+			for (TransactionData transactionData : candidateTransactions) {
+				// Already added?
+				if (!includedSignatures.add(new ByteArray(transactionData.getSignature())))
+					continue;
+
+				// Check there is space in block
+				int transactionLength;
+				try {
+					transactionLength = TransactionTransformer.getDataLength(transactionData);
+				} catch (TransformationException e) {
+					continue;
+				}
+
+				if (blockLength + transactionLength > MAX_BLOCK_BYTES)
+					continue;
+
+				Transaction transaction = Transaction.fromData(this.repository, transactionData);
+
+				// Savepoint for this candidate only, so rejecting it doesn't lose those already accepted
+				this.repository.setSavepoint();
+
+				ValidationResult validationResult = ValidationResult.TRANSACTION_INVALID;
+				try {
+					validationResult = this.trialProcessTransaction(transaction);
+				} catch (DataException e) {
+					// Treated as invalid
+				} finally {
+					// Always pop candidate's savepoint, even if exception thrown, so outer savepoint is next in line
+					if (validationResult == ValidationResult.OK)
+						this.repository.releaseSavepoint();
+					else
+						this.repository.rollbackToSavepoint();
+				}
+
+				if (validationResult != ValidationResult.OK) {
+					LOGGER.debug(String.format("Skipping invalid transaction %s during block generation: %s",
+							Base58.encode(transactionData.getSignature()), validationResult.name()));
+					continue;
+				}
+
+				acceptedTransactions.add(transaction);
+				blockLength += Transformer.INT_LENGTH + transactionLength;
+			}
+		} finally {
+			this.repository.rollbackToSavepoint();
+		}
+
+		if (acceptedTransactions.isEmpty())
+			return 0;
+
+		// Add to block
+		this.transactions.addAll(acceptedTransactions);
+
+		// Re-sort, just in case candidates weren't in block order
+		this.transactions.sort(Transaction.getComparator());
+
+		// Update transaction count and totalFees
+		BigDecimal totalFees = this.blockData.getTotalFees();
+		for (Transaction transaction : acceptedTransactions)
+			totalFees = totalFees.add(transaction.getTransactionData().getFee());
+
+		this.blockData.setTransactionCount(this.blockData.getTransactionCount() + acceptedTransactions.size());
+		this.blockData.setTotalFees(totalFees);
+
+		// We've added transactions, so recalculate transactions signature
+		calcTransactionsSignature();
+
+		return acceptedTransactions.size();
+	}
+
 	/**
 	 * Returns whether Block is valid.
 	 * <p>
@@ -806,6 +964,16 @@ public class Block {
 	 * @throws DataException
 	 */
 	public ValidationResult isValid() throws DataException {
+		return this.isValid(false);
+	}
+
+	/**
+	 * Returns whether Block is valid, optionally keeping repository changes made by trial-processing transactions.
+	 * <p>
+	 * If <tt>keepTransactionChanges</tt> is true, and block is valid, then the repository savepoint
+	 * set before trial-processing transactions is left in place for the caller to release or rollback.
+	 */
+	private ValidationResult isValid(boolean keepTransactionChanges) throws DataException {
 		// Check parent block exists
 		if (this.blockData.getReference() == null)
 			return ValidationResult.REFERENCE_MISSING;
@@ -881,78 +1049,95 @@ public class Block {
 		}
 
 		// Check transactions
+		boolean keepChanges = false;
 		try {
 			// Create repository savepoint here so we can rollback to it after testing transactions
 			repository.setSavepoint();
 
 			for (Transaction transaction : this.getTransactions()) {
-				TransactionData transactionData = transaction.getTransactionData();
+				ValidationResult transactionResult = this.trialProcessTransaction(transaction);
+				if (transactionResult != ValidationResult.OK)
+					return transactionResult;
+			}
+
+			keepChanges = keepTransactionChanges;
+		} catch (DataException e) {
+			return ValidationResult.TRANSACTION_INVALID;
+		} finally {
+			// Rollback repository changes made by test-processing transactions above, unless caller wants them
+			if (!keepChanges)
+				try {
+					this.repository.rollbackToSavepoint();
+				} catch (DataException e) {
+					/*
+					 * Rollback failure most likely due to prior DataException, so discard this DataException. Prior DataException propagates to caller.
+					 */
+				}
+		}
+
+		// Block is valid
+		return ValidationResult.OK;
+	}
 
-				// GenesisTransactions are not allowed (GenesisBlock overrides isValid() to allow them)
-				if (transactionData.getType() == TransactionType.GENESIS || transactionData.getType() == TransactionType.ACCOUNT_FLAGS)
-					return ValidationResult.GENESIS_TRANSACTIONS_INVALID;
+	/**
+	 * Checks transaction is valid in this block and, if so, processes it so following transactions validate properly.
+	 * <p>
+	 * Repository changes are left for caller to rollback or keep.
+	 */
+	private ValidationResult trialProcessTransaction(Transaction transaction) throws DataException {
+		TransactionData transactionData = transaction.getTransactionData();
 
-				// Check timestamp and deadline
-				if (transactionData.getTimestamp() > this.blockData.getTimestamp()
-						|| transaction.getDeadline() <= this.blockData.getTimestamp())
-					return ValidationResult.TRANSACTION_TIMESTAMP_INVALID;
+		// GenesisTransactions are not allowed (GenesisBlock overrides isValid() to allow them)
+		if (transactionData.getType() == TransactionType.GENESIS || transactionData.getType() == TransactionType.ACCOUNT_FLAGS)
+			return ValidationResult.GENESIS_TRANSACTIONS_INVALID;
 
-				// Check transaction isn't already included in a block
-				if (this.repository.getTransactionRepository().isConfirmed(transactionData.getSignature()))
-					return ValidationResult.TRANSACTION_ALREADY_PROCESSED;
+		// Check timestamp and deadline
+		if (transactionData.getTimestamp() > this.blockData.getTimestamp()
+				|| transaction.getDeadline() <= this.blockData.getTimestamp())
+			return ValidationResult.TRANSACTION_TIMESTAMP_INVALID;
 
-				// Check transaction has correct reference, etc.
-				if (!transaction.hasValidReference()) {
-					LOGGER.debug("Error during transaction validation, tx " + Base58.encode(transactionData.getSignature()) + ": INVALID_REFERENCE");
-					return ValidationResult.TRANSACTION_INVALID;
-				}
+		// Check transaction isn't already included in a block
+		if (this.repository.getTransactionRepository().isConfirmed(transactionData.getSignature()))
+			return ValidationResult.TRANSACTION_ALREADY_PROCESSED;
 
-				// Check transaction is even valid
-				// NOTE: in Gen1 there was an extra block height passed to DeployATTransaction.isValid
-				Transaction.ValidationResult validationResult = transaction.isValid();
-				if (validationResult != Transaction.ValidationResult.OK) {
-					LOGGER.debug("Error during transaction validation, tx " + Base58.encode(transactionData.getSignature()) + ": "
-							+ validationResult.name());
-					return ValidationResult.TRANSACTION_INVALID;
-				}
+		// Check transaction has correct reference, etc.
+		if (!transaction.hasValidReference()) {
+			LOGGER.debug("Error during transaction validation, tx " + Base58.encode(transactionData.getSignature()) + ": INVALID_REFERENCE");
+			return ValidationResult.TRANSACTION_INVALID;
+		}
 
-				// Check transaction can even be processed
-				validationResult = transaction.isProcessable();
-				if (validationResult != Transaction.ValidationResult.OK) {
-					LOGGER.debug("Error during transaction validation, tx " + Base58.encode(transactionData.getSignature()) + ": "
-							+ validationResult.name());
-					return ValidationResult.TRANSACTION_INVALID;
-				}
+		// Check transaction is even valid
+		// NOTE: in Gen1 there was an extra block height passed to DeployATTransaction.isValid
+		Transaction.ValidationResult validationResult = transaction.isValid();
+		if (validationResult != Transaction.ValidationResult.OK) {
+			LOGGER.debug("Error during transaction validation, tx " + Base58.encode(transactionData.getSignature()) + ": "
+					+ validationResult.name());
+			return ValidationResult.TRANSACTION_INVALID;
+		}
 
-				// Process transaction to make sure other transactions validate properly
-				try {
-					// Only process transactions that don't require group-approval.
-					// Group-approval transactions are dealt with later.
-					if (transactionData.getApprovalStatus() == ApprovalStatus.NOT_REQUIRED)
-						transaction.process();
-
-					// Regardless of group-approval, update relevant info for creator (e.g. lastReference)
-					transaction.processReferencesAndFees();
-				} catch (Exception e) {
-					LOGGER.error("Exception during transaction validation, tx " + Base58.encode(transactionData.getSignature()), e);
-					e.printStackTrace();
-					return ValidationResult.TRANSACTION_PROCESSING_FAILED;
-				}
-			}
-		} catch (DataException e) {
+		// Check transaction can even be processed
+		validationResult = transaction.isProcessable();
+		if (validationResult != Transaction.ValidationResult.OK) {
+			LOGGER.debug("Error during transaction validation, tx " + Base58.encode(transactionData.getSignature()) + ": "
+					+ validationResult.name());
 			return ValidationResult.TRANSACTION_INVALID;
-		} finally {
-			// Rollback repository changes made by test-processing transactions above
-			try {
-				this.repository.rollbackToSavepoint();
-			} catch (DataException e) {
-				/*
-				 * Rollback failure most likely due to prior DataException, so discard this DataException. Prior DataException propagates to caller.
-				 */
-			}
 		}
 
-		// Block is valid
+		// Process transaction to make sure other transactions validate properly
+		try {
+			// Only process transactions that don't require group-approval.
+			// Group-approval transactions are dealt with later.
+			if (transactionData.getApprovalStatus() == ApprovalStatus.NOT_REQUIRED)
+				transaction.process();
+
+			// Regardless of group-approval, update relevant info for creator (e.g. lastReference)
+			transaction.processReferencesAndFees();
+		} catch (Exception e) {
+			LOGGER.error("Exception during transaction validation, tx " + Base58.encode(transactionData.getSignature()), e);
+			e.printStackTrace();
+			return ValidationResult.TRANSACTION_PROCESSING_FAILED;
+		}
+
 		return ValidationResult.OK;
 	}
 
@@ -1050,6 +1235,56 @@ public class Block {
 		// Process transactions (we'll link them to this block after saving the block itself)
 		processTransactions();
 
+		this.processRemainder(blockchainHeight);
+	}
+
+	/**
+	 * Validates block and, if valid, processes it.
+	 * <p>
+	 * Equivalent to {@link #isValid()} followed by {@link #process()}, except that
+	 * repository changes made while trial-processing transactions during validation
+	 * are kept, instead of being rolled back and then redone by <tt>process()</tt>.
+	 * <p>
+	 * If block is invalid, or processing fails, repository is left as it was before the call.
+	 * 
+	 * @return ValidationResult.OK if block was valid and has been processed, or some other ValidationResult otherwise
+	 * @throws DataException
+	 */
+	public ValidationResult validateAndProcess() throws DataException {
+		// Block rewards normally go before transactions, so note proxy-forging state before transactions change it
+		ProxyForgerData proxyForgerData = this.repository.getAccountRepository().getProxyForgeData(this.blockData.getGeneratorPublicKey());
+
+		ValidationResult validationResult = this.isValid(true);
+		if (validationResult != ValidationResult.OK)
+			return validationResult;
+
+		// Transactions have been processed under savepoint set by isValid(true)
+		try {
+			// Set our block's height
+			int blockchainHeight = this.repository.getBlockRepository().getBlockchainHeight();
+			this.blockData.setHeight(blockchainHeight + 1);
+
+			// Block rewards are only ever added to balances, so processing them after transactions has the same outcome
+			processBlockRewards(proxyForgerData);
+
+			// AT_TRANSACTIONs are created locally and still need saving into repository
+			for (Transaction transaction : this.getTransactions())
+				if (transaction.getTransactionData().getType() == TransactionType.AT)
+					this.repository.getTransactionRepository().save(transaction.getTransactionData());
+
+			this.processRemainder(blockchainHeight);
+		} catch (DataException | RuntimeException e) {
+			this.repository.rollbackToSavepoint();
+			throw e;
+		}
+
+		this.repository.releaseSavepoint();
+
+		return ValidationResult.OK;
+	}
+
+	/** Processing that follows block rewards and transactions. */
+	private void processRemainder(int blockchainHeight) throws DataException {
 		// Group-approval transactions
 		processGroupApprovalTransactions();
 
@@ -1070,17 +1305,28 @@ public class Block {
 		// Link transactions to this block, thus removing them from unconfirmed transactions list.
 		// Also update "transaction participants" in repository for "transactions involving X" support in API
 		linkTransactionsToBlock();
+
+		// Update per-account recent inflows, used for generating balance
+		processRecentInflows();
+
+		// Update per-generator forged block count
+		this.repository.getBlockRepository().modifyForgedBlockCount(this.blockData.getGeneratorPublicKey(), 1);
 	}
 
 	protected void processBlockRewards() throws DataException {
+		// Is generator public key actually a proxy forge key?
+		ProxyForgerData proxyForgerData = this.repository.getAccountRepository().getProxyForgeData(this.blockData.getGeneratorPublicKey());
+
+		processBlockRewards(proxyForgerData);
+	}
+
+	private void processBlockRewards(ProxyForgerData proxyForgerData) throws DataException {
 		BigDecimal reward = BlockChain.getInstance().getRewardAtHeight(this.blockData.getHeight());
 
 		// No reward for our height?
 		if (reward == null)
 			return;
 
-		// Is generator public key actually a proxy forge key?
-		ProxyForgerData proxyForgerData = this.repository.getAccountRepository().getProxyForgeData(this.blockData.getGeneratorPublicKey());
 		if (proxyForgerData != null) {
 			// Split reward between forger and recipient
 			Account recipient = new Account(this.repository, proxyForgerData.getRecipient());
@@ -1235,6 +1481,58 @@ public class Block {
 		}
 	}
 
+	protected void processRecentInflows() throws DataException {
+		final int height = this.blockData.getHeight();
+
+		// Discard amounts for block that has just dropped out of window
+		this.repository.getAccountRepository().pruneRecentInflows(height - BlockChain.getInstance().getRecentInflowsWindow() + 1);
+
+		this.saveRecentInflows();
+	}
+
+	/**
+	 * Saves QORA amounts gained/lost by each account involved in this block's transactions.
+	 * <p>
+	 * Block rewards and transaction fees given to generator are not included.
+	 */
+	/* package */ void saveRecentInflows() throws DataException {
+		final int height = this.blockData.getHeight();
+
+		// Genesis block is never considered when calculating generating balance
+		if (height <= 1)
+			return;
+
+		Map<String, BigDecimal> inflows = new LinkedHashMap<>();
+		Map<String, BigDecimal> netAmounts = new LinkedHashMap<>();
+
+		// CIYAM AT transactions should be fetched from repository so no special handling needed here
+		for (Transaction transaction : this.getTransactions()) {
+			Set<String> seenAddresses = new HashSet<>();
+
+			for (Account account : transaction.getInvolvedAccounts()) {
+				if (!seenAddresses.add(account.getAddress()))
+					continue;
+
+				final BigDecimal amount = transaction.getAmount(account);
+
+				inflows.merge(account.getAddress(), amount.max(BigDecimal.ZERO), BigDecimal::add);
+				netAmounts.merge(account.getAddress(), amount, BigDecimal::add);
+			}
+		}
+
+		AccountRepository accountRepository = this.repository.getAccountRepository();
+
+		for (Map.Entry<String, BigDecimal> entry : netAmounts.entrySet()) {
+			BigDecimal inflow = inflows.get(entry.getKey());
+			BigDecimal netAmount = entry.getValue();
+
+			if (inflow.signum() == 0 && netAmount.signum() == 0)
+				continue;
+
+			accountRepository.save(new RecentInflowData(entry.getKey(), height, inflow, netAmount));
+		}
+	}
+
 	/**
 	 * Removes block from blockchain undoing transactions and adding them to unconfirmed pile.
 	 * 
@@ -1256,8 +1554,15 @@ public class Block {
 		// Return AT fees and delete AT states from repository
 		orphanAtFeesAndStates();
 
+		// Remove this block's recent inflows, restoring those for block re-entering window
+		orphanRecentInflows();
+
+		// Update per-generator forged block count
+		this.repository.getBlockRepository().modifyForgedBlockCount(this.blockData.getGeneratorPublicKey(), -1);
+
 		// Delete block from blockchain
 		this.repository.getBlockRepository().delete(this.blockData);
+		BlockCache.getInstance().invalidate(this.blockData.getSignature());
 		this.blockData.setHeight(null);
 	}
 
@@ -1371,6 +1676,17 @@ public class Block {
 		this.generator.setConfirmedBalance(Asset.QORA, this.generator.getConfirmedBalance(Asset.QORA).subtract(blockFees));
 	}
 
+	protected void orphanRecentInflows() throws DataException {
+		final int height = this.blockData.getHeight();
+
+		this.repository.getAccountRepository().deleteRecentInflows(height);
+
+		// Block that was pruned when we were processed is back within window
+		BlockData reenteringBlockData = this.repository.getBlockRepository().fromHeight(height - BlockChain.getInstance().getRecentInflowsWindow());
+		if (reenteringBlockData != null)
+			new Block(this.repository, reenteringBlockData).saveRecentInflows();
+	}
+
 	protected void orphanAtFeesAndStates() throws DataException {
 		ATRepository atRepository = this.repository.getATRepository();
 		for (ATStateData atState : this.getATStates()) {
@@ -0,0 +1,111 @@
+package org.qora.block;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.data.block.BlockData;
+import org.qora.settings.Settings;
+import org.qora.transform.TransformationException;
+import org.qora.transform.block.BlockTransformer;
+import org.qora.utils.ByteArray;
+
+/**
+ * LRU cache of serialized blocks, keyed by block signature, bounded by total serialized size.
+ * <p>
+ * Used to answer peers' GET_BLOCK requests without rebuilding blocks from repository.
+ * <p>
+ * Blocks are added when first served, so serialization happens on network threads,
+ * not while processing blocks under the blockchain lock. Blocks are removed when orphaned.
+ * Callers should still confirm block is in repository, at the same height, before using cached entry.
+ */
+public class BlockCache {
+
+	private static final Logger LOGGER = LogManager.getLogger(BlockCache.class);
+
+	public static class CachedBlock {
+		public final int height;
+		/** Block serialized by {@link BlockTransformer#toBytes(Block)} */
+		public final byte[] bytes;
+
+		public CachedBlock(int height, byte[] bytes) {
+			this.height = height;
+			this.bytes = bytes;
+		}
+	}
+
+	private static BlockCache instance;
+
+	private final long maxBytes;
+	/** Access-ordered, so eldest entry is least recently used. */
+	private final Map<ByteArray, CachedBlock> cachedBlocks = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalBytes = 0;
+
+	// Constructors
+
+	private BlockCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	public static synchronized BlockCache getInstance() {
+		if (instance == null)
+			instance = new BlockCache(Settings.getInstance().getBlockCacheMaxBytes());
+
+		return instance;
+	}
+
+	// Cache access
+
+	/** Returns cached serialized block with passed signature, or null if not cached. */
+	public synchronized CachedBlock get(byte[] signature) {
+		return this.cachedBlocks.get(new ByteArray(signature));
+	}
+
+	/**
+	 * Serializes and caches passed block, which must have a signature and height.
+	 * <p>
+	 * Least recently used blocks are evicted to stay within maximum size.
+	 *
+	 * @return serialized block, even if too big to cache, or null if block couldn't be serialized
+	 */
+	public CachedBlock put(Block block) {
+		BlockData blockData = block.getBlockData();
+
+		CachedBlock cachedBlock;
+		try {
+			cachedBlock = new CachedBlock(blockData.getHeight(), BlockTransformer.toBytes(block));
+		} catch (TransformationException e) {
+			LOGGER.debug(String.format("Unable to cache block at height %d", blockData.getHeight()), e);
+			return null;
+		}
+
+		if (cachedBlock.bytes.length > this.maxBytes)
+			return cachedBlock;
+
+		synchronized (this) {
+			CachedBlock previousCachedBlock = this.cachedBlocks.put(new ByteArray(blockData.getSignature()), cachedBlock);
+			if (previousCachedBlock != null)
+				this.totalBytes -= previousCachedBlock.bytes.length;
+
+			this.totalBytes += cachedBlock.bytes.length;
+
+			Iterator<CachedBlock> iterator = this.cachedBlocks.values().iterator();
+			while (this.totalBytes > this.maxBytes && iterator.hasNext()) {
+				this.totalBytes -= iterator.next().bytes.length;
+				iterator.remove();
+			}
+		}
+
+		return cachedBlock;
+	}
+
+	/** Removes block with passed signature from cache, e.g. when orphaned. */
+	public synchronized void invalidate(byte[] signature) {
+		CachedBlock cachedBlock = this.cachedBlocks.remove(new ByteArray(signature));
+		if (cachedBlock != null)
+			this.totalBytes -= cachedBlock.bytes.length;
+	}
+
+}
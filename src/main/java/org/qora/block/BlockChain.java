@@ -5,10 +5,10 @@ import java.io.InputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.MathContext;
+import java.security.MessageDigest;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -33,9 +33,11 @@ import org.eclipse.persistence.exceptions.XMLMarshalException;
 import org.eclipse.persistence.jaxb.JAXBContextFactory;
 import org.eclipse.persistence.jaxb.UnmarshallerProperties;
 import org.qora.controller.Controller;
+import org.qora.crypto.Crypto;
 import org.qora.data.account.ProxyForgerData;
 import org.qora.data.block.BlockData;
 import org.qora.data.block.BlockSummaryData;
+import org.qora.data.block.ValidationCheckpointData;
 import org.qora.network.Network;
 import org.qora.repository.BlockRepository;
 import org.qora.repository.DataException;
@@ -43,6 +45,7 @@ import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
 import org.qora.settings.Settings;
 import org.qora.utils.ByteArray;
+import org.qora.utils.Int320;
 import org.qora.utils.StringLongMapXmlAdapter;
 
 /**
@@ -55,6 +58,9 @@ public class BlockChain {
 
 	private static final Logger LOGGER = LogManager.getLogger(BlockChain.class);
 
+	/** Number of blocks fetched from repository at a time during validation. */
+	private static final int VALIDATION_BATCH_SIZE = 1000;
+
 	public static final byte[] CANCEL_ASSET_ORDER_BLOCK_SIG = Base58.decode("DCYjHWLN3S4Ta7EVeGdxoTfAS9sBdp7Ldr2B6cuyXFqZecQbJT6WUP68kd2Xz31REXWPTvmXngWrMb7bFyMpMhkAtokfDr8vWXbmbPXeoTQi7EGfgpGrhVn45zejvG8iJWbKd7c3z8GGFz7yPYL4cU4HnyD6jqJDrAW6XqBi4nW2dWE");
 	public static final byte[] CANCEL_ASSET_ORDER_TX_SIG = Base58.decode("26e21JyKTHcteozWK8sVstSk11fMq2UtULddTg6cBvTwTVRhdLfETsshwShVpDL5dPrzxQuB1xgh72kdQx6VdZyR");
 	public static final byte[] FORKED_BLOCK_44020_SIG = Base58.decode("Q6uAdQTJED73xLv1i6yZBwmmQSycBjmW85HJaCW5QsRdykCXRhNedcNsajwUXmkWYhiSTD4bh5tqUA75T2TKjuvibzNYhBhBk22c5B8e7JJYpcddRDagL6JgoFzCaQAHTDuevxzviF6jdyz59tpdDZ86T6ta8oniseU9wtTEGVpE5yC");
@@ -252,6 +258,15 @@ public class BlockChain {
 		return this.blockDifficultyInterval;
 	}
 
+	/**
+	 * Returns number of most recent blocks whose per-account QORA amounts are kept in repository.
+	 * <p>
+	 * Covers generating balance calculations, which ignore amounts received in the last <tt>blockDifficultyInterval - 1</tt> blocks.
+	 */
+	public int getRecentInflowsWindow() {
+		return this.blockDifficultyInterval;
+	}
+
 	public long getBlockTimestampMargin() {
 		return this.blockTimestampMargin;
 	}
@@ -381,6 +396,9 @@ public class BlockChain {
 
 	/**
 	 * Some sort start-up/initialization/checking method.
+	 * <p>
+	 * Only blocks above latest validation checkpoint are checked, after which a new checkpoint is saved at blockchain tip.
+	 * Optionally, whole blockchain is re-verified in background.
 	 * 
 	 * @throws SQLException
 	 */
@@ -389,32 +407,147 @@ public class BlockChain {
 		if (!isGenesisBlockValid())
 			rebuildBlockchain();
 
-		// Walk through blocks
+		ValidationCheckpointData checkpointData;
+
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			Block parentBlock = GenesisBlock.getInstance(repository);
-			BlockData parentBlockData = parentBlock.getBlockData();
+			BlockRepository blockRepository = repository.getBlockRepository();
 
-			while (true) {
-				BlockData childBlockData = parentBlock.getChild();
-				if (childBlockData == null)
-					break;
+			// Checkpoint is only present if its block is still in blockchain
+			ValidationCheckpointData previousCheckpointData = blockRepository.getLatestValidationCheckpoint();
+			ValidationCheckpointData startCheckpointData = previousCheckpointData != null ? previousCheckpointData : getGenesisCheckpoint(repository);
 
-				if (!Arrays.equals(childBlockData.getReference(), parentBlock.getSignature())) {
-					LOGGER.error(String.format("Block %d's reference does not match block %d's signature", childBlockData.getHeight(), parentBlockData.getHeight()));
-					rebuildBlockchain();
-					return;
-				}
-
-				parentBlock = new Block(repository, childBlockData);
-				parentBlockData = childBlockData;
+			checkpointData = checkBlocks(repository, startCheckpointData, blockRepository.getBlockchainHeight());
+			if (checkpointData == null) {
+				rebuildBlockchain();
+				return;
 			}
+
+			LOGGER.debug(String.format("Validated blocks %d to %d", startCheckpointData.getHeight(), checkpointData.getHeight()));
+
+			// Keep previous checkpoint in case new one is orphaned
+			blockRepository.save(checkpointData);
+			blockRepository.deleteValidationCheckpoints(startCheckpointData.getHeight());
+
+			repository.saveChanges();
 		}
 
+		if (Settings.getInstance().isBackgroundChainValidation())
+			startBackgroundValidation(checkpointData);
+
+		// Rebuilt every start-up as it's cheap and covers repositories that predate it
+		rebuildRecentInflows();
+
 		// Potential repairs
 		repairCancelAssetOrderBugfix();
 		repairBlock44019Fork();
 	}
 
+	/** Returns checkpoint covering just genesis block. */
+	private static ValidationCheckpointData getGenesisCheckpoint(Repository repository) throws DataException {
+		byte[] genesisSignature = repository.getBlockRepository().fromHeight(1).getSignature();
+
+		return new ValidationCheckpointData(1, genesisSignature, calcChainHash(Crypto.newSha256(), new byte[32], genesisSignature));
+	}
+
+	/** Returns rolling hash of blockchain, given previous hash and next block's signature. */
+	private static byte[] calcChainHash(MessageDigest digest, byte[] previousChainHash, byte[] signature) {
+		digest.update(previousChainHash);
+		digest.update(signature);
+		return digest.digest();
+	}
+
+	/**
+	 * Checks each block's reference matches previous block's signature, for blocks after <tt>startCheckpointData</tt> up to <tt>endHeight</tt>.
+	 * 
+	 * @return checkpoint at <tt>endHeight</tt>, or null if blockchain is broken
+	 * @throws DataException
+	 */
+	private static ValidationCheckpointData checkBlocks(Repository repository, ValidationCheckpointData startCheckpointData, int endHeight) throws DataException {
+		BlockRepository blockRepository = repository.getBlockRepository();
+		MessageDigest digest = Crypto.newSha256();
+
+		int height = startCheckpointData.getHeight();
+		byte[] signature = startCheckpointData.getSignature();
+		byte[] chainHash = startCheckpointData.getChainHash();
+
+		while (height < endHeight) {
+			int batchEndHeight = Math.min(height + VALIDATION_BATCH_SIZE, endHeight);
+
+			for (BlockData blockData : blockRepository.getBlocks(height + 1, batchEndHeight)) {
+				if (blockData.getHeight() != height + 1) {
+					LOGGER.error(String.format("Block %d missing from blockchain", height + 1));
+					return null;
+				}
+
+				if (!Arrays.equals(blockData.getReference(), signature)) {
+					LOGGER.error(String.format("Block %d's reference does not match block %d's signature", blockData.getHeight(), height));
+					return null;
+				}
+
+				height = blockData.getHeight();
+				signature = blockData.getSignature();
+				chainHash = calcChainHash(digest, chainHash, signature);
+			}
+
+			if (height != batchEndHeight) {
+				LOGGER.error(String.format("Block %d missing from blockchain", height + 1));
+				return null;
+			}
+		}
+
+		return new ValidationCheckpointData(height, signature, chainHash);
+	}
+
+	/** Re-verifies blockchain from genesis block up to passed checkpoint, without holding up start-up. */
+	private static void startBackgroundValidation(ValidationCheckpointData checkpointData) {
+		Thread validationThread = new Thread(() -> {
+			LOGGER.info(String.format("Verifying blockchain up to height %d in background", checkpointData.getHeight()));
+
+			try (final Repository repository = RepositoryManager.getRepository()) {
+				ValidationCheckpointData verifiedCheckpointData = checkBlocks(repository, getGenesisCheckpoint(repository), checkpointData.getHeight());
+
+				if (verifiedCheckpointData != null && Arrays.equals(verifiedCheckpointData.getChainHash(), checkpointData.getChainHash())) {
+					LOGGER.info(String.format("Blockchain verified up to height %d", checkpointData.getHeight()));
+					return;
+				}
+
+				// Blocks might simply have been orphaned since we started
+				if (repository.getBlockRepository().getHeightFromSignature(checkpointData.getSignature()) != checkpointData.getHeight()) {
+					LOGGER.info("Blockchain changed during background verification - will verify on next start-up");
+					return;
+				}
+
+				// Force full check on next start-up
+				LOGGER.error("Blockchain failed background verification - restart to repair");
+				repository.getBlockRepository().deleteValidationCheckpoints(Integer.MAX_VALUE);
+				repository.saveChanges();
+			} catch (DataException e) {
+				LOGGER.warn(String.format("Background blockchain verification failed: %s", e.getMessage()));
+			}
+		});
+
+		validationThread.setName("Chain validation");
+		validationThread.setDaemon(true);
+		validationThread.setPriority(Thread.MIN_PRIORITY);
+		validationThread.start();
+	}
+
+	private static void rebuildRecentInflows() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			final int blockchainHeight = repository.getBlockRepository().getBlockchainHeight();
+
+			repository.getAccountRepository().pruneRecentInflows(blockchainHeight + 1);
+
+			for (int height = blockchainHeight - BlockChain.getInstance().getRecentInflowsWindow() + 1; height <= blockchainHeight; ++height) {
+				BlockData blockData = repository.getBlockRepository().fromHeight(height);
+				if (blockData != null)
+					new Block(repository, blockData).saveRecentInflows();
+			}
+
+			repository.saveChanges();
+		}
+	}
+
 	private static void repairCancelAssetOrderBugfix() throws DataException {
 		try (final Repository repository = RepositoryManager.getRepository()) {
 			final boolean hasPreRollbackBlock = repository.getBlockRepository().getHeightFromSignature(CANCEL_ASSET_ORDER_BLOCK_SIG) != 0;
@@ -569,17 +702,27 @@ public class BlockChain {
 
 		HashMap<ByteArray, ProxyForgerData> cachedProxyForgerData = new HashMap<>();
 
-		List<BigInteger> totalDistances = new ArrayList<>(Collections.nCopies(nChains, BigInteger.ZERO));
+		// Per-chain accumulators and working values, as Int320s, allocated once and reused for each block
+		long[][] totalDistances = new long[nChains][Int320.LIMBS];
+		long[][] distances = new long[nChains][Int320.LIMBS];
+		long[][] idealGenerators = new long[nChains][Int320.LIMBS];
+		long[] generator = Int320.zero();
+
+		// Reused for digests, which are otherwise the main per-block cost
+		final MessageDigest sha256 = Crypto.newSha256();
+		final byte[] heightBytes = new byte[Long.BYTES];
+
+		// Proxy-forging info for each chain's current block
+		ProxyForgerData[] proxyForgerDatas = new ProxyForgerData[nChains];
 
-		List<BlockSummaryData> parentSummaries = new ArrayList<>(Collections.nCopies(nChains, parentBlockSummary));
+		BlockSummaryData[] parentSummaries = new BlockSummaryData[nChains];
+		Arrays.fill(parentSummaries, parentBlockSummary);
 
 		int height = parentBlockSummary.getHeight();
 		for (int bi = 0; bi < nBlocks; ++bi) {
 			++height;
 
 			final boolean isNewBehaviour = height >= BlockChain.getInstance().getNewBlockDistanceHeight();
-			List<BigInteger> distances = new ArrayList<>(nChains);
-			List<BigInteger> idealGenerators = new ArrayList<>(nChains);
 
 			int indexOfClosest = 0;
 
@@ -588,9 +731,8 @@ public class BlockChain {
 				// Per chain
 
 				// 'Ideal'
-				byte[] idealGenerator = Block.calcIdealGeneratorPublicKey(height - 1, parentSummaries.get(ci).getSignature());
-				BigInteger idealGeneratorBI = new BigInteger(idealGenerator);
-				idealGenerators.add(idealGeneratorBI);
+				byte[] idealGenerator = digestWithHeight(sha256, heightBytes, height - 1, parentSummaries[ci].getSignature());
+				Int320.fromSigned256(idealGenerator, idealGenerators[ci]);
 
 				BlockSummaryData blockSummaryData = getPaddedBlockSummary(allBlockSummaries, ci, bi);
 				ByteArray generatorBA = new ByteArray(blockSummaryData.getGeneratorPublicKey());
@@ -601,6 +743,7 @@ public class BlockChain {
 					proxyForgerData = repository.getAccountRepository().getProxyForgeData(generatorBA.raw);
 					cachedProxyForgerData.put(generatorBA, proxyForgerData);
 				}
+				proxyForgerDatas[ci] = proxyForgerData;
 
 				byte[] publicKey;
 				if (isNewBehaviour)
@@ -611,34 +754,35 @@ public class BlockChain {
 					publicKey = blockSummaryData.getGeneratorPublicKey();
 
 				// Unique forger?
-				uniqueForgersPerChain.get(ci).add(new ByteArray(publicKey));
+				uniqueForgersPerChain.get(ci).add(publicKey == generatorBA.raw ? generatorBA : new ByteArray(publicKey));
 
-				byte[] perturbedPublicKey = Block.calcHeightPerturbedPublicKey(height, publicKey);
-				BigInteger generatorBI = new BigInteger(perturbedPublicKey);
+				byte[] perturbedPublicKey = digestWithHeight(sha256, heightBytes, height, publicKey);
+				Int320.fromSigned256(perturbedPublicKey, generator);
 
-				BigInteger distance = idealGeneratorBI.subtract(generatorBI).abs();
-				distances.add(distance);
+				Int320.subtractAbs(idealGenerators[ci], generator, distances[ci]);
 
 				// Is this the closest to ideal (i.e. smallest distance)?
-				if (distance.compareTo(distances.get(indexOfClosest)) < 0)
+				if (Int320.compare(distances[ci], distances[indexOfClosest]) < 0)
 					indexOfClosest = ci;
 
 				// Update parent summary
-				parentSummaries.set(ci, blockSummaryData);
+				parentSummaries[ci] = blockSummaryData;
 			}
 
-			BigInteger smallestDistance = distances.get(indexOfClosest);
+			long[] smallestDistance = distances[indexOfClosest];
 
 			// If there are more than one block summaries with the same root forging account then we need to do round two
 			// (This should not happen for blocks under old behaviour)
-			final long nSmallest = distances.stream().filter(distance -> distance.compareTo(smallestDistance) == 0).count();
+			int nSmallest = 0;
+			for (int ci = 0; ci < nChains; ++ci)
+				if (Int320.compare(distances[ci], smallestDistance) == 0)
+					++nSmallest;
+
 			if (nSmallest > 1) {
 				// 2nd round - compare proxy-forged blocks with same root forger
 
-				BlockSummaryData smallestBlockSummaryData = getPaddedBlockSummary(allBlockSummaries, indexOfClosest, bi);
-
 				// Forger from block(s) with smallest distance from 1st round
-				ProxyForgerData smallestProxyForgerData = cachedProxyForgerData.get(new ByteArray(smallestBlockSummaryData.getGeneratorPublicKey()));
+				ProxyForgerData smallestProxyForgerData = proxyForgerDatas[indexOfClosest];
 				if (smallestProxyForgerData == null) {
 					// Wasn't proxy forged - multiple chains with a block forged directly
 				} else {
@@ -649,52 +793,71 @@ public class BlockChain {
 
 					for (int ci = 0; ci < nChains; ++ci) {
 						BlockSummaryData blockSummaryData = getPaddedBlockSummary(allBlockSummaries, ci, bi);
-						ProxyForgerData proxyForgerData = cachedProxyForgerData.get(new ByteArray(blockSummaryData.getGeneratorPublicKey()));
+						ProxyForgerData proxyForgerData = proxyForgerDatas[ci];
 
 						// We're only interested in blocks with the same root forger as the one with smallest distance from 1st round
 						if (proxyForgerData == null || !Arrays.equals(proxyForgerData.getForgerPublicKey(), forgerPublicKey))
 							continue;
 
 						// Compare using proxy public key
-						byte[] perturbedPublicKey = Block.calcHeightPerturbedPublicKey(blockSummaryData.getHeight(), proxyForgerData.getProxyPublicKey());
-						BigInteger generatorBI = new BigInteger(perturbedPublicKey);
+						byte[] perturbedPublicKey = digestWithHeight(sha256, heightBytes, blockSummaryData.getHeight(), proxyForgerData.getProxyPublicKey());
+						Int320.fromSigned256(perturbedPublicKey, generator);
 
-						BigInteger distance = idealGenerators.get(ci).subtract(generatorBI).abs();
-						distances.set(ci, distance);
+						Int320.subtractAbs(idealGenerators[ci], generator, distances[ci]);
 
 						// Is this the largest distance?
-						if (indexOfLargest == null || distance.compareTo(distances.get(indexOfLargest)) > 0)
+						if (indexOfLargest == null || Int320.compare(distances[ci], distances[indexOfLargest]) > 0)
 							indexOfLargest = ci;
 					}
 
 					// Set distances of all other blocks NOT with same root forger to largest distance + 1
 					// This is so those blocks appear 'worse' than all the ones processed in 2nd round
-					BigInteger fakeLargestDistance = distances.get(indexOfLargest).add(BigInteger.ONE);
+					long[] fakeLargestDistance = Int320.zero();
+					Int320.copy(distances[indexOfLargest], fakeLargestDistance);
+					Int320.increment(fakeLargestDistance);
+
 					for (int ci = 0; ci < nChains; ++ci) {
-						BlockSummaryData blockSummaryData = getPaddedBlockSummary(allBlockSummaries, ci, bi);
-						ProxyForgerData proxyForgerData = cachedProxyForgerData.get(new ByteArray(blockSummaryData.getGeneratorPublicKey()));
+						ProxyForgerData proxyForgerData = proxyForgerDatas[ci];
 
 						// We're only interested in blocks WITHOUT the same root forger as the one with smallest distance from 1st round
-						if (proxyForgerData !=null && Arrays.equals(proxyForgerData.getForgerPublicKey(), forgerPublicKey))
+						if (proxyForgerData != null && Arrays.equals(proxyForgerData.getForgerPublicKey(), forgerPublicKey))
 							continue;
 
-						distances.set(ci, fakeLargestDistance);
+						Int320.copy(fakeLargestDistance, distances[ci]);
 					}
 				}
 			}
 
 			// Add final distance to total for each blockchain
 			for (int ci = 0; ci < nChains; ++ci)
-				totalDistances.set(ci, totalDistances.get(ci).add(distances.get(ci)));
+				Int320.add(totalDistances[ci], distances[ci]);
 		}
 
 		// A variety of generators is a benefit
+		List<BigInteger> averageDistances = new ArrayList<>(nChains);
 		for (int ci = 0; ci < nChains; ++ci) {
 			BigInteger uniqueForgers = BigInteger.valueOf(uniqueForgersPerChain.get(ci).size());
-			totalDistances.set(ci, totalDistances.get(ci).divide(uniqueForgers));
+			averageDistances.add(Int320.toBigInteger(totalDistances[ci]).divide(uniqueForgers));
+		}
+
+		return averageDistances;
+	}
+
+	/**
+	 * Returns SHA-256 digest of <tt>height</tt>, as 8 big-endian bytes, followed by <tt>data</tt>.
+	 * <p>
+	 * Same result as {@link Block#calcIdealGeneratorPublicKey(int, byte[])} and {@link Block#calcHeightPerturbedPublicKey(int, byte[])},
+	 * but reusing passed digest and scratch buffer.
+	 */
+	private static byte[] digestWithHeight(MessageDigest sha256, byte[] heightBytes, long height, byte[] data) {
+		for (int i = heightBytes.length - 1; i >= 0; --i) {
+			heightBytes[i] = (byte) height;
+			height >>= 8;
 		}
 
-		return totalDistances;
+		sha256.update(heightBytes);
+		sha256.update(data);
+		return sha256.digest();
 	}
 
 	private static BlockSummaryData getPaddedBlockSummary(List<List<BlockSummaryData>> allBlockSummaries, int chainIndex, int blockIndex) {
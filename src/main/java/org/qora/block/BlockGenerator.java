@@ -69,6 +69,7 @@ public class BlockGenerator extends Thread {
 			// Going to need this a lot...
 			BlockRepository blockRepository = repository.getBlockRepository();
 			Block previousBlock = null;
+			BlockTemplate blockTemplate = null;
 
 			List<Block> newBlocks = new ArrayList<>();
 
@@ -126,6 +127,10 @@ public class BlockGenerator extends Thread {
 					newBlocks.clear();
 				}
 
+				// Select unconfirmed transactions now, while we might be waiting, rather than when forging
+				if (blockTemplate == null || !blockTemplate.isCurrent(lastBlockData))
+					blockTemplate = BlockTemplate.build(repository, lastBlockData);
+
 				// Too early to generate any new blocks?
 				BlockTimingByHeight blockTiming = BlockChain.getInstance().getBlockTimingByHeight(lastBlockData.getHeight() + 1);
 
@@ -198,25 +203,25 @@ public class BlockGenerator extends Thread {
 					// deleteInvalidTransactions(repository);
 
 					// Add unconfirmed transactions
-					addUnconfirmedTransactions(repository, bestBlock);
+					addUnconfirmedTransactions(repository, bestBlock, blockTemplate);
+
+					// Template's transaction data has now been trial-processed, so rebuild next time
+					blockTemplate = null;
 
 					// Sign to create block's signature
 					bestBlock.sign();
 
-					// Is newBlock still valid?
-					ValidationResult validationResult = bestBlock.isValid();
-					if (validationResult != ValidationResult.OK) {
-						// No longer valid? Report and discard
-						LOGGER.error("Valid, generated block now invalid '" + validationResult.name() + "' after adding unconfirmed transactions?");
-
-						// Rebuild block candidates, just to be sure
-						newBlocks.clear();
-						continue;
-					}
-
-					// Add to blockchain - something else will notice and broadcast new block to network
+					// Add to blockchain, if newBlock still valid - something else will notice and broadcast new block to network
 					try {
-						bestBlock.process();
+						ValidationResult validationResult = bestBlock.validateAndProcess();
+						if (validationResult != ValidationResult.OK) {
+							// No longer valid? Report and discard
+							LOGGER.error("Valid, generated block now invalid '" + validationResult.name() + "' after adding unconfirmed transactions?");
+
+							// Rebuild block candidates, just to be sure
+							newBlocks.clear();
+							continue;
+						}
 
 						ProxyForgerData proxyForgerData = repository.getAccountRepository().getProxyForgeData(bestBlock.getBlockData().getGeneratorPublicKey());
 
@@ -279,55 +284,29 @@ public class BlockGenerator extends Thread {
 	}
 
 	/**
-	 * Adds unconfirmed transactions to passed block.
-	 * <p>
-	 * NOTE: calls Transaction.getUnconfirmedTransactions which discards uncommitted
-	 * repository changes.
+	 * Adds unconfirmed transactions, selected by passed block template, to passed block.
 	 * 
 	 * @param repository
 	 * @param newBlock
+	 * @param blockTemplate
 	 * @throws DataException
 	 */
-	private static void addUnconfirmedTransactions(Repository repository, Block newBlock) throws DataException {
-		// Grab all valid unconfirmed transactions (already sorted)
-		List<TransactionData> unconfirmedTransactions = Transaction.getUnconfirmedTransactions(repository);
-
-		for (int i = 0; i < unconfirmedTransactions.size(); ++i) {
-			TransactionData transactionData = unconfirmedTransactions.get(i);
-
-			// Ignore transactions that have timestamp later than block's timestamp (not yet valid)
-			if (transactionData.getTimestamp() > newBlock.getBlockData().getTimestamp()) {
-				unconfirmedTransactions.remove(i);
-				--i;
-				continue;
-			}
+	private static void addUnconfirmedTransactions(Repository repository, Block newBlock, BlockTemplate blockTemplate) throws DataException {
+		// Highest fee-per-byte transactions that could fit alongside block's existing (AT) transactions (already sorted)
+		List<TransactionData> unconfirmedTransactions = blockTemplate.getTransactions(newBlock);
 
-			Transaction transaction = Transaction.fromData(repository, transactionData);
-
-			// Ignore transactions that have expired before this block - they will be cleaned up later
-			if (transaction.getDeadline() <= newBlock.getBlockData().getTimestamp()) {
-				unconfirmedTransactions.remove(i);
-				--i;
-				continue;
-			}
-		}
+		final long blockTimestamp = newBlock.getBlockData().getTimestamp();
 
-		// Sign to create block's signature, needed by Block.isValid()
-		newBlock.sign();
+		// Ignore transactions that have timestamp later than block's timestamp (not yet valid),
+		// or that have expired before this block - they will be cleaned up later
+		unconfirmedTransactions.removeIf(transactionData -> transactionData.getTimestamp() > blockTimestamp
+				|| Transaction.fromData(repository, transactionData).getDeadline() <= blockTimestamp);
 
 		// Attempt to add transactions until block is full, or we run out
-		// If a transaction makes the block invalid then skip it and it'll either expire or be in next block.
-		for (TransactionData transactionData : unconfirmedTransactions) {
-			if (!newBlock.addTransaction(transactionData))
-				break;
-
-			// If newBlock is no longer valid then we can't use transaction
-			ValidationResult validationResult = newBlock.isValid();
-			if (validationResult != ValidationResult.OK) {
-				LOGGER.debug("Skipping invalid transaction " + Base58.encode(transactionData.getSignature()) + " during block generation");
-				newBlock.deleteTransaction(transactionData);
-			}
-		}
+		// If a transaction is invalid then skip it and it'll either expire or be in next block.
+		int transactionCount = newBlock.addValidTransactions(unconfirmedTransactions);
+
+		LOGGER.trace(() -> String.format("Added %d of %d unconfirmed transactions to new block", transactionCount, unconfirmedTransactions.size()));
 	}
 
 	public void shutdown() {
@@ -354,19 +333,17 @@ public class BlockGenerator extends Thread {
 			// deleteInvalidTransactions(repository);
 
 			// Add unconfirmed transactions
-			addUnconfirmedTransactions(repository, newBlock);
+			addUnconfirmedTransactions(repository, newBlock, BlockTemplate.build(repository, previousBlockData));
 
 			// Sign to create block's signature
 			newBlock.sign();
 
-			// Is newBlock still valid?
-			ValidationResult validationResult = newBlock.isValid();
+			// Add to blockchain, if newBlock still valid
+			ValidationResult validationResult = newBlock.validateAndProcess();
 			if (validationResult != ValidationResult.OK)
 				throw new IllegalStateException(
 						"Valid, generated block now invalid '" + validationResult.name() + "' after adding unconfirmed transactions?");
 
-			// Add to blockchain
-			newBlock.process();
 			repository.saveChanges();
 		} finally {
 			blockchainLock.unlock();
@@ -0,0 +1,241 @@
+package org.qora.block;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.controller.Mempool;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.transaction.Transaction;
+import org.qora.transform.TransformationException;
+import org.qora.transform.Transformer;
+import org.qora.transform.block.BlockTransformer;
+import org.qora.transform.transaction.TransactionTransformer;
+import org.qora.utils.NTP;
+
+/**
+ * Unconfirmed transactions selected for inclusion in next block, highest fee-per-byte first.
+ * <p>
+ * Each creator's transactions form a chain, starting from their confirmed last reference,
+ * and a transaction can only be included if all the transactions before it in the chain are too.
+ * So a creator's chain is split into chunks, where each chunk has a lower fee-per-byte than the chunk before it.
+ * (A low-fee transaction followed by a high-fee transaction becomes one chunk.)
+ * Chunks are then picked, highest fee-per-byte first across all creators, until the block is full.
+ * <p>
+ * Templates are built by {@link BlockGenerator} while waiting to forge,
+ * and only rebuilt if the blockchain tip or unconfirmed transactions change.
+ * Chunks are picked when forging, once the new block's own length (including any AT transactions) is known.
+ * Selected transactions still need full validation when added to a block,
+ * see {@link Block#addValidTransactions(List)}.
+ * <p>
+ * Selected transaction data is the template's own copy, which is modified when trial-processed,
+ * so a template should only be used to fill one block.
+ */
+public class BlockTemplate {
+
+	private static final Logger LOGGER = LogManager.getLogger(BlockTemplate.class);
+
+	private static final Comparator<TransactionData> DATA_COMPARATOR = Transaction.getDataComparator();
+
+	/** Consecutive transactions from one creator's chain, included together or not at all. */
+	private static class Chunk {
+		private final List<TransactionData> transactions = new ArrayList<>();
+		private BigDecimal fee;
+		/** Serialized length within block, including per-transaction length prefix. */
+		private long length;
+
+		public Chunk(TransactionData transactionData, int transactionLength) {
+			this.transactions.add(transactionData);
+			this.fee = transactionData.getFee();
+			this.length = Transformer.INT_LENGTH + transactionLength;
+		}
+
+		public void append(Chunk other) {
+			this.transactions.addAll(other.transactions);
+			this.fee = this.fee.add(other.fee);
+			this.length += other.length;
+		}
+
+		/** Compares fee-per-byte without rounding, by cross-multiplying. */
+		public int compareRate(Chunk other) {
+			return this.fee.multiply(BigDecimal.valueOf(other.length)).compareTo(other.fee.multiply(BigDecimal.valueOf(this.length)));
+		}
+	}
+
+	/** Highest fee-per-byte chunk first, then earliest transaction, so selection is deterministic. */
+	private static final Comparator<Deque<Chunk>> CHAIN_COMPARATOR = (chainA, chainB) -> {
+		Chunk chunkA = chainA.peekFirst();
+		Chunk chunkB = chainB.peekFirst();
+
+		int rateComparison = chunkB.compareRate(chunkA);
+		if (rateComparison != 0)
+			return rateComparison;
+
+		return DATA_COMPARATOR.compare(chunkA.transactions.get(0), chunkB.transactions.get(0));
+	};
+
+	private final byte[] parentSignature;
+	private final long mempoolModificationCount;
+	/** Each creator's chain of chunks, in descending fee-per-byte order. */
+	private final List<List<Chunk>> chains;
+
+	// Constructors
+
+	private BlockTemplate(byte[] parentSignature, long mempoolModificationCount, List<List<Chunk>> chains) {
+		this.parentSignature = parentSignature;
+		this.mempoolModificationCount = mempoolModificationCount;
+		this.chains = chains;
+	}
+
+	// Getters / setters
+
+	/**
+	 * Returns transactions selected to fill passed new block, sorted using {@link Transaction#getDataComparator()}, i.e. in block order.
+	 * <p>
+	 * Space used by block's header and existing (e.g. AT) transactions is taken into account,
+	 * so selected transactions should all fit when added using {@link Block#addValidTransactions(List)}.
+	 *
+	 * @param newBlock
+	 * @return selected transactions
+	 * @throws DataException
+	 */
+	public List<TransactionData> getTransactions(Block newBlock) throws DataException {
+		int blockLength;
+		try {
+			blockLength = BlockTransformer.getDataLength(newBlock);
+		} catch (TransformationException e) {
+			throw new DataException("Unable to determine new block's length", e);
+		}
+
+		return this.getTransactions(Block.MAX_BLOCK_BYTES - blockLength);
+	}
+
+	/**
+	 * Returns transactions selected to fill at most <tt>maxTransactionsLength</tt> bytes,
+	 * including per-transaction length prefixes, sorted using {@link Transaction#getDataComparator()}.
+	 *
+	 * @see #getTransactions(Block)
+	 */
+	public List<TransactionData> getTransactions(long maxTransactionsLength) {
+		PriorityQueue<Deque<Chunk>> remainingChains = new PriorityQueue<>(CHAIN_COMPARATOR);
+		for (List<Chunk> chain : this.chains)
+			remainingChains.add(new ArrayDeque<>(chain));
+
+		List<TransactionData> transactions = new ArrayList<>();
+		long remainingLength = maxTransactionsLength;
+
+		while (!remainingChains.isEmpty()) {
+			Deque<Chunk> chain = remainingChains.poll();
+			Chunk chunk = chain.pollFirst();
+
+			// Rest of creator's chain depends on this chunk, so creator is done
+			if (chunk.length > remainingLength)
+				continue;
+
+			transactions.addAll(chunk.transactions);
+			remainingLength -= chunk.length;
+
+			if (!chain.isEmpty())
+				remainingChains.add(chain);
+		}
+
+		transactions.sort(DATA_COMPARATOR);
+
+		return transactions;
+	}
+
+	/** Returns whether template was built on top of passed block, using latest unconfirmed transactions. */
+	public boolean isCurrent(BlockData parentBlockData) throws DataException {
+		return Arrays.equals(this.parentSignature, parentBlockData.getSignature())
+				&& this.mempoolModificationCount == Mempool.getInstance().getModificationCount();
+	}
+
+	// Building
+
+	/**
+	 * Builds template for block following <tt>parentBlockData</tt>.
+	 * <p>
+	 * Transactions that have expired, or missed their group-approval window, are skipped.
+	 * Otherwise validity isn't checked, so no repository changes are made, and no blockchain lock is needed.
+	 *
+	 * @param repository
+	 * @param parentBlockData
+	 * @return template, with no transactions if NTP isn't synced yet
+	 * @throws DataException
+	 */
+	public static BlockTemplate build(Repository repository, BlockData parentBlockData) throws DataException {
+		Mempool mempool = Mempool.getInstance();
+
+		// Grab count first so any modifications during build make template stale
+		final long mempoolModificationCount = mempool.getModificationCount();
+
+		List<List<Chunk>> chains = new ArrayList<>();
+
+		final Long now = NTP.getTime();
+		if (now == null)
+			return new BlockTemplate(parentBlockData.getSignature(), mempoolModificationCount, chains);
+
+		for (String creatorAddress : mempool.getCreatorAddresses()) {
+			byte[] lastReference = repository.getAccountRepository().getLastReference(creatorAddress);
+			if (lastReference == null)
+				continue;
+
+			List<Chunk> chain = buildChain(repository, mempool.getReferenceChain(creatorAddress, lastReference), now);
+
+			if (!chain.isEmpty())
+				chains.add(chain);
+		}
+
+		LOGGER.trace(() -> String.format("Built block template with transactions from %d creators", chains.size()));
+
+		return new BlockTemplate(parentBlockData.getSignature(), mempoolModificationCount, chains);
+	}
+
+	/**
+	 * Returns creator's chain of transactions, following on from their confirmed last reference, split into chunks.
+	 * <p>
+	 * Chain stops at first transaction that is expired, past its group-approval window, or not serializable,
+	 * as later transactions depend on it.
+	 */
+	private static List<Chunk> buildChain(Repository repository, List<TransactionData> referenceChain, long now) throws DataException {
+		Deque<Chunk> chain = new ArrayDeque<>();
+
+		for (TransactionData transactionData : referenceChain) {
+			Transaction transaction = Transaction.fromData(repository, transactionData);
+
+			if (transaction.getDeadline() < now || transaction.hasGroupApprovalExpired())
+				break;
+
+			int transactionLength;
+			try {
+				transactionLength = TransactionTransformer.getDataLength(transactionData);
+			} catch (TransformationException e) {
+				break;
+			}
+
+			// Merge with previous chunks while they pay less per byte, so chunks are in descending fee-per-byte order
+			Chunk chunk = new Chunk(transactionData, transactionLength);
+
+			while (!chain.isEmpty() && chunk.compareRate(chain.peekLast()) > 0) {
+				Chunk previousChunk = chain.pollLast();
+				previousChunk.append(chunk);
+				chunk = previousChunk;
+			}
+
+			chain.addLast(chunk);
+		}
+
+		return new ArrayList<>(chain);
+	}
+
+}
@@ -280,6 +280,16 @@ public class GenesisBlock extends Block {
 		return ValidationResult.OK;
 	}
 
+	@Override
+	public ValidationResult validateAndProcess() throws DataException {
+		// Genesis block validation doesn't trial-process transactions so there's nothing to keep
+		ValidationResult validationResult = this.isValid();
+		if (validationResult == ValidationResult.OK)
+			this.process();
+
+		return validationResult;
+	}
+
 	@Override
 	public void process() throws DataException {
 		LOGGER.info(String.format("Using genesis block timestamp of %d", blockData.getTimestamp()));
@@ -0,0 +1,160 @@
+package org.qora.controller;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.network.Network;
+import org.qora.network.Peer;
+import org.qora.network.message.BlockMessage;
+import org.qora.network.message.GetBlockMessage;
+import org.qora.network.message.Message;
+import org.qora.network.message.Message.MessageType;
+import org.qora.settings.Settings;
+import org.qora.utils.Base58;
+
+/**
+ * Keeps several GET_BLOCK requests in flight during synchronization.
+ * <p>
+ * Blocks are requested in height order via {@link #request(byte[])} and returned,
+ * in the same order, by {@link #take()}. Requests can be spread across other peers
+ * that report the same chain tip as the main sync peer, falling back to the
+ * main sync peer if they fail to respond.
+ * <p>
+ * Only network I/O and message decoding happens on fetcher threads, which are owned by {@link Synchronizer}.
+ * Validation and processing of blocks remains with the caller.
+ */
+class BlockFetcher implements AutoCloseable {
+
+	private static final Logger LOGGER = LogManager.getLogger(BlockFetcher.class);
+
+	private static class PendingBlock {
+		private final byte[] signature;
+		private final Future<BlockMessage> future;
+
+		public PendingBlock(byte[] signature, Future<BlockMessage> future) {
+			this.signature = signature;
+			this.future = future;
+		}
+	}
+
+	private final Peer peer;
+	private final List<Peer> peers;
+	private final int windowSize;
+	private final ExecutorService executor;
+	private final Deque<PendingBlock> pendingBlocks = new ArrayDeque<>();
+	private int nextPeerIndex = 0;
+
+	/**
+	 * Creates block fetcher for synchronizing with <tt>peer</tt>.
+	 *
+	 * @param executor runs block requests, with at least window-size threads
+	 * @param peer main peer we're synchronizing with
+	 * @param peersLastBlockSignature main peer's chain tip, used to find other peers with the same chain
+	 */
+	public BlockFetcher(ExecutorService executor, Peer peer, byte[] peersLastBlockSignature) {
+		this.executor = executor;
+		this.peer = peer;
+		this.windowSize = Math.max(1, Settings.getInstance().getSyncBlockWindow());
+
+		this.peers = new ArrayList<>();
+		this.peers.add(peer);
+
+		if (Settings.getInstance().isSyncFromMultiplePeers() && peersLastBlockSignature != null)
+			for (Peer otherPeer : Network.getInstance().getUniqueHandshakedPeers()) {
+				if (this.peers.size() >= this.windowSize)
+					break;
+
+				if (otherPeer != peer && Arrays.equals(otherPeer.getLastBlockSignature(), peersLastBlockSignature))
+					this.peers.add(otherPeer);
+			}
+
+		if (this.peers.size() > 1)
+			LOGGER.debug(String.format("Fetching blocks from peer %s and %d other peer%s with same chain tip", peer,
+					this.peers.size() - 1, (this.peers.size() != 2 ? "s" : "")));
+	}
+
+	/** Returns whether another block request can be made without exceeding window size. */
+	public boolean hasCapacity() {
+		return this.pendingBlocks.size() < this.windowSize;
+	}
+
+	/** Returns whether there are no requested blocks waiting to be taken. */
+	public boolean isEmpty() {
+		return this.pendingBlocks.isEmpty();
+	}
+
+	/** Requests block with passed signature. Blocks are returned by {@link #take()} in request order. */
+	public void request(byte[] signature) {
+		Peer requestPeer = this.peers.get(this.nextPeerIndex++ % this.peers.size());
+
+		Future<BlockMessage> future = this.executor.submit(() -> {
+			BlockMessage blockMessage = fetchBlockMessage(requestPeer, signature);
+
+			if (blockMessage == null && requestPeer != this.peer) {
+				LOGGER.trace(() -> String.format("Peer %s failed to respond with block %.8s - falling back to peer %s", requestPeer, Base58.encode(signature), this.peer));
+				blockMessage = fetchBlockMessage(this.peer, signature);
+			}
+
+			return blockMessage;
+		});
+
+		this.pendingBlocks.addLast(new PendingBlock(signature, future));
+	}
+
+	/** Returns signature of block that will be returned by next call to {@link #take()}, or null if nothing requested. */
+	public byte[] peekSignature() {
+		PendingBlock pendingBlock = this.pendingBlocks.peekFirst();
+		return pendingBlock == null ? null : pendingBlock.signature;
+	}
+
+	/**
+	 * Waits for, and returns, earliest requested block.
+	 *
+	 * @return block message, or null if no peer responded with requested block
+	 * @throws InterruptedException
+	 */
+	public BlockMessage take() throws InterruptedException {
+		PendingBlock pendingBlock = this.pendingBlocks.pollFirst();
+		if (pendingBlock == null)
+			return null;
+
+		try {
+			return pendingBlock.future.get();
+		} catch (ExecutionException e) {
+			LOGGER.debug(String.format("Failed to fetch block %.8s", Base58.encode(pendingBlock.signature)), e.getCause());
+			return null;
+		}
+	}
+
+	@Override
+	public void close() {
+		// Cancel, and interrupt, any requests still waiting for responses
+		for (PendingBlock pendingBlock : this.pendingBlocks)
+			pendingBlock.future.cancel(true);
+
+		this.pendingBlocks.clear();
+	}
+
+	private static BlockMessage fetchBlockMessage(Peer peer, byte[] signature) throws InterruptedException {
+		Message message = peer.getResponse(new GetBlockMessage(signature));
+		if (message == null || message.getType() != MessageType.BLOCK)
+			return null;
+
+		BlockMessage blockMessage = (BlockMessage) message;
+
+		// Make sure peer sent the block we asked for
+		if (!Arrays.equals(blockMessage.getBlockData().getSignature(), signature))
+			return null;
+
+		return blockMessage;
+	}
+
+}
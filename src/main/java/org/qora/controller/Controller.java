@@ -25,6 +25,8 @@ import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.jsse.provider.BouncyCastleJsseProvider;
 import org.qora.api.ApiService;
 import org.qora.block.Block;
+import org.qora.block.BlockCache;
+import org.qora.block.BlockCache.CachedBlock;
 import org.qora.block.BlockChain;
 import org.qora.block.BlockChain.BlockTimingByHeight;
 import org.qora.block.BlockGenerator;
@@ -256,6 +258,9 @@ public class Controller extends Thread {
 		LOGGER.info("Starting controller");
 		Controller.getInstance().start();
 
+		LOGGER.info("Starting transaction relay");
+		TransactionRelay.getInstance().start();
+
 		LOGGER.info("Starting networking on port " + Settings.getInstance().getListenPort());
 		try {
 			Network network = Network.getInstance();
@@ -436,14 +441,9 @@ public class Controller extends Thread {
 				PeerData peerData = peer.getPeerData();
 				peerData.setLastMisbehaved(NTP.getTime());
 
-				// Only save to repository if outbound peer
+				// Only keep note if outbound peer
 				if (peer.isOutbound())
-					try (final Repository repository = RepositoryManager.getRepository()) {
-						repository.getNetworkRepository().save(peerData);
-						repository.saveChanges();
-					} catch (DataException e) {
-						LOGGER.warn("Repository issue while updating peer synchronization info", e);
-					}
+					Network.getInstance().getPeerAddressBook().onUpdated(peerData);
 				break;
 
 			case INFERIOR_CHAIN:
@@ -482,7 +482,7 @@ public class Controller extends Thread {
 		}
 
 		if (!Arrays.equals(newLatestBlockData.getSignature(), latestBlockData.getSignature()))
-			Network.getInstance().broadcast(recipientPeer -> Network.getInstance().buildHeightMessage(recipientPeer, newLatestBlockData));
+			Network.getInstance().broadcastPerVersion(recipientPeer -> Network.getInstance().buildHeightMessage(recipientPeer, newLatestBlockData));
 
 		return syncResult;
 	}
@@ -515,7 +515,7 @@ public class Controller extends Thread {
 			if (repository == null)
 				return;
 
-			List<TransactionData> transactions = repository.getTransactionRepository().getUnconfirmedTransactions();
+			List<TransactionData> transactions = Mempool.getInstance().getTransactions();
 
 			for (TransactionData transactionData : transactions)
 				if (now >= Transaction.getDeadline(transactionData)) {
@@ -562,6 +562,17 @@ public class Controller extends Thread {
 				LOGGER.info("Shutting down networking");
 				Network.getInstance().shutdown();
 
+				LOGGER.info("Shutting down synchronizer");
+				Synchronizer.getInstance().shutdown();
+
+				LOGGER.info("Shutting down transaction relay");
+				TransactionRelay.getInstance().shutdown();
+				try {
+					TransactionRelay.getInstance().join();
+				} catch (InterruptedException e) {
+					// We were interrupted while waiting for thread to join
+				}
+
 				LOGGER.info("Shutting down controller");
 				this.interrupt();
 				try {
@@ -600,10 +611,10 @@ public class Controller extends Thread {
 
 		// Send our current height
 		BlockData latestBlockData = getChainTip();
-		network.broadcast(peer -> network.buildHeightMessage(peer, latestBlockData));
+		network.broadcastPerVersion(peer -> network.buildHeightMessage(peer, latestBlockData));
 
 		// Send (if outbound) / Request unconfirmed transaction signatures
-		network.broadcast(peer -> network.buildGetUnconfirmedTransactionsMessage(peer));
+		network.broadcastPerVersion(peer -> network.buildGetUnconfirmedTransactionsMessage(peer));
 	}
 
 	public void onGeneratedBlock() {
@@ -619,13 +630,13 @@ public class Controller extends Thread {
 		}
 
 		Network network = Network.getInstance();
-		network.broadcast(peer -> network.buildHeightMessage(peer, latestBlockData));
+		network.broadcastPerVersion(peer -> network.buildHeightMessage(peer, latestBlockData));
 	}
 
 	public void onNewTransaction(TransactionData transactionData) {
 		// Send round to all peers
 		Network network = Network.getInstance();
-		network.broadcast(peer -> network.buildNewTransactionMessage(peer, transactionData));
+		network.broadcastPerVersion(peer -> network.buildNewTransactionMessage(peer, transactionData));
 	}
 
 	public void onPeerHandshakeCompleted(Peer peer) {
@@ -635,8 +646,8 @@ public class Controller extends Thread {
 				// Legacy mode
 
 				// Send our unconfirmed transactions
-				try (final Repository repository = RepositoryManager.getRepository()) {
-					List<TransactionData> transactions = repository.getTransactionRepository().getUnconfirmedTransactions();
+				try {
+					List<TransactionData> transactions = Mempool.getInstance().getTransactions();
 
 					for (TransactionData transactionData : transactions) {
 						Message transactionMessage = new TransactionMessage(transactionData);
@@ -664,6 +675,8 @@ public class Controller extends Thread {
 	}
 
 	public void onPeerDisconnect(Peer peer) {
+		TransactionRelay.getInstance().onPeerDisconnect(peer);
+
 		requestSysTrayUpdate = true;
 	}
 
@@ -787,16 +800,27 @@ public class Controller extends Thread {
 				byte[] signature = getBlockMessage.getSignature();
 
 				try (final Repository repository = RepositoryManager.getRepository()) {
-					BlockData blockData = repository.getBlockRepository().fromSignature(signature);
-					if (blockData == null) {
-						LOGGER.debug(() -> String.format("Ignoring GET_BLOCK request from peer %s for unknown block %s", peer, Base58.encode(signature)));
-						// Send no response at all???
-						break;
-					}
+					// Serve from cache if possible, but only if block is still in our chain at the same height
+					CachedBlock cachedBlock = BlockCache.getInstance().get(signature);
+					if (cachedBlock != null && repository.getBlockRepository().getHeightFromSignature(signature) != cachedBlock.height)
+						cachedBlock = null;
+
+					if (cachedBlock == null) {
+						BlockData blockData = repository.getBlockRepository().fromSignature(signature);
+						if (blockData == null) {
+							LOGGER.debug(() -> String.format("Ignoring GET_BLOCK request from peer %s for unknown block %s", peer, Base58.encode(signature)));
+							// Send no response at all???
+							break;
+						}
 
-					Block block = new Block(repository, blockData);
+						cachedBlock = BlockCache.getInstance().put(new Block(repository, blockData));
+						if (cachedBlock == null) {
+							LOGGER.debug(() -> String.format("Unable to serialize block %s for peer %s", Base58.encode(signature), peer));
+							break;
+						}
+					}
 
-					Message blockMessage = new BlockMessage(block);
+					Message blockMessage = new BlockMessage(cachedBlock.height, cachedBlock.bytes);
 					blockMessage.setId(message.getId());
 					if (!peer.sendMessage(blockMessage))
 						peer.disconnect("failed to send block");
@@ -883,80 +907,9 @@ public class Controller extends Thread {
 
 			case TRANSACTION_SIGNATURES: {
 				TransactionSignaturesMessage transactionSignaturesMessage = (TransactionSignaturesMessage) message;
-				List<byte[]> signatures = transactionSignaturesMessage.getSignatures();
-				List<byte[]> newSignatures = new ArrayList<>();
-
-				try (final Repository repository = RepositoryManager.getRepository()) {
-					for (byte[] signature : signatures) {
-						// Do we have it already? (Before requesting transaction data itself)
-						if (repository.getTransactionRepository().exists(signature)) {
-							LOGGER.trace(() -> String.format("Ignoring existing transaction %s from peer %s", Base58.encode(signature), peer));
-							continue;
-						}
-
-						// Check isInterrupted() here and exit fast
-						if (Thread.currentThread().isInterrupted())
-							return;
-
-						// Fetch actual transaction data from peer
-						Message getTransactionMessage = new GetTransactionMessage(signature);
-						Message responseMessage = peer.getResponse(getTransactionMessage);
-						if (responseMessage == null || !(responseMessage instanceof TransactionMessage)) {
-							// Maybe peer no longer has this transaction
-							LOGGER.trace(() -> String.format("Peer %s didn't send transaction %s", peer, Base58.encode(signature)));
-							continue;
-						}
-
-						// Check isInterrupted() here and exit fast
-						if (Thread.currentThread().isInterrupted())
-							return;
-
-						TransactionMessage transactionMessage = (TransactionMessage) responseMessage;
-						TransactionData transactionData = transactionMessage.getTransactionData();
-						Transaction transaction = Transaction.fromData(repository, transactionData);
-
-						// Check signature
-						if (!transaction.isSignatureValid()) {
-							LOGGER.trace(() -> String.format("Ignoring %s transaction %s with invalid signature from peer %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature()), peer));
-							continue;
-						}
-
-						ValidationResult validationResult = transaction.importAsUnconfirmed();
-
-						if (validationResult == ValidationResult.TRANSACTION_ALREADY_EXISTS) {
-							LOGGER.trace(() -> String.format("Ignoring existing transaction %s from peer %s", Base58.encode(transactionData.getSignature()), peer));
-							continue;
-						}
-
-						if (validationResult == ValidationResult.NO_BLOCKCHAIN_LOCK) {
-							LOGGER.trace(() -> String.format("Couldn't lock blockchain to import unconfirmed transaction %s from peer %s", Base58.encode(transactionData.getSignature()), peer));
-							// Some other thread (e.g. Synchronizer) might have blockchain lock for a while so might as well give up for now
-							break;
-						}
-
-						if (validationResult != ValidationResult.OK) {
-							LOGGER.trace(() -> String.format("Ignoring invalid (%s) %s transaction %s from peer %s", validationResult.name(), transactionData.getType().name(), Base58.encode(transactionData.getSignature()), peer));
-							continue;
-						}
-
-						LOGGER.debug(() -> String.format("Imported %s transaction %s from peer %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature()), peer));
-
-						// We could collate signatures that are new to us and broadcast them to our peers too
-						newSignatures.add(signature);
-					}
-				} catch (DataException e) {
-					LOGGER.error(String.format("Repository issue while processing unconfirmed transactions from peer %s", peer), e);
-				} catch (InterruptedException e) {
-					// Shutdown
-					return;
-				}
-
-				if (newSignatures.isEmpty())
-					break;
-
-				// Broadcast signatures that are new to us
-				Network.getInstance().broadcast(broadcastPeer -> broadcastPeer == peer ? null : new TransactionSignaturesMessage(newSignatures));
 
+				// Unknown transactions are fetched, and imported, in the background
+				TransactionRelay.getInstance().onTransactionSignatures(peer, transactionSignaturesMessage.getSignatures());
 				break;
 			}
 
@@ -0,0 +1,332 @@
+package org.qora.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.account.PublicKeyAccount;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.repository.UnconfirmedTransactionsListener;
+import org.qora.transaction.Transaction;
+import org.qora.transform.TransformationException;
+import org.qora.transform.transaction.TransactionTransformer;
+import org.qora.utils.Base58;
+import org.qora.utils.ByteArray;
+
+/**
+ * In-memory copy of the unconfirmed transactions pile, indexed for fast lookup.
+ * <p>
+ * Indexes are by signature and by creator (including reference chains).
+ * <p>
+ * Transaction data held here is never handed out, as callers (e.g. block validation)
+ * modify transaction data when trial-processing. Queries return fresh copies instead.
+ * <p>
+ * Populated lazily from repository on first use, then kept in sync via
+ * {@link UnconfirmedTransactionsListener} callbacks, which only occur after
+ * repository changes have been committed.
+ */
+public class Mempool implements UnconfirmedTransactionsListener {
+
+	private static final Logger LOGGER = LogManager.getLogger(Mempool.class);
+
+	private static Mempool instance;
+
+	/** Unconfirmed transaction, in serialized form so we can make copies, along with values we need for indexing. */
+	private static class Entry {
+		private final TransactionData transactionData;
+		private final byte[] bytes;
+		private final String creatorAddress;
+
+		public Entry(TransactionData transactionData) throws TransformationException {
+			this.bytes = TransactionTransformer.toBytes(transactionData);
+			// Keep our own copy in case caller modifies theirs
+			this.transactionData = copyOf(transactionData, this.bytes);
+			this.creatorAddress = PublicKeyAccount.getAddress(transactionData.getCreatorPublicKey());
+		}
+
+		public TransactionData copy() throws DataException {
+			try {
+				return copyOf(this.transactionData, this.bytes);
+			} catch (TransformationException e) {
+				throw new DataException("Unable to copy unconfirmed transaction", e);
+			}
+		}
+
+		/** Returns new transaction data from <tt>bytes</tt>, plus those values from <tt>transactionData</tt> that aren't serialized. */
+		private static TransactionData copyOf(TransactionData transactionData, byte[] bytes) throws TransformationException {
+			TransactionData copy = TransactionTransformer.fromBytes(bytes);
+
+			copy.setBlockHeight(transactionData.getBlockHeight());
+			copy.setApprovalStatus(transactionData.getApprovalStatus());
+			copy.setApprovalHeight(transactionData.getApprovalHeight());
+
+			return copy;
+		}
+	}
+
+	/** One creator's unconfirmed transactions. */
+	private static class CreatorTransactions {
+		private final TreeSet<TransactionData> transactions = new TreeSet<>(Transaction.getDataComparator());
+		/** Earliest transaction (by data comparator) for each reference. */
+		private final Map<ByteArray, TransactionData> transactionsByReference = new HashMap<>();
+	}
+
+	private static final Comparator<TransactionData> DATA_COMPARATOR = Transaction.getDataComparator();
+	private static final Comparator<Entry> ENTRY_COMPARATOR = Comparator.comparing(entry -> entry.transactionData, DATA_COMPARATOR);
+
+	private boolean isLoaded = false;
+	/** Incremented whenever unconfirmed transactions change, so callers can tell if derived data is stale. */
+	private long modificationCount = 0;
+	private final Map<ByteArray, Entry> entriesBySignature = new HashMap<>();
+	private final TreeSet<Entry> entriesInOrder = new TreeSet<>(ENTRY_COMPARATOR);
+	private final Map<String, CreatorTransactions> transactionsByCreator = new HashMap<>();
+
+	// Constructors
+
+	private Mempool() {
+	}
+
+	public static synchronized Mempool getInstance() {
+		if (instance == null) {
+			instance = new Mempool();
+			RepositoryManager.setUnconfirmedTransactionsListener(instance);
+		}
+
+		return instance;
+	}
+
+	// Listener callbacks
+
+	@Override
+	public synchronized void onUnconfirmed(TransactionData transactionData) {
+		// If we're not loaded yet then repository will have this transaction when we do load
+		if (!this.isLoaded)
+			return;
+
+		this.add(transactionData);
+	}
+
+	@Override
+	public synchronized void onRemoved(byte[] signature) {
+		if (!this.isLoaded)
+			return;
+
+		this.remove(signature);
+	}
+
+	@Override
+	public synchronized void onRepositoryClosed() {
+		this.clear();
+	}
+
+	// Queries
+
+	/** Returns number of unconfirmed transactions. */
+	public synchronized int size() throws DataException {
+		this.ensureLoaded();
+
+		return this.entriesBySignature.size();
+	}
+
+	/** Returns count that changes whenever unconfirmed transactions are added or removed. */
+	public synchronized long getModificationCount() {
+		return this.modificationCount;
+	}
+
+	/** Returns copies of unconfirmed transactions, sorted using {@link Transaction#getDataComparator()}. */
+	public synchronized List<TransactionData> getTransactions() throws DataException {
+		this.ensureLoaded();
+
+		List<TransactionData> transactions = new ArrayList<>(this.entriesInOrder.size());
+		for (Entry entry : this.entriesInOrder)
+			transactions.add(entry.copy());
+
+		return transactions;
+	}
+
+	/** Returns number of unconfirmed transactions created by account with passed address. */
+	public synchronized int countByCreator(String creatorAddress) throws DataException {
+		this.ensureLoaded();
+
+		CreatorTransactions creatorTransactions = this.transactionsByCreator.get(creatorAddress);
+		return creatorTransactions == null ? 0 : creatorTransactions.transactions.size();
+	}
+
+	/** Returns addresses of accounts that have created unconfirmed transactions. */
+	public synchronized List<String> getCreatorAddresses() throws DataException {
+		this.ensureLoaded();
+
+		return new ArrayList<>(this.transactionsByCreator.keySet());
+	}
+
+	/**
+	 * Returns copies of creator's unconfirmed transactions that follow on from <tt>lastReference</tt>, in chain order.
+	 * <p>
+	 * Starting with <tt>lastReference</tt>, typically the account's confirmed last reference,
+	 * we follow unconfirmed transactions that reference the previous link in the chain.
+	 *
+	 * @param creatorAddress
+	 * @param lastReference
+	 * @return transactions in chain, or empty list if no unconfirmed transaction follows on from lastReference
+	 * @throws DataException
+	 */
+	public synchronized List<TransactionData> getReferenceChain(String creatorAddress, byte[] lastReference) throws DataException {
+		this.ensureLoaded();
+
+		List<TransactionData> chain = this.followReferenceChain(creatorAddress, lastReference);
+
+		List<TransactionData> transactions = new ArrayList<>(chain.size());
+		for (TransactionData transactionData : chain)
+			transactions.add(this.entriesBySignature.get(new ByteArray(transactionData.getSignature())).copy());
+
+		return transactions;
+	}
+
+	/**
+	 * Returns signature of last unconfirmed transaction in creator's reference chain.
+	 *
+	 * @param creatorAddress
+	 * @param lastReference
+	 * @return signature of last transaction in chain, or null if no unconfirmed transaction follows on from lastReference
+	 * @throws DataException
+	 * @see #getReferenceChain(String, byte[])
+	 */
+	public synchronized byte[] getLastReference(String creatorAddress, byte[] lastReference) throws DataException {
+		this.ensureLoaded();
+
+		List<TransactionData> chain = this.followReferenceChain(creatorAddress, lastReference);
+		if (chain.isEmpty())
+			return null;
+
+		return chain.get(chain.size() - 1).getSignature();
+	}
+
+	/** Returns our own transaction data for creator's reference chain, starting after <tt>lastReference</tt>. */
+	private List<TransactionData> followReferenceChain(String creatorAddress, byte[] lastReference) {
+		List<TransactionData> chain = new ArrayList<>();
+
+		CreatorTransactions creatorTransactions = this.transactionsByCreator.get(creatorAddress);
+		if (creatorTransactions == null || lastReference == null)
+			return chain;
+
+		byte[] nextReference = lastReference;
+
+		// Each transaction can only appear once in chain, so limit iterations to guard against loops
+		for (int i = 0; i < creatorTransactions.transactions.size(); ++i) {
+			TransactionData nextTransactionData = creatorTransactions.transactionsByReference.get(new ByteArray(nextReference));
+			if (nextTransactionData == null)
+				break;
+
+			chain.add(nextTransactionData);
+			nextReference = nextTransactionData.getSignature();
+		}
+
+		return chain;
+	}
+
+	// Loading / maintenance
+
+	private void ensureLoaded() throws DataException {
+		if (this.isLoaded)
+			return;
+
+		// Use our own repository session so we don't see caller's uncommitted changes
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			List<TransactionData> transactions = repository.getTransactionRepository().getUnconfirmedTransactions();
+
+			for (TransactionData transactionData : transactions)
+				this.add(transactionData);
+		}
+
+		this.isLoaded = true;
+
+		LOGGER.debug(() -> String.format("Loaded %d unconfirmed transactions", this.entriesBySignature.size()));
+	}
+
+	private void clear() {
+		this.entriesBySignature.clear();
+		this.entriesInOrder.clear();
+		this.transactionsByCreator.clear();
+
+		this.isLoaded = false;
+		++this.modificationCount;
+	}
+
+	private void add(TransactionData transactionData) {
+		ByteArray signature = new ByteArray(transactionData.getSignature());
+
+		// Replace any existing entry so indexes remain consistent
+		if (this.entriesBySignature.containsKey(signature))
+			this.remove(transactionData.getSignature());
+
+		Entry entry;
+		try {
+			entry = new Entry(transactionData);
+		} catch (TransformationException e) {
+			LOGGER.warn(String.format("Ignoring unserializable unconfirmed transaction %s", Base58.encode(transactionData.getSignature())), e);
+			return;
+		}
+
+		++this.modificationCount;
+		transactionData = entry.transactionData;
+
+		this.entriesBySignature.put(signature, entry);
+		this.entriesInOrder.add(entry);
+
+		CreatorTransactions creatorTransactions = this.transactionsByCreator.computeIfAbsent(entry.creatorAddress, address -> new CreatorTransactions());
+		creatorTransactions.transactions.add(transactionData);
+
+		if (transactionData.getReference() != null)
+			creatorTransactions.transactionsByReference.merge(new ByteArray(transactionData.getReference()), transactionData,
+					(existing, added) -> DATA_COMPARATOR.compare(existing, added) <= 0 ? existing : added);
+	}
+
+	private void remove(byte[] signature) {
+		Entry entry = this.entriesBySignature.remove(new ByteArray(signature));
+		if (entry == null)
+			return;
+
+		++this.modificationCount;
+		TransactionData transactionData = entry.transactionData;
+
+		this.entriesInOrder.remove(entry);
+
+		CreatorTransactions creatorTransactions = this.transactionsByCreator.get(entry.creatorAddress);
+		if (creatorTransactions == null)
+			return;
+
+		creatorTransactions.transactions.remove(transactionData);
+
+		if (creatorTransactions.transactions.isEmpty()) {
+			this.transactionsByCreator.remove(entry.creatorAddress);
+			return;
+		}
+
+		if (transactionData.getReference() == null)
+			return;
+
+		ByteArray reference = new ByteArray(transactionData.getReference());
+		TransactionData referencingTransactionData = creatorTransactions.transactionsByReference.get(reference);
+		if (referencingTransactionData == null || !Arrays.equals(referencingTransactionData.getSignature(), signature))
+			return;
+
+		// Find next-best transaction with same reference, if any
+		creatorTransactions.transactionsByReference.remove(reference);
+
+		for (TransactionData otherTransactionData : creatorTransactions.transactions)
+			if (Arrays.equals(otherTransactionData.getReference(), transactionData.getReference())) {
+				creatorTransactions.transactionsByReference.put(reference, otherTransactionData);
+				break;
+			}
+	}
+
+}
@@ -7,6 +7,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.logging.log4j.LogManager;
@@ -20,7 +25,6 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.network.Peer;
 import org.qora.network.message.BlockMessage;
 import org.qora.network.message.BlockSummariesMessage;
-import org.qora.network.message.GetBlockMessage;
 import org.qora.network.message.GetBlockSummariesMessage;
 import org.qora.network.message.GetSignaturesMessage;
 import org.qora.network.message.GetSignaturesV2Message;
@@ -30,6 +34,7 @@ import org.qora.network.message.SignaturesMessage;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
+import org.qora.settings.Settings;
 import org.qora.transaction.Transaction;
 import org.qora.utils.Base58;
 
@@ -52,6 +57,9 @@ public class Synchronizer {
 
 	private Repository repository;
 
+	/** Threads for {@link BlockFetcher} requests, shared by all synchronizations. Idle threads exit after a while. */
+	private final ExecutorService blockFetcherExecutor;
+
 	public enum SynchronizationResult {
 		OK, NOTHING_TO_DO, GENESIS_ONLY, NO_COMMON_BLOCK, TOO_FAR_BEHIND, TOO_DIVERGENT, NO_REPLY, INFERIOR_CHAIN, INVALID_DATA, NO_BLOCKCHAIN_LOCK, REPOSITORY_ISSUE;
 	}
@@ -59,15 +67,29 @@ public class Synchronizer {
 	// Constructors
 
 	private Synchronizer() {
+		final int threadCount = Math.max(1, Settings.getInstance().getSyncBlockWindow());
+		final AtomicInteger threadNumber = new AtomicInteger();
+
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threadCount, threadCount,
+				60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				runnable -> new Thread(runnable, "Block fetcher " + threadNumber.incrementAndGet()));
+		executor.allowCoreThreadTimeOut(true);
+
+		this.blockFetcherExecutor = executor;
 	}
 
-	public static Synchronizer getInstance() {
+	public static synchronized Synchronizer getInstance() {
 		if (instance == null)
 			instance = new Synchronizer();
 
 		return instance;
 	}
 
+	public void shutdown() {
+		this.blockFetcherExecutor.shutdownNow();
+	}
+
 	/**
 	 * Attempt to synchronize blockchain with peer.
 	 * <p>
@@ -252,74 +274,90 @@ public class Synchronizer {
 						LOGGER.debug(String.format("Fetching new blocks from peer %s", peer));
 					}
 
-					// Fetch, and apply, blocks from peer
+					// Fetch, and apply, blocks from peer, keeping several block requests in flight
 					byte[] signature = commonBlockData.getSignature();
-					int maxBatchHeight = commonBlockHeight + SYNC_BATCH_SIZE;
-					while (ourHeight < peerHeight && ourHeight < maxBatchHeight) {
-						// Do we need more signatures?
-						if (signatures.isEmpty()) {
-							int numberRequested = maxBatchHeight - ourHeight;
-							LOGGER.trace(String.format("Requesting %d signature%s after height %d", numberRequested, (numberRequested != 1 ? "s": ""), ourHeight));
-
-							signatures = this.getBlockSignatures(peer, signature, numberRequested);
-
-							if (signatures == null || signatures.isEmpty()) {
-								LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
-										ourHeight, Base58.encode(signature)));
-								return SynchronizationResult.NO_REPLY;
-							}
+					final int maxBatchHeight = Math.min(peerHeight, commonBlockHeight + SYNC_BATCH_SIZE);
+					int requestedHeight = ourHeight;
+					SynchronizationResult requestFailure = null;
+
+					try (BlockFetcher blockFetcher = new BlockFetcher(this.blockFetcherExecutor, peer, peersLastBlockSignature)) {
+						while (ourHeight < maxBatchHeight) {
+							// Top up block requests
+							while (requestFailure == null && requestedHeight < maxBatchHeight && blockFetcher.hasCapacity()) {
+								// Do we need more signatures?
+								if (signatures.isEmpty()) {
+									int numberRequested = maxBatchHeight - requestedHeight;
+									LOGGER.trace(String.format("Requesting %d signature%s after height %d", numberRequested, (numberRequested != 1 ? "s": ""), requestedHeight));
+
+									signatures = this.getBlockSignatures(peer, signature, numberRequested);
+
+									if (signatures == null || signatures.isEmpty()) {
+										LOGGER.info(String.format("Peer %s failed to respond with more block signatures after height %d, sig %.8s", peer,
+												requestedHeight, Base58.encode(signature)));
+										requestFailure = SynchronizationResult.NO_REPLY;
+										break;
+									}
+
+									LOGGER.trace(String.format("Received %s signature%s", signatures.size(), (signatures.size() != 1 ? "s" : "")));
+								}
 
-							LOGGER.trace(String.format("Received %s signature%s", signatures.size(), (signatures.size() != 1 ? "s" : "")));
-						}
+								signature = signatures.get(0);
+								signatures.remove(0);
+								++requestedHeight;
 
-						signature = signatures.get(0);
-						signatures.remove(0);
-						++ourHeight;
+								// Is signature in our banned list?
+								if (isBannedSignature(signature)) {
+									LOGGER.info(String.format("Peer %s sent banned block %.8s for height %d", peer,
+											Base58.encode(signature), requestedHeight));
+									requestFailure = SynchronizationResult.INFERIOR_CHAIN;
+									break;
+								}
 
-						// Is signature in our banned list?
-						for (byte[] bannedSignature : BANNED_BLOCK_SIGNATURES)
-							if (Arrays.equals(signature, bannedSignature)) {
-								LOGGER.info(String.format("Peer %s sent banned block %.8s for height %d", peer,
-										Base58.encode(signature), ourHeight));
-								return SynchronizationResult.INFERIOR_CHAIN;
+								blockFetcher.request(signature);
 							}
 
-						Block newBlock = this.fetchBlock(repository, peer, signature);
+							// Apply blocks fetched so far before reporting why we couldn't request more
+							if (blockFetcher.isEmpty())
+								return requestFailure;
 
-						if (newBlock == null) {
-							LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
-									ourHeight, Base58.encode(signature)));
-							return SynchronizationResult.NO_REPLY;
-						}
+							byte[] blockSignature = blockFetcher.peekSignature();
+							Block newBlock = this.toBlock(repository, blockFetcher.take());
+							++ourHeight;
 
-						if (!newBlock.isSignatureValid()) {
-							LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
-									ourHeight, Base58.encode(signature)));
-							return SynchronizationResult.INVALID_DATA;
-						}
+							if (newBlock == null) {
+								LOGGER.info(String.format("Peer %s failed to respond with block for height %d, sig %.8s", peer,
+										ourHeight, Base58.encode(blockSignature)));
+								return SynchronizationResult.NO_REPLY;
+							}
 
-						// Transactions are transmitted without approval status so determine that now
-						for (Transaction transaction : newBlock.getTransactions())
-							transaction.setInitialApprovalStatus();
+							// Verify signatures across all cores before single-threaded validation
+							if (!newBlock.preVerifySignatures() || !newBlock.isSignatureValid()) {
+								LOGGER.info(String.format("Peer %s sent block with invalid signature for height %d, sig %.8s", peer,
+										ourHeight, Base58.encode(blockSignature)));
+								return SynchronizationResult.INVALID_DATA;
+							}
 
-						ValidationResult blockResult = newBlock.isValid();
-						if (blockResult != ValidationResult.OK) {
-							LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
-									ourHeight, Base58.encode(signature), blockResult.name()));
-							return SynchronizationResult.INVALID_DATA;
-						}
+							// Transactions are transmitted without approval status so determine that now
+							for (Transaction transaction : newBlock.getTransactions())
+								transaction.setInitialApprovalStatus();
 
-						// Save transactions attached to this block
-						for (Transaction transaction : newBlock.getTransactions()) {
-							TransactionData transactionData = transaction.getTransactionData();
-							repository.getTransactionRepository().save(transactionData);
-						}
+							// Save transactions attached to this block (discarded below if block turns out to be invalid)
+							for (Transaction transaction : newBlock.getTransactions()) {
+								TransactionData transactionData = transaction.getTransactionData();
+								repository.getTransactionRepository().save(transactionData);
+							}
 
-						newBlock.process();
+							ValidationResult blockResult = newBlock.validateAndProcess();
+							if (blockResult != ValidationResult.OK) {
+								LOGGER.info(String.format("Peer %s sent invalid block for height %d, sig %.8s: %s", peer,
+										ourHeight, Base58.encode(blockSignature), blockResult.name()));
+								return SynchronizationResult.INVALID_DATA;
+							}
 
-						// If we've grown our blockchain then at least save progress so far
-						if (ourHeight > ourInitialHeight)
-							repository.saveChanges();
+							// If we've grown our blockchain then at least save progress so far
+							if (ourHeight > ourInitialHeight)
+								repository.saveChanges();
+						}
 					}
 
 					// Commit
@@ -446,14 +484,17 @@ public class Synchronizer {
 		return signaturesMessage.getSignatures();
 	}
 
-	private Block fetchBlock(Repository repository, Peer peer, byte[] signature) throws InterruptedException {
-		Message getBlockMessage = new GetBlockMessage(signature);
+	private static boolean isBannedSignature(byte[] signature) {
+		for (byte[] bannedSignature : BANNED_BLOCK_SIGNATURES)
+			if (Arrays.equals(signature, bannedSignature))
+				return true;
 
-		Message message = peer.getResponse(getBlockMessage);
-		if (message == null || message.getType() != MessageType.BLOCK)
-			return null;
+		return false;
+	}
 
-		BlockMessage blockMessage = (BlockMessage) message;
+	private Block toBlock(Repository repository, BlockMessage blockMessage) {
+		if (blockMessage == null)
+			return null;
 
 		try {
 			return new Block(repository, blockMessage.getBlockData(), blockMessage.getTransactions(), blockMessage.getAtStates());
@@ -0,0 +1,427 @@
+package org.qora.controller;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.crypto.SignatureVerifier;
+import org.qora.data.transaction.TransactionData;
+import org.qora.network.Network;
+import org.qora.network.Peer;
+import org.qora.network.message.GetTransactionMessage;
+import org.qora.network.message.Message;
+import org.qora.network.message.TransactionMessage;
+import org.qora.network.message.TransactionSignaturesMessage;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.settings.Settings;
+import org.qora.transaction.Transaction;
+import org.qora.transaction.Transaction.ValidationResult;
+import org.qora.utils.Base58;
+import org.qora.utils.ByteArray;
+
+/**
+ * Fetches unconfirmed transactions announced by peers, and imports them.
+ * <p>
+ * Announced signatures are checked against the repository in one query. Unknown transactions are then
+ * requested from the announcing peer, keeping several GET_TRANSACTION requests in flight at once,
+ * up to a per-peer window shared by all fetches from that peer.
+ * Each signature is only requested from one peer at a time, so the same transaction announced
+ * by many peers is only fetched once.
+ * <p>
+ * If too many fetches are already queued, announcements are dropped, to be fetched when next announced.
+ * <p>
+ * Received transactions are passed to a single importer thread, which pre-verifies signatures in parallel,
+ * then imports a batch of transactions per blockchain lock acquisition.
+ * Newly imported transactions are announced to our other peers.
+ */
+public class TransactionRelay extends Thread {
+
+	private static final Logger LOGGER = LogManager.getLogger(TransactionRelay.class);
+
+	/** Number of peers that we can be fetching transactions from at the same time. */
+	private static final int FETCH_THREADS = 4;
+	/** Maximum number of announcements waiting for a fetch thread. */
+	private static final int FETCH_QUEUE_SIZE = 100;
+	/** Maximum time to wait for a peer to send a requested transaction. (ms) */
+	private static final long FETCH_TIMEOUT = 5000L; // ms
+	/** Maximum number of received transactions waiting to be imported. */
+	private static final int IMPORT_QUEUE_SIZE = 1000;
+	/** Maximum number of transactions imported per blockchain lock acquisition. */
+	private static final int IMPORT_BATCH_SIZE = 100;
+	/** Maximum time to wait for blockchain lock before giving up on a batch. (ms) */
+	private static final long BLOCKCHAIN_LOCK_TIMEOUT = 1000L; // ms
+
+	private static TransactionRelay instance;
+
+	/** Transaction received from peer, waiting to be imported. */
+	private static class ReceivedTransaction {
+		private final TransactionData transactionData;
+		private final Peer peer;
+
+		public ReceivedTransaction(TransactionData transactionData, Peer peer) {
+			this.transactionData = transactionData;
+			this.peer = peer;
+		}
+	}
+
+	/** Announced signatures to be fetched from peer. */
+	private class FetchTask implements Runnable {
+		private final Peer peer;
+		private final List<byte[]> signatures;
+
+		public FetchTask(Peer peer, List<byte[]> signatures) {
+			this.peer = peer;
+			this.signatures = signatures;
+		}
+
+		@Override
+		public void run() {
+			fetchTransactions(this.peer, this.signatures);
+		}
+	}
+
+	/** GET_TRANSACTION request awaiting response. */
+	private static class PendingRequest {
+		private final byte[] signature;
+		private final long sentTimestamp;
+
+		public PendingRequest(byte[] signature, long sentTimestamp) {
+			this.signature = signature;
+			this.sentTimestamp = sentTimestamp;
+		}
+	}
+
+	private volatile boolean isStopping = false;
+
+	/** Signatures of transactions being fetched or imported, with the peer they're being fetched from. */
+	private final Map<ByteArray, Peer> inFlightSignatures = new ConcurrentHashMap<>();
+	/** Permits for GET_TRANSACTION requests in flight, per peer, shared by all fetches from that peer. */
+	private final Map<Peer, Semaphore> peerWindows = new ConcurrentHashMap<>();
+	private final ThreadPoolExecutor fetchExecutor;
+	private final BlockingQueue<ReceivedTransaction> importQueue = new LinkedBlockingQueue<>(IMPORT_QUEUE_SIZE);
+
+	// Constructors
+
+	private TransactionRelay() {
+		AtomicInteger threadNumber = new AtomicInteger();
+
+		this.fetchExecutor = new ThreadPoolExecutor(FETCH_THREADS, FETCH_THREADS,
+				0L, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<Runnable>(FETCH_QUEUE_SIZE),
+				runnable -> new Thread(runnable, "Transaction fetcher " + threadNumber.incrementAndGet()),
+				(runnable, executor) -> this.onFetchRejected((FetchTask) runnable));
+	}
+
+	public static synchronized TransactionRelay getInstance() {
+		if (instance == null)
+			instance = new TransactionRelay();
+
+		return instance;
+	}
+
+	// Announcements from peers
+
+	/**
+	 * Requests transactions, announced by <tt>peer</tt>, that we don't already have.
+	 * <p>
+	 * Signatures that are already being fetched from another peer are skipped.
+	 * If that peer fails to send the transaction, it will be fetched when next announced.
+	 * <p>
+	 * Returns without waiting for transactions to arrive.
+	 */
+	public void onTransactionSignatures(Peer peer, List<byte[]> signatures) {
+		if (signatures.isEmpty() || this.isStopping)
+			return;
+
+		Set<ByteArray> existingSignatures = new HashSet<>();
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			for (byte[] signature : repository.getTransactionRepository().getExistingSignatures(signatures))
+				existingSignatures.add(new ByteArray(signature));
+		} catch (DataException e) {
+			LOGGER.error(String.format("Repository issue while checking unconfirmed transaction signatures from peer %s", peer), e);
+			return;
+		}
+
+		List<byte[]> wantedSignatures = new ArrayList<>();
+		for (byte[] signature : signatures) {
+			ByteArray key = new ByteArray(signature);
+
+			if (existingSignatures.contains(key)) {
+				LOGGER.trace(() -> String.format("Ignoring existing transaction %s from peer %s", Base58.encode(signature), peer));
+				continue;
+			}
+
+			// Already being fetched (possibly from another peer)?
+			if (this.inFlightSignatures.putIfAbsent(key, peer) != null)
+				continue;
+
+			wantedSignatures.add(signature);
+		}
+
+		if (wantedSignatures.isEmpty())
+			return;
+
+		this.fetchExecutor.execute(new FetchTask(peer, wantedSignatures));
+	}
+
+	/** Called when fetch can't be queued, because queue is full or we're shutting down. */
+	private void onFetchRejected(FetchTask fetchTask) {
+		if (!this.isStopping)
+			LOGGER.debug(() -> String.format("Dropping %d transaction signatures from peer %s as fetch queue is full", fetchTask.signatures.size(), fetchTask.peer));
+
+		this.releaseSignatures(fetchTask.signatures);
+	}
+
+	public void onPeerDisconnect(Peer peer) {
+		this.peerWindows.remove(peer);
+	}
+
+	/**
+	 * Requests transactions from peer, keeping up to <tt>transactionFetchWindow</tt> requests in flight.
+	 * <p>
+	 * Window is shared with any other fetches from the same peer.
+	 * If window stays full for too long, without any requests of our own to wait on, remaining signatures are dropped.
+	 */
+	private void fetchTransactions(Peer peer, List<byte[]> signatures) {
+		final Semaphore window = this.peerWindows.computeIfAbsent(peer, key -> new Semaphore(Settings.getInstance().getTransactionFetchWindow()));
+
+		BlockingQueue<Message> replyQueue = new LinkedBlockingQueue<>();
+		// Keyed by message ID, in order sent, so oldest request is first
+		Map<Integer, PendingRequest> pendingRequests = new LinkedHashMap<>();
+		int nextIndex = 0;
+
+		try {
+			while (nextIndex < signatures.size() || !pendingRequests.isEmpty()) {
+				// Top up requests in flight, waiting for room in peer's window only if we have no requests of our own to wait on
+				while (nextIndex < signatures.size()
+						&& (pendingRequests.isEmpty() ? window.tryAcquire(FETCH_TIMEOUT, TimeUnit.MILLISECONDS) : window.tryAcquire())) {
+					byte[] signature = signatures.get(nextIndex);
+
+					Integer id = peer.sendRequest(new GetTransactionMessage(signature), replyQueue);
+					if (id == null) {
+						window.release();
+						LOGGER.trace(() -> String.format("Unable to request transactions from peer %s", peer));
+						return;
+					}
+
+					++nextIndex;
+					pendingRequests.put(id, new PendingRequest(signature, System.currentTimeMillis()));
+				}
+
+				if (pendingRequests.isEmpty()) {
+					final int droppedCount = signatures.size() - nextIndex;
+					LOGGER.debug(() -> String.format("Dropping %d transaction signatures from peer %s as too many requests in flight", droppedCount, peer));
+					return;
+				}
+
+				PendingRequest oldestRequest = pendingRequests.values().iterator().next();
+				long waitTime = oldestRequest.sentTimestamp + FETCH_TIMEOUT - System.currentTimeMillis();
+
+				Message response = waitTime > 0 ? replyQueue.poll(waitTime, TimeUnit.MILLISECONDS) : null;
+				if (response == null) {
+					this.expireRequests(peer, pendingRequests, window);
+					continue;
+				}
+
+				PendingRequest request = pendingRequests.remove(response.getId());
+				if (request == null)
+					continue;
+
+				peer.cancelRequest(response.getId());
+				window.release();
+
+				if (!(response instanceof TransactionMessage)) {
+					this.releaseSignature(request.signature);
+					continue;
+				}
+
+				TransactionData transactionData = ((TransactionMessage) response).getTransactionData();
+
+				if (!Arrays.equals(transactionData.getSignature(), request.signature)) {
+					LOGGER.trace(() -> String.format("Peer %s sent transaction %s instead of %s", peer,
+							Base58.encode(transactionData.getSignature()), Base58.encode(request.signature)));
+					this.releaseSignature(request.signature);
+					continue;
+				}
+
+				// Importer still releases signature if we're interrupted while waiting for room
+				if (!this.importQueue.offer(new ReceivedTransaction(transactionData, peer), FETCH_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					LOGGER.debug(() -> String.format("Dropping transaction %s from peer %s as import queue is full", Base58.encode(request.signature), peer));
+					this.releaseSignature(request.signature);
+				}
+			}
+		} catch (InterruptedException e) {
+			// Shutting down
+		} finally {
+			for (Map.Entry<Integer, PendingRequest> entry : pendingRequests.entrySet()) {
+				peer.cancelRequest(entry.getKey());
+				window.release();
+				this.releaseSignature(entry.getValue().signature);
+			}
+
+			// Release signatures we didn't get around to requesting
+			this.releaseSignatures(signatures.subList(nextIndex, signatures.size()));
+		}
+	}
+
+	/** Gives up on requests that peer hasn't responded to in time, e.g. because peer no longer has that transaction. */
+	private void expireRequests(Peer peer, Map<Integer, PendingRequest> pendingRequests, Semaphore window) {
+		final long expiryThreshold = System.currentTimeMillis() - FETCH_TIMEOUT;
+
+		Iterator<Map.Entry<Integer, PendingRequest>> iterator = pendingRequests.entrySet().iterator();
+		while (iterator.hasNext()) {
+			Map.Entry<Integer, PendingRequest> entry = iterator.next();
+			PendingRequest request = entry.getValue();
+
+			// Requests are in order sent, so rest are newer
+			if (request.sentTimestamp > expiryThreshold)
+				break;
+
+			LOGGER.trace(() -> String.format("Peer %s didn't send transaction %s", peer, Base58.encode(request.signature)));
+
+			peer.cancelRequest(entry.getKey());
+			window.release();
+			this.releaseSignature(request.signature);
+			iterator.remove();
+		}
+	}
+
+	private void releaseSignature(byte[] signature) {
+		this.inFlightSignatures.remove(new ByteArray(signature));
+	}
+
+	private void releaseSignatures(List<byte[]> signatures) {
+		for (byte[] signature : signatures)
+			this.releaseSignature(signature);
+	}
+
+	// Importing
+
+	@Override
+	public void run() {
+		Thread.currentThread().setName("Transaction relay");
+
+		List<ReceivedTransaction> batch = new ArrayList<>();
+
+		try {
+			while (!isStopping) {
+				batch.add(this.importQueue.take());
+				this.importQueue.drainTo(batch, IMPORT_BATCH_SIZE - 1);
+
+				try {
+					this.importTransactions(batch);
+				} finally {
+					for (ReceivedTransaction receivedTransaction : batch)
+						this.releaseSignature(receivedTransaction.transactionData.getSignature());
+
+					batch.clear();
+				}
+			}
+		} catch (InterruptedException e) {
+			// Fall-through to exit thread...
+		}
+	}
+
+	private void importTransactions(List<ReceivedTransaction> batch) throws InterruptedException {
+		List<ReceivedTransaction> importedTransactions = new ArrayList<>();
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			List<Transaction> transactions = new ArrayList<>(batch.size());
+			for (ReceivedTransaction receivedTransaction : batch)
+				transactions.add(Transaction.fromData(repository, receivedTransaction.transactionData));
+
+			// Verify all signatures in parallel, populating signature cache, so checks below are quick
+			// (Check always passes so verification doesn't stop at first invalid signature)
+			SignatureVerifier.verifyAll(transactions, transaction -> {
+				transaction.isSignatureValid();
+				return true;
+			});
+
+			// Some other thread (e.g. Synchronizer) might have blockchain lock for a while, so give up on this batch if need be
+			ReentrantLock blockchainLock = Controller.getInstance().getBlockchainLock();
+			if (!blockchainLock.tryLock(BLOCKCHAIN_LOCK_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				LOGGER.debug(() -> String.format("Dropping %d unconfirmed transactions as blockchain lock unavailable", batch.size()));
+				return;
+			}
+
+			try {
+				for (int i = 0; i < transactions.size(); ++i) {
+					Transaction transaction = transactions.get(i);
+					ReceivedTransaction receivedTransaction = batch.get(i);
+					TransactionData transactionData = receivedTransaction.transactionData;
+					Peer peer = receivedTransaction.peer;
+
+					if (!transaction.isSignatureValid()) {
+						LOGGER.trace(() -> String.format("Ignoring %s transaction %s with invalid signature from peer %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature()), peer));
+						continue;
+					}
+
+					// We already hold blockchain lock, which is reentrant
+					ValidationResult validationResult = transaction.importAsUnconfirmed();
+
+					if (validationResult == ValidationResult.TRANSACTION_ALREADY_EXISTS) {
+						LOGGER.trace(() -> String.format("Ignoring existing transaction %s from peer %s", Base58.encode(transactionData.getSignature()), peer));
+						continue;
+					}
+
+					if (validationResult != ValidationResult.OK) {
+						LOGGER.trace(() -> String.format("Ignoring invalid (%s) %s transaction %s from peer %s", validationResult.name(), transactionData.getType().name(), Base58.encode(transactionData.getSignature()), peer));
+						continue;
+					}
+
+					LOGGER.debug(() -> String.format("Imported %s transaction %s from peer %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature()), peer));
+
+					importedTransactions.add(receivedTransaction);
+				}
+			} finally {
+				blockchainLock.unlock();
+			}
+		} catch (DataException e) {
+			LOGGER.error("Repository issue while importing unconfirmed transactions", e);
+		}
+
+		if (importedTransactions.isEmpty())
+			return;
+
+		// Broadcast signatures that are new to us, but not back to the peer that sent them
+		Network.getInstance().broadcast(broadcastPeer -> {
+			List<byte[]> newSignatures = new ArrayList<>();
+
+			for (ReceivedTransaction importedTransaction : importedTransactions)
+				if (importedTransaction.peer != broadcastPeer)
+					newSignatures.add(importedTransaction.transactionData.getSignature());
+
+			return newSignatures.isEmpty() ? null : new TransactionSignaturesMessage(newSignatures);
+		});
+	}
+
+	// Shutdown
+
+	public void shutdown() {
+		isStopping = true;
+
+		// Release signatures from fetches that never started
+		for (Runnable runnable : this.fetchExecutor.shutdownNow())
+			this.releaseSignatures(((FetchTask) runnable).signatures);
+
+		this.interrupt();
+	}
+
+}
@@ -1,5 +1,6 @@
 package org.qora.crypto;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -33,6 +34,37 @@ public class Crypto {
 		}
 	}
 
+	/**
+	 * Returns new SHA-256 message digest, e.g. for reuse over many digests.
+	 */
+	public static MessageDigest newSha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256 message digest not available");
+		}
+	}
+
+	/**
+	 * Returns 32-byte SHA-256 digest of bytes remaining in input, without copying them.
+	 * <p>
+	 * input's position is not changed.
+	 * 
+	 * @param input
+	 *            buffer containing message
+	 * @return byte[32] digest
+	 */
+	public static byte[] digest(ByteBuffer input) {
+		try {
+			// SHA2-256
+			MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+			sha256.update(input.duplicate());
+			return sha256.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-256 message digest not available");
+		}
+	}
+
 	/**
 	 * Returns 32-byte digest of two rounds of SHA-256 on message passed in input.
 	 * 
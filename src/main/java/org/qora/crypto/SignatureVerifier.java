@@ -0,0 +1,94 @@
+package org.qora.crypto;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
+
+import org.bouncycastle.math.ec.rfc8032.Ed25519;
+import org.qora.utils.ByteArray;
+
+import com.google.common.primitives.Bytes;
+
+/**
+ * Ed25519 signature verification, with a cache of recently verified signatures
+ * and a fork-join pool for verifying many signatures in parallel.
+ * <p>
+ * Only successful verifications are cached. Cache entries are keyed by signature
+ * and hold a digest of public key and message, so a cache hit requires exactly
+ * the same public key and message as the original verification.
+ */
+public class SignatureVerifier {
+
+	/** Maximum number of verified signatures to remember. */
+	private static final int MAX_CACHE_SIZE = 20000;
+
+	@SuppressWarnings("serial")
+	private static final Map<ByteArray, byte[]> verifiedSignatures = new LinkedHashMap<ByteArray, byte[]>(MAX_CACHE_SIZE, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<ByteArray, byte[]> eldest) {
+			return this.size() > MAX_CACHE_SIZE;
+		}
+	};
+
+	private static final ForkJoinPool verifierPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+	private SignatureVerifier() {
+	}
+
+	/**
+	 * Returns whether <tt>signature</tt> is a valid signature of <tt>message</tt> by <tt>publicKey</tt>.
+	 * <p>
+	 * Returns cached result if this signature has been successfully verified before.
+	 */
+	public static boolean verify(byte[] publicKey, byte[] signature, byte[] message) {
+		if (publicKey == null || signature == null || message == null)
+			return false;
+
+		ByteArray cacheKey = new ByteArray(signature);
+		byte[] cacheValue = Crypto.digest(Bytes.concat(publicKey, message));
+
+		synchronized (verifiedSignatures) {
+			if (Arrays.equals(verifiedSignatures.get(cacheKey), cacheValue))
+				return true;
+		}
+
+		boolean isValid;
+		try {
+			isValid = Ed25519.verify(signature, 0, publicKey, 0, message, 0, message.length);
+		} catch (Exception e) {
+			return false;
+		}
+
+		if (isValid)
+			synchronized (verifiedSignatures) {
+				verifiedSignatures.put(cacheKey, cacheValue);
+			}
+
+		return isValid;
+	}
+
+	/**
+	 * Runs <tt>check</tt> against all <tt>items</tt> in parallel, returning whether all checks passed.
+	 * <p>
+	 * Typically used to pre-verify many signatures, populating cache, before single-threaded processing.
+	 * Any exception thrown by <tt>check</tt> counts as a failure.
+	 */
+	public static <T> boolean verifyAll(List<T> items, Predicate<T> check) {
+		if (items.isEmpty())
+			return true;
+
+		try {
+			return verifierPool.submit(() -> items.parallelStream().allMatch(check)).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			return false;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package org.qora.data.account;
+
+import java.math.BigDecimal;
+
+/**
+ * QORA amounts gained/lost by an account in one recent block.
+ * <p>
+ * Used to calculate generating balance without walking recent blocks.
+ */
+public class RecentInflowData {
+
+	// Properties
+	private String address;
+	private int height;
+	/** Sum of positive amounts received by account in this block. */
+	private BigDecimal inflow;
+	/** Sum of all amounts gained/lost by account in this block. */
+	private BigDecimal netAmount;
+
+	// Constructors
+
+	public RecentInflowData(String address, int height, BigDecimal inflow, BigDecimal netAmount) {
+		this.address = address;
+		this.height = height;
+		this.inflow = inflow;
+		this.netAmount = netAmount;
+	}
+
+	// Getters/Setters
+
+	public String getAddress() {
+		return this.address;
+	}
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	public BigDecimal getInflow() {
+		return this.inflow;
+	}
+
+	public BigDecimal getNetAmount() {
+		return this.netAmount;
+	}
+
+}
@@ -0,0 +1,37 @@
+package org.qora.data.block;
+
+/**
+ * Point up to which blockchain is known to be valid.
+ * <p>
+ * Chain hash is rolling SHA-256 digest of all block signatures up to, and including, checkpoint block.
+ */
+public class ValidationCheckpointData {
+
+	// Properties
+	private int height;
+	private byte[] signature;
+	private byte[] chainHash;
+
+	// Constructors
+
+	public ValidationCheckpointData(int height, byte[] signature, byte[] chainHash) {
+		this.height = height;
+		this.signature = signature;
+		this.chainHash = chainHash;
+	}
+
+	// Getters / setters
+
+	public int getHeight() {
+		return this.height;
+	}
+
+	public byte[] getSignature() {
+		return this.signature;
+	}
+
+	public byte[] getChainHash() {
+		return this.chainHash;
+	}
+
+}
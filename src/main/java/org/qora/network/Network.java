@@ -16,24 +16,28 @@ import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Random;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.qora.block.Block;
 import org.qora.controller.Controller;
 import org.qora.data.block.BlockData;
 import org.qora.data.network.PeerData;
@@ -43,6 +47,7 @@ import org.qora.network.message.GetUnconfirmedTransactionsMessage;
 import org.qora.network.message.HeightMessage;
 import org.qora.network.message.HeightV2Message;
 import org.qora.network.message.Message;
+import org.qora.network.message.Message.MessageException;
 import org.qora.network.message.Message.MessageType;
 import org.qora.network.message.PeerVerifyMessage;
 import org.qora.network.message.PeersMessage;
@@ -56,6 +61,7 @@ import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
 import org.qora.settings.Settings;
 import org.qora.utils.ExecuteProduceConsume;
+import org.qora.utils.LatencyStats;
 import org.qora.utils.NTP;
 
 // For managing peers
@@ -67,20 +73,25 @@ public class Network extends Thread {
 	private static final int LISTEN_BACKLOG = 10;
 	/** How long before retrying after a connection failure, in milliseconds. */
 	private static final int CONNECT_FAILURE_BACKOFF = 5 * 60 * 1000; // ms
+	/** Maximum time to allow outbound connection to complete. (ms) */
+	private static final long CONNECT_TIMEOUT = 5 * 1000; // ms
 	/** How long between informational broadcasts to all connected peers, in milliseconds. */
 	private static final int BROADCAST_INTERVAL = 60 * 1000; // ms
+	/** Number of recent per-peer broadcast queueing latencies kept for reporting. */
+	private static final int BROADCAST_QUEUE_LATENCY_SAMPLES = 1000;
+	/** Chain tip announcements, which peers need to keep in sync, so are never dropped by broadcast send capacity or rate limits. */
+	private static final Set<MessageType> UNLIMITED_BROADCAST_TYPES = EnumSet.of(MessageType.HEIGHT, MessageType.HEIGHT_V2, MessageType.BLOCK);
 	/** Maximum time since last successful connection for peer info to be propagated, in milliseconds. */
 	private static final long RECENT_CONNECTION_THRESHOLD = 24 * 60 * 60 * 1000; // ms
 	/** Maximum time since last connection attempt before a peer is potentially considered "old", in milliseconds. */
 	private static final long OLD_PEER_ATTEMPTED_PERIOD = 24 * 60 * 60 * 1000; // ms
 	/** Maximum time since last successful connection before a peer is potentially considered "old", in milliseconds. */
 	private static final long OLD_PEER_CONNECTION_PERIOD = 7 * 24 * 60 * 60 * 1000; // ms
+	/** Interval between saving changes to known peers into repository. (ms) */
+	private static final long PEER_SAVE_INTERVAL = 60 * 1000; // ms
 	/** Maximum time allowed for handshake to complete, in milliseconds. */
 	private static final long HANDSHAKE_TIMEOUT = 60 * 1000; // ms
 
-	/** Maximum message size (bytes). Needs to be at least maximum block size + MAGIC + message type, etc. */
-	/* package */ static final int MAXIMUM_MESSAGE_SIZE = 4 + 1 + 4 + Block.MAX_BLOCK_BYTES;
-
 	private static final byte[] MAINNET_MESSAGE_MAGIC = new byte[] { 0x51, 0x6d, 0x63, 0x66 }; // Qmcf
 	private static final byte[] TESTNET_MESSAGE_MAGIC = new byte[] { 0x54, 0x6d, 0x63, 0x66 }; // Tmcf
 
@@ -112,16 +123,27 @@ public class Network extends Thread {
 	private ExecuteProduceConsume networkEPC;
 	private Selector channelSelector;
 	private ServerSocketChannel serverChannel;
-	private Iterator<SelectionKey> channelIterator = null;
+	/** Channels with a task queued or about to be performed, so repeated selects don't queue duplicates. */
+	private final Set<SelectionKey> pendingChannelKeys = ConcurrentHashMap.newKeySet();
 
 	private int minOutboundPeers;
 	private int maxPeers;
+	private int maxConcurrentConnectAttempts;
 	private long nextConnectTaskTimestamp;
 
+	/** Outbound connections in progress, with timestamp of when each connection attempt started. */
+	private final Map<Peer, Long> connectingPeers = new ConcurrentHashMap<>();
+	/** Outbound connections waiting to be registered with channelSelector, which is only done by producing thread. */
+	private final Queue<Peer> pendingConnectRegistrations = new ConcurrentLinkedQueue<>();
+	private final PeerAddressResolver peerAddressResolver = new PeerAddressResolver();
+
+	private final PeerAddressBook peerAddressBook = new PeerAddressBook();
+	private long nextPeerSaveTimestamp;
+
 	private ExecutorService broadcastExecutor;
 	private long nextBroadcastTimestamp;
-
-	private Lock mergePeersLock;
+	/** Time taken for broadcast messages to be queued for sending to each peer. */
+	private final LatencyStats broadcastQueueLatencies = new LatencyStats(BROADCAST_QUEUE_LATENCY_SAMPLES);
 
 	// Constructors
 
@@ -160,13 +182,14 @@ public class Network extends Thread {
 
 		minOutboundPeers = Settings.getInstance().getMinOutboundPeers();
 		maxPeers = Settings.getInstance().getMaxPeers();
+		maxConcurrentConnectAttempts = Settings.getInstance().getMaxConcurrentConnectAttempts();
 
 		nextConnectTaskTimestamp = 0; // First connect once NTP syncs
 
 		broadcastExecutor = Executors.newCachedThreadPool();
 		nextBroadcastTimestamp = 0; // First broadcast once NTP syncs
 
-		mergePeersLock = new ReentrantLock();
+		nextPeerSaveTimestamp = 0; // First save once NTP syncs
 
 		// We'll use a cached thread pool, but with more aggressive 10 second timeout.
 		ExecutorService networkExecutor = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
@@ -187,7 +210,7 @@ public class Network extends Thread {
 		return instance;
 	}
 
-	public byte[] getMessageMagic() {
+	public static byte[] getMessageMagic() {
 		return Settings.getInstance().isTestNet() ? TESTNET_MESSAGE_MAGIC : MAINNET_MESSAGE_MAGIC;
 	}
 
@@ -203,6 +226,15 @@ public class Network extends Thread {
 		}
 	}
 
+	/** Returns known peers, i.e. the ones we might connect to. */
+	public List<PeerData> getKnownPeers() throws DataException {
+		return this.peerAddressBook.getAllPeers();
+	}
+
+	public PeerAddressBook getPeerAddressBook() {
+		return this.peerAddressBook;
+	}
+
 	public List<PeerAddress> getSelfPeers() {
 		synchronized (this.selfPeers) {
 			return new ArrayList<>(this.selfPeers);
@@ -299,10 +331,6 @@ public class Network extends Thread {
 			if (task != null)
 				return task;
 
-			task = maybeProducePeerMessageTask();
-			if (task != null)
-				return task;
-
 			task = maybeProducePeerPingTask();
 			if (task != null)
 				return task;
@@ -328,11 +356,22 @@ public class Network extends Thread {
 
 			@Override
 			public void perform() throws InterruptedException {
+				// Any further readiness after this point needs a new task
+				pendingChannelKeys.remove(selectionKey);
+
 				try {
 					LOGGER.trace(() -> String.format("Thread %d has pending channel: %s, with ops %d",
 							Thread.currentThread().getId(), selectionKey.channel(), selectionKey.readyOps()));
 
 					// process pending channel task
+					if (selectionKey.isConnectable()) {
+						connectionFinish(selectionKey);
+						return;
+					}
+
+					if (selectionKey.isWritable())
+						connectionWrite((SocketChannel) selectionKey.channel());
+
 					if (selectionKey.isReadable()) {
 						connectionRead((SocketChannel) selectionKey.channel());
 					} else if (selectionKey.isAcceptable()) {
@@ -345,6 +384,19 @@ public class Network extends Thread {
 				}
 			}
 
+			private void connectionWrite(SocketChannel socketChannel) {
+				Peer peer = getPeerFromChannel(socketChannel);
+				if (peer == null)
+					return;
+
+				try {
+					peer.writeChannel();
+				} catch (IOException e) {
+					LOGGER.trace(() -> String.format("Network thread %s encountered I/O error: %s", Thread.currentThread().getId(), e.getMessage()), e);
+					peer.disconnect("I/O error");
+				}
+			}
+
 			private void connectionRead(SocketChannel socketChannel) {
 				Peer peer = getPeerFromChannel(socketChannel);
 				if (peer == null)
@@ -367,51 +419,65 @@ public class Network extends Thread {
 		}
 
 		private Task maybeProduceChannelTask(boolean canBlock) throws InterruptedException {
-			final SelectionKey nextSelectionKey;
+			// Registering while another thread is blocked in select() would block too, so only producer registers
+			registerPendingConnects();
 
-			// anything to do?
-			if (channelIterator == null) {
-				try {
-					if (canBlock)
-						channelSelector.select(1000L);
-					else
-						channelSelector.selectNow();
-				} catch (IOException e) {
-					LOGGER.warn(String.format("Channel selection threw IOException: %s", e.getMessage()));
-					return null;
-				}
+			try {
+				if (canBlock)
+					channelSelector.select(1000L);
+				else
+					channelSelector.selectNow();
+			} catch (IOException e) {
+				LOGGER.warn(String.format("Channel selection threw IOException: %s", e.getMessage()));
+				return null;
+			}
 
-				if (Thread.currentThread().isInterrupted())
-					throw new InterruptedException();
+			if (Thread.currentThread().isInterrupted())
+				throw new InterruptedException();
 
-				channelIterator = channelSelector.selectedKeys().iterator();
-			}
+			// We perform first channel task ourselves, with the rest going into ready queue for other threads
+			Task firstTask = null;
 
-			if (channelIterator.hasNext()) {
-				nextSelectionKey = channelIterator.next();
+			Iterator<SelectionKey> channelIterator = channelSelector.selectedKeys().iterator();
+			while (channelIterator.hasNext()) {
+				SelectionKey selectionKey = channelIterator.next();
 				channelIterator.remove();
-			} else {
-				nextSelectionKey = null;
-				channelIterator = null; // Nothing to do so reset iterator to cause new select
-			}
 
-			LOGGER.trace(() -> String.format("Thread %d, nextSelectionKey %s, channelIterator now %s",
-					Thread.currentThread().getId(), nextSelectionKey, channelIterator));
+				// Channel still selected as its previous task hasn't run yet?
+				if (!pendingChannelKeys.add(selectionKey))
+					continue;
 
-			if (nextSelectionKey == null)
-				return null;
+				Task channelTask = new ChannelTask(selectionKey);
+
+				if (firstTask == null)
+					firstTask = channelTask;
+				else
+					this.submitTask(channelTask);
+			}
+
+			final boolean hasTask = firstTask != null;
+			LOGGER.trace(() -> String.format("Thread %d, has channel task: %b, queue depth now %d",
+					Thread.currentThread().getId(), hasTask, this.getQueueDepth()));
 
-			return new ChannelTask(nextSelectionKey);
+			return firstTask;
 		}
 
-		private Task maybeProducePeerMessageTask() {
-			for (Peer peer : getConnectedPeers()) {
-				Task peerTask = peer.getMessageTask();
-				if (peerTask != null)
-					return peerTask;
-			}
+		private void registerPendingConnects() {
+			Peer peer;
+			while ((peer = pendingConnectRegistrations.poll()) != null) {
+				SocketChannel socketChannel = peer.getSocketChannel();
 
-			return null;
+				try {
+					SelectionKey selectionKey = socketChannel.register(channelSelector, SelectionKey.OP_CONNECT, peer);
+
+					// If connection completed immediately then OP_CONNECT won't be selected
+					if (!socketChannel.isConnectionPending())
+						this.submitTask(() -> connectionFinish(selectionKey));
+				} catch (ClosedChannelException e) {
+					// Connection attempt has already timed out
+					connectingPeers.remove(peer);
+				}
+			}
 		}
 
 		private Task maybeProducePeerPingTask() {
@@ -426,34 +492,42 @@ public class Network extends Thread {
 		}
 
 		class PeerConnectTask implements ExecuteProduceConsume.Task {
-			private final Peer peer;
+			private final long now;
+			private final int maxCount;
 
-			public PeerConnectTask(Peer peer) {
-				this.peer = peer;
+			public PeerConnectTask(long now, int maxCount) {
+				this.now = now;
+				this.maxCount = maxCount;
 			}
 
 			@Override
 			public void perform() throws InterruptedException {
-				connectPeer(peer);
+				for (Peer peer : getConnectablePeers(now, maxCount))
+					connectPeer(peer, now);
 			}
 		}
 
 		private Task maybeProduceConnectPeerTask() throws InterruptedException {
-			if (getOutboundHandshakedPeers().size() >= minOutboundPeers)
+			final Long now = NTP.getTime();
+			if (now == null)
 				return null;
 
-			final Long now = NTP.getTime();
-			if (now == null || now < nextConnectTaskTimestamp)
+			expireConnectAttempts(now);
+
+			if (getOutboundHandshakedPeers().size() >= minOutboundPeers)
 				return null;
 
-			nextConnectTaskTimestamp = now + 1000L;
+			if (now < nextConnectTaskTimestamp)
+				return null;
 
-			Peer targetPeer = getConnectablePeer();
-			if (targetPeer == null)
+			int connectSlots = maxConcurrentConnectAttempts - connectingPeers.size();
+			if (connectSlots <= 0)
 				return null;
 
-			// Create connection task
-			return new PeerConnectTask(targetPeer);
+			nextConnectTaskTimestamp = now + 1000L;
+
+			// Create connection task, which picks peers and starts connecting to them
+			return new PeerConnectTask(now, connectSlots);
 		}
 
 		private Task maybeProduceBroadcastTask() {
@@ -531,6 +605,9 @@ public class Network extends Thread {
 		if (now == null)
 			return;
 
+		// Drop expired hostname lookups
+		this.peerAddressResolver.prune();
+
 		// Disconnect peers that are stuck during handshake
 		List<Peer> handshakePeers = this.getConnectedPeers();
 
@@ -540,148 +617,206 @@ public class Network extends Thread {
 		for (Peer peer : handshakePeers)
 			peer.disconnect(String.format("handshake timeout at %s", peer.getHandshakeStatus().name()));
 
-		// Prune 'old' peers from repository...
-		// Pruning peers isn't critical so no need to block for a repository instance.
-		try (final Repository repository = RepositoryManager.tryRepository()) {
-			if (repository == null)
-				return;
-
-			// Fetch all known peers
-			List<PeerData> peers = repository.getNetworkRepository().getAllPeers();
+		// 'Old' peers:
+		// we have attempted to connect within the last day
+		// we last managed to connect over a week ago
+		Predicate<PeerData> isOldPeer = peerData -> {
+			if (peerData.getLastAttempted() == null || peerData.getLastAttempted() < now - OLD_PEER_ATTEMPTED_PERIOD)
+				return false;
 
-			// 'Old' peers:
-			// we have attempted to connect within the last day
-			// we last managed to connect over a week ago
-			Predicate<PeerData> isNotOldPeer = peerData -> {
-				if (peerData.getLastAttempted() == null || peerData.getLastAttempted() < now - OLD_PEER_ATTEMPTED_PERIOD)
-					return true;
+			if (peerData.getLastConnected() == null || peerData.getLastConnected() > now - OLD_PEER_CONNECTION_PERIOD)
+				return false;
 
-				if (peerData.getLastConnected() == null || peerData.getLastConnected() > now - OLD_PEER_CONNECTION_PERIOD)
-					return true;
+			return true;
+		};
 
-				return false;
-			};
+		// Don't consider already connected peers (simple address match)
+		List<PeerAddress> connectedAddresses = this.getConnectedPeers().stream().map(peer -> peer.getPeerData().getAddress()).collect(Collectors.toList());
+		Predicate<PeerData> isConnectedPeer = peerData -> connectedAddresses.stream().anyMatch(connectedAddress -> connectedAddress.equals(peerData.getAddress()));
 
-			// Disregard peers that are NOT 'old'
-			peers.removeIf(isNotOldPeer);
+		for (PeerData peerData : this.peerAddressBook.removeIf(isOldPeer.and(isConnectedPeer.negate())))
+			LOGGER.debug(String.format("Deleting old peer %s", peerData.getAddress().toString()));
 
-			// Don't consider already connected peers (simple address match)
-			Predicate<PeerData> isConnectedPeer = peerData -> {
-				PeerAddress peerAddress = peerData.getAddress();
-				return this.connectedPeers.stream().anyMatch(peer -> peer.getPeerData().getAddress().equals(peerAddress));
-			};
+		// Save changes to known peers into repository now and again, rather than every time they change
+		if (now < this.nextPeerSaveTimestamp)
+			return;
 
-			synchronized (this.connectedPeers) {
-				peers.removeIf(isConnectedPeer);
-			}
+		this.nextPeerSaveTimestamp = now + PEER_SAVE_INTERVAL;
 
-			for (PeerData peerData : peers) {
-				LOGGER.debug(String.format("Deleting old peer %s from repository", peerData.getAddress().toString()));
-				repository.getNetworkRepository().delete(peerData.getAddress());
-			}
+		// Saving peers isn't critical so no need to block for a repository instance.
+		try (final Repository repository = RepositoryManager.tryRepository()) {
+			if (repository == null)
+				return;
 
-			repository.saveChanges();
+			this.peerAddressBook.saveChanges(repository);
 		}
 	}
 
-	private Peer getConnectablePeer() throws InterruptedException {
-		final long now = NTP.getTime();
+	/**
+	 * Returns up to <tt>maxCount</tt> peers to connect to, picked by known peers' scores, updating their last-attempted timestamp.
+	 * <p>
+	 * Peers whose hostnames haven't been resolved yet are skipped, but lookups are started
+	 * in the background so they can be chosen next time.
+	 */
+	private List<Peer> getConnectablePeers(long now, int maxCount) throws InterruptedException {
+		List<Peer> newPeers = new ArrayList<>();
 
-		// We can't block here so use tryRepository(). We don't NEED to connect a new peer.
-		try (final Repository repository = RepositoryManager.tryRepository()) {
-			if (repository == null)
-				return null;
+		// Don't consider peers with recent connection failures
+		final long lastAttemptedThreshold = now - CONNECT_FAILURE_BACKOFF;
+		Predicate<PeerData> isRecentlyAttempted = peerData -> peerData.getLastAttempted() != null && peerData.getLastAttempted() > lastAttemptedThreshold;
 
-			// Find an address to connect to
-			List<PeerData> peers = repository.getNetworkRepository().getAllPeers();
+		// Don't consider peers that we know loop back to ourself
+		List<PeerAddress> selfAddresses = this.getSelfPeers();
+		Predicate<PeerData> isSelfPeer = peerData -> selfAddresses.stream().anyMatch(selfAddress -> selfAddress.equals(peerData.getAddress()));
 
-			// Don't consider peers with recent connection failures
-			final long lastAttemptedThreshold = now - CONNECT_FAILURE_BACKOFF;
-			peers.removeIf(peerData -> peerData.getLastAttempted() != null && peerData.getLastAttempted() > lastAttemptedThreshold);
+		// Snapshot connected, and connecting, peers' addresses so we don't hold lock while picking
+		List<Peer> busyPeers = this.getConnectedPeers();
+		busyPeers.addAll(this.connectingPeers.keySet());
 
-			// Don't consider peers that we know loop back to ourself
-			Predicate<PeerData> isSelfPeer = peerData -> {
-				PeerAddress peerAddress = peerData.getAddress();
-				return this.selfPeers.stream().anyMatch(selfPeer -> selfPeer.equals(peerAddress));
-			};
+		List<PeerAddress> busyAddresses = busyPeers.stream().map(peer -> peer.getPeerData().getAddress()).collect(Collectors.toList());
+		Set<InetSocketAddress> busyResolvedAddresses = busyPeers.stream().map(Peer::getResolvedAddress).collect(Collectors.toSet());
 
-			synchronized (this.selfPeers) {
-				peers.removeIf(isSelfPeer);
-			}
-
-			// Don't consider already connected peers (simple address match)
-			Predicate<PeerData> isConnectedPeer = peerData -> {
-				PeerAddress peerAddress = peerData.getAddress();
-				return this.connectedPeers.stream().anyMatch(peer -> peer.getPeerData().getAddress().equals(peerAddress));
-			};
+		// Don't consider already connected peers (simple address match)
+		Predicate<PeerData> isConnectedPeer = peerData -> busyAddresses.stream().anyMatch(busyAddress -> busyAddress.equals(peerData.getAddress()));
 
-			synchronized (this.connectedPeers) {
-				peers.removeIf(isConnectedPeer);
+		// Don't consider already connected peers (resolved address match), or peers we can't resolve (yet)
+		Predicate<PeerData> isUnresolvedOrConnectedPeer = peerData -> {
+			try {
+				InetSocketAddress resolvedSocketAddress = this.peerAddressResolver.getResolvedAddress(peerData.getAddress());
+				return resolvedSocketAddress == null || busyResolvedAddresses.contains(resolvedSocketAddress);
+			} catch (UnknownHostException e) {
+				// Can't resolve - no point even trying to connect
+				return true;
 			}
+		};
 
-			// Don't consider already connected peers (resolved address match)
-			Predicate<PeerData> isResolvedAsConnectedPeer = peerData -> {
-				try {
-					InetSocketAddress resolvedSocketAddress = peerData.getAddress().toSocketAddress();
-					return this.connectedPeers.stream().anyMatch(peer -> peer.getResolvedAddress().equals(resolvedSocketAddress));
-				} catch (UnknownHostException e) {
-					// Can't resolve - no point even trying to connect
-					return true;
-				}
-			};
+		Predicate<PeerData> isConnectable = isRecentlyAttempted.negate()
+				.and(isSelfPeer.negate())
+				.and(isConnectedPeer.negate())
+				.and(isUnresolvedOrConnectedPeer.negate());
 
-			synchronized (this.connectedPeers) {
-				peers.removeIf(isResolvedAsConnectedPeer);
-			}
+		try {
+			for (PeerData peerData : this.peerAddressBook.pickPeers(maxCount, isConnectable, now))
+				newPeers.add(new Peer(peerData));
+		} catch (DataException e) {
+			LOGGER.error("Repository issue while finding connectable peers", e);
+		}
 
-			// Any left?
-			if (peers.isEmpty())
-				return null;
+		return newPeers;
+	}
 
-			// Pick random peer
-			int peerIndex = new SecureRandom().nextInt(peers.size());
+	/** Starts non-blocking connection to peer. Connection is completed by a network thread once channel is connectable. */
+	private void connectPeer(Peer newPeer, long now) throws InterruptedException {
+		InetSocketAddress resolvedAddress;
+		try {
+			resolvedAddress = this.peerAddressResolver.getResolvedAddress(newPeer.getPeerData().getAddress());
+		} catch (UnknownHostException e) {
+			return;
+		}
 
-			// Pick candidate
-			PeerData peerData = peers.get(peerIndex);
-			Peer newPeer = new Peer(peerData);
+		// Cached lookup expired in the meantime?
+		if (resolvedAddress == null)
+			return;
 
-			// Update connection attempt info
-			repository.discardChanges();
-			peerData.setLastAttempted(now);
-			repository.getNetworkRepository().save(peerData);
-			repository.saveChanges();
+		SocketChannel socketChannel = newPeer.connect(resolvedAddress);
+		if (socketChannel == null) {
+			this.peerAddressBook.onConnectFailure(newPeer.getPeerData().getAddress());
+			return;
+		}
 
-			return newPeer;
-		} catch (DataException e) {
-			LOGGER.error("Repository issue while finding a connectable peer", e);
-			return null;
+		if (this.isInterrupted()) {
+			newPeer.closeConnectingChannel();
+			return;
 		}
+
+		this.connectingPeers.put(newPeer, now);
+		this.pendingConnectRegistrations.add(newPeer);
+
+		// Make sure producing thread registers channel soon
+		this.channelSelector.wakeup();
 	}
 
-	private void connectPeer(Peer newPeer) throws InterruptedException {
-		SocketChannel socketChannel = newPeer.connect();
-		if (socketChannel == null)
+	/** Completes outbound connection once peer's channel is connectable. */
+	private void connectionFinish(SelectionKey selectionKey) {
+		Peer newPeer = (Peer) selectionKey.attachment();
+
+		try {
+			if (!newPeer.finishConnect())
+				return;
+		} catch (IOException e) {
+			// Peer has closed channel, which also cancels selection key
+			this.connectingPeers.remove(newPeer);
+			this.peerAddressBook.onConnectFailure(newPeer.getPeerData().getAddress());
 			return;
+		}
 
-		if (this.isInterrupted())
+		// Connection attempt timed out in the meantime?
+		if (this.connectingPeers.remove(newPeer) == null) {
+			newPeer.closeConnectingChannel();
 			return;
+		}
 
 		synchronized (this.connectedPeers) {
 			this.connectedPeers.add(newPeer);
 		}
 
 		try {
-			socketChannel.register(channelSelector, SelectionKey.OP_READ);
-		} catch (ClosedChannelException e) {
+			selectionKey.interestOps(SelectionKey.OP_READ);
+		} catch (CancelledKeyException e) {
 			// If channel has somehow already closed then remove from connectedPeers
 			synchronized (this.connectedPeers) {
 				this.connectedPeers.remove(newPeer);
 			}
+
+			return;
 		}
 
+		// Make sure blocked select() picks up new interest
+		this.channelSelector.wakeup();
+
 		this.onPeerReady(newPeer);
 	}
 
+	/** Abandons outbound connections that haven't completed in time. */
+	private void expireConnectAttempts(long now) {
+		final long connectThreshold = now - CONNECT_TIMEOUT;
+
+		for (Map.Entry<Peer, Long> entry : this.connectingPeers.entrySet()) {
+			if (entry.getValue() >= connectThreshold || !this.connectingPeers.remove(entry.getKey(), entry.getValue()))
+				continue;
+
+			Peer peer = entry.getKey();
+			LOGGER.trace(() -> String.format("Connection timed out to peer %s", peer));
+			this.peerAddressBook.onConnectFailure(peer.getPeerData().getAddress());
+
+			// Closing channel also cancels its selection key
+			peer.closeConnectingChannel();
+		}
+	}
+
+	/** Sets whether network thread should be told when peer's socket is writable, i.e. peer has queued outbound messages. */
+	/* package */ void setWriteInterest(Peer peer, boolean isWriteInterested) {
+		SelectionKey selectionKey = peer.getSocketChannel().keyFor(this.channelSelector);
+		if (selectionKey == null)
+			return;
+
+		int interestOps = isWriteInterested ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+
+		try {
+			if (selectionKey.interestOps() == interestOps)
+				return;
+
+			selectionKey.interestOps(interestOps);
+		} catch (CancelledKeyException e) {
+			// Peer disconnected
+			return;
+		}
+
+		// Make sure blocked select() picks up new interest
+		if (isWriteInterested)
+			this.channelSelector.wakeup();
+	}
+
 	private Peer getPeerFromChannel(SocketChannel socketChannel) {
 		synchronized (this.connectedPeers) {
 			for (Peer peer : this.connectedPeers)
@@ -699,6 +834,13 @@ public class Network extends Thread {
 		this.onMessage(peer, null);
 	}
 
+	/** Called when Peer has queued a message for processing, so a network thread can pick it up without scanning all peers. */
+	/* package */ void onPeerMessageQueued(Peer peer) {
+		ExecuteProduceConsume.Task messageTask = peer.getMessageTask();
+		if (messageTask != null)
+			this.networkEPC.submitTask(messageTask);
+	}
+
 	public void onDisconnect(Peer peer) {
 		// Notify Controller
 		Controller.getInstance().onPeerDisconnect(peer);
@@ -707,12 +849,15 @@ public class Network extends Thread {
 			this.connectedPeers.remove(peer);
 		}
 
+		// Keep outbound peer's latest ping time for scoring
+		if (peer.isOutbound() && peer.getLastPing() != null)
+			this.peerAddressBook.onPing(peer.getPeerData().getAddress(), peer.getLastPing());
+
 		// If this is an inbound peer then remove from known peers list
 		// as remote port is not likely to be remote peer's listen port
 		if (!peer.isOutbound())
-			try (final Repository repository = RepositoryManager.getRepository()) {
-				repository.getNetworkRepository().delete(peer.getPeerData().getAddress());
-				repository.saveChanges();
+			try {
+				this.peerAddressBook.remove(peer.getPeerData().getAddress());
 			} catch (DataException e) {
 				LOGGER.error(String.format("Repository issue while trying to delete inbound peer %s", peer), e);
 			}
@@ -878,12 +1023,7 @@ public class Network extends Thread {
 
 		// Update connection info for outbound peers only
 		if (peer.isOutbound())
-			try (final Repository repository = RepositoryManager.getRepository()) {
-				repository.getNetworkRepository().save(peer.getPeerData());
-				repository.saveChanges();
-			} catch (DataException e) {
-				LOGGER.error(String.format("Repository issue while trying to update outbound peer %s", peer), e);
-			}
+			this.peerAddressBook.onConnected(peer.getPeerData());
 
 		// Start regular pings
 		peer.startPings();
@@ -918,8 +1058,9 @@ public class Network extends Thread {
 
 	/** Returns PEERS message made from peers we've connected to recently, and this node's details */
 	public Message buildPeersMessage(Peer peer) {
-		try (final Repository repository = RepositoryManager.getRepository()) {
-			List<PeerData> knownPeers = repository.getNetworkRepository().getAllPeers();
+		try {
+			// Only peers we've connected to at some point
+			List<PeerData> knownPeers = this.peerAddressBook.getTriedPeers();
 
 			// Filter out peers that we've not connected to ever or within X milliseconds
 			final long connectionThreshold = NTP.getTime() - RECENT_CONNECTION_THRESHOLD;
@@ -945,7 +1086,12 @@ public class Network extends Thread {
 
 				for (PeerData peerData : knownPeers) {
 					try {
-						InetAddress address = InetAddress.getByName(peerData.getAddress().getHost());
+						// Use cached lookup, if any, as we don't want to block here
+						InetSocketAddress socketAddress = this.peerAddressResolver.getResolvedAddress(peerData.getAddress());
+						if (socketAddress == null)
+							continue;
+
+						InetAddress address = socketAddress.getAddress();
 
 						// Don't send 'local' addresses if peer is not 'local'. e.g. don't send localhost:9889 to node4.mcfamily.io
 						if (!peer.getIsLocal() && Peer.isAddressLocal(address))
@@ -967,7 +1113,11 @@ public class Network extends Thread {
 					try {
 						// We have to resolve to literal IP address to check for IPv4-ness.
 						// This isn't great if hostnames have both IPv6 and IPv4 DNS entries.
-						InetAddress address = InetAddress.getByName(peerData.getAddress().getHost());
+						InetSocketAddress socketAddress = this.peerAddressResolver.getResolvedAddress(peerData.getAddress());
+						if (socketAddress == null)
+							continue;
+
+						InetAddress address = socketAddress.getAddress();
 
 						// Legacy PEERS message doesn't support IPv6
 						if (address instanceof Inet6Address)
@@ -1030,21 +1180,30 @@ public class Network extends Thread {
 		}
 	}
 
+	/** Adds peer to known peers, saving to repository straight away. */
+	public boolean addPeer(PeerAddress peerAddress, String addedBy) throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			boolean wasAdded = this.peerAddressBook.add(new PeerData(peerAddress, System.currentTimeMillis(), addedBy));
+			this.peerAddressBook.saveChanges(repository);
+
+			return wasAdded;
+		}
+	}
+
 	public boolean forgetPeer(PeerAddress peerAddress) throws DataException {
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			int numDeleted = repository.getNetworkRepository().delete(peerAddress);
-			repository.saveChanges();
+			boolean wasKnown = this.peerAddressBook.remove(peerAddress);
+			this.peerAddressBook.saveChanges(repository);
 
 			disconnectPeer(peerAddress);
 
-			return numDeleted != 0;
+			return wasKnown;
 		}
 	}
 
 	public int forgetAllPeers() throws DataException {
 		try (final Repository repository = RepositoryManager.getRepository()) {
-			int numDeleted = repository.getNetworkRepository().deleteAllPeers();
-			repository.saveChanges();
+			int numDeleted = this.peerAddressBook.clear(repository);
 
 			for (Peer peer : this.getConnectedPeers())
 				peer.disconnect("to be forgotten");
@@ -1075,47 +1234,28 @@ public class Network extends Thread {
 		if (addedWhen == null)
 			return;
 
-		// Serialize using lock to prevent repository deadlocks
-		if (!mergePeersLock.tryLock())
-			return;
-
 		try {
-			// Merging peers isn't critical so don't block for a repository instance.
-			try (final Repository repository = RepositoryManager.tryRepository()) {
-				if (repository == null)
-					return;
-
-				List<PeerData> knownPeers = repository.getNetworkRepository().getAllPeers();
-
-				// Filter out duplicates
-				Predicate<PeerAddress> isKnownAddress = peerAddress -> {
-					return knownPeers.stream().anyMatch(knownPeerData -> knownPeerData.getAddress().equals(peerAddress));
-				};
-
-				peerAddresses.removeIf(isKnownAddress);
-
-				repository.discardChanges();
-
-				// Save the rest into database
-				for (PeerAddress peerAddress : peerAddresses) {
-					PeerData peerData = new PeerData(peerAddress, addedWhen, addedBy);
-					LOGGER.info(String.format("Adding new peer %s to repository", peerAddress));
-					repository.getNetworkRepository().save(peerData);
-				}
-
-				repository.saveChanges();
-			} catch (DataException e) {
-				LOGGER.error("Repository issue while merging peers list from remote node", e);
-			}
-		} finally {
-			mergePeersLock.unlock();
+			for (PeerAddress peerAddress : peerAddresses)
+				if (this.peerAddressBook.add(new PeerData(peerAddress, addedWhen, addedBy)))
+					LOGGER.info(String.format("Adding new peer %s", peerAddress));
+		} catch (DataException e) {
+			LOGGER.error("Repository issue while merging peers list from remote node", e);
 		}
 	}
 
+	/**
+	 * Broadcasts message built by <tt>peerMessageBuilder</tt> to all handshaked peers.
+	 * <p>
+	 * Peers that are slow to drain their connection, or over their broadcast rate limit, are skipped,
+	 * except for chain tip announcements (HEIGHT, HEIGHT_V2 and BLOCK messages).
+	 * <p>
+	 * Use {@link #broadcastPerVersion(Function)} if message only depends on peer's protocol version.
+	 */
 	public void broadcast(Function<Peer, Message> peerMessageBuilder) {
 		class Broadcaster implements Runnable {
-			private List<Peer> targetPeers;
-			private Function<Peer, Message> peerMessageBuilder;
+			private final List<Peer> targetPeers;
+			private final Function<Peer, Message> peerMessageBuilder;
+			private final long startTime = System.nanoTime();
 
 			public Broadcaster(List<Peer> targetPeers, Function<Peer, Message> peerMessageBuilder) {
 				this.targetPeers = targetPeers;
@@ -1126,23 +1266,59 @@ public class Network extends Thread {
 			public void run() {
 				Thread.currentThread().setName("Network Broadcast");
 
-				Random random = new Random();
+				// Build all messages before sending any, so sends to all peers happen together
+				List<Peer> recipientPeers = new ArrayList<>();
+				List<Message> recipientMessages = new ArrayList<>();
+				Set<Message> distinctMessages = Collections.newSetFromMap(new IdentityHashMap<>());
 
 				for (Peer peer : targetPeers) {
-					// Very short sleep to reduce strain, improve multi-threading and catch interrupts
-					try {
-						Thread.sleep(random.nextInt(20) + 20);
-					} catch (InterruptedException e) {
-						break;
-					}
-
 					Message message = peerMessageBuilder.apply(peer);
 
 					if (message == null)
 						continue;
 
-					if (!peer.sendMessage(message))
+					if (!UNLIMITED_BROADCAST_TYPES.contains(message.getType())) {
+						// Don't add to backlog of peers that are slow to drain their connection
+						if (!peer.hasSendCapacity())
+							continue;
+
+						if (!peer.acquireBroadcastPermit()) {
+							LOGGER.trace(() -> String.format("Not broadcasting %s message to peer %s due to rate limit", message.getType().name(), peer));
+							continue;
+						}
+					}
+
+					recipientPeers.add(peer);
+					recipientMessages.add(message);
+					distinctMessages.add(message);
+				}
+
+				// Serialize each distinct message once, up front
+				for (Message message : distinctMessages)
+					try {
+						message.toByteBuffers();
+					} catch (MessageException e) {
+						// Reported by Peer.sendMessage
+					}
+
+				// Peer.sendMessage doesn't block, so peers later in list aren't held up by slow peers
+				for (int i = 0; i < recipientPeers.size(); ++i) {
+					if (Thread.currentThread().isInterrupted())
+						break;
+
+					Peer peer = recipientPeers.get(i);
+
+					if (!peer.sendMessage(recipientMessages.get(i)))
 						peer.disconnect("failed to broadcast message");
+
+					broadcastQueueLatencies.record((System.nanoTime() - this.startTime) / 1000L);
+				}
+
+				if (LOGGER.isTraceEnabled() && !recipientPeers.isEmpty()) {
+					long[] latencies = broadcastQueueLatencies.getPercentiles(50, 90, 99);
+					if (latencies != null)
+						LOGGER.trace(String.format("Broadcast to %d peers. Recent broadcast queueing latencies: p50 %dus, p90 %dus, p99 %dus",
+								recipientPeers.size(), latencies[0], latencies[1], latencies[2]));
 				}
 
 				Thread.currentThread().setName("Network Broadcast (dormant)");
@@ -1156,6 +1332,43 @@ public class Network extends Thread {
 		}
 	}
 
+	/**
+	 * Returns recent broadcast queueing latencies, in microseconds, at passed percentiles.
+	 * <p>
+	 * Latency is measured from {@link #broadcast(Function)} call until message is queued for sending to each peer.
+	 * It doesn't include time spent waiting for, or writing to, peer's connection.
+	 * 
+	 * @return latencies in same order as <tt>percentiles</tt>, or null if nothing broadcast yet
+	 */
+	public long[] getBroadcastQueueLatencyPercentiles(double... percentiles) {
+		return this.broadcastQueueLatencies.getPercentiles(percentiles);
+	}
+
+	/** Returns network thread pool, e.g. for its thread, queue depth and task latency metrics. */
+	public ExecuteProduceConsume getNetworkProcessor() {
+		return this.networkEPC;
+	}
+
+	/**
+	 * Broadcasts message that only depends on peer's protocol version.
+	 * <p>
+	 * <tt>versionMessageBuilder</tt> is called once per distinct peer version and the resulting message
+	 * is shared by all peers with that version, so it is only serialized once.
+	 */
+	public void broadcastPerVersion(Function<Peer, Message> versionMessageBuilder) {
+		Map<Integer, Message> messagesByVersion = new HashMap<>();
+
+		// Broadcaster applies builder on its own thread, one peer at a time
+		this.broadcast(peer -> {
+			Integer version = peer.getVersion();
+
+			if (!messagesByVersion.containsKey(version))
+				messagesByVersion.put(version, versionMessageBuilder.apply(peer));
+
+			return messagesByVersion.get(version);
+		});
+	}
+
 	// Shutdown
 
 	public void shutdown() {
@@ -1184,6 +1397,20 @@ public class Network extends Thread {
 			LOGGER.warn("Interrupted while waiting for broadcast threads failed to terminate");
 		}
 
+		// Stop hostname lookups
+		this.peerAddressResolver.shutdown();
+
+		// Save any outstanding changes to known peers
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			this.peerAddressBook.saveChanges(repository);
+		} catch (DataException e) {
+			LOGGER.warn("Repository issue while saving known peers", e);
+		}
+
+		// Abandon connections in progress
+		for (Peer peer : this.connectingPeers.keySet())
+			peer.closeConnectingChannel();
+
 		// Close all peer connections
 		for (Peer peer : this.getConnectedPeers())
 			peer.shutdown();
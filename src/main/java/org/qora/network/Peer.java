@@ -3,13 +3,13 @@ package org.qora.network;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.net.SocketTimeoutException;
 import java.net.StandardSocketOptions;
-import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
 import java.security.SecureRandom;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
@@ -40,9 +40,6 @@ public class Peer {
 
 	private static final Logger LOGGER = LogManager.getLogger(Peer.class);
 
-	/** Maximum time to allow <tt>connect()</tt> to remote peer to complete. (ms) */
-	private static final int CONNECT_TIMEOUT = 1000; // ms
-
 	/** Maximum time to wait for a message reply to arrive from peer. (ms) */
 	private static final int RESPONSE_TIMEOUT = 5000; // ms
 
@@ -53,15 +50,32 @@ public class Peer {
 	 */
 	private static final int PING_INTERVAL = 20_000; // ms
 
+	/** Size of each peer's own receive buffer. Larger messages are received into pooled buffers. */
+	private static final int SMALL_RECEIVE_BUFFER_SIZE = 16 * 1024; // bytes
+
 	private volatile boolean isStopping = false;
 
 	private SocketChannel socketChannel = null;
 	private InetSocketAddress resolvedAddress = null;
 	/** True if remote address is loopback/link-local/site-local, false otherwise. */
 	private boolean isLocal;
+	/** Per-peer buffer, big enough for most messages. */
+	private ByteBuffer smallReceiveBuffer;
+	/** Current receive buffer, either smallReceiveBuffer or pooled buffer while receiving a large message. */
 	private ByteBuffer byteBuffer;
+	private final Object receiveLock = new Object();
 	private Map<Integer, BlockingQueue<Message>> replyQueues;
 	private LinkedBlockingQueue<Message> pendingMessages;
+	/** Serialized messages, oldest first, waiting for socket to accept them. */
+	private final Deque<ByteBuffer[]> sendQueue = new ArrayDeque<>();
+	/** Number of bytes in sendQueue not yet written to socket. */
+	private long sendQueueBytes = 0;
+
+	/** Broadcast messages we can send to peer right now, without exceeding rate limit. */
+	private double broadcastPermits;
+	/** When broadcastPermits was last updated, or null if no broadcasts yet. */
+	private Long broadcastPermitsTimestamp = null;
+	private final Object broadcastPermitLock = new Object();
 
 	/** True if we created connection to peer, false if we accepted incoming connection from peer. */
 	private final boolean isOutbound;
@@ -283,33 +297,71 @@ public class Peer {
 		this.connectionTimestamp = NTP.getTime();
 		this.socketChannel.setOption(StandardSocketOptions.TCP_NODELAY, true);
 		this.socketChannel.configureBlocking(false);
-		this.byteBuffer = ByteBuffer.allocate(Network.MAXIMUM_MESSAGE_SIZE);
+		this.smallReceiveBuffer = ByteBuffer.allocate(SMALL_RECEIVE_BUFFER_SIZE);
+		this.byteBuffer = this.smallReceiveBuffer;
 		this.replyQueues = Collections.synchronizedMap(new HashMap<Integer, BlockingQueue<Message>>());
 		this.pendingMessages = new LinkedBlockingQueue<Message>();
 	}
 
-	public SocketChannel connect() {
+	/**
+	 * Starts non-blocking connection to peer at passed, already resolved, address.
+	 * <p>
+	 * Caller should wait for channel to become connectable, e.g. using <tt>OP_CONNECT</tt>,
+	 * then call {@link #finishConnect()}.
+	 *
+	 * @return socket channel with connection in progress, or null if connection failed immediately
+	 */
+	public SocketChannel connect(InetSocketAddress resolvedAddress) {
 		LOGGER.trace(String.format("Connecting to peer %s", this));
 
-		try {
-			this.resolvedAddress = this.peerData.getAddress().toSocketAddress();
-			this.isLocal = isAddressLocal(this.resolvedAddress.getAddress());
+		this.resolvedAddress = resolvedAddress;
+		this.isLocal = isAddressLocal(this.resolvedAddress.getAddress());
 
+		try {
 			this.socketChannel = SocketChannel.open();
-			this.socketChannel.socket().connect(resolvedAddress, CONNECT_TIMEOUT);
+			this.socketChannel.configureBlocking(false);
+			this.socketChannel.connect(resolvedAddress);
+
+			return this.socketChannel;
+		} catch (IOException e) {
+			LOGGER.trace(String.format("Connection failed to peer %s", this));
+			this.closeConnectingChannel();
+			return null;
+		}
+	}
+
+	/**
+	 * Completes connection started by {@link #connect(InetSocketAddress)}.
+	 * <p>
+	 * If connection failed then channel is closed.
+	 *
+	 * @return true if connected, false if connection still in progress
+	 * @throws IOException if connection failed
+	 */
+	public boolean finishConnect() throws IOException {
+		try {
+			if (!this.socketChannel.finishConnect())
+				return false;
 
 			LOGGER.debug(String.format("Connected to peer %s", this));
 			sharedSetup();
-			return socketChannel;
-		} catch (SocketTimeoutException e) {
-			LOGGER.trace(String.format("Connection timed out to peer %s", this));
-			return null;
-		} catch (UnknownHostException e) {
-			LOGGER.trace(String.format("Connection failed to unresolved peer %s", this));
-			return null;
+			return true;
 		} catch (IOException e) {
 			LOGGER.trace(String.format("Connection failed to peer %s", this));
-			return null;
+			this.closeConnectingChannel();
+			throw e;
+		}
+	}
+
+	/** Closes channel of connection that never completed, e.g. after timeout. */
+	public void closeConnectingChannel() {
+		if (this.socketChannel == null || !this.socketChannel.isOpen())
+			return;
+
+		try {
+			this.socketChannel.close();
+		} catch (IOException e) {
+			// Not important
 		}
 	}
 
@@ -319,55 +371,121 @@ public class Peer {
 	 * @throws IOException
 	 */
 	/* package */ void readChannel() throws IOException {
-		synchronized (this.byteBuffer) {
-			if (!this.socketChannel.isOpen() || this.socketChannel.socket().isClosed())
-				return;
-
-			int bytesRead = this.socketChannel.read(this.byteBuffer);
-			if (bytesRead == -1) {
-				this.disconnect("EOF");
-				return;
-			}
-
-			if (bytesRead == 0)
-				// No room in buffer, or no more bytes to read
-				return;
-
-			LOGGER.trace(() -> String.format("Received %d bytes from peer %s", bytesRead, this));
-
+		synchronized (this.receiveLock) {
 			while (true) {
-				final Message message;
+				if (!this.socketChannel.isOpen() || this.socketChannel.socket().isClosed())
+					return;
 
-				// Can we build a message from buffer now?
+				// Make room for rest of partially received message, if necessary
 				try {
-					message = Message.fromByteBuffer(this.byteBuffer);
+					this.ensureReceiveCapacity();
 				} catch (MessageException e) {
 					LOGGER.debug(String.format("%s, from peer %s", e.getMessage(), this));
 					this.disconnect(e.getMessage());
 					return;
 				}
 
-				if (message == null)
+				int bytesRead = this.socketChannel.read(this.byteBuffer);
+				if (bytesRead == -1) {
+					this.disconnect("EOF");
 					return;
-
-				LOGGER.trace(() -> String.format("Received %s message with ID %d from peer %s", message.getType().name(), message.getId(), this));
-
-				BlockingQueue<Message> queue = this.replyQueues.get(message.getId());
-				if (queue != null) {
-					// Adding message to queue will unblock thread waiting for response
-					this.replyQueues.get(message.getId()).add(message);
-					// Consumed elsewhere
-					continue;
 				}
 
-				// No thread waiting for message so we need to pass it up to network layer
+				if (bytesRead == 0)
+					// No more bytes to read
+					return;
+
+				LOGGER.trace(() -> String.format("Received %d bytes from peer %s", bytesRead, this));
 
-				// Add message to pending queue
-				if (!this.pendingMessages.offer(message)) {
-					LOGGER.info(String.format("No room to queue message from peer %s - discarding", this));
+				if (!this.processReceivedMessages())
 					return;
+
+				// Finished with large message buffer?
+				if (this.byteBuffer != this.smallReceiveBuffer && this.byteBuffer.position() == 0) {
+					ReceiveBufferPool.getInstance().release(this.byteBuffer);
+					this.byteBuffer = this.smallReceiveBuffer;
 				}
+
+				if (this.byteBuffer.hasRemaining())
+					// Buffer wasn't filled so no more bytes to read for now
+					return;
+			}
+		}
+	}
+
+	/**
+	 * Swaps full receive buffer for a pooled buffer big enough for the message being received.
+	 * 
+	 * @throws MessageException if message header is invalid
+	 */
+	private void ensureReceiveCapacity() throws MessageException {
+		if (this.byteBuffer.hasRemaining())
+			return;
+
+		int messageLength = Message.getMessageLength(this.byteBuffer);
+		if (messageLength <= this.byteBuffer.capacity())
+			// Shouldn't happen as complete messages are always consumed
+			throw new MessageException("Unable to process received message");
+
+		ByteBuffer largeReceiveBuffer = ReceiveBufferPool.getInstance().acquire(messageLength);
+
+		this.byteBuffer.flip();
+		largeReceiveBuffer.put(this.byteBuffer);
+
+		if (this.byteBuffer != this.smallReceiveBuffer)
+			ReceiveBufferPool.getInstance().release(this.byteBuffer);
+		else
+			this.smallReceiveBuffer.clear();
+
+		this.byteBuffer = largeReceiveBuffer;
+	}
+
+	/**
+	 * Builds messages from receive buffer, passing them to waiting threads or network layer.
+	 * 
+	 * @return true if caller should continue reading, false if peer disconnected or messages discarded
+	 */
+	private boolean processReceivedMessages() {
+		while (true) {
+			final Message message;
+			final int previousPosition = this.byteBuffer.position();
+
+			// Can we build a message from buffer now?
+			try {
+				message = Message.fromByteBuffer(this.byteBuffer);
+			} catch (MessageException e) {
+				LOGGER.debug(String.format("%s, from peer %s", e.getMessage(), this));
+				this.disconnect(e.getMessage());
+				return false;
+			}
+
+			if (message == null) {
+				// Bytes consumed but message subclass rejected data? Try next message
+				if (this.byteBuffer.position() < previousPosition)
+					continue;
+
+				return true;
+			}
+
+			LOGGER.trace(() -> String.format("Received %s message with ID %d from peer %s", message.getType().name(), message.getId(), this));
+
+			BlockingQueue<Message> queue = this.replyQueues.get(message.getId());
+			if (queue != null) {
+				// Adding message to queue will unblock thread waiting for response
+				queue.offer(message);
+				// Consumed elsewhere
+				continue;
 			}
+
+			// No thread waiting for message so we need to pass it up to network layer
+
+			// Add message to pending queue
+			if (!this.pendingMessages.offer(message)) {
+				LOGGER.info(String.format("No room to queue message from peer %s - discarding", this));
+				return false;
+			}
+
+			Network.getInstance().onPeerMessageQueued(this);
 		}
 	}
 
@@ -383,9 +501,15 @@ public class Peer {
 
 	/**
 	 * Attempt to send Message to peer.
+	 * <p>
+	 * Message is written to socket without blocking. Whatever the socket can't accept immediately
+	 * is queued and written later when the network thread finds the socket writable.
+	 * <p>
+	 * Returns <code>false</code> if queued bytes would exceed the send queue high watermark,
+	 * as peer isn't draining its connection. Callers typically disconnect peer in this case.
 	 * 
 	 * @param message
-	 * @return <code>true</code> if message successfully sent; <code>false</code> otherwise
+	 * @return <code>true</code> if message successfully sent or queued; <code>false</code> otherwise
 	 */
 	public boolean sendMessage(Message message) {
 		if (!this.socketChannel.isOpen())
@@ -395,32 +519,108 @@ public class Peer {
 			// Send message
 			LOGGER.trace(() -> String.format("Sending %s message with ID %d to peer %s", message.getType().name(), message.getId(), this));
 
-			ByteBuffer outputBuffer = ByteBuffer.wrap(message.toBytes());
+			ByteBuffer[] outputBuffers = message.toByteBuffers();
+
+			synchronized (this.sendQueue) {
+				// Only write directly if nothing is already queued, otherwise messages would be interleaved
+				if (this.sendQueue.isEmpty()) {
+					this.socketChannel.write(outputBuffers);
+
+					if (remaining(outputBuffers) == 0)
+						return true;
+				}
 
-			synchronized (this.socketChannel) {
-				while (outputBuffer.hasRemaining()) {
-					int bytesWritten = this.socketChannel.write(outputBuffer);
+				this.sendQueue.addLast(outputBuffers);
+				this.sendQueueBytes += remaining(outputBuffers);
 
-					if (bytesWritten == 0)
-						// Underlying socket's internal buffer probably full,
-						// so wait a short while for bytes to actually be transmitted over the wire
-						Thread.sleep(1L);
+				if (this.sendQueueBytes > Settings.getInstance().getPeerSendQueueHighWatermark()) {
+					LOGGER.debug(() -> String.format("Peer %s not draining send queue of %d bytes", this, this.sendQueueBytes));
+					return false;
 				}
+
+				// Ask network thread to finish sending when socket is writable
+				Network.getInstance().setWriteInterest(this, true);
 			}
 		} catch (MessageException e) {
 			LOGGER.warn(String.format("Failed to send %s message with ID %d to peer %s: %s", message.getType().name(), message.getId(), this, e.getMessage()));
+			return false;
 		} catch (IOException e) {
 			// Send failure
 			return false;
-		} catch (InterruptedException e) {
-			// Likely shutdown scenario - so exit
-			return false;
 		}
 
 		// Sent OK
 		return true;
 	}
 
+	/**
+	 * Attempt to write queued messages to socketChannel.
+	 * <p>
+	 * Called by network thread when socket is writable.
+	 * 
+	 * @throws IOException
+	 */
+	/* package */ void writeChannel() throws IOException {
+		synchronized (this.sendQueue) {
+			while (!this.sendQueue.isEmpty()) {
+				ByteBuffer[] outputBuffers = this.sendQueue.peekFirst();
+
+				this.sendQueueBytes -= this.socketChannel.write(outputBuffers);
+
+				if (remaining(outputBuffers) > 0)
+					// Underlying socket's internal buffer full again, so wait until next writable
+					return;
+
+				this.sendQueue.removeFirst();
+			}
+
+			// All sent so no longer interested in socket being writable
+			Network.getInstance().setWriteInterest(this, false);
+		}
+	}
+
+	/** Returns whether peer's queued outbound bytes are within the send queue low watermark, e.g. for optional broadcasts. */
+	public boolean hasSendCapacity() {
+		synchronized (this.sendQueue) {
+			return this.sendQueueBytes <= Settings.getInstance().getPeerSendQueueLowWatermark();
+		}
+	}
+
+	/**
+	 * Returns whether another broadcast message can be sent to this peer without exceeding broadcast rate limit.
+	 * <p>
+	 * Uses a token bucket, refilled at {@link Settings#getPeerBroadcastRate()} per second,
+	 * so short bursts are allowed.
+	 */
+	public boolean acquireBroadcastPermit() {
+		final int broadcastRate = Settings.getInstance().getPeerBroadcastRate();
+		final long now = System.currentTimeMillis();
+
+		synchronized (this.broadcastPermitLock) {
+			if (this.broadcastPermitsTimestamp == null)
+				this.broadcastPermits = broadcastRate;
+			else
+				this.broadcastPermits = Math.min(broadcastRate, this.broadcastPermits + (now - this.broadcastPermitsTimestamp) * broadcastRate / 1000.0);
+
+			this.broadcastPermitsTimestamp = now;
+
+			if (this.broadcastPermits < 1.0)
+				return false;
+
+			this.broadcastPermits -= 1.0;
+			return true;
+		}
+	}
+
+	private static long remaining(ByteBuffer[] byteBuffers) {
+		long remaining = 0;
+
+		for (ByteBuffer byteBuffer : byteBuffers)
+			remaining += byteBuffer.remaining();
+
+		return remaining;
+	}
+
 	/**
 	 * Send message to peer and await response.
 	 * <p>
@@ -436,6 +636,31 @@ public class Peer {
 	public Message getResponse(Message message) throws InterruptedException {
 		BlockingQueue<Message> blockingQueue = new ArrayBlockingQueue<Message>(1);
 
+		Integer id = this.sendRequest(message, blockingQueue);
+		if (id == null)
+			return null;
+
+		try {
+			Message response = blockingQueue.poll(RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
+			return response;
+		} finally {
+			this.cancelRequest(id);
+		}
+	}
+
+	/**
+	 * Send message to peer without waiting for response.
+	 * <p>
+	 * Message is assigned a random ID and sent. Any response with matching ID is added to <tt>replyQueue</tt>.
+	 * The same queue can be used for several requests, so one thread can have many requests in flight.
+	 * <p>
+	 * Caller must call {@link #cancelRequest(int)} once response arrives, or is no longer wanted.
+	 * 
+	 * @param message
+	 * @param replyQueue
+	 * @return message ID, or <code>null</code> if message couldn't be sent
+	 */
+	public Integer sendRequest(Message message, BlockingQueue<Message> replyQueue) {
 		// Assign random ID to this message
 		int id;
 		do {
@@ -443,7 +668,7 @@ public class Peer {
 
 			// Put queue into map (keyed by message ID) so we can poll for a response
 			// If putIfAbsent() doesn't return null, then this ID is already taken
-		} while (this.replyQueues.putIfAbsent(id, blockingQueue) != null);
+		} while (this.replyQueues.putIfAbsent(id, replyQueue) != null);
 		message.setId(id);
 
 		// Try to send message
@@ -452,12 +677,12 @@ public class Peer {
 			return null;
 		}
 
-		try {
-			Message response = blockingQueue.poll(RESPONSE_TIMEOUT, TimeUnit.MILLISECONDS);
-			return response;
-		} finally {
-			this.replyQueues.remove(id);
-		}
+		return id;
+	}
+
+	/** Stops responses to request with passed message ID being added to its reply queue. */
+	public void cancelRequest(int id) {
+		this.replyQueues.remove(id);
 	}
 
 	/* package */ void startPings() {
@@ -517,6 +742,14 @@ public class Peer {
 				LOGGER.debug(String.format("IOException while trying to close peer %s", this));
 			}
 		}
+
+		// Return any pooled receive buffer, otherwise it's lost when peer is discarded
+		synchronized (this.receiveLock) {
+			if (this.byteBuffer != null && this.byteBuffer != this.smallReceiveBuffer) {
+				ReceiveBufferPool.getInstance().release(this.byteBuffer);
+				this.byteBuffer = this.smallReceiveBuffer;
+			}
+		}
 	}
 
 	// Utility methods
@@ -0,0 +1,423 @@
+package org.qora.network;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.qora.data.network.PeerData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+
+/**
+ * In-memory copy of known peers, with connection quality scores.
+ * <p>
+ * Peers are kept in two buckets: "tried", i.e. we've completed a handshake with them at some point,
+ * and "new", i.e. only heard about from other peers or added by hand.
+ * Picking a peer to connect to takes a couple of random peers from a bucket and uses the one with the better score,
+ * so choosing is constant-time but biased towards fast, reliable peers.
+ * <p>
+ * Populated lazily from repository on first use. Changes are saved back to repository
+ * in batches by {@link #saveChanges(Repository)}, rather than on every connection attempt.
+ */
+public class PeerAddressBook {
+
+	private static final Logger LOGGER = LogManager.getLogger(PeerAddressBook.class);
+
+	/** Number of random picks, per wanted peer, before giving up on finding connectable peers. */
+	private static final int PICK_ATTEMPTS_PER_PEER = 8;
+	/** Ping time that halves a peer's latency score. (ms) */
+	private static final long REFERENCE_PING = 1000; // ms
+	/** How long a peer's score is reduced after misbehaving. (ms) */
+	private static final long MISBEHAVIOUR_PENALTY_PERIOD = 60 * 60 * 1000; // ms
+	/** Score multiplier for recently misbehaving peers. */
+	private static final double MISBEHAVIOUR_PENALTY = 0.1;
+
+	private enum Bucket {
+		NEW, TRIED;
+	}
+
+	/** Known peer, along with connection stats that aren't persisted. */
+	private static class Entry {
+		private final PeerData peerData;
+		private Bucket bucket;
+		/** Index of this entry in its bucket's list. */
+		private int bucketIndex;
+
+		private int connectSuccesses = 0;
+		private int connectFailures = 0;
+		private Long lastPing = null;
+
+		public Entry(PeerData peerData) {
+			this.peerData = peerData;
+		}
+
+		/** Returns score between 0 and 1, higher is better. */
+		public double getScore(long now) {
+			// Smoothed connection success rate, so new peers start at 0.5
+			double score = (this.connectSuccesses + 1.0) / (this.connectSuccesses + this.connectFailures + 2.0);
+
+			// Unknown latency also counts as 0.5
+			score *= this.lastPing == null ? 0.5 : (double) REFERENCE_PING / (REFERENCE_PING + this.lastPing);
+
+			Long lastMisbehaved = this.peerData.getLastMisbehaved();
+			if (lastMisbehaved != null && lastMisbehaved > now - MISBEHAVIOUR_PENALTY_PERIOD)
+				score *= MISBEHAVIOUR_PENALTY;
+
+			return score;
+		}
+	}
+
+	private final Random random = new SecureRandom();
+
+	private boolean isLoaded = false;
+	private final Map<String, Entry> entriesByAddress = new HashMap<>();
+	private final Map<Bucket, List<Entry>> entriesByBucket = new HashMap<>();
+
+	/** Peers changed since last save, by address. */
+	private final Map<String, PeerData> unsavedPeers = new HashMap<>();
+	/** Peers removed since last save. */
+	private final Map<String, PeerAddress> unsavedDeletions = new HashMap<>();
+
+	public PeerAddressBook() {
+		for (Bucket bucket : Bucket.values())
+			this.entriesByBucket.put(bucket, new ArrayList<>());
+	}
+
+	// Queries
+
+	/** Returns number of known peers. */
+	public synchronized int size() throws DataException {
+		this.ensureLoaded();
+
+		return this.entriesByAddress.size();
+	}
+
+	/** Returns all known peers. */
+	public synchronized List<PeerData> getAllPeers() throws DataException {
+		this.ensureLoaded();
+
+		List<PeerData> peers = new ArrayList<>(this.entriesByAddress.size());
+		for (Entry entry : this.entriesByAddress.values())
+			peers.add(entry.peerData);
+
+		return peers;
+	}
+
+	/** Returns peers we've completed a handshake with at some point. */
+	public synchronized List<PeerData> getTriedPeers() throws DataException {
+		this.ensureLoaded();
+
+		List<Entry> entries = this.entriesByBucket.get(Bucket.TRIED);
+
+		List<PeerData> peers = new ArrayList<>(entries.size());
+		for (Entry entry : entries)
+			peers.add(entry.peerData);
+
+		return peers;
+	}
+
+	/** Returns whether peer with passed address is known. */
+	public synchronized boolean contains(PeerAddress peerAddress) throws DataException {
+		this.ensureLoaded();
+
+		return this.entriesByAddress.containsKey(toKey(peerAddress));
+	}
+
+	/** Returns score, between 0 and 1, of peer with passed address, or null if peer is unknown. */
+	public synchronized Double getScore(PeerAddress peerAddress, long now) throws DataException {
+		this.ensureLoaded();
+
+		Entry entry = this.entriesByAddress.get(toKey(peerAddress));
+		return entry == null ? null : entry.getScore(now);
+	}
+
+	/**
+	 * Returns up to <tt>maxCount</tt> peers to connect to, favouring higher-scoring peers.
+	 * <p>
+	 * Picked peers have their last-attempted timestamp set to <tt>now</tt>.
+	 *
+	 * @param maxCount
+	 * @param isConnectable filter for peers that can be connected to right now
+	 * @param now
+	 * @return list of peers, possibly empty
+	 * @throws DataException
+	 */
+	public synchronized List<PeerData> pickPeers(int maxCount, Predicate<PeerData> isConnectable, long now) throws DataException {
+		this.ensureLoaded();
+
+		List<PeerData> pickedPeers = new ArrayList<>();
+		Set<Entry> seenEntries = new HashSet<>();
+
+		for (int attempt = 0; attempt < maxCount * PICK_ATTEMPTS_PER_PEER && pickedPeers.size() < maxCount; ++attempt) {
+			List<Entry> entries = this.pickBucket();
+			if (entries == null)
+				break;
+
+			// Best of two random picks
+			Entry entry = entries.get(this.random.nextInt(entries.size()));
+			Entry otherEntry = entries.get(this.random.nextInt(entries.size()));
+			if (otherEntry.getScore(now) > entry.getScore(now))
+				entry = otherEntry;
+
+			if (!seenEntries.add(entry) || !isConnectable.test(entry.peerData))
+				continue;
+
+			entry.peerData.setLastAttempted(now);
+			this.markUnsaved(entry.peerData);
+
+			pickedPeers.add(entry.peerData);
+		}
+
+		return pickedPeers;
+	}
+
+	/** Returns tried or new bucket, roughly evenly, or null if both are empty. */
+	private List<Entry> pickBucket() {
+		List<Entry> triedEntries = this.entriesByBucket.get(Bucket.TRIED);
+		List<Entry> newEntries = this.entriesByBucket.get(Bucket.NEW);
+
+		if (triedEntries.isEmpty())
+			return newEntries.isEmpty() ? null : newEntries;
+
+		if (newEntries.isEmpty())
+			return triedEntries;
+
+		return this.random.nextBoolean() ? triedEntries : newEntries;
+	}
+
+	// Updates
+
+	/**
+	 * Adds peer, unless already known.
+	 *
+	 * @return true if peer was added
+	 */
+	public synchronized boolean add(PeerData peerData) throws DataException {
+		this.ensureLoaded();
+
+		if (this.entriesByAddress.containsKey(toKey(peerData.getAddress())))
+			return false;
+
+		this.addEntry(new Entry(peerData));
+		this.markUnsaved(peerData);
+
+		return true;
+	}
+
+	/**
+	 * Removes peer.
+	 *
+	 * @return true if peer was known
+	 */
+	public synchronized boolean remove(PeerAddress peerAddress) throws DataException {
+		this.ensureLoaded();
+
+		Entry entry = this.entriesByAddress.get(toKey(peerAddress));
+		if (entry == null)
+			return false;
+
+		this.removeEntry(entry);
+		this.markDeleted(entry.peerData.getAddress());
+
+		return true;
+	}
+
+	/**
+	 * Removes all peers that match passed predicate.
+	 *
+	 * @return removed peers
+	 */
+	public synchronized List<PeerData> removeIf(Predicate<PeerData> predicate) throws DataException {
+		this.ensureLoaded();
+
+		List<PeerData> removedPeers = new ArrayList<>();
+
+		for (Entry entry : new ArrayList<>(this.entriesByAddress.values()))
+			if (predicate.test(entry.peerData)) {
+				this.removeEntry(entry);
+				this.markDeleted(entry.peerData.getAddress());
+				removedPeers.add(entry.peerData);
+			}
+
+		return removedPeers;
+	}
+
+	/** Records outbound connection failure, lowering peer's score. Unknown peers are ignored. */
+	public synchronized void onConnectFailure(PeerAddress peerAddress) {
+		Entry entry = this.entriesByAddress.get(toKey(peerAddress));
+		if (entry != null)
+			++entry.connectFailures;
+	}
+
+	/** Records completed handshake with outbound peer, moving peer to "tried" bucket. Unknown peers are ignored. */
+	public synchronized void onConnected(PeerData peerData) {
+		Entry entry = this.entriesByAddress.get(toKey(peerData.getAddress()));
+		if (entry == null)
+			return;
+
+		++entry.connectSuccesses;
+
+		if (entry.bucket != Bucket.TRIED) {
+			this.removeEntry(entry);
+			entry.bucket = Bucket.TRIED;
+			this.addEntry(entry);
+		}
+
+		this.markUnsaved(entry.peerData);
+	}
+
+	/** Records peer's most recent ping time. Unknown peers are ignored. */
+	public synchronized void onPing(PeerAddress peerAddress, long ping) {
+		Entry entry = this.entriesByAddress.get(toKey(peerAddress));
+		if (entry != null)
+			entry.lastPing = ping;
+	}
+
+	/** Records that peer's data, e.g. last-misbehaved timestamp, has changed and needs saving. Unknown peers are ignored. */
+	public synchronized void onUpdated(PeerData peerData) {
+		if (this.entriesByAddress.containsKey(toKey(peerData.getAddress())))
+			this.markUnsaved(peerData);
+	}
+
+	/**
+	 * Removes all peers, from repository too.
+	 *
+	 * @return number of peers removed from repository
+	 */
+	public synchronized int clear(Repository repository) throws DataException {
+		for (List<Entry> entries : this.entriesByBucket.values())
+			entries.clear();
+
+		this.entriesByAddress.clear();
+		this.unsavedPeers.clear();
+		this.unsavedDeletions.clear();
+
+		int numDeleted = repository.getNetworkRepository().deleteAllPeers();
+		repository.saveChanges();
+
+		// Nothing left to load, but repository might gain initial peers again, e.g. if rebuilt
+		this.isLoaded = false;
+
+		return numDeleted;
+	}
+
+	// Persistence
+
+	/** Saves changed or removed peers to repository, then commits. */
+	public void saveChanges(Repository repository) throws DataException {
+		List<PeerData> peersToSave;
+		List<PeerAddress> peersToDelete;
+
+		// Take pending changes so we don't hold lock while using repository
+		synchronized (this) {
+			if (this.unsavedPeers.isEmpty() && this.unsavedDeletions.isEmpty())
+				return;
+
+			peersToSave = new ArrayList<>(this.unsavedPeers.values());
+			peersToDelete = new ArrayList<>(this.unsavedDeletions.values());
+
+			this.unsavedPeers.clear();
+			this.unsavedDeletions.clear();
+		}
+
+		try {
+			repository.discardChanges();
+
+			for (PeerAddress peerAddress : peersToDelete)
+				repository.getNetworkRepository().delete(peerAddress);
+
+			for (PeerData peerData : peersToSave)
+				repository.getNetworkRepository().save(peerData);
+
+			repository.saveChanges();
+		} catch (DataException e) {
+			// Try again next time, unless superseded in the meantime
+			synchronized (this) {
+				for (PeerAddress peerAddress : peersToDelete)
+					if (!this.unsavedPeers.containsKey(toKey(peerAddress)))
+						this.unsavedDeletions.putIfAbsent(toKey(peerAddress), peerAddress);
+
+				for (PeerData peerData : peersToSave)
+					if (!this.unsavedDeletions.containsKey(toKey(peerData.getAddress())))
+						this.unsavedPeers.putIfAbsent(toKey(peerData.getAddress()), peerData);
+			}
+
+			throw e;
+		}
+
+		LOGGER.trace(() -> String.format("Saved %d peers, deleted %d peers", peersToSave.size(), peersToDelete.size()));
+	}
+
+	// Loading / maintenance
+
+	private void ensureLoaded() throws DataException {
+		if (this.isLoaded)
+			return;
+
+		// Use our own repository session so we don't see caller's uncommitted changes
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			for (PeerData peerData : repository.getNetworkRepository().getAllPeers())
+				// Repository addresses can differ by case only
+				if (!this.entriesByAddress.containsKey(toKey(peerData.getAddress())))
+					this.addEntry(new Entry(peerData));
+		}
+
+		this.isLoaded = true;
+
+		LOGGER.debug(() -> String.format("Loaded %d known peers", this.entriesByAddress.size()));
+	}
+
+	private void addEntry(Entry entry) {
+		if (entry.bucket == null)
+			entry.bucket = entry.peerData.getLastConnected() != null ? Bucket.TRIED : Bucket.NEW;
+
+		List<Entry> entries = this.entriesByBucket.get(entry.bucket);
+		entry.bucketIndex = entries.size();
+		entries.add(entry);
+
+		this.entriesByAddress.put(toKey(entry.peerData.getAddress()), entry);
+	}
+
+	/** Removes entry in constant time by moving last entry in bucket into its slot. */
+	private void removeEntry(Entry entry) {
+		List<Entry> entries = this.entriesByBucket.get(entry.bucket);
+
+		Entry lastEntry = entries.remove(entries.size() - 1);
+		if (lastEntry != entry) {
+			entries.set(entry.bucketIndex, lastEntry);
+			lastEntry.bucketIndex = entry.bucketIndex;
+		}
+
+		this.entriesByAddress.remove(toKey(entry.peerData.getAddress()));
+	}
+
+	private void markUnsaved(PeerData peerData) {
+		String key = toKey(peerData.getAddress());
+
+		this.unsavedDeletions.remove(key);
+		this.unsavedPeers.put(key, peerData);
+	}
+
+	private void markDeleted(PeerAddress peerAddress) {
+		String key = toKey(peerAddress);
+
+		this.unsavedPeers.remove(key);
+		this.unsavedDeletions.put(key, peerAddress);
+	}
+
+	/** Returns map key for peer address, matching {@link PeerAddress#equals(PeerAddress)}. */
+	private static String toKey(PeerAddress peerAddress) {
+		return peerAddress.toString().toLowerCase(Locale.ROOT);
+	}
+
+}
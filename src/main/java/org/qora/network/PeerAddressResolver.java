@@ -0,0 +1,125 @@
+package org.qora.network;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.google.common.net.InetAddresses;
+
+/**
+ * Caches DNS lookups of peer hostnames, performing lookups on background threads.
+ * <p>
+ * Callers never block on DNS: if a hostname hasn't been resolved yet, a lookup is started
+ * and callers should try again later. Failed lookups are cached too, for a shorter period,
+ * so unresolvable peers don't trigger a lookup every time they're considered.
+ */
+public class PeerAddressResolver {
+
+	private static final Logger LOGGER = LogManager.getLogger(PeerAddressResolver.class);
+
+	/** How long a successful lookup is cached. (ms) */
+	private static final long RESOLVED_TTL = 10 * 60 * 1000; // ms
+	/** How long a failed lookup is cached. (ms) */
+	private static final long UNRESOLVED_TTL = 60 * 1000; // ms
+	/** Number of lookups that can be in progress at the same time. */
+	private static final int RESOLVER_THREADS = 2;
+
+	private static class Resolution {
+		/** Resolved address, or null if lookup failed. */
+		private final InetAddress address;
+		private final long expiry;
+
+		public Resolution(InetAddress address, long expiry) {
+			this.address = address;
+			this.expiry = expiry;
+		}
+	}
+
+	private final Map<String, Resolution> resolutionsByHost = new ConcurrentHashMap<>();
+	private final Set<String> pendingHosts = ConcurrentHashMap.newKeySet();
+	private final ExecutorService resolverExecutor = Executors.newFixedThreadPool(RESOLVER_THREADS);
+
+	/**
+	 * Returns resolved socket address for passed peer address, or null if lookup is still pending.
+	 * <p>
+	 * IP address literals are converted immediately. Otherwise, if hostname isn't cached,
+	 * or cached lookup has expired, a background lookup is started.
+	 *
+	 * @param peerAddress
+	 * @return resolved socket address, or null if not resolved yet
+	 * @throws UnknownHostException if hostname recently failed to resolve
+	 */
+	public InetSocketAddress getResolvedAddress(PeerAddress peerAddress) throws UnknownHostException {
+		final String host = peerAddress.getHost();
+
+		if (InetAddresses.isInetAddress(host))
+			return new InetSocketAddress(InetAddresses.forString(host), peerAddress.getPort());
+
+		Resolution resolution = this.resolutionsByHost.get(host);
+
+		if (resolution == null || resolution.expiry < System.currentTimeMillis()) {
+			this.requestLookup(host);
+
+			// Carry on using expired lookup until replaced
+			if (resolution == null)
+				return null;
+		}
+
+		if (resolution.address == null)
+			throw new UnknownHostException(host);
+
+		return new InetSocketAddress(resolution.address, peerAddress.getPort());
+	}
+
+	private void requestLookup(String host) {
+		// Already being looked up?
+		if (!this.pendingHosts.add(host))
+			return;
+
+		try {
+			this.resolverExecutor.execute(() -> this.lookup(host));
+		} catch (RejectedExecutionException e) {
+			// Shutting down
+			this.pendingHosts.remove(host);
+		}
+	}
+
+	private void lookup(String host) {
+		try {
+			InetAddress address = null;
+			long ttl = UNRESOLVED_TTL;
+
+			try {
+				address = InetAddress.getByName(host);
+				ttl = RESOLVED_TTL;
+			} catch (UnknownHostException e) {
+				LOGGER.trace(() -> String.format("Unable to resolve peer host %s", host));
+			}
+
+			this.resolutionsByHost.put(host, new Resolution(address, System.currentTimeMillis() + ttl));
+		} finally {
+			this.pendingHosts.remove(host);
+		}
+	}
+
+	/** Removes expired lookups, to stop cache growing with hostnames of forgotten peers. */
+	public void prune() {
+		final long now = System.currentTimeMillis();
+
+		this.resolutionsByHost.values().removeIf(resolution -> resolution.expiry < now);
+	}
+
+	public void shutdown() {
+		this.resolverExecutor.shutdownNow();
+	}
+
+}
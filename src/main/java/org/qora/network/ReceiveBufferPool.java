@@ -0,0 +1,77 @@
+package org.qora.network;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.qora.network.message.Message;
+
+/**
+ * Pool of direct buffers for receiving messages too large for a peer's own small receive buffer.
+ * <p>
+ * Buffers come in power-of-two size classes, capped at maximum message length,
+ * so a peer only holds a buffer big enough for the message it's currently receiving.
+ * Only a few buffers of each size class are kept for reuse.
+ */
+class ReceiveBufferPool {
+
+	/** Smallest buffer handed out, to avoid lots of tiny size classes. */
+	private static final int MIN_BUFFER_SIZE = 64 * 1024;
+	/** Maximum number of released buffers kept per size class. */
+	private static final int MAX_POOLED_PER_SIZE = 4;
+
+	private static ReceiveBufferPool instance;
+
+	private final int maxBufferSize;
+	private final Map<Integer, Deque<ByteBuffer>> pooledBuffers = new HashMap<>();
+
+	private ReceiveBufferPool() {
+		this.maxBufferSize = Message.getMaxMessageLength();
+	}
+
+	public static synchronized ReceiveBufferPool getInstance() {
+		if (instance == null)
+			instance = new ReceiveBufferPool();
+
+		return instance;
+	}
+
+	/** Returns cleared buffer with at least <tt>minCapacity</tt> bytes. */
+	public ByteBuffer acquire(int minCapacity) {
+		int capacity = this.sizeClass(minCapacity);
+
+		synchronized (this.pooledBuffers) {
+			Deque<ByteBuffer> buffers = this.pooledBuffers.get(capacity);
+
+			if (buffers != null && !buffers.isEmpty())
+				return buffers.pop();
+		}
+
+		return ByteBuffer.allocateDirect(capacity);
+	}
+
+	/** Returns buffer, previously acquired from this pool, for reuse. */
+	public void release(ByteBuffer byteBuffer) {
+		byteBuffer.clear();
+
+		synchronized (this.pooledBuffers) {
+			Deque<ByteBuffer> buffers = this.pooledBuffers.computeIfAbsent(byteBuffer.capacity(), capacity -> new ArrayDeque<>());
+
+			if (buffers.size() < MAX_POOLED_PER_SIZE)
+				buffers.push(byteBuffer);
+		}
+	}
+
+	private int sizeClass(int minCapacity) {
+		if (minCapacity <= MIN_BUFFER_SIZE)
+			return MIN_BUFFER_SIZE;
+
+		if (minCapacity > this.maxBufferSize / 2)
+			return this.maxBufferSize;
+
+		return Integer.highestOneBit(minCapacity - 1) << 1;
+	}
+
+}
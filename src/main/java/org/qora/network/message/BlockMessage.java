@@ -23,6 +23,8 @@ public class BlockMessage extends Message {
 	private static final Logger LOGGER = LogManager.getLogger(BlockMessage.class);
 
 	private Block block = null;
+	/** Already-serialized block, e.g. from BlockCache, used instead of <tt>block</tt> */
+	private byte[] blockBytes = null;
 
 	private BlockData blockData = null;
 	private List<TransactionData> transactions = null;
@@ -37,6 +39,14 @@ public class BlockMessage extends Message {
 		this.height = block.getBlockData().getHeight();
 	}
 
+	/** Constructs BLOCK message using block already serialized by {@link BlockTransformer#toBytes(Block)}. */
+	public BlockMessage(int height, byte[] blockBytes) {
+		super(MessageType.BLOCK);
+
+		this.blockBytes = blockBytes;
+		this.height = height;
+	}
+
 	private BlockMessage(int id, BlockData blockData, List<TransactionData> transactions, List<ATStateData> atStates) {
 		super(id, MessageType.BLOCK);
 
@@ -77,7 +87,7 @@ public class BlockMessage extends Message {
 
 	@Override
 	protected byte[] toData() {
-		if (this.block == null)
+		if (this.block == null && this.blockBytes == null)
 			return null;
 
 		try {
@@ -85,7 +95,10 @@ public class BlockMessage extends Message {
 
 			bytes.write(Ints.toByteArray(this.height));
 
-			bytes.write(BlockTransformer.toBytes(this.block));
+			if (this.blockBytes != null)
+				bytes.write(this.blockBytes);
+			else
+				bytes.write(BlockTransformer.toBytes(this.block));
 
 			return bytes.toByteArray();
 		} catch (TransformationException | IOException e) {
@@ -5,13 +5,9 @@ import java.util.Map;
 import org.qora.crypto.Crypto;
 import org.qora.network.Network;
 
-import com.google.common.primitives.Ints;
-
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toMap;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.BufferUnderflowException;
@@ -22,6 +18,10 @@ public abstract class Message {
 
 	// MAGIC(4) + TYPE(4) + HAS-ID(1) + ID?(4) + DATA-SIZE(4) + CHECKSUM?(4) + DATA?(*)
 	private static final int MAGIC_LENGTH = 4;
+	private static final int TYPE_LENGTH = 4;
+	private static final int HAS_ID_LENGTH = 1;
+	private static final int ID_LENGTH = 4;
+	private static final int DATA_SIZE_LENGTH = 4;
 	private static final int CHECKSUM_LENGTH = 4;
 
 	private static final int MAX_DATA_SIZE = 1024 * 1024; // 1MB
@@ -120,6 +120,9 @@ public abstract class Message {
 	private int id;
 	private MessageType type;
 
+	/** Cached serialized header and payload, built on first send */
+	private ByteBuffer[] encodedBuffers = null;
+
 	protected Message(int id, MessageType type) {
 		this.id = id;
 		this.type = type;
@@ -138,7 +141,12 @@ public abstract class Message {
 	}
 
 	public void setId(int id) {
-		this.id = id;
+		synchronized (this) {
+			this.id = id;
+
+			// ID is part of header so re-encode on next send
+			this.encodedBuffers = null;
+		}
 	}
 
 	public MessageType getType() {
@@ -153,6 +161,8 @@ public abstract class Message {
 	 * @throws MessageException
 	 */
 	public static Message fromByteBuffer(ByteBuffer byteBuffer) throws MessageException {
+		boolean isMessageRead = false;
+
 		try {
 			byteBuffer.flip();
 
@@ -162,7 +172,7 @@ public abstract class Message {
 			byte[] messageMagic = new byte[MAGIC_LENGTH];
 			readBuffer.get(messageMagic);
 
-			if (!Arrays.equals(messageMagic, Network.getInstance().getMessageMagic()))
+			if (!Arrays.equals(messageMagic, Network.getMessageMagic()))
 				// Didn't receive correct Message "magic"
 				throw new MessageException("Received incorrect message 'magic'");
 
@@ -184,29 +194,26 @@ public abstract class Message {
 					throw new MessageException("Invalid negative ID");
 			}
 
-			int dataSize = readBuffer.getInt();
-
-			if (dataSize > MAX_DATA_SIZE)
-				// Too large
-				throw new MessageException(String.format("Declared data length %d larger than max allowed %d", dataSize, MAX_DATA_SIZE));
+			int dataSize = readDataSize(readBuffer);
 
 			ByteBuffer dataSlice = null;
 			if (dataSize > 0) {
 				byte[] expectedChecksum = new byte[CHECKSUM_LENGTH];
 				readBuffer.get(expectedChecksum);
 
+				if (readBuffer.remaining() < dataSize)
+					// Not all data bytes have arrived yet
+					return null;
+
 				// Remember this position in readBuffer so we can pass to Message subclass
 				dataSlice = readBuffer.slice();
+				dataSlice.limit(dataSize);
 
 				// Consume data from buffer
-				byte[] data = new byte[dataSize];
-				readBuffer.get(data);
-
-				// We successfully read all the data bytes, so we can set limit on dataSlice
-				dataSlice.limit(dataSize);
+				readBuffer.position(readBuffer.position() + dataSize);
 
 				// Test checksum
-				byte[] actualChecksum = generateChecksum(data);
+				byte[] actualChecksum = generateChecksum(dataSlice);
 				if (!Arrays.equals(expectedChecksum, actualChecksum))
 					throw new MessageException("Message checksum incorrect");
 			}
@@ -215,55 +222,145 @@ public abstract class Message {
 
 			// We successfully read a message, so bump byteBuffer's position to reflect this
 			byteBuffer.position(readBuffer.position());
+			isMessageRead = true;
 
 			return message;
 		} catch (BufferUnderflowException e) {
 			// Not enough bytes to fully decode message...
 			return null;
 		} finally {
-			byteBuffer.compact();
+			if (isMessageRead) {
+				// Move any following bytes to start of buffer
+				byteBuffer.compact();
+			} else {
+				// Nothing consumed so just return buffer to receiving state, avoiding pointless copy
+				byteBuffer.position(byteBuffer.limit());
+				byteBuffer.limit(byteBuffer.capacity());
+			}
+		}
+	}
+
+	/**
+	 * Returns total length of message at start of byteBuffer, as declared by message's header.
+	 * <p>
+	 * byteBuffer is expected to be receiving bytes, as with {@link #fromByteBuffer(ByteBuffer)}, and is not modified.
+	 * 
+	 * @param byteBuffer
+	 * @return length of whole message, including header, or -1 if header not fully received yet
+	 * @throws MessageException if declared data length is invalid
+	 */
+	public static int getMessageLength(ByteBuffer byteBuffer) throws MessageException {
+		ByteBuffer readBuffer = byteBuffer.duplicate();
+		readBuffer.flip();
+
+		try {
+			readBuffer.position(MAGIC_LENGTH + TYPE_LENGTH);
+
+			byte hasId = readBuffer.get();
+			if (hasId != 0)
+				readBuffer.position(readBuffer.position() + ID_LENGTH);
+
+			int dataSize = readDataSize(readBuffer);
+
+			return readBuffer.position() + (dataSize > 0 ? CHECKSUM_LENGTH + dataSize : 0);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			// Not enough bytes to cover header
+			return -1;
 		}
 	}
 
+	private static int readDataSize(ByteBuffer readBuffer) throws MessageException {
+		int dataSize = readBuffer.getInt();
+
+		if (dataSize > MAX_DATA_SIZE)
+			// Too large
+			throw new MessageException(String.format("Declared data length %d larger than max allowed %d", dataSize, MAX_DATA_SIZE));
+
+		if (dataSize < 0)
+			throw new MessageException(String.format("Declared data length %d is negative", dataSize));
+
+		return dataSize;
+	}
+
 	protected static byte[] generateChecksum(byte[] data) {
 		return Arrays.copyOfRange(Crypto.digest(data), 0, CHECKSUM_LENGTH);
 	}
 
+	protected static byte[] generateChecksum(ByteBuffer data) {
+		return Arrays.copyOfRange(Crypto.digest(data), 0, CHECKSUM_LENGTH);
+	}
+
+	/** Returns maximum length of any message, including header. */
+	public static int getMaxMessageLength() {
+		return MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH + ID_LENGTH + DATA_SIZE_LENGTH + CHECKSUM_LENGTH + MAX_DATA_SIZE;
+	}
+
 	public byte[] toBytes() throws MessageException {
-		try {
-			ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		ByteBuffer[] byteBuffers = this.toByteBuffers();
+
+		ByteBuffer bytes = ByteBuffer.allocate(byteBuffers[0].remaining() + byteBuffers[1].remaining());
+		bytes.put(byteBuffers[0]);
+		bytes.put(byteBuffers[1]);
+
+		return bytes.array();
+	}
+
+	/**
+	 * Returns serialized message as header and payload buffers, suitable for a gathering write.
+	 * <p>
+	 * Message is only serialized, and checksummed, once. Each call returns independent read-only
+	 * views of the same bytes so one message can be sent to many peers concurrently.
+	 * 
+	 * @return two-element array of header buffer then payload buffer (possibly empty)
+	 * @throws MessageException
+	 */
+	public ByteBuffer[] toByteBuffers() throws MessageException {
+		ByteBuffer[] encodedBuffers;
 
-			// Magic
-			bytes.write(Network.getInstance().getMessageMagic());
+		synchronized (this) {
+			if (this.encodedBuffers == null)
+				this.encodedBuffers = this.encode();
 
-			bytes.write(Ints.toByteArray(this.type.value));
+			encodedBuffers = this.encodedBuffers;
+		}
 
-			if (this.hasId()) {
-				bytes.write(1);
+		return new ByteBuffer[] { encodedBuffers[0].asReadOnlyBuffer(), encodedBuffers[1].asReadOnlyBuffer() };
+	}
 
-				bytes.write(Ints.toByteArray(this.id));
-			} else {
-				bytes.write(0);
-			}
+	private ByteBuffer[] encode() throws MessageException {
+		byte[] data = this.toData();
+		if (data == null)
+			throw new MessageException("Missing data payload");
 
-			byte[] data = this.toData();
-			if (data == null)
-				throw new MessageException("Missing data payload");
+		int headerLength = MAGIC_LENGTH + TYPE_LENGTH + HAS_ID_LENGTH + (this.hasId() ? ID_LENGTH : 0) + DATA_SIZE_LENGTH
+				+ (data.length > 0 ? CHECKSUM_LENGTH : 0);
 
-			bytes.write(Ints.toByteArray(data.length));
+		if (headerLength + data.length > MAX_DATA_SIZE)
+			throw new MessageException(String.format("About to send message with length %d larger than allowed %d", headerLength + data.length, MAX_DATA_SIZE));
 
-			if (data.length > 0) {
-				bytes.write(generateChecksum(data));
-				bytes.write(data);
-			}
+		ByteBuffer header = ByteBuffer.allocate(headerLength);
+
+		// Magic
+		header.put(Network.getMessageMagic());
 
-			if (bytes.size() > MAX_DATA_SIZE)
-				throw new MessageException(String.format("About to send message with length %d larger than allowed %d", bytes.size(), MAX_DATA_SIZE));
+		header.putInt(this.type.value);
 
-			return bytes.toByteArray();
-		} catch (IOException e) {
-			throw new MessageException("Failed to serialize message", e);
+		if (this.hasId()) {
+			header.put((byte) 1);
+
+			header.putInt(this.id);
+		} else {
+			header.put((byte) 0);
 		}
+
+		header.putInt(data.length);
+
+		if (data.length > 0)
+			header.put(generateChecksum(data));
+
+		header.flip();
+
+		return new ByteBuffer[] { header, ByteBuffer.wrap(data) };
 	}
 
 	protected abstract byte[] toData();
@@ -1,11 +1,13 @@
 package org.qora.repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 import org.qora.data.account.AccountBalanceData;
 import org.qora.data.account.AccountData;
 import org.qora.data.account.ForgingAccountData;
 import org.qora.data.account.ProxyForgerData;
+import org.qora.data.account.RecentInflowData;
 
 public interface AccountRepository {
 
@@ -83,6 +85,22 @@ public interface AccountRepository {
 
 	public void delete(String address, long assetId) throws DataException;
 
+	// Recent inflows, used for generating balances
+
+	/** Returns sum of account's positive QORA amounts in blocks after <tt>afterHeight</tt>, or zero if none. */
+	public BigDecimal getRecentInflows(String address, int afterHeight) throws DataException;
+
+	/** Returns sum of all account's QORA amounts in blocks after <tt>afterHeight</tt>, or zero if none. */
+	public BigDecimal getRecentNetAmounts(String address, int afterHeight) throws DataException;
+
+	public void save(RecentInflowData recentInflowData) throws DataException;
+
+	/** Delete all accounts' recent inflows for block at passed height, e.g. when orphaning. */
+	public void deleteRecentInflows(int height) throws DataException;
+
+	/** Delete all accounts' recent inflows for blocks below passed height. */
+	public void pruneRecentInflows(int belowHeight) throws DataException;
+
 	// Proxy forging
 
 	public ProxyForgerData getProxyForgeData(byte[] forgerPublicKey, String recipient) throws DataException;
@@ -0,0 +1,21 @@
+package org.qora.repository;
+
+import org.qora.data.asset.OrderData;
+
+/**
+ * Receives notification of <b>committed</b> changes to asset orders.
+ * <p>
+ * Repository implementations buffer these changes in the same way as for {@link UnconfirmedTransactionsListener}.
+ */
+public interface AssetOrdersListener {
+
+	/** Called after order has been saved, i.e. created, traded against, cancelled or reopened. */
+	public void onOrderSaved(OrderData orderData);
+
+	/** Called after order has been deleted, e.g. by orphaning. */
+	public void onOrderDeleted(byte[] orderId);
+
+	/** Called when repository factory is closed, so any cached state is now stale. */
+	public void onRepositoryClosed();
+
+}
@@ -1,12 +1,13 @@
 package org.qora.repository;
 
-import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 import org.qora.data.asset.AssetData;
 import org.qora.data.asset.OrderData;
 import org.qora.data.asset.RecentTradeData;
 import org.qora.data.asset.TradeData;
+import org.qora.utils.ByteArray;
 
 public interface AssetRepository {
 
@@ -45,9 +46,16 @@ public interface AssetRepository {
 		return getOpenOrders(haveAssetId, wantAssetId, null, null, null);
 	}
 
-	public List<OrderData> getOpenOrdersForTrading(long haveAssetId, long wantAssetId, BigDecimal minimumPrice) throws DataException;
+	/** Returns all open orders, for all asset pairs, excluding optional API fields. */
+	public List<OrderData> getAllOpenOrders() throws DataException;
 
-	public List<OrderData> getAggregatedOpenOrders(long haveAssetId, long wantAssetId, Integer limit, Integer offset, Boolean reverse) throws DataException;
+	/**
+	 * Returns orders saved or deleted by this repository session, but not yet committed.
+	 * <p>
+	 * Map is keyed by order ID, with latest saved order data, or null if order was deleted.
+	 * Returned order data must not be modified.
+	 */
+	public Map<ByteArray, OrderData> getUncommittedOrders() throws DataException;
 
 	public List<OrderData> getAccountsOrders(byte[] publicKey, Boolean optIsClosed, Boolean optIsFulfilled, Integer limit, Integer offset, Boolean reverse)
 			throws DataException;
@@ -6,6 +6,7 @@ import org.qora.api.model.BlockForgerSummary;
 import org.qora.data.block.BlockData;
 import org.qora.data.block.BlockSummaryData;
 import org.qora.data.block.BlockTransactionData;
+import org.qora.data.block.ValidationCheckpointData;
 import org.qora.data.transaction.TransactionData;
 
 public interface BlockRepository {
@@ -108,13 +109,25 @@ public interface BlockRepository {
 	 */
 	public List<BlockForgerSummary> getBlockForgers(List<String> addresses, Integer limit, Integer offset, Boolean reverse) throws DataException;
 
+	/**
+	 * Adjusts number of blocks forged using passed generator public key, which might be a proxy-forging public key.
+	 * <p>
+	 * Used to maintain counts for {@link #countForgedBlocks(byte[])} and {@link #getBlockForgers(List, Integer, Integer, Boolean)}.
+	 * 
+	 * @param generatorPublicKey
+	 * @param delta
+	 *            +1 when block is processed, -1 when orphaned
+	 * @throws DataException
+	 */
+	public void modifyForgedBlockCount(byte[] generatorPublicKey, int delta) throws DataException;
+
 	/**
 	 * Returns blocks with passed generator public key.
 	 */
 	public List<BlockData> getBlocksWithGenerator(byte[] generatorPublicKey, Integer limit, Integer offset, Boolean reverse) throws DataException;
 
 	/**
-	 * Returns blocks within height range.
+	 * Returns blocks within height range, in height order.
 	 */
 	public List<BlockData> getBlocks(int firstBlockHeight, int lastBlockHeight) throws DataException;
 
@@ -166,4 +179,19 @@ public interface BlockRepository {
 	 */
 	public void delete(BlockTransactionData blockTransactionData) throws DataException;
 
+	// Validation checkpoints
+
+	/** Returns highest validation checkpoint, or null if none. */
+	public ValidationCheckpointData getLatestValidationCheckpoint() throws DataException;
+
+	/**
+	 * Saves validation checkpoint into repository.
+	 * <p>
+	 * Checkpoint is automatically deleted if its block is orphaned.
+	 */
+	public void save(ValidationCheckpointData validationCheckpointData) throws DataException;
+
+	/** Deletes validation checkpoints below passed height. */
+	public void deleteValidationCheckpoints(int belowHeight) throws DataException;
+
 }
@@ -30,6 +30,9 @@ public interface Repository extends AutoCloseable {
 
 	public void rollbackToSavepoint() throws DataException;
 
+	/** Forgets most recent savepoint, keeping changes made since it was set. */
+	public void releaseSavepoint() throws DataException;
+
 	@Override
 	public void close() throws DataException;
 
@@ -3,6 +3,8 @@ package org.qora.repository;
 public abstract class RepositoryManager {
 
 	private static RepositoryFactory repositoryFactory = null;
+	private static UnconfirmedTransactionsListener unconfirmedTransactionsListener = null;
+	private static AssetOrdersListener assetOrdersListener = null;
 
 	public static void setRepositoryFactory(RepositoryFactory newRepositoryFactory) {
 		repositoryFactory = newRepositoryFactory;
@@ -25,6 +27,28 @@ public abstract class RepositoryManager {
 	public static void closeRepositoryFactory() throws DataException {
 		repositoryFactory.close();
 		repositoryFactory = null;
+
+		if (unconfirmedTransactionsListener != null)
+			unconfirmedTransactionsListener.onRepositoryClosed();
+
+		if (assetOrdersListener != null)
+			assetOrdersListener.onRepositoryClosed();
+	}
+
+	public static UnconfirmedTransactionsListener getUnconfirmedTransactionsListener() {
+		return unconfirmedTransactionsListener;
+	}
+
+	public static void setUnconfirmedTransactionsListener(UnconfirmedTransactionsListener listener) {
+		unconfirmedTransactionsListener = listener;
+	}
+
+	public static AssetOrdersListener getAssetOrdersListener() {
+		return assetOrdersListener;
+	}
+
+	public static void setAssetOrdersListener(AssetOrdersListener listener) {
+		assetOrdersListener = listener;
 	}
 
 	public static void backup(boolean quick) {
@@ -16,6 +16,18 @@ public interface TransactionRepository {
 
 	public TransactionData fromSignature(byte[] signature) throws DataException;
 
+	/**
+	 * Returns transactions matching passed signatures, in the same order.
+	 * <p>
+	 * Equivalent to calling {@link #fromSignature(byte[])} for each signature,
+	 * but repository implementations can fetch in bulk.
+	 *
+	 * @param signatures
+	 * @return list of transactions, with null entries for signatures not found
+	 * @throws DataException
+	 */
+	public List<TransactionData> fromSignatures(List<byte[]> signatures) throws DataException;
+
 	public TransactionData fromReference(byte[] reference) throws DataException;
 
 	public TransactionData fromHeightAndSequence(int height, int sequence) throws DataException;
@@ -25,6 +37,18 @@ public interface TransactionRepository {
 
 	public boolean exists(byte[] signature) throws DataException;
 
+	/**
+	 * Returns which of passed signatures match transactions in repository, confirmed or not.
+	 * <p>
+	 * Equivalent to calling {@link #exists(byte[])} for each signature,
+	 * but repository implementations can check in bulk.
+	 *
+	 * @param signatures
+	 * @return list of signatures found, in no particular order
+	 * @throws DataException
+	 */
+	public List<byte[]> getExistingSignatures(List<byte[]> signatures) throws DataException;
+
 	// Transaction participants
 
 	public List<byte[]> getSignaturesInvolvingAddress(String address) throws DataException;
@@ -0,0 +1,22 @@
+package org.qora.repository;
+
+import org.qora.data.transaction.TransactionData;
+
+/**
+ * Receives notification of <b>committed</b> changes to the unconfirmed transactions pile.
+ * <p>
+ * Repository implementations buffer these changes until <tt>saveChanges()</tt> succeeds,
+ * discarding them on <tt>discardChanges()</tt> or when rolling back to a savepoint.
+ */
+public interface UnconfirmedTransactionsListener {
+
+	/** Called after transaction has been added to unconfirmed pile. */
+	public void onUnconfirmed(TransactionData transactionData);
+
+	/** Called after transaction has been removed from unconfirmed pile, either by confirmation or deletion. */
+	public void onRemoved(byte[] signature);
+
+	/** Called when repository factory is closed, so any cached state is now stale. */
+	public void onRepositoryClosed();
+
+}
@@ -11,6 +11,7 @@ import org.qora.data.account.AccountBalanceData;
 import org.qora.data.account.AccountData;
 import org.qora.data.account.ForgingAccountData;
 import org.qora.data.account.ProxyForgerData;
+import org.qora.data.account.RecentInflowData;
 import org.qora.repository.AccountRepository;
 import org.qora.repository.DataException;
 
@@ -350,6 +351,63 @@ public class HSQLDBAccountRepository implements AccountRepository {
 		}
 	}
 
+	// Recent inflows
+
+	@Override
+	public BigDecimal getRecentInflows(String address, int afterHeight) throws DataException {
+		return this.sumRecentInflows("inflow", address, afterHeight);
+	}
+
+	@Override
+	public BigDecimal getRecentNetAmounts(String address, int afterHeight) throws DataException {
+		return this.sumRecentInflows("net_amount", address, afterHeight);
+	}
+
+	private BigDecimal sumRecentInflows(String column, String address, int afterHeight) throws DataException {
+		String sql = "SELECT IFNULL(SUM(" + column + "), 0) FROM AccountRecentInflows WHERE account = ? AND height > ?";
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql, address, afterHeight)) {
+			if (resultSet == null)
+				return BigDecimal.ZERO.setScale(8);
+
+			return resultSet.getBigDecimal(1).setScale(8);
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch account's recent inflows from repository", e);
+		}
+	}
+
+	@Override
+	public void save(RecentInflowData recentInflowData) throws DataException {
+		HSQLDBSaver saveHelper = new HSQLDBSaver("AccountRecentInflows");
+
+		saveHelper.bind("account", recentInflowData.getAddress()).bind("height", recentInflowData.getHeight())
+				.bind("inflow", recentInflowData.getInflow()).bind("net_amount", recentInflowData.getNetAmount());
+
+		try {
+			saveHelper.execute(this.repository);
+		} catch (SQLException e) {
+			throw new DataException("Unable to save account's recent inflows into repository", e);
+		}
+	}
+
+	@Override
+	public void deleteRecentInflows(int height) throws DataException {
+		try {
+			this.repository.delete("AccountRecentInflows", "height = ?", height);
+		} catch (SQLException e) {
+			throw new DataException("Unable to delete recent inflows from repository", e);
+		}
+	}
+
+	@Override
+	public void pruneRecentInflows(int belowHeight) throws DataException {
+		try {
+			this.repository.delete("AccountRecentInflows", "height < ?", belowHeight);
+		} catch (SQLException e) {
+			throw new DataException("Unable to prune recent inflows from repository", e);
+		}
+	}
+
 	// Proxy forging
 
 	@Override
@@ -6,8 +6,8 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import org.qora.data.asset.AssetData;
 import org.qora.data.asset.OrderData;
@@ -15,6 +15,7 @@ import org.qora.data.asset.RecentTradeData;
 import org.qora.data.asset.TradeData;
 import org.qora.repository.AssetRepository;
 import org.qora.repository.DataException;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBAssetRepository implements AssetRepository {
 
@@ -275,103 +276,40 @@ public class HSQLDBAssetRepository implements AssetRepository {
 	}
 
 	@Override
-	public List<OrderData> getOpenOrdersForTrading(long haveAssetId, long wantAssetId, BigDecimal minimumPrice) throws DataException {
-		List<Object> bindParams = new ArrayList<>(3);
-
-		StringBuilder sql = new StringBuilder(512);
-		sql.append("SELECT creator, asset_order_id, amount, fulfilled, price, ordered " + "FROM AssetOrders "
-				+ "WHERE have_asset_id = ? AND want_asset_id = ? AND NOT is_closed AND NOT is_fulfilled ");
-
-		Collections.addAll(bindParams, haveAssetId, wantAssetId);
-
-		if (minimumPrice != null) {
-			// 'new' pricing scheme implied
-			// NOTE: haveAssetId and wantAssetId are for TARGET orders, so different from Order.process() caller
-			if (haveAssetId < wantAssetId)
-				sql.append("AND price >= ? ");
-			else
-				sql.append("AND price <= ? ");
-
-			bindParams.add(minimumPrice);
-		}
-
-		sql.append("ORDER BY price");
-		if (minimumPrice == null || haveAssetId < wantAssetId)
-			sql.append(" DESC");
-
-		sql.append(", ordered");
+	public List<OrderData> getAllOpenOrders() throws DataException {
+		String sql = "SELECT asset_order_id, creator, have_asset_id, want_asset_id, amount, fulfilled, price, ordered "
+				+ "FROM AssetOrders WHERE NOT is_closed AND NOT is_fulfilled";
 
 		List<OrderData> orders = new ArrayList<OrderData>();
 
-		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams.toArray())) {
+		try (ResultSet resultSet = this.repository.checkedExecute(sql)) {
 			if (resultSet == null)
 				return orders;
 
 			do {
-				byte[] creatorPublicKey = resultSet.getBytes(1);
-				byte[] orderId = resultSet.getBytes(2);
-				BigDecimal amount = resultSet.getBigDecimal(3);
-				BigDecimal fulfilled = resultSet.getBigDecimal(4);
-				BigDecimal price = resultSet.getBigDecimal(5);
-				long timestamp = resultSet.getTimestamp(6, Calendar.getInstance(HSQLDBRepository.UTC)).getTime();
-				boolean isClosed = false;
-				boolean isFulfilled = false;
+				byte[] orderId = resultSet.getBytes(1);
+				byte[] creatorPublicKey = resultSet.getBytes(2);
+				long haveAssetId = resultSet.getLong(3);
+				long wantAssetId = resultSet.getLong(4);
+				BigDecimal amount = resultSet.getBigDecimal(5);
+				BigDecimal fulfilled = resultSet.getBigDecimal(6);
+				BigDecimal price = resultSet.getBigDecimal(7);
+				long timestamp = resultSet.getTimestamp(8, Calendar.getInstance(HSQLDBRepository.UTC)).getTime();
 
-				// We don't need asset names so we can use simpler constructor
 				OrderData order = new OrderData(orderId, creatorPublicKey, haveAssetId, wantAssetId, amount, fulfilled,
-						price, timestamp, isClosed, isFulfilled);
+						price, timestamp, false, false);
 				orders.add(order);
 			} while (resultSet.next());
 
 			return orders;
 		} catch (SQLException e) {
-			throw new DataException("Unable to fetch open asset orders for trading from repository", e);
+			throw new DataException("Unable to fetch all open asset orders from repository", e);
 		}
 	}
 
 	@Override
-	public List<OrderData> getAggregatedOpenOrders(long haveAssetId, long wantAssetId, Integer limit, Integer offset,
-			Boolean reverse) throws DataException {
-		List<OrderData> orders = new ArrayList<OrderData>();
-
-		// Cache have & want asset names for later use, which also saves a table join
-		AssetData haveAssetData = this.fromAssetId(haveAssetId);
-		if (haveAssetData == null)
-			return orders;
-
-		AssetData wantAssetData = this.fromAssetId(wantAssetId);
-		if (wantAssetData == null)
-			return orders;
-
-		StringBuilder sql = new StringBuilder(512);
-		sql.append("SELECT price, SUM(amount - fulfilled), MAX(ordered) " + "FROM AssetOrders "
-				+ "WHERE have_asset_id = ? AND want_asset_id = ? AND NOT is_closed AND NOT is_fulfilled "
-				+ "GROUP BY price ");
-
-		sql.append("ORDER BY price");
-		if (reverse != null && reverse)
-			sql.append(" DESC");
-
-		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
-
-		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), haveAssetId, wantAssetId)) {
-			if (resultSet == null)
-				return orders;
-
-			do {
-				BigDecimal price = resultSet.getBigDecimal(1);
-				BigDecimal totalUnfulfilled = resultSet.getBigDecimal(2);
-				long timestamp = resultSet.getTimestamp(3).getTime();
-
-				OrderData order = new OrderData(null, null, haveAssetId, wantAssetId, totalUnfulfilled, BigDecimal.ZERO,
-						price, timestamp, false, false, haveAssetData.getName(), wantAssetData.getName());
-				orders.add(order);
-			} while (resultSet.next());
-
-			return orders;
-		} catch (SQLException e) {
-			throw new DataException("Unable to fetch aggregated open asset orders from repository", e);
-		}
+	public Map<ByteArray, OrderData> getUncommittedOrders() {
+		return this.repository.getPendingOrderChanges();
 	}
 
 	@Override
@@ -504,6 +442,10 @@ public class HSQLDBAssetRepository implements AssetRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to save asset order into repository", e);
 		}
+
+		// Caller might carry on modifying orderData, e.g. during matching, so pass on a copy
+		this.repository.noteOrderSaved(new OrderData(orderData.getOrderId(), orderData.getCreatorPublicKey(), orderData.getHaveAssetId(), orderData.getWantAssetId(),
+				orderData.getAmount(), orderData.getFulfilled(), orderData.getPrice(), orderData.getTimestamp(), orderData.getIsClosed(), orderData.getIsFulfilled()));
 	}
 
 	@Override
@@ -513,6 +455,8 @@ public class HSQLDBAssetRepository implements AssetRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to delete asset order from repository", e);
 		}
+
+		this.repository.noteOrderDeleted(orderId);
 	}
 
 	// Trades
@@ -11,10 +11,10 @@ import org.qora.api.model.BlockForgerSummary;
 import org.qora.data.block.BlockData;
 import org.qora.data.block.BlockSummaryData;
 import org.qora.data.block.BlockTransactionData;
+import org.qora.data.block.ValidationCheckpointData;
 import org.qora.data.transaction.TransactionData;
 import org.qora.repository.BlockRepository;
 import org.qora.repository.DataException;
-import org.qora.repository.TransactionRepository;
 
 import static org.qora.repository.hsqldb.HSQLDBRepository.toOffsetDateTime;
 import static org.qora.repository.hsqldb.HSQLDBRepository.getZonedTimestampMilli;
@@ -139,42 +139,41 @@ public class HSQLDBBlockRepository implements BlockRepository {
 
 		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
 
-		List<TransactionData> transactions = new ArrayList<TransactionData>();
+		List<byte[]> transactionSignatures = new ArrayList<>();
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), signature)) {
 			if (resultSet == null)
-				return transactions; // No transactions in this block
-
-			TransactionRepository transactionRepo = this.repository.getTransactionRepository();
+				return new ArrayList<>(); // No transactions in this block
 
 			// NB: do-while loop because .checkedExecute() implicitly calls ResultSet.next() for us
 			do {
-				byte[] transactionSignature = resultSet.getBytes(1);
-				transactions.add(transactionRepo.fromSignature(transactionSignature));
+				transactionSignatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
 		} catch (SQLException e) {
 			throw new DataException("Unable to fetch block's transactions from repository", e);
 		}
 
-		return transactions;
+		return this.repository.getTransactionRepository().fromSignatures(transactionSignatures);
 	}
 
 	@Override
 	public int countForgedBlocks(byte[] publicKey) throws DataException {
-		String directSql = "SELECT COUNT(*) FROM Blocks WHERE generator = ?";
+		String directSql = "SELECT block_count FROM ForgerStats WHERE generator = ?";
 
-		String proxySql = "SELECT COUNT(*) FROM ProxyForgers JOIN Blocks ON generator = proxy_public_key WHERE forger = ?";
+		String proxySql = "SELECT SUM(block_count) FROM ProxyForgers JOIN ForgerStats ON generator = proxy_public_key WHERE forger = ?";
 
 		int totalCount = 0;
 
 		try (ResultSet resultSet = this.repository.checkedExecute(directSql, publicKey)) {
-			totalCount += resultSet.getInt(1);
+			if (resultSet != null)
+				totalCount += resultSet.getInt(1);
 		} catch (SQLException e) {
 			throw new DataException("Unable to fetch forged blocks count from repository", e);
 		}
 
 		try (ResultSet resultSet = this.repository.checkedExecute(proxySql, publicKey)) {
-			totalCount += resultSet.getInt(1);
+			if (resultSet != null)
+				totalCount += resultSet.getInt(1);
 		} catch (SQLException e) {
 			throw new DataException("Unable to fetch forged blocks count from repository", e);
 		}
@@ -184,12 +183,9 @@ public class HSQLDBBlockRepository implements BlockRepository {
 
 	@Override
 	public List<BlockForgerSummary> getBlockForgers(List<String> addresses, Integer limit, Integer offset, Boolean reverse) throws DataException {
-		String subquerySql = "SELECT generator, COUNT(signature) FROM Blocks GROUP BY generator";
-
 		StringBuilder sql = new StringBuilder(1024);
-		sql.append("SELECT DISTINCT generator, n_blocks, forger, recipient FROM (");
-		sql.append(subquerySql);
-		sql.append(") AS Forgers (generator, n_blocks) LEFT OUTER JOIN ProxyForgers ON proxy_public_key = generator ");
+		sql.append("SELECT DISTINCT generator, block_count, forger, recipient FROM ForgerStats ");
+		sql.append("LEFT OUTER JOIN ProxyForgers ON proxy_public_key = generator ");
 
 		if (addresses != null && !addresses.isEmpty()) {
 			sql.append(" LEFT OUTER JOIN Accounts AS GeneratorAccounts ON GeneratorAccounts.public_key = generator ");
@@ -210,7 +206,7 @@ public class HSQLDBBlockRepository implements BlockRepository {
 			addresses = Collections.emptyList();
 		}
 
-		sql.append("ORDER BY n_blocks ");
+		sql.append("ORDER BY block_count ");
 		if (reverse != null && reverse)
 			sql.append("DESC ");
 
@@ -237,6 +233,26 @@ public class HSQLDBBlockRepository implements BlockRepository {
 		}
 	}
 
+	@Override
+	public void modifyForgedBlockCount(byte[] generatorPublicKey, int delta) throws DataException {
+		String sql = "UPDATE ForgerStats SET block_count = block_count + ? WHERE generator = ?";
+
+		try {
+			// New generator?
+			if (this.repository.checkedExecuteUpdate(sql, delta, generatorPublicKey) == 0) {
+				HSQLDBSaver saveHelper = new HSQLDBSaver("ForgerStats");
+				saveHelper.bind("generator", generatorPublicKey).bind("block_count", delta);
+				saveHelper.execute(this.repository);
+			}
+
+			// Generators with no blocks aren't listed, e.g. after orphaning their only block
+			if (delta < 0)
+				this.repository.delete("ForgerStats", "generator = ? AND block_count <= 0", generatorPublicKey);
+		} catch (SQLException e) {
+			throw new DataException("Unable to update forged blocks count in repository", e);
+		}
+	}
+
 	@Override
 	public List<BlockData> getBlocksWithGenerator(byte[] generatorPublicKey, Integer limit, Integer offset, Boolean reverse) throws DataException {
 		StringBuilder sql = new StringBuilder(512);
@@ -264,7 +280,7 @@ public class HSQLDBBlockRepository implements BlockRepository {
 
 	@Override
 	public List<BlockData> getBlocks(int firstBlockHeight, int lastBlockHeight) throws DataException {
-		String sql = "SELECT " + BLOCK_DB_COLUMNS + " FROM Blocks WHERE height BETWEEN ? AND ?";
+		String sql = "SELECT " + BLOCK_DB_COLUMNS + " FROM Blocks WHERE height BETWEEN ? AND ? ORDER BY height";
 
 		List<BlockData> blockData = new ArrayList<>();
 
@@ -358,4 +374,47 @@ public class HSQLDBBlockRepository implements BlockRepository {
 		}
 	}
 
+	// Validation checkpoints
+
+	@Override
+	public ValidationCheckpointData getLatestValidationCheckpoint() throws DataException {
+		String sql = "SELECT height, signature, chain_hash FROM ValidationCheckpoints ORDER BY height DESC LIMIT 1";
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql)) {
+			if (resultSet == null)
+				return null;
+
+			int height = resultSet.getInt(1);
+			byte[] signature = resultSet.getBytes(2);
+			byte[] chainHash = resultSet.getBytes(3);
+
+			return new ValidationCheckpointData(height, signature, chainHash);
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch validation checkpoint from repository", e);
+		}
+	}
+
+	@Override
+	public void save(ValidationCheckpointData validationCheckpointData) throws DataException {
+		HSQLDBSaver saveHelper = new HSQLDBSaver("ValidationCheckpoints");
+
+		saveHelper.bind("height", validationCheckpointData.getHeight()).bind("signature", validationCheckpointData.getSignature())
+				.bind("chain_hash", validationCheckpointData.getChainHash());
+
+		try {
+			saveHelper.execute(this.repository);
+		} catch (SQLException e) {
+			throw new DataException("Unable to save validation checkpoint into repository", e);
+		}
+	}
+
+	@Override
+	public void deleteValidationCheckpoints(int belowHeight) throws DataException {
+		try {
+			this.repository.delete("ValidationCheckpoints", "height < ?", belowHeight);
+		} catch (SQLException e) {
+			throw new DataException("Unable to delete validation checkpoints from repository", e);
+		}
+	}
+
 }
@@ -776,6 +776,30 @@ public class HSQLDBDatabaseUpdates {
 					stmt.execute("ALTER TABLE Peers ADD COLUMN added_by VARCHAR(255)");
 					break;
 
+				case 54:
+					// Per-account QORA amounts in recent blocks, to save walking blocks when calculating generating balance
+					stmt.execute("CREATE TABLE AccountRecentInflows (account QoraAddress, height INT NOT NULL, inflow QoraAmount NOT NULL, net_amount QoraAmount NOT NULL, "
+							+ "PRIMARY KEY (account, height))");
+					// For pruning/orphaning by height
+					stmt.execute("CREATE INDEX AccountRecentInflowsHeightIndex ON AccountRecentInflows (height)");
+					break;
+
+				case 55:
+					// Blockchain validation checkpoints, to save walking whole blockchain at start-up
+					// Checkpoints are removed if their block is orphaned
+					stmt.execute("CREATE TABLE ValidationCheckpoints (height INT NOT NULL, signature BlockSignature NOT NULL, chain_hash VARBINARY(32) NOT NULL, "
+							+ "PRIMARY KEY (height), FOREIGN KEY (signature) REFERENCES Blocks (signature) ON DELETE CASCADE)");
+					break;
+
+				case 56:
+					// Number of blocks forged per generator public key (which might be a proxy-forging key), to save scanning Blocks for forger stats
+					stmt.execute("CREATE TABLE ForgerStats (generator QoraPublicKey, block_count INT NOT NULL, PRIMARY KEY (generator))");
+					// For listing forgers by number of blocks forged
+					stmt.execute("CREATE INDEX ForgerStatsBlockCountIndex ON ForgerStats (block_count)");
+					// Populate using existing blocks
+					stmt.execute("INSERT INTO ForgerStats (generator, block_count) SELECT generator, COUNT(*) FROM Blocks GROUP BY generator");
+					break;
+
 				default:
 					// nothing to do
 					return false;
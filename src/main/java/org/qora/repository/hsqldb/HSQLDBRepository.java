@@ -19,18 +19,28 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.qora.repository.ATRepository;
+import org.qora.data.asset.OrderData;
+import org.qora.data.transaction.TransactionData;
 import org.qora.repository.AccountRepository;
 import org.qora.repository.ArbitraryRepository;
+import org.qora.repository.AssetOrdersListener;
 import org.qora.repository.AssetRepository;
 import org.qora.repository.BlockRepository;
 import org.qora.repository.GroupRepository;
@@ -38,10 +48,12 @@ import org.qora.repository.DataException;
 import org.qora.repository.NameRepository;
 import org.qora.repository.NetworkRepository;
 import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
 import org.qora.repository.TransactionRepository;
 import org.qora.repository.VotingRepository;
 import org.qora.repository.hsqldb.transaction.HSQLDBTransactionRepository;
 import org.qora.settings.Settings;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBRepository implements Repository {
 
@@ -49,17 +61,98 @@ public class HSQLDBRepository implements Repository {
 
 	public static final TimeZone UTC = TimeZone.getTimeZone("UTC");
 
+	/** Maximum number of prepared statements kept open, for reuse, per repository session. */
+	private static final int STATEMENT_CACHE_SIZE = 200;
+
+	/** Sizes that "IN (...)" placeholder lists are padded up to, see {@link #inListSql(StringBuilder, List)}. */
+	private static final int[] IN_LIST_SIZES = { 1, 4, 16, 64, 256, 512 };
+
+	private static final AtomicLong statementCacheHits = new AtomicLong();
+	private static final AtomicLong statementCacheMisses = new AtomicLong();
+
+	/** Asset order change, pending commit, which is also inspected by order matching before commit. */
+	private static class PendingOrderChange implements Runnable {
+		private final byte[] orderId;
+		/** Saved order data, or null if order was deleted. */
+		private final OrderData orderData;
+
+		public PendingOrderChange(byte[] orderId, OrderData orderData) {
+			this.orderId = orderId;
+			this.orderData = orderData;
+		}
+
+		@Override
+		public void run() {
+			AssetOrdersListener listener = RepositoryManager.getAssetOrdersListener();
+			if (listener == null)
+				return;
+
+			if (this.orderData != null)
+				listener.onOrderSaved(this.orderData);
+			else
+				listener.onOrderDeleted(this.orderId);
+		}
+	}
+
+	/** Reusable prepared statement, along with the most recent ResultSet it produced. */
+	private static class CachedStatement {
+		private final PreparedStatement preparedStatement;
+		private ResultSet resultSet = null;
+
+		public CachedStatement(PreparedStatement preparedStatement) {
+			this.preparedStatement = preparedStatement;
+		}
+
+		/** Returns whether statement can be executed again without closing a ResultSet still in use. */
+		public boolean isAvailable() throws SQLException {
+			return !this.preparedStatement.isClosed() && (this.resultSet == null || this.resultSet.isClosed());
+		}
+
+		public void close() {
+			try {
+				if (this.isAvailable())
+					this.preparedStatement.close();
+				else
+					// Close once caller has finished with ResultSet
+					this.preparedStatement.closeOnCompletion();
+			} catch (SQLException e) {
+				LOGGER.debug("Unable to close cached statement", e);
+			}
+		}
+	}
+
 	protected Connection connection;
 	protected Deque<Savepoint> savepoints;
+	/** Changes to unconfirmed transactions pile, asset orders, etc. to be passed to listeners after commit. */
+	protected List<Runnable> pendingChanges;
+	/** Size of pendingChanges when each corresponding savepoint was set. */
+	protected Deque<Integer> pendingChangesMarks;
 	protected boolean debugState = false;
 	protected Long slowQueryThreshold = null;
 	protected List<String> sqlStatements;
 	protected long sessionId;
+	/** Prepared statements, keyed by SQL, in least-recently-used order. */
+	protected Map<String, CachedStatement> cachedStatements;
 
 	// NB: no visibility modifier so only callable from within same package
 	/* package */ HSQLDBRepository(Connection connection) throws DataException {
 		this.connection = connection;
 		this.savepoints = new ArrayDeque<>(3);
+		this.pendingChanges = new ArrayList<>();
+		this.pendingChangesMarks = new ArrayDeque<>(3);
+
+		this.cachedStatements = new LinkedHashMap<String, CachedStatement>(STATEMENT_CACHE_SIZE + 1, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+				if (this.size() <= STATEMENT_CACHE_SIZE)
+					return false;
+
+				eldest.getValue().close();
+				return true;
+			}
+		};
 
 		this.slowQueryThreshold = Settings.getInstance().getSlowQueryThreshold();
 		if (this.slowQueryThreshold != null)
@@ -137,10 +230,14 @@ public class HSQLDBRepository implements Repository {
 	public void saveChanges() throws DataException {
 		try {
 			this.connection.commit();
+
+			this.notifyPendingChanges();
 		} catch (SQLException e) {
+			this.pendingChanges.clear();
 			throw new DataException("commit error", e);
 		} finally {
 			this.savepoints.clear();
+			this.pendingChangesMarks.clear();
 
 			// Before clearing statements so we can log what led to assertion error
 			assertEmptyTransaction("transaction commit");
@@ -158,6 +255,8 @@ public class HSQLDBRepository implements Repository {
 			throw new DataException("rollback error", e);
 		} finally {
 			this.savepoints.clear();
+			this.pendingChanges.clear();
+			this.pendingChangesMarks.clear();
 
 			// Before clearing statements so we can log what led to assertion error
 			assertEmptyTransaction("transaction commit");
@@ -176,6 +275,7 @@ public class HSQLDBRepository implements Repository {
 
 			Savepoint savepoint = this.connection.setSavepoint();
 			this.savepoints.push(savepoint);
+			this.pendingChangesMarks.push(this.pendingChanges.size());
 
 			// Update query log with savepoint ID
 			if (this.sqlStatements != null)
@@ -192,6 +292,10 @@ public class HSQLDBRepository implements Repository {
 
 		Savepoint savepoint = this.savepoints.pop();
 
+		// Forget changes to unconfirmed transactions, etc. made since savepoint
+		int pendingChangesMark = this.pendingChangesMarks.pop();
+		this.pendingChanges.subList(pendingChangesMark, this.pendingChanges.size()).clear();
+
 		try {
 			if (this.sqlStatements != null)
 				this.sqlStatements.add("ROLLBACK TO SAVEPOINT [" + savepoint.getSavepointId() + "]");
@@ -202,6 +306,26 @@ public class HSQLDBRepository implements Repository {
 		}
 	}
 
+	@Override
+	public void releaseSavepoint() throws DataException {
+		if (this.savepoints.isEmpty())
+			throw new DataException("no savepoint to release");
+
+		Savepoint savepoint = this.savepoints.pop();
+
+		// Changes to unconfirmed transactions, etc. made since savepoint now belong to enclosing savepoint/transaction
+		this.pendingChangesMarks.pop();
+
+		try {
+			if (this.sqlStatements != null)
+				this.sqlStatements.add("RELEASE SAVEPOINT [" + savepoint.getSavepointId() + "]");
+
+			this.connection.releaseSavepoint(savepoint);
+		} catch (SQLException e) {
+			throw new DataException("savepoint release error", e);
+		}
+	}
+
 	@Override
 	public void close() throws DataException {
 		// Already closed? No need to do anything but maybe report double-call
@@ -213,6 +337,10 @@ public class HSQLDBRepository implements Repository {
 		try (Statement stmt = this.connection.createStatement()) {
 			assertEmptyTransaction("connection close");
 
+			for (CachedStatement cachedStatement : this.cachedStatements.values())
+				cachedStatement.close();
+			this.cachedStatements.clear();
+
 			// give connection back to the pool
 			this.connection.close();
 			this.connection = null;
@@ -347,21 +475,125 @@ public class HSQLDBRepository implements Repository {
 		}
 	}
 
+	/** Notes, pending commit, that transaction has been added to unconfirmed pile. */
+	public void noteUnconfirmed(TransactionData transactionData) {
+		this.notePendingChange(RepositoryManager::getUnconfirmedTransactionsListener, listener -> listener.onUnconfirmed(transactionData));
+	}
+
+	/** Notes, pending commit, that transaction has been removed from unconfirmed pile. */
+	public void noteUnconfirmedRemoval(byte[] signature) {
+		this.notePendingChange(RepositoryManager::getUnconfirmedTransactionsListener, listener -> listener.onRemoved(signature));
+	}
+
+	/** Notes, pending commit, that asset order has been saved. Passed <tt>orderData</tt> must not be modified afterwards. */
+	public void noteOrderSaved(OrderData orderData) {
+		this.pendingChanges.add(new PendingOrderChange(orderData.getOrderId(), orderData));
+	}
+
+	/** Notes, pending commit, that asset order has been deleted. */
+	public void noteOrderDeleted(byte[] orderId) {
+		this.pendingChanges.add(new PendingOrderChange(orderId, null));
+	}
+
+	/**
+	 * Returns asset orders saved or deleted by this session, pending commit.
+	 * <p>
+	 * Map is keyed by order ID, with latest saved order data, or null if order was deleted.
+	 * Changes rolled back to a savepoint are excluded.
+	 */
+	public Map<ByteArray, OrderData> getPendingOrderChanges() {
+		Map<ByteArray, OrderData> orders = new HashMap<>();
+
+		for (Runnable change : this.pendingChanges)
+			if (change instanceof PendingOrderChange) {
+				PendingOrderChange orderChange = (PendingOrderChange) change;
+				orders.put(new ByteArray(orderChange.orderId), orderChange.orderData);
+			}
+
+		return orders;
+	}
+
+	/** Notes change to be passed, after commit, to whichever listener is registered at the time. */
+	private <L> void notePendingChange(Supplier<L> listenerSupplier, Consumer<L> change) {
+		this.pendingChanges.add(() -> {
+			L listener = listenerSupplier.get();
+			if (listener != null)
+				change.accept(listener);
+		});
+	}
+
+	/** Passes committed changes to listeners, if any. */
+	private void notifyPendingChanges() {
+		if (this.pendingChanges.isEmpty())
+			return;
+
+		for (Runnable change : this.pendingChanges)
+			change.run();
+
+		this.pendingChanges.clear();
+	}
+
 	/**
 	 * Returns prepared statement using passed SQL, logging query if necessary.
 	 */
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
-		if (this.debugState)
-			LOGGER.debug(() -> String.format("[%d] %s", this.sessionId, sql));
+		this.logStatement(sql);
 
-		if (this.sqlStatements != null)
-			this.sqlStatements.add(sql);
+		PreparedStatement preparedStatement = this.connection.prepareStatement(sql);
+
+		return preparedStatement;
+	}
+
+	/**
+	 * Returns prepared statement using passed SQL, reusing this session's previously prepared statement if possible.
+	 * <p>
+	 * Callers must <b>not</b> close returned statement, but must close any ResultSet it produces.
+	 * <p>
+	 * If cached statement is still busy, e.g. with a nested query using the same SQL,
+	 * then a new statement is returned that closes itself when its ResultSet is closed.
+	 */
+	/* package */ PreparedStatement prepareCachedStatement(String sql) throws SQLException {
+		this.logStatement(sql);
+
+		CachedStatement cachedStatement = this.cachedStatements.get(sql);
+
+		if (cachedStatement != null && cachedStatement.isAvailable()) {
+			statementCacheHits.incrementAndGet();
+			return cachedStatement.preparedStatement;
+		}
+
+		statementCacheMisses.incrementAndGet();
 
 		PreparedStatement preparedStatement = this.connection.prepareStatement(sql);
 
+		if (cachedStatement != null && !cachedStatement.preparedStatement.isClosed()) {
+			// Cached statement in use so don't replace it
+			preparedStatement.closeOnCompletion();
+			return preparedStatement;
+		}
+
+		this.cachedStatements.put(sql, new CachedStatement(preparedStatement));
 		return preparedStatement;
 	}
 
+	/** Returns number of times a cached prepared statement was reused, across all repository sessions. */
+	public static long getStatementCacheHits() {
+		return statementCacheHits.get();
+	}
+
+	/** Returns number of times a statement had to be prepared, across all repository sessions. */
+	public static long getStatementCacheMisses() {
+		return statementCacheMisses.get();
+	}
+
+	private void logStatement(String sql) {
+		if (this.debugState)
+			LOGGER.debug(() -> String.format("[%d] %s", this.sessionId, sql));
+
+		if (this.sqlStatements != null)
+			this.sqlStatements.add(sql);
+	}
+
 	/**
 	 * Logs this transaction's SQL statements, if enabled.
 	 */
@@ -385,18 +617,19 @@ public class HSQLDBRepository implements Repository {
 	 * @return ResultSet, or null if there are no found rows
 	 * @throws SQLException
 	 */
-	@SuppressWarnings("resource")
 	public ResultSet checkedExecute(String sql, Object... objects) throws SQLException {
-		PreparedStatement preparedStatement = this.prepareStatement(sql);
-
-		// Close the PreparedStatement when the ResultSet is closed otherwise there's a potential resource leak.
-		// We can't use try-with-resources here as closing the PreparedStatement on return would also prematurely close the ResultSet.
-		preparedStatement.closeOnCompletion();
+		// Statement is cached, or closes itself when the ResultSet is closed, so no try-with-resources here
+		PreparedStatement preparedStatement = this.prepareCachedStatement(sql);
 
 		long beforeQuery = System.currentTimeMillis();
 
 		ResultSet resultSet = this.checkedExecuteResultSet(preparedStatement, objects);
 
+		// Cached statement is busy until caller closes ResultSet
+		CachedStatement cachedStatement = this.cachedStatements.get(sql);
+		if (cachedStatement != null && cachedStatement.preparedStatement == preparedStatement)
+			cachedStatement.resultSet = resultSet;
+
 		long queryTime = System.currentTimeMillis() - beforeQuery;
 		if (this.slowQueryThreshold != null && queryTime > this.slowQueryThreshold) {
 			LOGGER.info(String.format("HSQLDB query took %d ms: %s", queryTime, sql));
@@ -446,8 +679,11 @@ public class HSQLDBRepository implements Repository {
 		if (resultSet == null)
 			throw new SQLException("Fetching results from database produced no ResultSet");
 
-		if (!resultSet.next())
+		if (!resultSet.next()) {
+			// Nothing for caller to close, so close here
+			resultSet.close();
 			return null;
+		}
 
 		return resultSet;
 	}
@@ -473,6 +709,18 @@ public class HSQLDBRepository implements Repository {
 		return rowCount;
 	}
 
+	/**
+	 * Execute SQL that changes rows, e.g. UPDATE, and return changed row count.
+	 * 
+	 * @param sql
+	 * @param objects
+	 * @return number of changed rows
+	 * @throws SQLException
+	 */
+	public int checkedExecuteUpdate(String sql, Object... objects) throws SQLException {
+		return this.checkedExecuteUpdateCount(this.prepareCachedStatement(sql), objects);
+	}
+
 	/**
 	 * Fetch last value of IDENTITY column after an INSERT statement.
 	 * <p>
@@ -519,8 +767,9 @@ public class HSQLDBRepository implements Repository {
 		sql.append(whereClause);
 		sql.append(" LIMIT 1");
 
-		try (PreparedStatement preparedStatement = this.prepareStatement(sql.toString());
-				ResultSet resultSet = this.checkedExecuteResultSet(preparedStatement, objects)) {
+		PreparedStatement preparedStatement = this.prepareCachedStatement(sql.toString());
+
+		try (ResultSet resultSet = this.checkedExecuteResultSet(preparedStatement, objects)) {
 			if (resultSet == null)
 				return false;
 
@@ -543,9 +792,7 @@ public class HSQLDBRepository implements Repository {
 		sql.append(" WHERE ");
 		sql.append(whereClause);
 
-		try (PreparedStatement preparedStatement = this.prepareStatement(sql.toString())) {
-			return this.checkedExecuteUpdateCount(preparedStatement, objects);
-		}
+		return this.checkedExecuteUpdateCount(this.prepareCachedStatement(sql.toString()), objects);
 	}
 
 	/**
@@ -584,6 +831,52 @@ public class HSQLDBRepository implements Repository {
 		}
 	}
 
+	/**
+	 * Appends <tt>count</tt> comma-separated "?" placeholders, e.g. for use within "IN (...)" clauses.
+	 * <p>
+	 * (Convenience method for HSQLDB repository subclasses).
+	 *
+	 * @param count
+	 */
+	public static void placeholdersSql(StringBuilder stringBuilder, int count) {
+		for (int i = 0; i < count; ++i) {
+			if (i != 0)
+				stringBuilder.append(", ");
+
+			stringBuilder.append("?");
+		}
+	}
+
+	/**
+	 * Appends "?" placeholders for passed <tt>values</tt>, e.g. for use within "IN (...)" clauses, returning bind params.
+	 * <p>
+	 * Number of placeholders is padded up to one of a few fixed sizes, by repeating the last value,
+	 * so variable-length lists only produce a handful of distinct SQL statements
+	 * and don't push frequently used statements out of the statement cache.
+	 * <p>
+	 * (Convenience method for HSQLDB repository subclasses).
+	 *
+	 * @param stringBuilder
+	 * @param values non-empty list of values
+	 * @return bind params, padded to match number of placeholders
+	 */
+	public static Object[] inListSql(StringBuilder stringBuilder, List<?> values) {
+		int count = values.size();
+
+		for (int size : IN_LIST_SIZES)
+			if (size >= count) {
+				count = size;
+				break;
+			}
+
+		placeholdersSql(stringBuilder, count);
+
+		Object[] bindParams = values.toArray(new Object[count]);
+		Arrays.fill(bindParams, values.size(), count, values.get(values.size() - 1));
+
+		return bindParams;
+	}
+
 	/** Logs other HSQLDB sessions then re-throws passed exception */
 	public SQLException examineException(SQLException e) throws SQLException {
 		LOGGER.error(String.format("HSQLDB error (session %d): %s", this.sessionId, e.getMessage()), e);
@@ -57,7 +57,9 @@ public class HSQLDBSaver {
 	 */
 	public boolean execute(HSQLDBRepository repository) throws SQLException {
 		String sql = this.formatInsertWithPlaceholders();
-		try (PreparedStatement preparedStatement = repository.prepareStatement(sql)) {
+		try {
+			// Statement is cached by repository so not closed here
+			PreparedStatement preparedStatement = repository.prepareCachedStatement(sql);
 			this.bindValues(preparedStatement);
 
 			return preparedStatement.execute();
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.AccountFlagsTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBAccountFlagsTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBAccountFlagsTransactionRepository extends HSQLDBTransactionRe
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT target, and_mask, or_mask, xor_mask, previous_flags FROM AccountFlagsTransactions WHERE signature = ?";
 
@@ -39,7 +43,25 @@ public class HSQLDBAccountFlagsTransactionRepository extends HSQLDBTransactionRe
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, target, and_mask, or_mask, xor_mask, previous_flags FROM AccountFlagsTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String target = resultSet.getString(2);
+			int andMask = resultSet.getInt(3);
+			int orMask = resultSet.getInt(4);
+			int xorMask = resultSet.getInt(5);
+
+			Integer previousFlags = resultSet.getInt(6);
+			if (previousFlags == 0 && resultSet.wasNull())
+				previousFlags = null;
+
+			return new AccountFlagsTransactionData(baseTransactionData, target, andMask, orMask, xorMask, previousFlags);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		AccountFlagsTransactionData accountFlagsTransactionData = (AccountFlagsTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("AccountFlagsTransactions");
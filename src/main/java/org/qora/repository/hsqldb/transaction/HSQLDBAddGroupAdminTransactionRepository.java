@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.AddGroupAdminTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBAddGroupAdminTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBAddGroupAdminTransactionRepository extends HSQLDBTransactionR
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, address FROM AddGroupAdminTransactions WHERE signature = ?";
 
@@ -33,7 +37,19 @@ public class HSQLDBAddGroupAdminTransactionRepository extends HSQLDBTransactionR
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, address FROM AddGroupAdminTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String member = resultSet.getString(3);
+
+			return new AddGroupAdminTransactionData(baseTransactionData, groupId, member);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		AddGroupAdminTransactionData addGroupAdminTransactionData = (AddGroupAdminTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("AddGroupAdminTransactions");
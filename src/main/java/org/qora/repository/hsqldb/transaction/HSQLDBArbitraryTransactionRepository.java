@@ -3,6 +3,7 @@ package org.qora.repository.hsqldb.transaction;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 import org.qora.data.PaymentData;
 import org.qora.data.transaction.ArbitraryTransactionData;
@@ -12,6 +13,7 @@ import org.qora.data.transaction.ArbitraryTransactionData.DataType;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBArbitraryTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -19,6 +21,7 @@ public class HSQLDBArbitraryTransactionRepository extends HSQLDBTransactionRepos
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT version, service, is_data_raw, data from ArbitraryTransactions WHERE signature = ?";
 
@@ -41,7 +44,26 @@ public class HSQLDBArbitraryTransactionRepository extends HSQLDBTransactionRepos
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		Map<ByteArray, List<PaymentData>> paymentsBySignature = this.getPaymentsFromSignatures(baseTransactionDatas);
+
+		String sql = "SELECT signature, version, service, is_data_raw, data FROM ArbitraryTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int version = resultSet.getInt(2);
+			int service = resultSet.getInt(3);
+			boolean isDataRaw = resultSet.getBoolean(4); // NOT NULL, so no null to false
+			DataType dataType = isDataRaw ? DataType.RAW_DATA : DataType.DATA_HASH;
+			byte[] data = resultSet.getBytes(5);
+
+			List<PaymentData> payments = paymentsBySignature.get(new ByteArray(baseTransactionData.getSignature()));
+
+			return new ArbitraryTransactionData(baseTransactionData, version, service, data, dataType, payments);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		ArbitraryTransactionData arbitraryTransactionData = (ArbitraryTransactionData) transactionData;
 
 		// For V4+, we might not store raw data in the repository but elsewhere
@@ -65,7 +87,8 @@ public class HSQLDBArbitraryTransactionRepository extends HSQLDBTransactionRepos
 			this.savePayments(transactionData.getSignature(), arbitraryTransactionData.getPayments());
 	}
 
-	public void delete(TransactionData transactionData) throws DataException {
+	@Override
+	void deleteSubclass(TransactionData transactionData) throws DataException {
 		ArbitraryTransactionData arbitraryTransactionData = (ArbitraryTransactionData) transactionData;
 
 		// Potentially delete raw data stored locally too
@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.ATTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBAtTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBAtTransactionRepository extends HSQLDBTransactionRepository {
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT AT_address, recipient, amount, asset_id, message FROM ATTransactions WHERE signature = ?";
 
@@ -42,7 +46,27 @@ public class HSQLDBAtTransactionRepository extends HSQLDBTransactionRepository {
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, AT_address, recipient, amount, asset_id, message FROM ATTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String atAddress = resultSet.getString(2);
+			String recipient = resultSet.getString(3);
+
+			BigDecimal amount = resultSet.getBigDecimal(4);
+
+			Long assetId = resultSet.getLong(5);
+			if (assetId == 0 && resultSet.wasNull())
+				assetId = null;
+
+			byte[] message = resultSet.getBytes(6);
+
+			return new ATTransactionData(baseTransactionData, atAddress, recipient, amount, assetId, message);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		ATTransactionData atTransactionData = (ATTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("ATTransactions");
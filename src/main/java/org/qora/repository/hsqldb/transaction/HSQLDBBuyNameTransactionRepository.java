@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.BuyNameTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBBuyNameTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBBuyNameTransactionRepository extends HSQLDBTransactionReposit
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT name, amount, seller, name_reference FROM BuyNameTransactions WHERE signature = ?";
 
@@ -36,7 +40,21 @@ public class HSQLDBBuyNameTransactionRepository extends HSQLDBTransactionReposit
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, name, amount, seller, name_reference FROM BuyNameTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String name = resultSet.getString(2);
+			BigDecimal amount = resultSet.getBigDecimal(3);
+			String seller = resultSet.getString(4);
+			byte[] nameReference = resultSet.getBytes(5);
+
+			return new BuyNameTransactionData(baseTransactionData, name, amount, seller, nameReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		BuyNameTransactionData buyNameTransactionData = (BuyNameTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("BuyNameTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.CancelAssetOrderTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBCancelAssetOrderTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBCancelAssetOrderTransactionRepository extends HSQLDBTransacti
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT asset_order_id FROM CancelAssetOrderTransactions WHERE signature = ?";
 
@@ -32,7 +36,18 @@ public class HSQLDBCancelAssetOrderTransactionRepository extends HSQLDBTransacti
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, asset_order_id FROM CancelAssetOrderTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			byte[] assetOrderId = resultSet.getBytes(2);
+
+			return new CancelAssetOrderTransactionData(baseTransactionData, assetOrderId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		CancelAssetOrderTransactionData cancelOrderTransactionData = (CancelAssetOrderTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("CancelAssetOrderTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.CancelGroupBanTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBCancelGroupBanTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBCancelGroupBanTransactionRepository extends HSQLDBTransaction
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, address, ban_reference FROM CancelGroupBanTransactions WHERE signature = ?";
 
@@ -34,7 +38,20 @@ public class HSQLDBCancelGroupBanTransactionRepository extends HSQLDBTransaction
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, address, ban_reference FROM CancelGroupBanTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String member = resultSet.getString(3);
+			byte[] banReference = resultSet.getBytes(4);
+
+			return new CancelGroupBanTransactionData(baseTransactionData, groupId, member, banReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		CancelGroupBanTransactionData groupUnbanTransactionData = (CancelGroupBanTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("CancelGroupBanTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.CancelGroupInviteTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBCancelGroupInviteTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBCancelGroupInviteTransactionRepository extends HSQLDBTransact
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, invitee, invite_reference FROM CancelGroupInviteTransactions WHERE signature = ?";
 
@@ -34,7 +38,20 @@ public class HSQLDBCancelGroupInviteTransactionRepository extends HSQLDBTransact
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, invitee, invite_reference FROM CancelGroupInviteTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String invitee = resultSet.getString(3);
+			byte[] inviteReference = resultSet.getBytes(4);
+
+			return new CancelGroupInviteTransactionData(baseTransactionData, groupId, invitee, inviteReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		CancelGroupInviteTransactionData cancelGroupInviteTransactionData = (CancelGroupInviteTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("CancelGroupInviteTransactions");
@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.CreateAssetOrderTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBCreateAssetOrderTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBCreateAssetOrderTransactionRepository extends HSQLDBTransacti
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT have_asset_id, amount, want_asset_id, price, HaveAsset.asset_name, WantAsset.asset_name "
 				+ "FROM CreateAssetOrderTransactions "
@@ -42,7 +46,27 @@ public class HSQLDBCreateAssetOrderTransactionRepository extends HSQLDBTransacti
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, have_asset_id, amount, want_asset_id, price, HaveAsset.asset_name, WantAsset.asset_name "
+				+ "FROM CreateAssetOrderTransactions "
+				+ "JOIN Assets AS HaveAsset ON HaveAsset.asset_id = have_asset_id "
+				+ "JOIN Assets AS WantAsset ON WantAsset.asset_id = want_asset_id "
+				+ "WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			long haveAssetId = resultSet.getLong(2);
+			BigDecimal amount = resultSet.getBigDecimal(3);
+			long wantAssetId = resultSet.getLong(4);
+			BigDecimal price = resultSet.getBigDecimal(5);
+			String haveAssetName = resultSet.getString(6);
+			String wantAssetName = resultSet.getString(7);
+
+			return new CreateAssetOrderTransactionData(baseTransactionData, haveAssetId, wantAssetId, amount, price, haveAssetName, wantAssetName);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		CreateAssetOrderTransactionData createOrderTransactionData = (CreateAssetOrderTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("CreateAssetOrderTransactions");
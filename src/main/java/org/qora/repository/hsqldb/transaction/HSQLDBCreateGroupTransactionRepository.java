@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.CreateGroupTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.group.Group.ApprovalThreshold;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBCreateGroupTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBCreateGroupTransactionRepository extends HSQLDBTransactionRep
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT owner, group_name, description, is_open, approval_threshold, min_block_delay, max_block_delay, group_id FROM CreateGroupTransactions WHERE signature = ?";
 
@@ -46,7 +50,31 @@ public class HSQLDBCreateGroupTransactionRepository extends HSQLDBTransactionRep
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, owner, group_name, description, is_open, approval_threshold, min_block_delay, max_block_delay, group_id FROM CreateGroupTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String owner = resultSet.getString(2);
+			String groupName = resultSet.getString(3);
+			String description = resultSet.getString(4);
+			boolean isOpen = resultSet.getBoolean(5);
+
+			ApprovalThreshold approvalThreshold = ApprovalThreshold.valueOf(resultSet.getInt(6));
+
+			int minBlockDelay = resultSet.getInt(7);
+			int maxBlockDelay = resultSet.getInt(8);
+
+			Integer groupId = resultSet.getInt(9);
+			if (groupId == 0 && resultSet.wasNull())
+				groupId = null;
+
+			return new CreateGroupTransactionData(baseTransactionData, owner, groupName, description, isOpen, approvalThreshold,
+					minBlockDelay, maxBlockDelay, groupId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		CreateGroupTransactionData createGroupTransactionData = (CreateGroupTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("CreateGroupTransactions");
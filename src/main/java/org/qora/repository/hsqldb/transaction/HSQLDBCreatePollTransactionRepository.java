@@ -3,7 +3,9 @@ package org.qora.repository.hsqldb.transaction;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.CreatePollTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -12,6 +14,7 @@ import org.qora.data.voting.PollOptionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBCreatePollTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -19,6 +22,7 @@ public class HSQLDBCreatePollTransactionRepository extends HSQLDBTransactionRepo
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT owner, poll_name, description FROM CreatePollTransactions WHERE signature = ?";
 
@@ -53,7 +57,45 @@ public class HSQLDBCreatePollTransactionRepository extends HSQLDBTransactionRepo
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		// Fetch all polls' options in one query first
+		StringBuilder optionsSql = new StringBuilder(128 + baseTransactionDatas.size() * 3);
+		optionsSql.append("SELECT signature, option_name FROM CreatePollTransactionOptions WHERE ");
+		Object[] bindParams = signaturesInSql(optionsSql, baseTransactionDatas);
+		optionsSql.append(" ORDER BY option_index ASC");
+
+		Map<ByteArray, List<PollOptionData>> pollOptionsBySignature = new HashMap<>(baseTransactionDatas.size());
+
+		try (ResultSet optionsResultSet = this.repository.checkedExecute(optionsSql.toString(), bindParams)) {
+			if (optionsResultSet != null)
+				do {
+					ByteArray signature = new ByteArray(optionsResultSet.getBytes(1));
+					String optionName = optionsResultSet.getString(2);
+
+					pollOptionsBySignature.computeIfAbsent(signature, key -> new ArrayList<>()).add(new PollOptionData(optionName));
+				} while (optionsResultSet.next());
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch create poll transaction options from repository", e);
+		}
+
+		String sql = "SELECT signature, owner, poll_name, description FROM CreatePollTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String owner = resultSet.getString(2);
+			String pollName = resultSet.getString(3);
+			String description = resultSet.getString(4);
+
+			// As with fromBase(), a poll without options isn't returned
+			List<PollOptionData> pollOptions = pollOptionsBySignature.get(new ByteArray(baseTransactionData.getSignature()));
+			if (pollOptions == null)
+				return null;
+
+			return new CreatePollTransactionData(baseTransactionData, owner, pollName, description, pollOptions);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		CreatePollTransactionData createPollTransactionData = (CreatePollTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("CreatePollTransactions");
@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.DeployAtTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBDeployAtTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBDeployAtTransactionRepository extends HSQLDBTransactionReposi
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT AT_name, description, AT_type, AT_tags, creation_bytes, amount, asset_id, AT_address FROM DeployATTransactions WHERE signature = ?";
 
@@ -42,7 +46,27 @@ public class HSQLDBDeployAtTransactionRepository extends HSQLDBTransactionReposi
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, AT_name, description, AT_type, AT_tags, creation_bytes, amount, asset_id, AT_address FROM DeployATTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String name = resultSet.getString(2);
+			String description = resultSet.getString(3);
+			String atType = resultSet.getString(4);
+			String tags = resultSet.getString(5);
+			byte[] creationBytes = resultSet.getBytes(6);
+			BigDecimal amount = resultSet.getBigDecimal(7).setScale(8);
+			long assetId = resultSet.getLong(8);
+
+			// Special null-checking for AT address
+			String atAddress = resultSet.getString(9);
+
+			return new DeployAtTransactionData(baseTransactionData, atAddress, name, description, atType, tags, creationBytes, amount, assetId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		DeployAtTransactionData deployATTransactionData = (DeployAtTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("DeployATTransactions");
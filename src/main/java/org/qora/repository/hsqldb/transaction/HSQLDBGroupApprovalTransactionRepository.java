@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.GroupApprovalTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBGroupApprovalTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBGroupApprovalTransactionRepository extends HSQLDBTransactionR
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT pending_signature, approval, prior_reference FROM GroupApprovalTransactions WHERE signature = ?";
 
@@ -34,7 +38,20 @@ public class HSQLDBGroupApprovalTransactionRepository extends HSQLDBTransactionR
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, pending_signature, approval, prior_reference FROM GroupApprovalTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			byte[] pendingSignature = resultSet.getBytes(2);
+			boolean approval = resultSet.getBoolean(3);
+			byte[] priorReference = resultSet.getBytes(4);
+
+			return new GroupApprovalTransactionData(baseTransactionData, pendingSignature, approval, priorReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		GroupApprovalTransactionData groupApprovalTransactionData = (GroupApprovalTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("GroupApprovalTransactions");
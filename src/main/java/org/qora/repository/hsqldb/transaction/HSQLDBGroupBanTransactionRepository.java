@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.GroupBanTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBGroupBanTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBGroupBanTransactionRepository extends HSQLDBTransactionReposi
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, address, reason, time_to_live, member_reference, admin_reference, join_invite_reference, previous_group_id FROM GroupBanTransactions WHERE signature = ?";
 
@@ -43,7 +47,29 @@ public class HSQLDBGroupBanTransactionRepository extends HSQLDBTransactionReposi
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, address, reason, time_to_live, member_reference, admin_reference, join_invite_reference, previous_group_id FROM GroupBanTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String offender = resultSet.getString(3);
+			String reason = resultSet.getString(4);
+			int timeToLive = resultSet.getInt(5);
+			byte[] memberReference = resultSet.getBytes(6);
+			byte[] adminReference = resultSet.getBytes(7);
+			byte[] joinInviteReference = resultSet.getBytes(8);
+
+			Integer previousGroupId = resultSet.getInt(9);
+			if (previousGroupId == 0 && resultSet.wasNull())
+				previousGroupId = null;
+
+			return new GroupBanTransactionData(baseTransactionData, groupId, offender, reason, timeToLive,
+					memberReference, adminReference, joinInviteReference, previousGroupId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		GroupBanTransactionData groupBanTransactionData = (GroupBanTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("GroupBanTransactions");
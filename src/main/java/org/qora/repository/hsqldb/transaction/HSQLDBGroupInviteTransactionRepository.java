@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.GroupInviteTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBGroupInviteTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBGroupInviteTransactionRepository extends HSQLDBTransactionRep
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, invitee, time_to_live, join_reference, previous_group_id FROM GroupInviteTransactions WHERE signature = ?";
 
@@ -39,7 +43,25 @@ public class HSQLDBGroupInviteTransactionRepository extends HSQLDBTransactionRep
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, invitee, time_to_live, join_reference, previous_group_id FROM GroupInviteTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String invitee = resultSet.getString(3);
+			int timeToLive = resultSet.getInt(4);
+			byte[] joinReference = resultSet.getBytes(5);
+
+			Integer previousGroupId = resultSet.getInt(6);
+			if (previousGroupId == 0 && resultSet.wasNull())
+				previousGroupId = null;
+
+			return new GroupInviteTransactionData(baseTransactionData, groupId, invitee, timeToLive, joinReference, previousGroupId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		GroupInviteTransactionData groupInviteTransactionData = (GroupInviteTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("GroupInviteTransactions");
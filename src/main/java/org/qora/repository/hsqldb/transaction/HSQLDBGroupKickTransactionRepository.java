@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.GroupKickTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBGroupKickTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBGroupKickTransactionRepository extends HSQLDBTransactionRepos
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, address, reason, member_reference, admin_reference, join_reference, previous_group_id FROM GroupKickTransactions WHERE signature = ?";
 
@@ -42,7 +46,28 @@ public class HSQLDBGroupKickTransactionRepository extends HSQLDBTransactionRepos
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, address, reason, member_reference, admin_reference, join_reference, previous_group_id FROM GroupKickTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String member = resultSet.getString(3);
+			String reason = resultSet.getString(4);
+			byte[] memberReference = resultSet.getBytes(5);
+			byte[] adminReference = resultSet.getBytes(6);
+			byte[] joinReference = resultSet.getBytes(7);
+
+			Integer previousGroupId = resultSet.getInt(8);
+			if (previousGroupId == 0 && resultSet.wasNull())
+				previousGroupId = null;
+
+			return new GroupKickTransactionData(baseTransactionData, groupId, member, reason, memberReference, adminReference,
+					joinReference, previousGroupId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		GroupKickTransactionData groupKickTransactionData = (GroupKickTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("GroupKickTransactions");
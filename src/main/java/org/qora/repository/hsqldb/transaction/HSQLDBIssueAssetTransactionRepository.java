@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.IssueAssetTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBIssueAssetTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBIssueAssetTransactionRepository extends HSQLDBTransactionRepo
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT owner, asset_name, description, quantity, is_divisible, data, asset_id FROM IssueAssetTransactions WHERE signature = ?";
 
@@ -43,7 +47,29 @@ public class HSQLDBIssueAssetTransactionRepository extends HSQLDBTransactionRepo
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, owner, asset_name, description, quantity, is_divisible, data, asset_id FROM IssueAssetTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String owner = resultSet.getString(2);
+			String assetName = resultSet.getString(3);
+			String description = resultSet.getString(4);
+			long quantity = resultSet.getLong(5);
+			boolean isDivisible = resultSet.getBoolean(6);
+			String data = resultSet.getString(7);
+
+			// Special null-checking for asset ID
+			Long assetId = resultSet.getLong(8);
+			if (assetId == 0 && resultSet.wasNull())
+				assetId = null;
+
+			return new IssueAssetTransactionData(baseTransactionData, assetId, owner, assetName, description, quantity, isDivisible,
+					data);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		IssueAssetTransactionData issueAssetTransactionData = (IssueAssetTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("IssueAssetTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.JoinGroupTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBJoinGroupTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBJoinGroupTransactionRepository extends HSQLDBTransactionRepos
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, invite_reference, previous_group_id FROM JoinGroupTransactions WHERE signature = ?";
 
@@ -37,7 +41,23 @@ public class HSQLDBJoinGroupTransactionRepository extends HSQLDBTransactionRepos
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, invite_reference, previous_group_id FROM JoinGroupTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			byte[] inviteReference = resultSet.getBytes(3);
+
+			Integer previousGroupId = resultSet.getInt(4);
+			if (previousGroupId == 0 && resultSet.wasNull())
+				previousGroupId = null;
+
+			return new JoinGroupTransactionData(baseTransactionData, groupId, inviteReference, previousGroupId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		JoinGroupTransactionData joinGroupTransactionData = (JoinGroupTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("JoinGroupTransactions");
@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.MessageTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBMessageTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBMessageTransactionRepository extends HSQLDBTransactionReposit
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT version, recipient, is_text, is_encrypted, amount, asset_id, data FROM MessageTransactions WHERE signature = ?";
 
@@ -44,7 +48,29 @@ public class HSQLDBMessageTransactionRepository extends HSQLDBTransactionReposit
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, version, recipient, is_text, is_encrypted, amount, asset_id, data FROM MessageTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int version = resultSet.getInt(2);
+			String recipient = resultSet.getString(3);
+			boolean isText = resultSet.getBoolean(4);
+			boolean isEncrypted = resultSet.getBoolean(5);
+			BigDecimal amount = resultSet.getBigDecimal(6);
+
+			// Special null-checking for asset ID
+			Long assetId = resultSet.getLong(7);
+			if (assetId == 0 && resultSet.wasNull())
+				assetId = null;
+
+			byte[] data = resultSet.getBytes(8);
+
+			return new MessageTransactionData(baseTransactionData, version, recipient, assetId, amount, data, isText, isEncrypted);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		MessageTransactionData messageTransactionData = (MessageTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("MessageTransactions");
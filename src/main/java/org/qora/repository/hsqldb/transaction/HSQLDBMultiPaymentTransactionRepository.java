@@ -3,6 +3,7 @@ package org.qora.repository.hsqldb.transaction;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Map;
 
 import org.qora.data.PaymentData;
 import org.qora.data.transaction.MultiPaymentTransactionData;
@@ -11,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBMultiPaymentTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -18,6 +20,7 @@ public class HSQLDBMultiPaymentTransactionRepository extends HSQLDBTransactionRe
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT TRUE from MultiPaymentTransactions WHERE signature = ?";
 
@@ -34,7 +37,20 @@ public class HSQLDBMultiPaymentTransactionRepository extends HSQLDBTransactionRe
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		Map<ByteArray, List<PaymentData>> paymentsBySignature = this.getPaymentsFromSignatures(baseTransactionDatas);
+
+		String sql = "SELECT signature FROM MultiPaymentTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			List<PaymentData> payments = paymentsBySignature.get(new ByteArray(baseTransactionData.getSignature()));
+
+			return new MultiPaymentTransactionData(baseTransactionData, payments);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		MultiPaymentTransactionData multiPaymentTransactionData = (MultiPaymentTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("MultiPaymentTransactions");
@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.BaseTransactionData;
 import org.qora.data.transaction.ProxyForgingTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBProxyForgingTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBProxyForgingTransactionRepository extends HSQLDBTransactionRe
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT recipient, proxy_public_key, share, previous_share FROM ProxyForgingTransactions WHERE signature = ?";
 
@@ -36,7 +40,21 @@ public class HSQLDBProxyForgingTransactionRepository extends HSQLDBTransactionRe
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, recipient, proxy_public_key, share, previous_share FROM ProxyForgingTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String recipient = resultSet.getString(2);
+			byte[] proxyPublicKey = resultSet.getBytes(3);
+			BigDecimal share = resultSet.getBigDecimal(4);
+			BigDecimal previousShare = resultSet.getBigDecimal(5);
+
+			return new ProxyForgingTransactionData(baseTransactionData, recipient, proxyPublicKey, share, previousShare);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		ProxyForgingTransactionData proxyForgingTransactionData = (ProxyForgingTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("ProxyForgingTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.RegisterNameTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBRegisterNameTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBRegisterNameTransactionRepository extends HSQLDBTransactionRe
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT owner, name, data FROM RegisterNameTransactions WHERE signature = ?";
 
@@ -34,7 +38,20 @@ public class HSQLDBRegisterNameTransactionRepository extends HSQLDBTransactionRe
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, owner, name, data FROM RegisterNameTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String owner = resultSet.getString(2);
+			String name = resultSet.getString(3);
+			String data = resultSet.getString(4);
+
+			return new RegisterNameTransactionData(baseTransactionData, owner, name, data);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		RegisterNameTransactionData registerNameTransactionData = (RegisterNameTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("RegisterNameTransactions");
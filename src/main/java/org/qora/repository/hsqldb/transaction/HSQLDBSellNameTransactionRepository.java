@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.SellNameTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBSellNameTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBSellNameTransactionRepository extends HSQLDBTransactionReposi
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT name, amount FROM SellNameTransactions WHERE signature = ?";
 
@@ -34,7 +38,19 @@ public class HSQLDBSellNameTransactionRepository extends HSQLDBTransactionReposi
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, name, amount FROM SellNameTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String name = resultSet.getString(2);
+			BigDecimal amount = resultSet.getBigDecimal(3);
+
+			return new SellNameTransactionData(baseTransactionData, name, amount);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		SellNameTransactionData sellNameTransactionData = (SellNameTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("SellNameTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.SetGroupTransactionData;
 import org.qora.data.transaction.BaseTransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBSetGroupTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBSetGroupTransactionRepository extends HSQLDBTransactionReposi
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT default_group_id, previous_default_group_id FROM SetGroupTransactions WHERE signature = ?";
 
@@ -35,7 +39,21 @@ public class HSQLDBSetGroupTransactionRepository extends HSQLDBTransactionReposi
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, default_group_id, previous_default_group_id FROM SetGroupTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int defaultGroupId = resultSet.getInt(2);
+			Integer previousDefaultGroupId = resultSet.getInt(3);
+			if (previousDefaultGroupId == 0 && resultSet.wasNull())
+				previousDefaultGroupId = null;
+
+			return new SetGroupTransactionData(baseTransactionData, defaultGroupId, previousDefaultGroupId);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		SetGroupTransactionData setGroupTransactionData = (SetGroupTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("SetGroupTransactions");
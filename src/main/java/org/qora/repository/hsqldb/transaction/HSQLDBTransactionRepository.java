@@ -1,17 +1,16 @@
 package org.qora.repository.hsqldb.transaction;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -28,6 +27,7 @@ import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
 import org.qora.transaction.Transaction.ApprovalStatus;
 import org.qora.transaction.Transaction.TransactionType;
+import org.qora.utils.ByteArray;
 
 import static org.qora.transaction.Transaction.TransactionType.*;
 
@@ -35,91 +35,145 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 	private static final Logger LOGGER = LogManager.getLogger(HSQLDBTransactionRepository.class);
 
-	public static class RepositorySubclassInfo {
-		public Class<?> clazz;
-		public Constructor<?> constructor;
-		public Method fromBaseMethod;
-		public Method saveMethod;
-		public Method deleteMethod;
-	}
+	/** Maximum number of signatures in each "IN (...)" clause when fetching transactions in bulk. */
+	private static final int FETCH_BATCH_SIZE = 512;
 
-	private static final RepositorySubclassInfo[] subclassInfos;
+	/** Transaction-type-specific repository constructors, keyed by transaction type */
+	private static final Map<TransactionType, Function<HSQLDBRepository, HSQLDBTransactionRepository>> subclassConstructors = new EnumMap<>(TransactionType.class);
 	static {
-		subclassInfos = new RepositorySubclassInfo[TransactionType.values().length + 1];
+		subclassConstructors.put(GENESIS, HSQLDBGenesisTransactionRepository::new);
+		subclassConstructors.put(PAYMENT, HSQLDBPaymentTransactionRepository::new);
+		subclassConstructors.put(REGISTER_NAME, HSQLDBRegisterNameTransactionRepository::new);
+		subclassConstructors.put(UPDATE_NAME, HSQLDBUpdateNameTransactionRepository::new);
+		subclassConstructors.put(SELL_NAME, HSQLDBSellNameTransactionRepository::new);
+		subclassConstructors.put(CANCEL_SELL_NAME, HSQLDBCancelSellNameTransactionRepository::new);
+		subclassConstructors.put(BUY_NAME, HSQLDBBuyNameTransactionRepository::new);
+		subclassConstructors.put(CREATE_POLL, HSQLDBCreatePollTransactionRepository::new);
+		subclassConstructors.put(VOTE_ON_POLL, HSQLDBVoteOnPollTransactionRepository::new);
+		subclassConstructors.put(ARBITRARY, HSQLDBArbitraryTransactionRepository::new);
+		subclassConstructors.put(ISSUE_ASSET, HSQLDBIssueAssetTransactionRepository::new);
+		subclassConstructors.put(TRANSFER_ASSET, HSQLDBTransferAssetTransactionRepository::new);
+		subclassConstructors.put(CREATE_ASSET_ORDER, HSQLDBCreateAssetOrderTransactionRepository::new);
+		subclassConstructors.put(CANCEL_ASSET_ORDER, HSQLDBCancelAssetOrderTransactionRepository::new);
+		subclassConstructors.put(MULTI_PAYMENT, HSQLDBMultiPaymentTransactionRepository::new);
+		subclassConstructors.put(DEPLOY_AT, HSQLDBDeployAtTransactionRepository::new);
+		subclassConstructors.put(MESSAGE, HSQLDBMessageTransactionRepository::new);
+		subclassConstructors.put(AT, HSQLDBAtTransactionRepository::new);
+		subclassConstructors.put(CREATE_GROUP, HSQLDBCreateGroupTransactionRepository::new);
+		subclassConstructors.put(UPDATE_GROUP, HSQLDBUpdateGroupTransactionRepository::new);
+		subclassConstructors.put(ADD_GROUP_ADMIN, HSQLDBAddGroupAdminTransactionRepository::new);
+		subclassConstructors.put(REMOVE_GROUP_ADMIN, HSQLDBRemoveGroupAdminTransactionRepository::new);
+		subclassConstructors.put(GROUP_BAN, HSQLDBGroupBanTransactionRepository::new);
+		subclassConstructors.put(CANCEL_GROUP_BAN, HSQLDBCancelGroupBanTransactionRepository::new);
+		subclassConstructors.put(GROUP_KICK, HSQLDBGroupKickTransactionRepository::new);
+		subclassConstructors.put(GROUP_INVITE, HSQLDBGroupInviteTransactionRepository::new);
+		subclassConstructors.put(CANCEL_GROUP_INVITE, HSQLDBCancelGroupInviteTransactionRepository::new);
+		subclassConstructors.put(JOIN_GROUP, HSQLDBJoinGroupTransactionRepository::new);
+		subclassConstructors.put(LEAVE_GROUP, HSQLDBLeaveGroupTransactionRepository::new);
+		subclassConstructors.put(GROUP_APPROVAL, HSQLDBGroupApprovalTransactionRepository::new);
+		subclassConstructors.put(SET_GROUP, HSQLDBSetGroupTransactionRepository::new);
+		subclassConstructors.put(UPDATE_ASSET, HSQLDBUpdateAssetTransactionRepository::new);
+		subclassConstructors.put(ACCOUNT_FLAGS, HSQLDBAccountFlagsTransactionRepository::new);
+		subclassConstructors.put(ENABLE_FORGING, HSQLDBEnableForgingTransactionRepository::new);
+		subclassConstructors.put(PROXY_FORGING, HSQLDBProxyForgingTransactionRepository::new);
+	}
 
-		for (TransactionType txType : TransactionType.values()) {
-			RepositorySubclassInfo subclassInfo = new RepositorySubclassInfo();
+	private HSQLDBTransactionRepository[] repositoryByTxType;
 
-			try {
-				subclassInfo.clazz = Class.forName(
-						String.join("", HSQLDBTransactionRepository.class.getPackage().getName(), ".", "HSQLDB", txType.className, "TransactionRepository"));
-			} catch (ClassNotFoundException e) {
-				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass not found for transaction type \"%s\"", txType.name()));
-				continue;
-			}
+	protected HSQLDBRepository repository;
 
-			try {
-				subclassInfo.constructor = subclassInfo.clazz.getConstructor(HSQLDBRepository.class);
-			} catch (NoSuchMethodException | IllegalArgumentException e) {
-				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass constructor not found for transaction type \"%s\"", txType.name()));
-				continue;
-			}
+	public HSQLDBTransactionRepository(HSQLDBRepository repository) {
+		this.repository = repository;
 
-			try {
-				subclassInfo.fromBaseMethod = subclassInfo.clazz.getDeclaredMethod("fromBase", BaseTransactionData.class);
-			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
-				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass's \"fromBase\" method not found for transaction type \"%s\"", txType.name()));
-			}
+		this.repositoryByTxType = new HSQLDBTransactionRepository[TransactionType.values().length + 1];
 
-			try {
-				subclassInfo.saveMethod = subclassInfo.clazz.getDeclaredMethod("save", TransactionData.class);
-			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
-				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass's \"save\" method not found for transaction type \"%s\"", txType.name()));
-			}
+		for (Map.Entry<TransactionType, Function<HSQLDBRepository, HSQLDBTransactionRepository>> entry : subclassConstructors.entrySet())
+			this.repositoryByTxType[entry.getKey().value] = entry.getValue().apply(repository);
+	}
 
-			try {
-				subclassInfo.deleteMethod = subclassInfo.clazz.getDeclaredMethod("delete", TransactionData.class);
-			} catch (NoSuchMethodException e) {
-				// Subclass has no "delete" method - this is OK
-				subclassInfo.deleteMethod = null;
-			} catch (IllegalArgumentException | SecurityException e) {
-				LOGGER.debug(String.format("HSQLDBTransactionRepository subclass's \"save\" method not found for transaction type \"%s\"", txType.name()));
-			}
+	// Never called
+	protected HSQLDBTransactionRepository() {
+	}
 
-			subclassInfos[txType.value] = subclassInfo;
-		}
+	// Transaction-type-specific methods, overridden by subclasses
 
-		LOGGER.trace("Static init reflection completed");
+	/** Returns transaction data built from passed base transaction data plus transaction-type-specific data, or null if not found. */
+	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
+		throw new DataException("Unsupported transaction type during fetch from HSQLDB repository");
 	}
 
-	private HSQLDBTransactionRepository[] repositoryByTxType;
+	/**
+	 * Returns transaction data for all passed base transaction data, keyed by signature.
+	 * <p>
+	 * By default, fetches each transaction individually using {@link #fromBase(BaseTransactionData)}.
+	 */
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		List<TransactionData> transactions = new ArrayList<>(baseTransactionDatas.size());
 
-	protected HSQLDBRepository repository;
+		for (BaseTransactionData baseTransactionData : baseTransactionDatas.values()) {
+			TransactionData transactionData = this.fromBase(baseTransactionData);
 
-	public HSQLDBTransactionRepository(HSQLDBRepository repository) {
-		this.repository = repository;
+			if (transactionData != null)
+				transactions.add(transactionData);
+		}
 
-		this.repositoryByTxType = new HSQLDBTransactionRepository[TransactionType.values().length + 1];
+		return transactions;
+	}
 
-		for (TransactionType txType : TransactionType.values()) {
-			RepositorySubclassInfo subclassInfo = subclassInfos[txType.value];
+	/** Builds transaction data from base transaction data plus current row of subclass query, see {@link #fromSubclassRows}. */
+	@FunctionalInterface
+	protected interface SubclassRowMapper {
+		TransactionData map(BaseTransactionData baseTransactionData, ResultSet resultSet) throws SQLException;
+	}
 
-			if (subclassInfo == null)
-				continue;
+	/**
+	 * Helper for subclass {@link #fromBases(Map)} implementations, fetching all subclass rows in one query.
+	 * <p>
+	 * <tt>sqlPrefix</tt> is the query up to and including "<tt>WHERE </tt>", with <tt>signature</tt> as first column.
+	 * The "<tt>signature IN (...)</tt>" condition is appended here.
+	 * <tt>rowMapper</tt> is then called for each row, with the matching base transaction data,
+	 * and can return null to skip that row.
+	 * 
+	 * @param sqlPrefix
+	 * @param baseTransactionDatas
+	 * @param rowMapper
+	 * @return transaction data, in no particular order
+	 * @throws DataException
+	 */
+	protected List<TransactionData> fromSubclassRows(String sqlPrefix, Map<ByteArray, BaseTransactionData> baseTransactionDatas, SubclassRowMapper rowMapper)
+			throws DataException {
+		StringBuilder sql = new StringBuilder(sqlPrefix.length() + 32 + baseTransactionDatas.size() * 3);
+		sql.append(sqlPrefix);
+		Object[] bindParams = signaturesInSql(sql, baseTransactionDatas);
 
-			if (subclassInfo.constructor == null)
-				continue;
+		List<TransactionData> transactions = new ArrayList<>(baseTransactionDatas.size());
 
-			try {
-				this.repositoryByTxType[txType.value] = (HSQLDBTransactionRepository) subclassInfo.constructor.newInstance(repository);
-			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException | InstantiationException e) {
-				continue;
-			}
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams)) {
+			if (resultSet == null)
+				return transactions;
+
+			do {
+				BaseTransactionData baseTransactionData = baseTransactionDatas.get(new ByteArray(resultSet.getBytes(1)));
+
+				TransactionData transactionData = rowMapper.map(baseTransactionData, resultSet);
+				if (transactionData != null)
+					transactions.add(transactionData);
+			} while (resultSet.next());
+
+			return transactions;
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch transactions from repository", e);
 		}
 	}
 
-	// Never called
-	protected HSQLDBTransactionRepository() {
+	/** Saves transaction-type-specific data into repository. */
+	void saveSubclass(TransactionData transactionData) throws DataException {
+		throw new DataException("Unsupported transaction type [" + transactionData.getType().name() + "] during save into HSQLDB repository");
+	}
+
+	/** Deletes any transaction-type-specific data not removed by database cascade. */
+	void deleteSubclass(TransactionData transactionData) throws DataException {
+		// Most transaction types have nothing extra to delete
 	}
 
 	// Fetching transactions / transaction height
@@ -217,16 +271,98 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		if (txRepository == null)
 			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
 
-		try {
-			return (TransactionData) subclassInfos[type.value].fromBaseMethod.invoke(txRepository, baseTransactionData);
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof DataException)
-				throw (DataException) e.getCause();
+		return txRepository.fromBase(baseTransactionData);
+	}
 
-			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
-		} catch (IllegalArgumentException | IllegalAccessException e) {
-			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
+	@Override
+	public List<TransactionData> fromSignatures(List<byte[]> signatures) throws DataException {
+		Map<ByteArray, TransactionData> transactionsBySignature = new HashMap<>(signatures.size());
+
+		for (int fromIndex = 0; fromIndex < signatures.size(); fromIndex += FETCH_BATCH_SIZE) {
+			int toIndex = Math.min(fromIndex + FETCH_BATCH_SIZE, signatures.size());
+
+			this.fromSignaturesBatch(signatures.subList(fromIndex, toIndex), transactionsBySignature);
+		}
+
+		List<TransactionData> transactions = new ArrayList<>(signatures.size());
+		for (byte[] signature : signatures)
+			transactions.add(transactionsBySignature.get(new ByteArray(signature)));
+
+		return transactions;
+	}
+
+	/** Fetches base transaction rows for passed signatures in one query, then subclass rows with one query per transaction type. */
+	private void fromSignaturesBatch(List<byte[]> signatures, Map<ByteArray, TransactionData> transactionsBySignature) throws DataException {
+		StringBuilder sql = new StringBuilder(256 + signatures.size() * 3);
+		sql.append("SELECT type, signature, reference, creator, creation, fee, tx_group_id, block_height, approval_status, approval_height "
+				+ "FROM Transactions WHERE signature IN (");
+		Object[] bindParams = HSQLDBRepository.inListSql(sql, signatures);
+		sql.append(")");
+
+		Map<TransactionType, Map<ByteArray, BaseTransactionData>> baseTransactionsByType = new EnumMap<>(TransactionType.class);
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams)) {
+			if (resultSet == null)
+				return;
+
+			do {
+				TransactionType type = TransactionType.valueOf(resultSet.getInt(1));
+
+				byte[] signature = resultSet.getBytes(2);
+				byte[] reference = resultSet.getBytes(3);
+				byte[] creatorPublicKey = resultSet.getBytes(4);
+				long timestamp = resultSet.getTimestamp(5, Calendar.getInstance(HSQLDBRepository.UTC)).getTime();
+				BigDecimal fee = resultSet.getBigDecimal(6).setScale(8);
+				int txGroupId = resultSet.getInt(7);
+
+				Integer blockHeight = resultSet.getInt(8);
+				if (blockHeight == 0 && resultSet.wasNull())
+					blockHeight = null;
+
+				ApprovalStatus approvalStatus = ApprovalStatus.valueOf(resultSet.getInt(9));
+				Integer approvalHeight = resultSet.getInt(10);
+				if (approvalHeight == 0 && resultSet.wasNull())
+					approvalHeight = null;
+
+				BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, txGroupId, reference, creatorPublicKey, fee, approvalStatus, blockHeight, approvalHeight, signature);
+
+				baseTransactionsByType.computeIfAbsent(type, key -> new HashMap<>()).put(new ByteArray(signature), baseTransactionData);
+			} while (resultSet.next());
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch transactions from repository", e);
 		}
+
+		for (Map.Entry<TransactionType, Map<ByteArray, BaseTransactionData>> entry : baseTransactionsByType.entrySet())
+			for (TransactionData transactionData : this.fromBases(entry.getKey(), entry.getValue()))
+				transactionsBySignature.put(new ByteArray(transactionData.getSignature()), transactionData);
+	}
+
+	private List<TransactionData> fromBases(TransactionType type, Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		HSQLDBTransactionRepository txRepository = repositoryByTxType[type.value];
+
+		if (txRepository == null)
+			throw new DataException("Unsupported transaction type [" + type.name() + "] during fetch from HSQLDB repository");
+
+		return txRepository.fromBases(baseTransactionDatas);
+	}
+
+	/**
+	 * Appends "<tt>signature IN (?, ?, ...)</tt>" to <tt>sql</tt>, for fetching subclass rows matching passed base transactions.
+	 * 
+	 * @param sql
+	 * @param baseTransactionDatas
+	 * @return bind params, i.e. signatures, padded as per {@link HSQLDBRepository#inListSql(StringBuilder, List)}
+	 */
+	protected static Object[] signaturesInSql(StringBuilder sql, Map<ByteArray, BaseTransactionData> baseTransactionDatas) {
+		List<byte[]> signatures = new ArrayList<>(baseTransactionDatas.size());
+		for (ByteArray signature : baseTransactionDatas.keySet())
+			signatures.add(signature.raw);
+
+		sql.append("signature IN (");
+		Object[] bindParams = HSQLDBRepository.inListSql(sql, signatures);
+		sql.append(")");
+
+		return bindParams;
 	}
 
 	/**
@@ -262,6 +398,42 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		}
 	}
 
+	/**
+	 * Returns payments associated with passed base transactions' signatures, in one query.
+	 * 
+	 * @param baseTransactionDatas
+	 * @return lists of payments, keyed by signature, with empty list if none found
+	 * @throws DataException
+	 * @see #getPaymentsFromSignature(byte[])
+	 */
+	protected Map<ByteArray, List<PaymentData>> getPaymentsFromSignatures(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		StringBuilder sql = new StringBuilder(128 + baseTransactionDatas.size() * 3);
+		sql.append("SELECT signature, recipient, amount, asset_id FROM SharedTransactionPayments WHERE ");
+		Object[] bindParams = signaturesInSql(sql, baseTransactionDatas);
+
+		Map<ByteArray, List<PaymentData>> paymentsBySignature = new HashMap<>(baseTransactionDatas.size());
+		for (ByteArray signature : baseTransactionDatas.keySet())
+			paymentsBySignature.put(signature, new ArrayList<>());
+
+		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams)) {
+			if (resultSet == null)
+				return paymentsBySignature;
+
+			do {
+				ByteArray signature = new ByteArray(resultSet.getBytes(1));
+				String recipient = resultSet.getString(2);
+				BigDecimal amount = resultSet.getBigDecimal(3);
+				long assetId = resultSet.getLong(4);
+
+				paymentsBySignature.get(signature).add(new PaymentData(recipient, assetId, amount));
+			} while (resultSet.next());
+
+			return paymentsBySignature;
+		} catch (SQLException e) {
+			throw new DataException("Unable to fetch payments from repository", e);
+		}
+	}
+
 	protected void savePayments(byte[] signature, List<PaymentData> payments) throws DataException {
 		for (PaymentData paymentData : payments) {
 			HSQLDBSaver saver = new HSQLDBSaver("SharedTransactionPayments");
@@ -307,6 +479,33 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		}
 	}
 
+	@Override
+	public List<byte[]> getExistingSignatures(List<byte[]> signatures) throws DataException {
+		List<byte[]> existingSignatures = new ArrayList<>();
+
+		for (int fromIndex = 0; fromIndex < signatures.size(); fromIndex += FETCH_BATCH_SIZE) {
+			List<byte[]> batchSignatures = signatures.subList(fromIndex, Math.min(fromIndex + FETCH_BATCH_SIZE, signatures.size()));
+
+			StringBuilder sql = new StringBuilder(64 + batchSignatures.size() * 3);
+			sql.append("SELECT signature FROM Transactions WHERE signature IN (");
+			Object[] bindParams = HSQLDBRepository.inListSql(sql, batchSignatures);
+			sql.append(")");
+
+			try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams)) {
+				if (resultSet == null)
+					continue;
+
+				do {
+					existingSignatures.add(resultSet.getBytes(1));
+				} while (resultSet.next());
+			} catch (SQLException e) {
+				throw new DataException("Unable to check for transactions in repository", e);
+			}
+		}
+
+		return existingSignatures;
+	}
+
 	// Transaction participants
 
 	@Override
@@ -578,28 +777,26 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
 
-		List<TransactionData> transactions = new ArrayList<TransactionData>();
+		List<byte[]> signatures = new ArrayList<>();
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString())) {
 			if (resultSet == null)
-				return transactions;
+				return new ArrayList<>();
 
 			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException("Unable to fetch asset-related transaction from repository?");
-
-				transactions.add(transactionData);
+				signatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
+		} catch (SQLException e) {
 			throw new DataException("Unable to fetch asset-related transactions from repository", e);
 		}
+
+		List<TransactionData> transactions = this.fromSignatures(signatures);
+
+		if (transactions.contains(null))
+			// Something inconsistent with the repository
+			throw new DataException("Unable to fetch asset-related transaction from repository?");
+
+		return transactions;
 	}
 
 	@Override
@@ -692,29 +889,27 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
 
-		List<TransactionData> transactions = new ArrayList<TransactionData>();
+		List<byte[]> signatures = new ArrayList<>();
 
 		// Find transactions with no corresponding row in BlockTransactions
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), bindParams)) {
 			if (resultSet == null)
-				return transactions;
+				return new ArrayList<>();
 
 			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException("Unable to fetch approval-pending transaction from repository?");
-
-				transactions.add(transactionData);
+				signatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
+		} catch (SQLException e) {
 			throw new DataException("Unable to fetch approval-pending transactions from repository", e);
 		}
+
+		List<TransactionData> transactions = this.fromSignatures(signatures);
+
+		if (transactions.contains(null))
+			// Something inconsistent with the repository
+			throw new DataException("Unable to fetch approval-pending transaction from repository?");
+
+		return transactions;
 	}
 
 	@Override
@@ -728,28 +923,26 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 		sql.append(" AND Transactions.block_height < ? - Groups.min_block_delay");
 
-		List<TransactionData> transactions = new ArrayList<TransactionData>();
+		List<byte[]> signatures = new ArrayList<>();
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), blockHeight)) {
 			if (resultSet == null)
-				return transactions;
+				return new ArrayList<>();
 
 			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException("Unable to fetch approval-expiring transaction from repository?");
-
-				transactions.add(transactionData);
+				signatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
+		} catch (SQLException e) {
 			throw new DataException("Unable to fetch approval-expiring transactions from repository", e);
 		}
+
+		List<TransactionData> transactions = this.fromSignatures(signatures);
+
+		if (transactions.contains(null))
+			// Something inconsistent with the repository
+			throw new DataException("Unable to fetch approval-expiring transaction from repository?");
+
+		return transactions;
 	}
 
 	@Override
@@ -763,56 +956,52 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 		sql.append(" AND Transactions.block_height < ? - Groups.max_block_delay");
 
-		List<TransactionData> transactions = new ArrayList<TransactionData>();
+		List<byte[]> signatures = new ArrayList<>();
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString(), blockHeight)) {
 			if (resultSet == null)
-				return transactions;
+				return new ArrayList<>();
 
 			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException("Unable to fetch approval-expiring transaction from repository?");
-
-				transactions.add(transactionData);
+				signatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
+		} catch (SQLException e) {
 			throw new DataException("Unable to fetch approval-expiring transactions from repository", e);
 		}
+
+		List<TransactionData> transactions = this.fromSignatures(signatures);
+
+		if (transactions.contains(null))
+			// Something inconsistent with the repository
+			throw new DataException("Unable to fetch approval-expiring transaction from repository?");
+
+		return transactions;
 	}
 
 	@Override
 	public List<TransactionData> getApprovalTransactionDecidedAtHeight(int approvalHeight) throws DataException {
 		String sql = "SELECT signature from Transactions WHERE approval_height = ?";
 
-		List<TransactionData> transactions = new ArrayList<>();
+		List<byte[]> signatures = new ArrayList<>();
 
 		try (ResultSet resultSet = this.repository.checkedExecute(sql, approvalHeight)) {
 			if (resultSet == null)
-				return transactions;
+				return new ArrayList<>();
 
 			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException("Unable to fetch approval-decided transaction from repository?");
-
-				transactions.add(transactionData);
+				signatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
+		} catch (SQLException e) {
 			throw new DataException("Unable to fetch approval-decided transactions from repository", e);
 		}
+
+		List<TransactionData> transactions = this.fromSignatures(signatures);
+
+		if (transactions.contains(null))
+			// Something inconsistent with the repository
+			throw new DataException("Unable to fetch approval-decided transaction from repository?");
+
+		return transactions;
 	}
 
 	@Override
@@ -924,29 +1113,27 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 
 		HSQLDBRepository.limitOffsetSql(sql, limit, offset);
 
-		List<TransactionData> transactions = new ArrayList<TransactionData>();
+		List<byte[]> signatures = new ArrayList<>();
 
 		// Find transactions with no corresponding row in BlockTransactions
 		try (ResultSet resultSet = this.repository.checkedExecute(sql.toString())) {
 			if (resultSet == null)
-				return transactions;
+				return new ArrayList<>();
 
 			do {
-				byte[] signature = resultSet.getBytes(1);
-
-				TransactionData transactionData = this.fromSignature(signature);
-
-				if (transactionData == null)
-					// Something inconsistent with the repository
-					throw new DataException("Unable to fetch unconfirmed transaction from repository?");
-
-				transactions.add(transactionData);
+				signatures.add(resultSet.getBytes(1));
 			} while (resultSet.next());
-
-			return transactions;
-		} catch (SQLException | DataException e) {
+		} catch (SQLException e) {
 			throw new DataException("Unable to fetch unconfirmed transactions from repository", e);
 		}
+
+		List<TransactionData> transactions = this.fromSignatures(signatures);
+
+		if (transactions.contains(null))
+			// Something inconsistent with the repository
+			throw new DataException("Unable to fetch unconfirmed transaction from repository?");
+
+		return transactions;
 	}
 
 	@Override
@@ -956,6 +1143,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to remove transaction from unconfirmed transactions repository", e);
 		}
+
+		this.repository.noteUnconfirmedRemoval(signature);
 	}
 
 	@Override
@@ -995,6 +1184,8 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		} catch (SQLException e) {
 			throw new DataException("Unable to add transaction to unconfirmed transactions repository", e);
 		}
+
+		this.repository.noteUnconfirmed(transactionData);
 	}
 
 	@Override
@@ -1021,16 +1212,7 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 		if (txRepository == null)
 			throw new DataException("Unsupported transaction type [" + type.name() + "] during save into HSQLDB repository");
 
-		try {
-			subclassInfos[type.value].saveMethod.invoke(txRepository, transactionData);
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof DataException)
-				throw (DataException) e.getCause();
-
-			throw new DataException("Exception during save of transaction type [" + type.name() + "] into HSQLDB repository");
-		} catch (IllegalAccessException | IllegalArgumentException e) {
-			throw new DataException("Unsupported transaction type [" + type.name() + "] during save into HSQLDB repository");
-		}
+		txRepository.saveSubclass(transactionData);
 	}
 
 	@Override
@@ -1048,22 +1230,13 @@ public class HSQLDBTransactionRepository implements TransactionRepository {
 			throw new DataException("Unable to remove transaction from unconfirmed transactions repository", e);
 		}
 
-		// If transaction subclass has a "delete" method - call that now
-		TransactionType type = transactionData.getType();
-		if (subclassInfos[type.value].deleteMethod != null) {
-			HSQLDBTransactionRepository txRepository = repositoryByTxType[type.value];
+		this.repository.noteUnconfirmedRemoval(transactionData.getSignature());
 
-			try {
-				subclassInfos[type.value].deleteMethod.invoke(txRepository, transactionData);
-			} catch (InvocationTargetException e) {
-				if (e.getCause() instanceof DataException)
-					throw (DataException) e.getCause();
-
-				throw new DataException("Exception during delete of transaction type [" + type.name() + "] from HSQLDB repository");
-			} catch (IllegalAccessException | IllegalArgumentException e) {
-				throw new DataException("Unsupported transaction type [" + type.name() + "] during delete from HSQLDB repository");
-			}
-		}
+		// Transaction subclass might have extra data to delete
+		TransactionType type = transactionData.getType();
+		HSQLDBTransactionRepository txRepository = repositoryByTxType[type.value];
+		if (txRepository != null)
+			txRepository.deleteSubclass(transactionData);
 	}
 
 }
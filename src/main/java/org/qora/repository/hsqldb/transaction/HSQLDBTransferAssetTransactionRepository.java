@@ -3,6 +3,8 @@ package org.qora.repository.hsqldb.transaction;
 import java.math.BigDecimal;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.BaseTransactionData;
 import org.qora.data.transaction.TransactionData;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransferAssetTransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBTransferAssetTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBTransferAssetTransactionRepository extends HSQLDBTransactionR
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT recipient, asset_id, amount, asset_name FROM TransferAssetTransactions JOIN Assets USING (asset_id) WHERE signature = ?";
 
@@ -36,7 +40,21 @@ public class HSQLDBTransferAssetTransactionRepository extends HSQLDBTransactionR
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, recipient, asset_id, amount, asset_name FROM TransferAssetTransactions JOIN Assets USING (asset_id) WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String recipient = resultSet.getString(2);
+			long assetId = resultSet.getLong(3);
+			BigDecimal amount = resultSet.getBigDecimal(4);
+			String assetName = resultSet.getString(5);
+
+			return new TransferAssetTransactionData(baseTransactionData, recipient, amount, assetId, assetName);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		TransferAssetTransactionData transferAssetTransactionData = (TransferAssetTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("TransferAssetTransactions");
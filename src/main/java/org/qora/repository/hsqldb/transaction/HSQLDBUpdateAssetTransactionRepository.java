@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.BaseTransactionData;
 import org.qora.data.transaction.TransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.UpdateAssetTransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBUpdateAssetTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBUpdateAssetTransactionRepository extends HSQLDBTransactionRep
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT asset_id, new_owner, new_description, new_data, orphan_reference FROM UpdateAssetTransactions WHERE signature = ?";
 
@@ -36,7 +40,22 @@ public class HSQLDBUpdateAssetTransactionRepository extends HSQLDBTransactionRep
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, asset_id, new_owner, new_description, new_data, orphan_reference FROM UpdateAssetTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			long assetId = resultSet.getLong(2);
+			String newOwner = resultSet.getString(3);
+			String newDescription = resultSet.getString(4);
+			String newData = resultSet.getString(5);
+			byte[] orphanReference = resultSet.getBytes(6);
+
+			return new UpdateAssetTransactionData(baseTransactionData, assetId, newOwner, newDescription, newData, orphanReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		UpdateAssetTransactionData updateAssetTransactionData = (UpdateAssetTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("UpdateAssetTransactions");
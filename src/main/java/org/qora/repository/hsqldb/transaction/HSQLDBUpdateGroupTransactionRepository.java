@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.UpdateGroupTransactionData;
 import org.qora.group.Group.ApprovalThreshold;
@@ -10,6 +12,7 @@ import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBUpdateGroupTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -17,6 +20,7 @@ public class HSQLDBUpdateGroupTransactionRepository extends HSQLDBTransactionRep
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT group_id, new_owner, new_description, new_is_open, new_approval_threshold, new_min_block_delay, new_max_block_delay, group_reference FROM UpdateGroupTransactions WHERE signature = ?";
 
@@ -41,7 +45,26 @@ public class HSQLDBUpdateGroupTransactionRepository extends HSQLDBTransactionRep
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, group_id, new_owner, new_description, new_is_open, new_approval_threshold, new_min_block_delay, new_max_block_delay, group_reference FROM UpdateGroupTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			int groupId = resultSet.getInt(2);
+			String newOwner = resultSet.getString(3);
+			String newDescription = resultSet.getString(4);
+			boolean newIsOpen = resultSet.getBoolean(5);
+			ApprovalThreshold newApprovalThreshold = ApprovalThreshold.valueOf(resultSet.getInt(6));
+			int newMinBlockDelay = resultSet.getInt(7);
+			int newMaxBlockDelay = resultSet.getInt(8);
+			byte[] groupReference = resultSet.getBytes(9);
+
+			return new UpdateGroupTransactionData(baseTransactionData, groupId, newOwner, newDescription, newIsOpen,
+					newApprovalThreshold, newMinBlockDelay, newMaxBlockDelay, groupReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		UpdateGroupTransactionData updateGroupTransactionData = (UpdateGroupTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("UpdateGroupTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.BaseTransactionData;
 import org.qora.data.transaction.TransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.UpdateNameTransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBUpdateNameTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBUpdateNameTransactionRepository extends HSQLDBTransactionRepo
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT new_owner, name, new_data, name_reference FROM UpdateNameTransactions WHERE signature = ?";
 
@@ -35,7 +39,21 @@ public class HSQLDBUpdateNameTransactionRepository extends HSQLDBTransactionRepo
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, new_owner, name, new_data, name_reference FROM UpdateNameTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String newOwner = resultSet.getString(2);
+			String name = resultSet.getString(3);
+			String newData = resultSet.getString(4);
+			byte[] nameReference = resultSet.getBytes(5);
+
+			return new UpdateNameTransactionData(baseTransactionData, newOwner, name, newData, nameReference);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		UpdateNameTransactionData updateNameTransactionData = (UpdateNameTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("UpdateNameTransactions");
@@ -2,6 +2,8 @@ package org.qora.repository.hsqldb.transaction;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 
 import org.qora.data.transaction.BaseTransactionData;
 import org.qora.data.transaction.TransactionData;
@@ -9,6 +11,7 @@ import org.qora.data.transaction.VoteOnPollTransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.repository.hsqldb.HSQLDBSaver;
+import org.qora.utils.ByteArray;
 
 public class HSQLDBVoteOnPollTransactionRepository extends HSQLDBTransactionRepository {
 
@@ -16,6 +19,7 @@ public class HSQLDBVoteOnPollTransactionRepository extends HSQLDBTransactionRepo
 		this.repository = repository;
 	}
 
+	@Override
 	TransactionData fromBase(BaseTransactionData baseTransactionData) throws DataException {
 		String sql = "SELECT poll_name, option_index, previous_option_index FROM VoteOnPollTransactions WHERE signature = ?";
 
@@ -38,7 +42,24 @@ public class HSQLDBVoteOnPollTransactionRepository extends HSQLDBTransactionRepo
 	}
 
 	@Override
-	public void save(TransactionData transactionData) throws DataException {
+	List<TransactionData> fromBases(Map<ByteArray, BaseTransactionData> baseTransactionDatas) throws DataException {
+		String sql = "SELECT signature, poll_name, option_index, previous_option_index FROM VoteOnPollTransactions WHERE ";
+
+		return this.fromSubclassRows(sql, baseTransactionDatas, (baseTransactionData, resultSet) -> {
+			String pollName = resultSet.getString(2);
+			int optionIndex = resultSet.getInt(3);
+
+			// Special null-checking for previous option index
+			Integer previousOptionIndex = resultSet.getInt(4);
+			if (previousOptionIndex == 0 && resultSet.wasNull())
+				previousOptionIndex = null;
+
+			return new VoteOnPollTransactionData(baseTransactionData, pollName, optionIndex, previousOptionIndex);
+		});
+	}
+
+	@Override
+	void saveSubclass(TransactionData transactionData) throws DataException {
 		VoteOnPollTransactionData voteOnPollTransactionData = (VoteOnPollTransactionData) transactionData;
 
 		HSQLDBSaver saveHelper = new HSQLDBSaver("VoteOnPollTransactions");
@@ -78,6 +78,22 @@ public class Settings {
 	private int minOutboundPeers = 20;
 	/** Maximum number of peer connections we allow. */
 	private int maxPeers = 50;
+	/** Maximum number of outbound connections being established at the same time. */
+	private int maxConcurrentConnectAttempts = 5;
+	/** Maximum number of bytes queued for sending to a peer before that peer is disconnected. */
+	private int peerSendQueueHighWatermark = 16 * 1024 * 1024;
+	/** Peers with more than this number of bytes queued for sending are skipped by broadcasts, other than chain tip announcements. */
+	private int peerSendQueueLowWatermark = 4 * 1024 * 1024;
+	/** Maximum number of broadcast messages, other than chain tip announcements, sent to each peer per second, allowing bursts of the same size. */
+	private int peerBroadcastRate = 20;
+	/** Maximum number of block requests in flight while synchronizing. */
+	private int syncBlockWindow = 8;
+	/** Whether to also request blocks from other peers that share the same chain tip while synchronizing. */
+	private boolean syncFromMultiplePeers = true;
+	/** Maximum number of transaction requests in flight to each peer when fetching announced unconfirmed transactions. */
+	private int transactionFetchWindow = 16;
+	/** Maximum total size of recently used serialized blocks kept in memory for answering peers' block requests. (bytes) */
+	private int blockCacheMaxBytes = 16 * 1024 * 1024;
 
 	// Which blockchains this node is running
 	private String blockchainConfig = null; // use default from resources
@@ -88,6 +104,12 @@ public class Settings {
 	private Long slowQueryThreshold = null;
 	/** Repository storage path. */
 	private String repositoryPath = "db";
+	/**
+	 * Whether to also re-verify whole blockchain, in background, at start-up.
+	 * <p>
+	 * Start-up otherwise only checks blocks above last validation checkpoint.
+	 */
+	private boolean backgroundChainValidation = false;
 
 	// Auto-update sources
 	private String[] autoUpdateRepos = new String[] {
@@ -301,6 +323,38 @@ public class Settings {
 		return this.maxPeers;
 	}
 
+	public int getMaxConcurrentConnectAttempts() {
+		return this.maxConcurrentConnectAttempts;
+	}
+
+	public int getPeerSendQueueHighWatermark() {
+		return this.peerSendQueueHighWatermark;
+	}
+
+	public int getPeerSendQueueLowWatermark() {
+		return this.peerSendQueueLowWatermark;
+	}
+
+	public int getPeerBroadcastRate() {
+		return this.peerBroadcastRate;
+	}
+
+	public int getSyncBlockWindow() {
+		return this.syncBlockWindow;
+	}
+
+	public boolean isSyncFromMultiplePeers() {
+		return this.syncFromMultiplePeers;
+	}
+
+	public int getTransactionFetchWindow() {
+		return this.transactionFetchWindow;
+	}
+
+	public int getBlockCacheMaxBytes() {
+		return this.blockCacheMaxBytes;
+	}
+
 	public String getBlockchainConfig() {
 		return this.blockchainConfig;
 	}
@@ -317,6 +371,10 @@ public class Settings {
 		return this.repositoryPath;
 	}
 
+	public boolean isBackgroundChainValidation() {
+		return this.backgroundChainValidation;
+	}
+
 	public boolean isAutoUpdateEnabled() {
 		return this.autoUpdateEnabled;
 	}
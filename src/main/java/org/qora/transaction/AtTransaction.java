@@ -45,6 +45,10 @@ public class AtTransaction extends Transaction {
 				throw new RuntimeException("Couldn't transform AT Transaction into bytes", e);
 			}
 		}
+
+		// AT-Transactions are created locally, not via unconfirmed pile, so set missing approval status (AT-Transactions never need group-approval)
+		if (this.atTransactionData.getApprovalStatus() == null)
+			this.atTransactionData.setApprovalStatus(ApprovalStatus.NOT_REQUIRED);
 	}
 
 	// More information
@@ -49,6 +49,14 @@ public class DeployAtTransaction extends Transaction {
 		return new ArrayList<Account>();
 	}
 
+	/** Newly deployed AT's account is funded by this transaction so include it too */
+	@Override
+	public List<Account> getInvolvedAccounts() throws DataException {
+		List<Account> participants = super.getInvolvedAccounts();
+		participants.add(this.getATAccount());
+		return participants;
+	}
+
 	@Override
 	public boolean isInvolved(Account account) throws DataException {
 		String address = account.getAddress();
@@ -6,18 +6,19 @@ import java.math.MathContext;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
 
-import org.apache.logging.log4j.LogManager;
-import org.apache.logging.log4j.Logger;
 import org.qora.account.Account;
 import org.qora.account.PrivateKeyAccount;
 import org.qora.account.PublicKeyAccount;
 import org.qora.asset.Asset;
 import org.qora.block.BlockChain;
 import org.qora.controller.Controller;
+import org.qora.controller.Mempool;
 import org.qora.data.block.BlockData;
 import org.qora.data.group.GroupApprovalData;
 import org.qora.data.group.GroupData;
@@ -35,9 +36,6 @@ import org.qora.utils.NTP;
 import static java.util.Arrays.stream;
 import static java.util.stream.Collectors.toMap;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-
 public abstract class Transaction {
 
 	// Transaction types
@@ -86,8 +84,6 @@ public abstract class Transaction {
 		public final boolean needsApproval;
 		public final String valueString;
 		public final String className;
-		public final Class<?> clazz;
-		public final Constructor<?> constructor;
 
 		private final static Map<Integer, TransactionType> map = stream(TransactionType.values()).collect(toMap(type -> type.value, type -> type));
 
@@ -102,24 +98,6 @@ public abstract class Transaction {
 				classNameParts[i] = classNameParts[i].substring(0, 1).toUpperCase().concat(classNameParts[i].substring(1));
 
 			this.className = String.join("", classNameParts);
-
-			Class<?> clazz = null;
-			Constructor<?> constructor = null;
-
-			try {
-				clazz = Class.forName(String.join("", Transaction.class.getPackage().getName(), ".", this.className, "Transaction"));
-
-				try {
-					constructor = clazz.getConstructor(Repository.class, TransactionData.class);
-				} catch (NoSuchMethodException | SecurityException e) {
-					LOGGER.debug(String.format("Transaction subclass constructor not found for transaction type \"%s\"", this.name()));
-				}
-			} catch (ClassNotFoundException e) {
-				LOGGER.debug(String.format("Transaction subclass not found for transaction type \"%s\"", this.name()));
-			}
-
-			this.clazz = clazz;
-			this.constructor = constructor;
 		}
 
 		public static TransactionType valueOf(int value) {
@@ -252,7 +230,45 @@ public abstract class Transaction {
 		}
 	}
 
-	private static final Logger LOGGER = LogManager.getLogger(Transaction.class);
+	/** Transaction subclass constructors, keyed by transaction type */
+	private static final Map<TransactionType, BiFunction<Repository, TransactionData, Transaction>> factories = new EnumMap<>(TransactionType.class);
+	static {
+		factories.put(TransactionType.GENESIS, GenesisTransaction::new);
+		factories.put(TransactionType.PAYMENT, PaymentTransaction::new);
+		factories.put(TransactionType.REGISTER_NAME, RegisterNameTransaction::new);
+		factories.put(TransactionType.UPDATE_NAME, UpdateNameTransaction::new);
+		factories.put(TransactionType.SELL_NAME, SellNameTransaction::new);
+		factories.put(TransactionType.CANCEL_SELL_NAME, CancelSellNameTransaction::new);
+		factories.put(TransactionType.BUY_NAME, BuyNameTransaction::new);
+		factories.put(TransactionType.CREATE_POLL, CreatePollTransaction::new);
+		factories.put(TransactionType.VOTE_ON_POLL, VoteOnPollTransaction::new);
+		factories.put(TransactionType.ARBITRARY, ArbitraryTransaction::new);
+		factories.put(TransactionType.ISSUE_ASSET, IssueAssetTransaction::new);
+		factories.put(TransactionType.TRANSFER_ASSET, TransferAssetTransaction::new);
+		factories.put(TransactionType.CREATE_ASSET_ORDER, CreateAssetOrderTransaction::new);
+		factories.put(TransactionType.CANCEL_ASSET_ORDER, CancelAssetOrderTransaction::new);
+		factories.put(TransactionType.MULTI_PAYMENT, MultiPaymentTransaction::new);
+		factories.put(TransactionType.DEPLOY_AT, DeployAtTransaction::new);
+		factories.put(TransactionType.MESSAGE, MessageTransaction::new);
+		factories.put(TransactionType.AT, AtTransaction::new);
+		factories.put(TransactionType.CREATE_GROUP, CreateGroupTransaction::new);
+		factories.put(TransactionType.UPDATE_GROUP, UpdateGroupTransaction::new);
+		factories.put(TransactionType.ADD_GROUP_ADMIN, AddGroupAdminTransaction::new);
+		factories.put(TransactionType.REMOVE_GROUP_ADMIN, RemoveGroupAdminTransaction::new);
+		factories.put(TransactionType.GROUP_BAN, GroupBanTransaction::new);
+		factories.put(TransactionType.CANCEL_GROUP_BAN, CancelGroupBanTransaction::new);
+		factories.put(TransactionType.GROUP_KICK, GroupKickTransaction::new);
+		factories.put(TransactionType.GROUP_INVITE, GroupInviteTransaction::new);
+		factories.put(TransactionType.CANCEL_GROUP_INVITE, CancelGroupInviteTransaction::new);
+		factories.put(TransactionType.JOIN_GROUP, JoinGroupTransaction::new);
+		factories.put(TransactionType.LEAVE_GROUP, LeaveGroupTransaction::new);
+		factories.put(TransactionType.GROUP_APPROVAL, GroupApprovalTransaction::new);
+		factories.put(TransactionType.SET_GROUP, SetGroupTransaction::new);
+		factories.put(TransactionType.UPDATE_ASSET, UpdateAssetTransaction::new);
+		factories.put(TransactionType.ACCOUNT_FLAGS, AccountFlagsTransaction::new);
+		factories.put(TransactionType.ENABLE_FORGING, EnableForgingTransaction::new);
+		factories.put(TransactionType.PROXY_FORGING, ProxyForgingTransaction::new);
+	}
 
 	// Properties
 	protected Repository repository;
@@ -283,16 +299,11 @@ public abstract class Transaction {
 	public static Transaction fromData(Repository repository, TransactionData transactionData) {
 		TransactionType type = transactionData.getType();
 
-		try {
-			Constructor<?> constructor = type.constructor;
-
-			if (constructor == null)
-				throw new IllegalStateException("Unsupported transaction type [" + type.value + "] during fetch from repository");
+		BiFunction<Repository, TransactionData, Transaction> factory = factories.get(type);
+		if (factory == null)
+			throw new IllegalStateException("Unsupported transaction type [" + type.value + "] during fetch from repository");
 
-			return (Transaction) constructor.newInstance(repository, transactionData);
-		} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException | InstantiationException e) {
-			throw new IllegalStateException("Internal error with transaction type [" + type.value + "] during fetch from repository");
-		}
+		return factory.apply(repository, transactionData);
 	}
 
 	// Getters / Setters
@@ -616,18 +627,7 @@ public abstract class Transaction {
 	}
 
 	private int countUnconfirmedByCreator(PublicKeyAccount creator) throws DataException {
-		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
-
-		int count = 0;
-		for (TransactionData transactionData : unconfirmedTransactions) {
-			Transaction transaction = Transaction.fromData(repository, transactionData);
-			PublicKeyAccount otherCreator = transaction.getCreator();
-
-			if (Arrays.equals(creator.getPublicKey(), otherCreator.getPublicKey()))
-				++count;
-		}
-
-		return count;
+		return Mempool.getInstance().countByCreator(creator.getAddress());
 	}
 
 	/**
@@ -642,9 +642,8 @@ public abstract class Transaction {
 	public static List<TransactionData> getUnconfirmedTransactions(Repository repository) throws DataException {
 		BlockData latestBlockData = repository.getBlockRepository().getLastBlock();
 
-		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
-
-		unconfirmedTransactions.sort(getDataComparator());
+		// Already sorted
+		List<TransactionData> unconfirmedTransactions = Mempool.getInstance().getTransactions();
 
 		/*
 		 * We have to grab the blockchain lock because we're updating
@@ -692,11 +691,10 @@ public abstract class Transaction {
 	public static List<TransactionData> getInvalidTransactions(Repository repository) throws DataException {
 		BlockData latestBlockData = repository.getBlockRepository().getLastBlock();
 
-		List<TransactionData> unconfirmedTransactions = repository.getTransactionRepository().getUnconfirmedTransactions();
+		// Already sorted
+		List<TransactionData> unconfirmedTransactions = Mempool.getInstance().getTransactions();
 		List<TransactionData> invalidTransactions = new ArrayList<>();
 
-		unconfirmedTransactions.sort(getDataComparator());
-
 		/*
 		 * We have to grab the blockchain lock because we're updating
 		 * when we fake the creator's last reference,
@@ -759,15 +757,8 @@ public abstract class Transaction {
 			return false;
 
 		// Is transaction is past max approval period?
-		if (transaction.needsGroupApproval()) {
-			int txGroupId = transactionData.getTxGroupId();
-			GroupData groupData = repository.getGroupRepository().fromGroupId(txGroupId);
-
-			int creationBlockHeight = repository.getBlockRepository().getHeightFromTimestamp(transactionData.getTimestamp());
-			int currentBlockHeight = repository.getBlockRepository().getBlockchainHeight();
-			if (currentBlockHeight > creationBlockHeight + groupData.getMaximumBlockDelay())
-				return false;
-		}
+		if (transaction.hasGroupApprovalExpired())
+			return false;
 
 		// Check transaction is currently valid
 		if (transaction.isValid() != Transaction.ValidationResult.OK)
@@ -782,6 +773,24 @@ public abstract class Transaction {
 		return true;
 	}
 
+	/**
+	 * Returns whether transaction needs group-admin approval but has been unconfirmed
+	 * for longer than group's maximum approval delay.
+	 * 
+	 * @throws DataException
+	 */
+	public boolean hasGroupApprovalExpired() throws DataException {
+		if (!this.needsGroupApproval())
+			return false;
+
+		GroupData groupData = this.repository.getGroupRepository().fromGroupId(this.transactionData.getTxGroupId());
+
+		int creationBlockHeight = this.repository.getBlockRepository().getHeightFromTimestamp(this.transactionData.getTimestamp());
+		int currentBlockHeight = this.repository.getBlockRepository().getBlockchainHeight();
+
+		return currentBlockHeight > creationBlockHeight + groupData.getMaximumBlockDelay();
+	}
+
 	/**
 	 * Returns whether transaction needs to go through group-admin approval.
 	 * <p>
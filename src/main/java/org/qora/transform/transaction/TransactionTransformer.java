@@ -2,9 +2,6 @@ package org.qora.transform.transaction;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
@@ -105,74 +102,130 @@ public abstract class TransactionTransformer extends Transformer {
 		}
 	}
 
-	/** Container for cache of transformer subclass reflection info */
+	@FunctionalInterface
+	public interface Deserializer {
+		TransactionData fromByteBuffer(ByteBuffer byteBuffer) throws TransformationException;
+	}
+
+	@FunctionalInterface
+	public interface DataLengthCalculator {
+		int getDataLength(TransactionData transactionData) throws TransformationException;
+	}
+
+	@FunctionalInterface
+	public interface Serializer {
+		byte[] toBytes(TransactionData transactionData) throws TransformationException;
+	}
+
+	/** Transformer subclass's layout and static methods, for one transaction type */
 	public static class TransformerSubclassInfo {
-		public Class<?> clazz;
-		public TransactionLayout transactionLayout;
-		public Method fromByteBufferMethod;
-		public Method getDataLengthMethod;
-		public Method toBytesMethod;
-		public Method toBytesForSigningImplMethod;
+		public final TransactionLayout transactionLayout;
+		public final Deserializer deserializer;
+		public final DataLengthCalculator dataLengthCalculator;
+		public final Serializer serializer;
+		public final Serializer signingSerializer;
+
+		public TransformerSubclassInfo(TransactionLayout transactionLayout, Deserializer deserializer, DataLengthCalculator dataLengthCalculator,
+				Serializer serializer, Serializer signingSerializer) {
+			this.transactionLayout = transactionLayout;
+			this.deserializer = deserializer;
+			this.dataLengthCalculator = dataLengthCalculator;
+			this.serializer = serializer;
+			this.signingSerializer = signingSerializer;
+		}
 	}
 
-	/** Cache of transformer subclass info, keyed by transaction type */
-	private static final TransformerSubclassInfo[] subclassInfos;
+	/**
+	 * Transformer subclass info, indexed by transaction type value.
+	 * <p>
+	 * Built once, using method references instead of reflection, so calls can be inlined.
+	 */
+	private static final TransformerSubclassInfo[] subclassInfos = new TransformerSubclassInfo[TransactionType.values().length + 1];
 	static {
-		subclassInfos = new TransformerSubclassInfo[TransactionType.values().length + 1];
-
-		for (TransactionType txType : TransactionType.values()) {
-			TransformerSubclassInfo subclassInfo = new TransformerSubclassInfo();
-
-			try {
-				subclassInfo.clazz = Class
-						.forName(String.join("", TransactionTransformer.class.getPackage().getName(), ".", txType.className, "TransactionTransformer"));
-			} catch (ClassNotFoundException e) {
-				LOGGER.debug(String.format("TransactionTransformer subclass not found for transaction type \"%s\"", txType.name()));
-				continue;
-			}
-
-			try {
-				Field layoutField = subclassInfo.clazz.getDeclaredField("layout");
-				subclassInfo.transactionLayout = ((TransactionLayout) layoutField.get(null));
-			} catch (IllegalAccessException | IllegalArgumentException | NoSuchFieldException | SecurityException e) {
-				LOGGER.debug(String.format("TransactionTransformer subclass's \"layout\" field not found for transaction type \"%s\"", txType.name()));
-			}
-
-			try {
-				subclassInfo.fromByteBufferMethod = subclassInfo.clazz.getDeclaredMethod("fromByteBuffer", ByteBuffer.class);
-			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
-				LOGGER.debug(String.format("TransactionTransformer subclass's \"fromByteBuffer\" method not found for transaction type \"%s\"", txType.name()));
-			}
-
-			try {
-				subclassInfo.getDataLengthMethod = subclassInfo.clazz.getDeclaredMethod("getDataLength", TransactionData.class);
-			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
-				LOGGER.debug(String.format("TransactionTransformer subclass's \"getDataLength\" method not found for transaction type \"%s\"", txType.name()));
-			}
-
-			try {
-				subclassInfo.toBytesMethod = subclassInfo.clazz.getDeclaredMethod("toBytes", TransactionData.class);
-			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
-				LOGGER.debug(String.format("TransactionTransformer subclass's \"toBytes\" method not found for transaction type \"%s\"", txType.name()));
-			}
-
-			try {
-				Class<?> transformerClass = subclassInfo.clazz;
-
-				// Check method is actually declared in transformer, otherwise we have to call superclass version
-				if (Arrays.asList(transformerClass.getDeclaredMethods()).stream().noneMatch(method -> method.getName().equals("toBytesForSigningImpl")))
-					transformerClass = transformerClass.getSuperclass();
-
-				subclassInfo.toBytesForSigningImplMethod = transformerClass.getDeclaredMethod("toBytesForSigningImpl", TransactionData.class);
-			} catch (IllegalArgumentException | SecurityException | NoSuchMethodException e) {
-				LOGGER.debug(String.format("TransactionTransformer subclass's \"toBytesFromSigningImp\" method not found for transaction type \"%s\"",
-						txType.name()));
-			}
-
-			subclassInfos[txType.value] = subclassInfo;
-		}
+		register(TransactionType.GENESIS, GenesisTransactionTransformer.layout, GenesisTransactionTransformer::fromByteBuffer, GenesisTransactionTransformer::getDataLength,
+				GenesisTransactionTransformer::toBytes, GenesisTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.PAYMENT, PaymentTransactionTransformer.layout, PaymentTransactionTransformer::fromByteBuffer, PaymentTransactionTransformer::getDataLength,
+				PaymentTransactionTransformer::toBytes, PaymentTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.REGISTER_NAME, RegisterNameTransactionTransformer.layout, RegisterNameTransactionTransformer::fromByteBuffer, RegisterNameTransactionTransformer::getDataLength,
+				RegisterNameTransactionTransformer::toBytes, RegisterNameTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.UPDATE_NAME, UpdateNameTransactionTransformer.layout, UpdateNameTransactionTransformer::fromByteBuffer, UpdateNameTransactionTransformer::getDataLength,
+				UpdateNameTransactionTransformer::toBytes, UpdateNameTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.SELL_NAME, SellNameTransactionTransformer.layout, SellNameTransactionTransformer::fromByteBuffer, SellNameTransactionTransformer::getDataLength,
+				SellNameTransactionTransformer::toBytes, SellNameTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CANCEL_SELL_NAME, CancelSellNameTransactionTransformer.layout, CancelSellNameTransactionTransformer::fromByteBuffer, CancelSellNameTransactionTransformer::getDataLength,
+				CancelSellNameTransactionTransformer::toBytes, CancelSellNameTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.BUY_NAME, BuyNameTransactionTransformer.layout, BuyNameTransactionTransformer::fromByteBuffer, BuyNameTransactionTransformer::getDataLength,
+				BuyNameTransactionTransformer::toBytes, BuyNameTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CREATE_POLL, CreatePollTransactionTransformer.layout, CreatePollTransactionTransformer::fromByteBuffer, CreatePollTransactionTransformer::getDataLength,
+				CreatePollTransactionTransformer::toBytes, CreatePollTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.VOTE_ON_POLL, VoteOnPollTransactionTransformer.layout, VoteOnPollTransactionTransformer::fromByteBuffer, VoteOnPollTransactionTransformer::getDataLength,
+				VoteOnPollTransactionTransformer::toBytes, VoteOnPollTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.ARBITRARY, ArbitraryTransactionTransformer.layout, ArbitraryTransactionTransformer::fromByteBuffer, ArbitraryTransactionTransformer::getDataLength,
+				ArbitraryTransactionTransformer::toBytes, ArbitraryTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.ISSUE_ASSET, IssueAssetTransactionTransformer.layout, IssueAssetTransactionTransformer::fromByteBuffer, IssueAssetTransactionTransformer::getDataLength,
+				IssueAssetTransactionTransformer::toBytes, IssueAssetTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.TRANSFER_ASSET, TransferAssetTransactionTransformer.layout, TransferAssetTransactionTransformer::fromByteBuffer, TransferAssetTransactionTransformer::getDataLength,
+				TransferAssetTransactionTransformer::toBytes, TransferAssetTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CREATE_ASSET_ORDER, CreateAssetOrderTransactionTransformer.layout, CreateAssetOrderTransactionTransformer::fromByteBuffer, CreateAssetOrderTransactionTransformer::getDataLength,
+				CreateAssetOrderTransactionTransformer::toBytes, CreateAssetOrderTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CANCEL_ASSET_ORDER, CancelAssetOrderTransactionTransformer.layout, CancelAssetOrderTransactionTransformer::fromByteBuffer, CancelAssetOrderTransactionTransformer::getDataLength,
+				CancelAssetOrderTransactionTransformer::toBytes, CancelAssetOrderTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.MULTI_PAYMENT, MultiPaymentTransactionTransformer.layout, MultiPaymentTransactionTransformer::fromByteBuffer, MultiPaymentTransactionTransformer::getDataLength,
+				MultiPaymentTransactionTransformer::toBytes, MultiPaymentTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.DEPLOY_AT, DeployAtTransactionTransformer.layout, DeployAtTransactionTransformer::fromByteBuffer, DeployAtTransactionTransformer::getDataLength,
+				DeployAtTransactionTransformer::toBytes, DeployAtTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.MESSAGE, MessageTransactionTransformer.layout, MessageTransactionTransformer::fromByteBuffer, MessageTransactionTransformer::getDataLength,
+				MessageTransactionTransformer::toBytes, MessageTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.AT, AtTransactionTransformer.layout, AtTransactionTransformer::fromByteBuffer, AtTransactionTransformer::getDataLength,
+				AtTransactionTransformer::toBytes, AtTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CREATE_GROUP, CreateGroupTransactionTransformer.layout, CreateGroupTransactionTransformer::fromByteBuffer, CreateGroupTransactionTransformer::getDataLength,
+				CreateGroupTransactionTransformer::toBytes, CreateGroupTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.UPDATE_GROUP, UpdateGroupTransactionTransformer.layout, UpdateGroupTransactionTransformer::fromByteBuffer, UpdateGroupTransactionTransformer::getDataLength,
+				UpdateGroupTransactionTransformer::toBytes, UpdateGroupTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.ADD_GROUP_ADMIN, AddGroupAdminTransactionTransformer.layout, AddGroupAdminTransactionTransformer::fromByteBuffer, AddGroupAdminTransactionTransformer::getDataLength,
+				AddGroupAdminTransactionTransformer::toBytes, AddGroupAdminTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.REMOVE_GROUP_ADMIN, RemoveGroupAdminTransactionTransformer.layout, RemoveGroupAdminTransactionTransformer::fromByteBuffer, RemoveGroupAdminTransactionTransformer::getDataLength,
+				RemoveGroupAdminTransactionTransformer::toBytes, RemoveGroupAdminTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.GROUP_BAN, GroupBanTransactionTransformer.layout, GroupBanTransactionTransformer::fromByteBuffer, GroupBanTransactionTransformer::getDataLength,
+				GroupBanTransactionTransformer::toBytes, GroupBanTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CANCEL_GROUP_BAN, CancelGroupBanTransactionTransformer.layout, CancelGroupBanTransactionTransformer::fromByteBuffer, CancelGroupBanTransactionTransformer::getDataLength,
+				CancelGroupBanTransactionTransformer::toBytes, CancelGroupBanTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.GROUP_KICK, GroupKickTransactionTransformer.layout, GroupKickTransactionTransformer::fromByteBuffer, GroupKickTransactionTransformer::getDataLength,
+				GroupKickTransactionTransformer::toBytes, GroupKickTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.GROUP_INVITE, GroupInviteTransactionTransformer.layout, GroupInviteTransactionTransformer::fromByteBuffer, GroupInviteTransactionTransformer::getDataLength,
+				GroupInviteTransactionTransformer::toBytes, GroupInviteTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.CANCEL_GROUP_INVITE, CancelGroupInviteTransactionTransformer.layout, CancelGroupInviteTransactionTransformer::fromByteBuffer, CancelGroupInviteTransactionTransformer::getDataLength,
+				CancelGroupInviteTransactionTransformer::toBytes, CancelGroupInviteTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.JOIN_GROUP, JoinGroupTransactionTransformer.layout, JoinGroupTransactionTransformer::fromByteBuffer, JoinGroupTransactionTransformer::getDataLength,
+				JoinGroupTransactionTransformer::toBytes, JoinGroupTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.LEAVE_GROUP, LeaveGroupTransactionTransformer.layout, LeaveGroupTransactionTransformer::fromByteBuffer, LeaveGroupTransactionTransformer::getDataLength,
+				LeaveGroupTransactionTransformer::toBytes, LeaveGroupTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.GROUP_APPROVAL, GroupApprovalTransactionTransformer.layout, GroupApprovalTransactionTransformer::fromByteBuffer, GroupApprovalTransactionTransformer::getDataLength,
+				GroupApprovalTransactionTransformer::toBytes, GroupApprovalTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.SET_GROUP, SetGroupTransactionTransformer.layout, SetGroupTransactionTransformer::fromByteBuffer, SetGroupTransactionTransformer::getDataLength,
+				SetGroupTransactionTransformer::toBytes, SetGroupTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.UPDATE_ASSET, UpdateAssetTransactionTransformer.layout, UpdateAssetTransactionTransformer::fromByteBuffer, UpdateAssetTransactionTransformer::getDataLength,
+				UpdateAssetTransactionTransformer::toBytes, UpdateAssetTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.ACCOUNT_FLAGS, AccountFlagsTransactionTransformer.layout, AccountFlagsTransactionTransformer::fromByteBuffer, AccountFlagsTransactionTransformer::getDataLength,
+				AccountFlagsTransactionTransformer::toBytes, AccountFlagsTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.ENABLE_FORGING, EnableForgingTransactionTransformer.layout, EnableForgingTransactionTransformer::fromByteBuffer, EnableForgingTransactionTransformer::getDataLength,
+				EnableForgingTransactionTransformer::toBytes, EnableForgingTransactionTransformer::toBytesForSigningImpl);
+		register(TransactionType.PROXY_FORGING, ProxyForgingTransactionTransformer.layout, ProxyForgingTransactionTransformer::fromByteBuffer, ProxyForgingTransactionTransformer::getDataLength,
+				ProxyForgingTransactionTransformer::toBytes, ProxyForgingTransactionTransformer::toBytesForSigningImpl);
+	}
+
+	private static void register(TransactionType txType, TransactionLayout transactionLayout, Deserializer deserializer,
+			DataLengthCalculator dataLengthCalculator, Serializer serializer, Serializer signingSerializer) {
+		subclassInfos[txType.value] = new TransformerSubclassInfo(transactionLayout, deserializer, dataLengthCalculator, serializer, signingSerializer);
+	}
+
+	private static TransformerSubclassInfo getSubclassInfo(TransactionType type, String action) throws TransformationException {
+		TransformerSubclassInfo subclassInfo = subclassInfos[type.value];
+
+		if (subclassInfo == null)
+			throw new TransformationException("Unsupported transaction type [" + type.value + "] " + action);
 
-		LOGGER.trace("Static init reflection completed");
+		return subclassInfo;
 	}
 
 	public static List<Transformation> getLayoutByTxType(TransactionType txType) {
@@ -187,7 +240,7 @@ public abstract class TransactionTransformer extends Transformer {
 		if (bytes == null)
 			return null;
 
-		LOGGER.trace("tx hex: " + HashCode.fromBytes(bytes).toString());
+		LOGGER.trace(() -> "tx hex: " + HashCode.fromBytes(bytes).toString());
 
 		ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
 
@@ -202,22 +255,14 @@ public abstract class TransactionTransformer extends Transformer {
 		if (type == null)
 			return null;
 
-		Method method = subclassInfos[type.value].fromByteBufferMethod;
-		if (method == null)
-			throw new TransformationException("Unsupported transaction type [" + type.value + "] during conversion from bytes");
+		Deserializer deserializer = getSubclassInfo(type, "during conversion from bytes").deserializer;
 
 		try {
-			return (TransactionData) method.invoke(null, byteBuffer);
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof BufferUnderflowException)
-				throw new TransformationException("Byte data too short for " + type.name() + " transaction (type [" + type.value + "])");
-
-			if (e.getCause() instanceof TransformationException)
-				throw (TransformationException) e.getCause();
-
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion from bytes");
-		} catch (IllegalAccessException | IllegalArgumentException e) {
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion from bytes");
+			return deserializer.fromByteBuffer(byteBuffer);
+		} catch (BufferUnderflowException e) {
+			throw new TransformationException("Byte data too short for " + type.name() + " transaction (type [" + type.value + "])");
+		} catch (RuntimeException e) {
+			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion from bytes", e);
 		}
 	}
 
@@ -234,32 +279,24 @@ public abstract class TransactionTransformer extends Transformer {
 	public static int getDataLength(TransactionData transactionData) throws TransformationException {
 		TransactionType type = transactionData.getType();
 
+		DataLengthCalculator dataLengthCalculator = getSubclassInfo(type, "when requesting byte length").dataLengthCalculator;
+
 		try {
-			Method method = subclassInfos[type.value].getDataLengthMethod;
-			return (int) method.invoke(null, transactionData);
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof TransformationException)
-				throw (TransformationException) e.getCause();
-
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] when requesting byte length");
-		} catch (IllegalAccessException | IllegalArgumentException e) {
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] when requesting byte length");
+			return dataLengthCalculator.getDataLength(transactionData);
+		} catch (RuntimeException e) {
+			throw new TransformationException("Internal error with transaction type [" + type.value + "] when requesting byte length", e);
 		}
 	}
 
 	public static byte[] toBytes(TransactionData transactionData) throws TransformationException {
 		TransactionType type = transactionData.getType();
 
+		Serializer serializer = getSubclassInfo(type, "during conversion to bytes").serializer;
+
 		try {
-			Method method = subclassInfos[type.value].toBytesMethod;
-			return (byte[]) method.invoke(null, transactionData);
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof TransformationException)
-				throw (TransformationException) e.getCause();
-
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion to bytes");
-		} catch (IllegalAccessException | IllegalArgumentException  e) {
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion to bytes");
+			return serializer.toBytes(transactionData);
+		} catch (RuntimeException e) {
+			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion to bytes", e);
 		}
 	}
 
@@ -275,16 +312,12 @@ public abstract class TransactionTransformer extends Transformer {
 	public static byte[] toBytesForSigning(TransactionData transactionData) throws TransformationException {
 		TransactionType type = transactionData.getType();
 
+		Serializer signingSerializer = getSubclassInfo(type, "during conversion to bytes for signing").signingSerializer;
+
 		try {
-			Method method = subclassInfos[type.value].toBytesForSigningImplMethod;
-			return (byte[]) method.invoke(null, transactionData);
-		} catch (InvocationTargetException e) {
-			if (e.getCause() instanceof TransformationException)
-				throw (TransformationException) e.getCause();
-
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion to bytes for signing");
-		} catch (IllegalAccessException | IllegalArgumentException e) {
-			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion to bytes for signing");
+			return signingSerializer.toBytes(transactionData);
+		} catch (RuntimeException e) {
+			throw new TransformationException("Internal error with transaction type [" + type.value + "] during conversion to bytes for signing", e);
 		}
 	}
 
@@ -0,0 +1,70 @@
+package org.qora.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Allocation-free arithmetic on amounts held as unscaled <tt>long</tt>s, i.e. in units of 0.00000001.
+ * <p>
+ * Amounts are serialized as 8-byte unscaled values, and stored in repository to 8 decimal places,
+ * so every valid amount fits. Arithmetic is overflow-checked, throwing <tt>ArithmeticException</tt>
+ * like {@link Math#addExact(long, long)}, so results always match <tt>BigDecimal</tt> equivalents.
+ */
+public class Amount {
+
+	/** Number of decimal places. */
+	public static final int SCALE = 8;
+
+	/** Unscaled value of 1. */
+	public static final long ONE = 100_000_000L;
+
+	private Amount() {
+	}
+
+	/**
+	 * Returns unscaled value of <tt>amount</tt>.
+	 *
+	 * @throws ArithmeticException
+	 *             if <tt>amount</tt> has more than {@link #SCALE} decimal places, or is too large
+	 */
+	public static long fromBigDecimal(BigDecimal amount) {
+		if (amount.scale() == SCALE)
+			return amount.unscaledValue().longValueExact();
+
+		return amount.setScale(SCALE).unscaledValue().longValueExact();
+	}
+
+	/** Returns <tt>amount</tt> as BigDecimal with scale {@link #SCALE}. */
+	public static BigDecimal toBigDecimal(long amount) {
+		return BigDecimal.valueOf(amount, SCALE);
+	}
+
+	/** Returns <tt>a + b</tt>, throwing <tt>ArithmeticException</tt> on overflow. */
+	public static long add(long a, long b) {
+		return Math.addExact(a, b);
+	}
+
+	/** Returns <tt>a - b</tt>, throwing <tt>ArithmeticException</tt> on overflow. */
+	public static long subtract(long a, long b) {
+		return Math.subtractExact(a, b);
+	}
+
+	/**
+	 * Returns <tt>amount * price</tt>, rounded towards zero to {@link #SCALE} decimal places.
+	 * <p>
+	 * Same as <tt>amount.multiply(price).setScale(8, RoundingMode.DOWN)</tt> using BigDecimals.
+	 *
+	 * @throws ArithmeticException
+	 *             if result is too large
+	 */
+	public static long multiply(long amount, long price) {
+		try {
+			// Integer division also rounds towards zero
+			return Math.multiplyExact(amount, price) / ONE;
+		} catch (ArithmeticException e) {
+			// Intermediate product too large, but result might still fit
+			return fromBigDecimal(toBigDecimal(amount).multiply(toBigDecimal(price)).setScale(SCALE, RoundingMode.DOWN));
+		}
+	}
+
+}
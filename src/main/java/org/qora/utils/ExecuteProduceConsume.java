@@ -1,24 +1,61 @@
 package org.qora.utils;
 
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Thread pool that produces tasks and consumes (performs) them using the same threads.
+ * <p>
+ * Tasks come from two places:
+ * <ul>
+ * <li>a lock-free ready queue, fed by {@link #submitTask(Task)} from any thread</li>
+ * <li>{@link #produceTask(boolean)}, called by at most one thread at a time</li>
+ * </ul>
+ * Threads take from the ready queue without any locking, so a slow producer doesn't hold up
+ * threads looking for work. Only one thread produces at a time - others park until
+ * woken by a task submission, or until their idle period expires.
+ * <p>
+ * Whenever a thread starts performing a task, another thread is woken, or spawned,
+ * so there's always a thread available to produce.
+ */
 public abstract class ExecuteProduceConsume implements Runnable {
 
+	/** How long an idle thread parks before checking for work again, or exiting if surplus. */
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1000L);
+	/** Number of recent task latencies kept for reporting. */
+	private static final int TASK_LATENCY_SAMPLES = 1000;
+
 	private final String className;
 	private final Logger logger;
 
 	private ExecutorService executor;
-	private int activeThreadCount = 0;
-	private int greatestActiveThreadCount = 0;
-	private int consumerCount = 0;
 
-	private boolean hasThreadPending = false;
+	private final AtomicInteger activeThreadCount = new AtomicInteger();
+	private final AtomicInteger greatestActiveThreadCount = new AtomicInteger();
+	private final AtomicInteger consumerCount = new AtomicInteger();
+	private final AtomicLong spawnedThreadCount = new AtomicLong();
+
+	private final AtomicBoolean hasThreadPending = new AtomicBoolean();
+	private final AtomicBoolean isProducing = new AtomicBoolean();
+
+	private final ConcurrentLinkedQueue<QueuedTask> readyQueue = new ConcurrentLinkedQueue<>();
+	/** Size of readyQueue, as ConcurrentLinkedQueue.size() isn't constant-time. */
+	private final AtomicInteger queueDepth = new AtomicInteger();
+	private final ConcurrentLinkedDeque<Thread> idleThreads = new ConcurrentLinkedDeque<>();
+
+	/** Time from task submission until a thread starts performing it, in microseconds. */
+	private final LatencyStats taskLatencies = new LatencyStats(TASK_LATENCY_SAMPLES);
 
 	public ExecuteProduceConsume(ExecutorService executor) {
 		className = this.getClass().getSimpleName();
@@ -32,7 +69,7 @@ public abstract class ExecuteProduceConsume implements Runnable {
 	}
 
 	public void start() {
-		executor.execute(this);
+		this.spawnThread();
 	}
 
 	public void shutdown() {
@@ -44,21 +81,49 @@ public abstract class ExecuteProduceConsume implements Runnable {
 		return executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
 	}
 
+	// Metrics
+
 	public int getActiveThreadCount() {
-		synchronized (this) {
-			return activeThreadCount;
-		}
+		return activeThreadCount.get();
 	}
 
 	public int getGreatestActiveThreadCount() {
-		synchronized (this) {
-			return greatestActiveThreadCount;
-		}
+		return greatestActiveThreadCount.get();
+	}
+
+	/** Returns number of threads parked waiting for work. */
+	public int getIdleThreadCount() {
+		return idleThreads.size();
+	}
+
+	/** Returns total number of threads spawned since start. */
+	public long getSpawnedThreadCount() {
+		return spawnedThreadCount.get();
+	}
+
+	/** Returns number of submitted tasks not yet picked up by a thread. */
+	public int getQueueDepth() {
+		return queueDepth.get();
 	}
 
+	/**
+	 * Returns recent task latencies, in microseconds, at passed percentiles.
+	 * <p>
+	 * Latency is measured from {@link #submitTask(Task)} until a thread starts performing task.
+	 *
+	 * @return latencies in same order as <tt>percentiles</tt>, or null if no tasks submitted yet
+	 */
+	public long[] getTaskLatencyPercentiles(double... percentiles) {
+		return taskLatencies.getPercentiles(percentiles);
+	}
+
+	// Tasks
+
 	/**
 	 * Returns a Task to be performed, possibly blocking.
-	 * 
+	 * <p>
+	 * Only called by one thread at a time.
+	 *
 	 * @param canBlock
 	 * @return task to be performed, or null if no task pending.
 	 * @throws InterruptedException
@@ -70,93 +135,185 @@ public abstract class ExecuteProduceConsume implements Runnable {
 		public abstract void perform() throws InterruptedException;
 	}
 
+	private static class QueuedTask {
+		private final Task task;
+		private final long queuedNanos;
+
+		public QueuedTask(Task task) {
+			this.task = task;
+			this.queuedNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Adds task to ready queue, to be performed by next available thread.
+	 * <p>
+	 * Can be called from any thread, including while producing.
+	 */
+	public void submitTask(Task task) {
+		readyQueue.offer(new QueuedTask(task));
+		queueDepth.incrementAndGet();
+
+		this.wakeOrSpawnThread();
+	}
+
+	private Task pollReadyTask() {
+		QueuedTask queuedTask = readyQueue.poll();
+		if (queuedTask == null)
+			return null;
+
+		queueDepth.decrementAndGet();
+		taskLatencies.record((System.nanoTime() - queuedTask.queuedNanos) / 1000L);
+
+		return queuedTask.task;
+	}
+
+	// Threads
+
+	private void wakeOrSpawnThread() {
+		Thread idleThread = idleThreads.poll();
+		if (idleThread != null) {
+			LockSupport.unpark(idleThread);
+			return;
+		}
+
+		this.spawnThread();
+	}
+
+	private void spawnThread() {
+		// Only one thread pending at a time to prevent unnecessary threads waiting to produce
+		if (!hasThreadPending.compareAndSet(false, true))
+			return;
+
+		try {
+			executor.execute(this); // Same object, different thread
+		} catch (RejectedExecutionException e) {
+			// Shutting down
+			hasThreadPending.set(false);
+		}
+	}
+
+	/** Decrements active thread count, but only if there would still be a thread able to produce. */
+	private boolean tryRetireThread() {
+		while (true) {
+			int activeCount = activeThreadCount.get();
+
+			if (activeCount <= consumerCount.get() + 1)
+				return false;
+
+			if (activeThreadCount.compareAndSet(activeCount, activeCount - 1))
+				return true;
+		}
+	}
+
 	@Override
 	public void run() {
 		Thread.currentThread().setName(className + "-" + Thread.currentThread().getId());
 
-		boolean wasThreadPending;
-		synchronized (this) {
-			++activeThreadCount;
-			if (activeThreadCount > greatestActiveThreadCount)
-				greatestActiveThreadCount = activeThreadCount;
+		final int activeCount = activeThreadCount.incrementAndGet();
+		greatestActiveThreadCount.accumulateAndGet(activeCount, Math::max);
+		spawnedThreadCount.incrementAndGet();
+		hasThreadPending.set(false);
 
-			logger.trace(() -> String.format("[%d] started, hasThreadPending was: %b, activeThreadCount now: %d",
-					Thread.currentThread().getId(), hasThreadPending, activeThreadCount));
-
-			// Defer clearing hasThreadPending to prevent unnecessary threads waiting to produce...
-			wasThreadPending = hasThreadPending;
-		}
+		logger.trace(() -> String.format("[%d] started, activeThreadCount now: %d", Thread.currentThread().getId(), activeCount));
 
 		try {
 			boolean canBlock = false;
 
 			while (true) {
-				final Task task;
+				if (Thread.currentThread().isInterrupted())
+					throw new InterruptedException();
 
-				logger.trace(() -> String.format("[%d] waiting to produce...", Thread.currentThread().getId()));
+				Task task = pollReadyTask();
 
-				synchronized (this) {
-					if (wasThreadPending) {
-						// Clear thread-pending flag now that we about to produce.
-						hasThreadPending = false;
-						wasThreadPending = false;
-					}
-
-					final boolean lambdaCanIdle = canBlock;
+				if (task == null && isProducing.compareAndSet(false, true)) {
+					final boolean lambdaCanBlock = canBlock;
 					logger.trace(() -> String.format("[%d] producing, activeThreadCount: %d, consumerCount: %d, canBlock is %b...",
-							Thread.currentThread().getId(), activeThreadCount, consumerCount, lambdaCanIdle));
+							Thread.currentThread().getId(), activeThreadCount.get(), consumerCount.get(), lambdaCanBlock));
 
-					final long now = System.currentTimeMillis();
-					task = produceTask(canBlock);
-					final long delay = System.currentTimeMillis() - now;
-					logger.trace(() -> String.format("[%d] producing took %dms", Thread.currentThread().getId(), delay));
-				}
-
-				if (task == null)
-					synchronized (this) {
-						logger.trace(() -> String.format("[%d] no task, activeThreadCount: %d, consumerCount: %d",
-								Thread.currentThread().getId(), activeThreadCount, consumerCount));
+					try {
+						task = produceTask(canBlock);
+					} finally {
+						isProducing.set(false);
+					}
 
-						if (activeThreadCount > consumerCount + 1) {
-							--activeThreadCount;
-							logger.trace(() -> String.format("[%d] ending, activeThreadCount now: %d", Thread.currentThread().getId(), activeThreadCount));
-							break;
-						}
+					// Producing might have submitted tasks
+					if (task == null)
+						task = pollReadyTask();
 
-						// We're the last surviving thread - producer can afford to block next round
+					if (task == null) {
+						// Next round, producer can afford to block
 						canBlock = true;
+						continue;
+					}
+				}
 
+				if (task == null) {
+					// Another thread is producing, so park until woken or idle period expires
+					if (this.parkIdle())
 						continue;
+
+					if (tryRetireThread()) {
+						logger.trace(() -> String.format("[%d] ending, activeThreadCount now: %d", Thread.currentThread().getId(), activeThreadCount.get()));
+						return;
 					}
 
+					continue;
+				}
+
 				// We have a task
 
-				synchronized (this) {
-					++consumerCount;
+				consumerCount.incrementAndGet();
 
-					if (!hasThreadPending) {
-						logger.trace(() -> String.format("[%d] spawning another thread", Thread.currentThread().getId()));
-						hasThreadPending = true;
-						executor.execute(this); // Same object, different thread
-					}
-				}
+				// Make sure another thread can produce, or take ready tasks, while we perform this one
+				this.wakeOrSpawnThread();
 
 				logger.trace(() -> String.format("[%d] performing task...", Thread.currentThread().getId()));
-				task.perform(); // This can block for a while
+				try {
+					task.perform(); // This can block for a while
+				} finally {
+					consumerCount.decrementAndGet();
+				}
 				logger.trace(() -> String.format("[%d] finished task", Thread.currentThread().getId()));
 
-				synchronized (this) {
-					--consumerCount;
-
-					// Quicker, non-blocking produce next round
-					canBlock = false;
-				}
+				// Quicker, non-blocking produce next round
+				canBlock = false;
 			}
 		} catch (InterruptedException | RejectedExecutionException e) {
 			// We're in shutdown situation so exit
+			activeThreadCount.decrementAndGet();
+		} catch (RuntimeException | Error e) {
+			activeThreadCount.decrementAndGet();
+			throw e;
 		} finally {
 			Thread.currentThread().setName(className + "-dormant");
 		}
 	}
 
+	/**
+	 * Parks current thread until a task is submitted or idle period expires.
+	 *
+	 * @return true if woken by task submission, false if idle period expired
+	 * @throws InterruptedException
+	 */
+	private boolean parkIdle() throws InterruptedException {
+		final Thread thread = Thread.currentThread();
+
+		idleThreads.push(thread);
+
+		// Recheck in case a task was submitted before we were visible as idle
+		if (!readyQueue.isEmpty()) {
+			idleThreads.remove(thread);
+			return true;
+		}
+
+		LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+
+		if (Thread.interrupted())
+			throw new InterruptedException();
+
+		// If we're no longer on idle list then a submitter woke us
+		return !idleThreads.remove(thread);
+	}
+
 }
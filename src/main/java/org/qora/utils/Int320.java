@@ -0,0 +1,142 @@
+package org.qora.utils;
+
+import java.math.BigInteger;
+
+/**
+ * Allocation-free arithmetic on 320-bit two's-complement integers, held in caller-supplied <tt>long[]</tt>s.
+ * <p>
+ * Values are stored as {@link #LIMBS} 64-bit limbs, least-significant limb first.
+ * 320 bits is enough to hold differences of 256-bit values, and sums of very many such differences,
+ * without overflow.
+ * <p>
+ * Unless stated otherwise, passed arrays can be the same array.
+ */
+public class Int320 {
+
+	/** Number of <tt>long</tt>s needed to hold one value. */
+	public static final int LIMBS = 5;
+
+	private static final int BYTES = LIMBS * Long.BYTES;
+
+	private Int320() {
+	}
+
+	/** Returns new zero-valued integer. */
+	public static long[] zero() {
+		return new long[LIMBS];
+	}
+
+	/** Sets <tt>value</tt> to zero. */
+	public static void clear(long[] value) {
+		for (int i = 0; i < LIMBS; ++i)
+			value[i] = 0L;
+	}
+
+	/** Copies <tt>source</tt> into <tt>destination</tt>. */
+	public static void copy(long[] source, long[] destination) {
+		System.arraycopy(source, 0, destination, 0, LIMBS);
+	}
+
+	/**
+	 * Sets <tt>result</tt> to 32-byte, big-endian, two's-complement <tt>bytes</tt>,
+	 * i.e. same value as <tt>new BigInteger(bytes)</tt>.
+	 */
+	public static void fromSigned256(byte[] bytes, long[] result) {
+		if (bytes.length != 32)
+			throw new IllegalArgumentException("Expected 32 bytes");
+
+		for (int li = 0; li < 4; ++li) {
+			long limb = 0L;
+
+			// Limb 0 comes from last 8 bytes
+			final int offset = 32 - (li + 1) * 8;
+			for (int bi = 0; bi < 8; ++bi)
+				limb = (limb << 8) | (bytes[offset + bi] & 0xffL);
+
+			result[li] = limb;
+		}
+
+		// Sign extension
+		result[4] = bytes[0] < 0 ? -1L : 0L;
+	}
+
+	/** Sets <tt>result</tt> to <tt>|a - b|</tt>. */
+	public static void subtractAbs(long[] a, long[] b, long[] result) {
+		long borrow = 0L;
+
+		for (int i = 0; i < LIMBS; ++i) {
+			final long x = a[i];
+			final long y = b[i];
+			final long difference = x - y - borrow;
+
+			borrow = ((~x & y) | (~(x ^ y) & difference)) >>> 63;
+			result[i] = difference;
+		}
+
+		if (result[LIMBS - 1] < 0)
+			negate(result);
+	}
+
+	/** Adds <tt>addend</tt> to <tt>accumulator</tt>. */
+	public static void add(long[] accumulator, long[] addend) {
+		long carry = 0L;
+
+		for (int i = 0; i < LIMBS; ++i) {
+			final long x = accumulator[i];
+			final long y = addend[i];
+			final long sum = x + y + carry;
+
+			carry = ((x & y) | ((x | y) & ~sum)) >>> 63;
+			accumulator[i] = sum;
+		}
+	}
+
+	/** Adds one to <tt>value</tt>. */
+	public static void increment(long[] value) {
+		for (int i = 0; i < LIMBS; ++i)
+			if (++value[i] != 0L)
+				return;
+	}
+
+	/** Negates <tt>value</tt>. */
+	public static void negate(long[] value) {
+		for (int i = 0; i < LIMBS; ++i)
+			value[i] = ~value[i];
+
+		increment(value);
+	}
+
+	/** Compares two values, like {@link BigInteger#compareTo(BigInteger)}. */
+	public static int compare(long[] a, long[] b) {
+		// Most-significant limb is signed
+		int comparison = Long.compare(a[LIMBS - 1], b[LIMBS - 1]);
+		if (comparison != 0)
+			return comparison;
+
+		for (int i = LIMBS - 2; i >= 0; --i) {
+			comparison = Long.compareUnsigned(a[i], b[i]);
+			if (comparison != 0)
+				return comparison;
+		}
+
+		return 0;
+	}
+
+	/** Returns <tt>value</tt> as BigInteger. */
+	public static BigInteger toBigInteger(long[] value) {
+		byte[] bytes = new byte[BYTES];
+
+		for (int li = 0; li < LIMBS; ++li) {
+			long limb = value[li];
+
+			final int offset = BYTES - (li + 1) * 8;
+			for (int bi = 7; bi >= 0; --bi) {
+				bytes[offset + bi] = (byte) limb;
+				limb >>>= 8;
+			}
+		}
+
+		return new BigInteger(bytes);
+	}
+
+}
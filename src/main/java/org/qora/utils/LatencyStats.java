@@ -0,0 +1,57 @@
+package org.qora.utils;
+
+import java.util.Arrays;
+
+/**
+ * Keeps most recent latency samples, in microseconds, for reporting percentiles.
+ * <p>
+ * Thread-safe.
+ */
+public class LatencyStats {
+
+	private final long[] samples;
+	/** Index of next sample to overwrite. */
+	private int nextIndex = 0;
+	/** Number of valid samples, up to samples.length. */
+	private int sampleCount = 0;
+
+	public LatencyStats(int maxSamples) {
+		this.samples = new long[maxSamples];
+	}
+
+	public synchronized void record(long latencyMicros) {
+		this.samples[this.nextIndex] = latencyMicros;
+		this.nextIndex = (this.nextIndex + 1) % this.samples.length;
+
+		if (this.sampleCount < this.samples.length)
+			++this.sampleCount;
+	}
+
+	/**
+	 * Returns latencies at passed percentiles, using recent samples.
+	 *
+	 * @param percentiles e.g. 50, 90, 99
+	 * @return latencies in microseconds, in same order as <tt>percentiles</tt>, or null if no samples yet
+	 */
+	public long[] getPercentiles(double... percentiles) {
+		long[] sortedSamples;
+
+		synchronized (this) {
+			if (this.sampleCount == 0)
+				return null;
+
+			sortedSamples = Arrays.copyOf(this.samples, this.sampleCount);
+		}
+
+		Arrays.sort(sortedSamples);
+
+		long[] latencies = new long[percentiles.length];
+		for (int i = 0; i < percentiles.length; ++i) {
+			int index = (int) Math.ceil(percentiles[i] / 100.0 * sortedSamples.length) - 1;
+			latencies[i] = sortedSamples[Math.max(0, Math.min(index, sortedSamples.length - 1))];
+		}
+
+		return latencies;
+	}
+
+}
@@ -11,6 +11,7 @@ import org.qora.transform.TransformationException;
 import org.qora.transform.Transformer;
 
 import com.google.common.primitives.Ints;
+import com.google.common.primitives.Longs;
 
 public class Serialization {
 
@@ -23,6 +24,11 @@ public class Serialization {
 	 * @throws IOException
 	 */
 	public static byte[] serializeBigDecimal(BigDecimal amount, int length) throws IOException {
+		// Common case of non-negative 8-byte amount is simply unscaled long.
+		// (Negative values are zero-padded, not sign-extended, so need to use long-hand version below).
+		if (length == 8 && amount.signum() >= 0)
+			return Longs.toByteArray(Amount.fromBigDecimal(amount));
+
 		// Note: we call .setScale(8) here to normalize values, especially values from API as they can have varying scale
 		// (At least until the BigDecimal XmlAdapter works - see data/package-info.java)
 		byte[] amountBytes = amount.setScale(8).unscaledValue().toByteArray();
@@ -66,6 +72,10 @@ public class Serialization {
 	}
 
 	public static BigDecimal deserializeBigDecimal(ByteBuffer byteBuffer, int length) {
+		// Common case of 8-byte amount is simply unscaled long
+		if (length == 8)
+			return Amount.toBigDecimal(byteBuffer.getLong());
+
 		byte[] bytes = new byte[length];
 		byteBuffer.get(bytes);
 		return new BigDecimal(new BigInteger(bytes), 8);
@@ -0,0 +1,128 @@
+package org.qora.test;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.utils.Amount;
+import org.qora.utils.Serialization;
+
+public class AmountTests {
+
+	private static List<Long> testValues;
+
+	@Before
+	public void createTestValues() {
+		Random random = new Random();
+
+		testValues = new ArrayList<>();
+
+		testValues.add(0L);
+		testValues.add(1L);
+		testValues.add(-1L);
+		testValues.add(Amount.ONE);
+		testValues.add(Long.MAX_VALUE);
+		testValues.add(Long.MIN_VALUE);
+
+		for (int i = 0; i < 200; ++i) {
+			testValues.add(random.nextLong());
+			// Typical amounts, up to 10 billion
+			testValues.add((long) (random.nextDouble() * 10_000_000_000L * Amount.ONE));
+			// Whole amounts
+			testValues.add(random.nextInt(1_000_000) * Amount.ONE);
+		}
+	}
+
+	@Test
+	public void testConversion() {
+		for (long testValue : testValues) {
+			BigDecimal bigDecimal = new BigDecimal(BigInteger.valueOf(testValue), 8);
+
+			assertEquals(bigDecimal, Amount.toBigDecimal(testValue));
+			assertEquals(testValue, Amount.fromBigDecimal(bigDecimal));
+
+			// Differing scales, e.g. from API
+			assertEquals(testValue, Amount.fromBigDecimal(bigDecimal.stripTrailingZeros()));
+		}
+
+		try {
+			Amount.fromBigDecimal(new BigDecimal("0.123456789"));
+			fail("Amount with more than 8 decimal places should not convert");
+		} catch (ArithmeticException e) {
+			// Expected
+		}
+
+		try {
+			Amount.fromBigDecimal(new BigDecimal(Long.MAX_VALUE).add(BigDecimal.ONE).movePointLeft(8));
+			fail("Amount too large should not convert");
+		} catch (ArithmeticException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void testArithmetic() {
+		BigDecimal max = Amount.toBigDecimal(Long.MAX_VALUE);
+		BigDecimal min = Amount.toBigDecimal(Long.MIN_VALUE);
+
+		for (long a : testValues)
+			for (long b : testValues.subList(0, 50)) {
+				BigDecimal bigA = Amount.toBigDecimal(a);
+				BigDecimal bigB = Amount.toBigDecimal(b);
+
+				assertArithmetic(bigA.add(bigB), () -> Amount.add(a, b), max, min);
+				assertArithmetic(bigA.subtract(bigB), () -> Amount.subtract(a, b), max, min);
+				assertArithmetic(bigA.multiply(bigB).setScale(8, RoundingMode.DOWN), () -> Amount.multiply(a, b), max, min);
+
+				assertEquals(bigA.compareTo(bigB), Long.compare(a, b));
+			}
+	}
+
+	@Test
+	public void testSerialization() throws IOException {
+		for (long testValue : testValues) {
+			BigDecimal amount = Amount.toBigDecimal(testValue);
+
+			// Original long-hand serialization
+			byte[] amountBytes = amount.unscaledValue().toByteArray();
+			byte[] expectedBytes = new byte[8];
+			System.arraycopy(amountBytes, 0, expectedBytes, 8 - amountBytes.length, amountBytes.length);
+
+			assertArrayEquals(expectedBytes, Serialization.serializeBigDecimal(amount));
+
+			BigDecimal expectedAmount = new BigDecimal(new BigInteger(expectedBytes), 8);
+			BigDecimal actualAmount = Serialization.deserializeBigDecimal(ByteBuffer.wrap(expectedBytes));
+			assertEquals(expectedAmount, actualAmount);
+		}
+	}
+
+	@FunctionalInterface
+	private interface LongSupplier {
+		long getAsLong();
+	}
+
+	private static void assertArithmetic(BigDecimal expected, LongSupplier actual, BigDecimal max, BigDecimal min) {
+		if (expected.compareTo(max) > 0 || expected.compareTo(min) < 0) {
+			try {
+				actual.getAsLong();
+				fail("Overflow should throw ArithmeticException");
+			} catch (ArithmeticException e) {
+				// Expected
+			}
+
+			return;
+		}
+
+		assertEquals(expected, Amount.toBigDecimal(actual.getAsLong()));
+	}
+
+}
@@ -0,0 +1,96 @@
+package org.qora.test;
+
+import static org.junit.Assert.*;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.utils.Int320;
+
+public class Int320Tests {
+
+	private static List<byte[]> testValues;
+
+	@Before
+	public void createTestValues() {
+		Random random = new Random();
+
+		testValues = new ArrayList<>();
+
+		// Extremes of signed 256-bit values
+		byte[] maxValue = new byte[32];
+		Arrays.fill(maxValue, (byte) 0xff);
+		maxValue[0] = 0x7f;
+		testValues.add(maxValue);
+
+		byte[] minValue = new byte[32];
+		minValue[0] = (byte) 0x80;
+		testValues.add(minValue);
+
+		testValues.add(new byte[32]);
+
+		for (int i = 0; i < 200; ++i) {
+			byte[] testValue = new byte[32];
+			random.nextBytes(testValue);
+			testValues.add(testValue);
+		}
+	}
+
+	@Test
+	public void testFromSigned256() {
+		long[] value = Int320.zero();
+
+		for (byte[] testValue : testValues) {
+			Int320.fromSigned256(testValue, value);
+			assertEquals(new BigInteger(testValue), Int320.toBigInteger(value));
+		}
+	}
+
+	@Test
+	public void testSubtractAbs() {
+		long[] a = Int320.zero();
+		long[] b = Int320.zero();
+		long[] distance = Int320.zero();
+
+		for (byte[] testValueA : testValues)
+			for (byte[] testValueB : testValues) {
+				Int320.fromSigned256(testValueA, a);
+				Int320.fromSigned256(testValueB, b);
+				Int320.subtractAbs(a, b, distance);
+
+				BigInteger expectedDistance = new BigInteger(testValueA).subtract(new BigInteger(testValueB)).abs();
+				assertEquals(expectedDistance, Int320.toBigInteger(distance));
+			}
+	}
+
+	@Test
+	public void testAddAndCompare() {
+		long[] total = Int320.zero();
+		long[] value = Int320.zero();
+		long[] previousTotal = Int320.zero();
+		BigInteger expectedTotal = BigInteger.ZERO;
+
+		// Sum of distances needs more than 256 bits
+		for (byte[] testValue : testValues) {
+			Int320.fromSigned256(testValue, value);
+			Int320.subtractAbs(value, Int320.zero(), value);
+
+			Int320.copy(total, previousTotal);
+			Int320.add(total, value);
+			expectedTotal = expectedTotal.add(new BigInteger(testValue).abs());
+
+			assertEquals(expectedTotal, Int320.toBigInteger(total));
+			assertEquals(expectedTotal.compareTo(Int320.toBigInteger(previousTotal)), Int320.compare(total, previousTotal));
+			assertEquals(0, Int320.compare(total, total));
+		}
+
+		Int320.increment(total);
+		assertEquals(expectedTotal.add(BigInteger.ONE), Int320.toBigInteger(total));
+	}
+
+}
@@ -0,0 +1,131 @@
+package org.qora.test;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.account.PrivateKeyAccount;
+import org.qora.block.BlockGenerator;
+import org.qora.controller.Mempool;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.BlockUtils;
+import org.qora.test.common.Common;
+import org.qora.test.common.TransactionUtils;
+import org.qora.transaction.Transaction.TransactionType;
+
+public class MempoolTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@After
+	public void afterTest() throws DataException {
+		Common.orphanCheck();
+	}
+
+	@Test
+	public void testImportAndConfirm() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			Mempool mempool = Mempool.getInstance();
+
+			assertEquals(0, mempool.size());
+			assertNull(alice.getUnconfirmedLastReference());
+
+			TransactionData lastTransactionData = null;
+			for (int i = 0; i < 3; ++i) {
+				lastTransactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+				TransactionUtils.signAsUnconfirmed(repository, lastTransactionData, alice);
+			}
+
+			assertEquals(3, mempool.size());
+			assertEquals(3, mempool.countByCreator(alice.getAddress()));
+			assertArrayEquals(lastTransactionData.getSignature(), alice.getUnconfirmedLastReference());
+
+			// Forging block should confirm all transactions
+			BlockGenerator.generateTestingBlock(repository, alice);
+
+			assertEquals(0, mempool.size());
+			assertEquals(0, mempool.countByCreator(alice.getAddress()));
+			assertNull(alice.getUnconfirmedLastReference());
+
+			// Orphaning block should return transactions to unconfirmed pile
+			BlockUtils.orphanLastBlock(repository);
+
+			assertEquals(3, mempool.size());
+			assertArrayEquals(lastTransactionData.getSignature(), alice.getUnconfirmedLastReference());
+
+			// Clean up so orphan check passes
+			for (TransactionData transactionData : mempool.getTransactions())
+				repository.getTransactionRepository().delete(transactionData);
+
+			repository.saveChanges();
+
+			assertEquals(0, mempool.size());
+		}
+	}
+
+	@Test
+	public void testReturnsCopies() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			Mempool mempool = Mempool.getInstance();
+
+			TransactionData transactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+			TransactionUtils.signAsUnconfirmed(repository, transactionData, alice);
+
+			// Modifying returned transaction data, e.g. during block trial-processing, shouldn't affect mempool
+			TransactionData returnedTransactionData = mempool.getTransactions().get(0);
+			assertArrayEquals(transactionData.getSignature(), returnedTransactionData.getSignature());
+			assertNull(returnedTransactionData.getBlockHeight());
+			returnedTransactionData.setBlockHeight(1);
+
+			assertNull(mempool.getTransactions().get(0).getBlockHeight());
+
+			// Same for caller's copy
+			transactionData.setBlockHeight(1);
+			assertNull(mempool.getTransactions().get(0).getBlockHeight());
+
+			// Clean up so orphan check passes
+			repository.getTransactionRepository().delete(transactionData);
+			repository.saveChanges();
+		}
+	}
+
+	@Test
+	public void testDiscardedChanges() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			Mempool mempool = Mempool.getInstance();
+
+			TransactionData transactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+			TransactionUtils.signAsUnconfirmed(repository, transactionData, alice);
+			assertEquals(1, mempool.size());
+
+			// Uncommitted deletion shouldn't affect mempool
+			repository.getTransactionRepository().delete(transactionData);
+			assertEquals(1, mempool.size());
+
+			repository.discardChanges();
+			assertEquals(1, mempool.size());
+
+			// Deletion rolled back to savepoint shouldn't affect mempool either
+			repository.setSavepoint();
+			repository.getTransactionRepository().delete(transactionData);
+			repository.rollbackToSavepoint();
+			repository.saveChanges();
+			assertEquals(1, mempool.size());
+
+			repository.getTransactionRepository().delete(transactionData);
+			repository.saveChanges();
+			assertEquals(0, mempool.size());
+		}
+	}
+
+}
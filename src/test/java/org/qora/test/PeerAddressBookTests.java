@@ -0,0 +1,112 @@
+package org.qora.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.data.network.PeerData;
+import org.qora.network.PeerAddress;
+import org.qora.network.PeerAddressBook;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.Common;
+
+public class PeerAddressBookTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			repository.getNetworkRepository().deleteAllPeers();
+			repository.saveChanges();
+		}
+	}
+
+	@Test
+	public void testSaveAndLoad() throws DataException {
+		PeerAddress fastAddress = PeerAddress.fromString("10.0.0.1:9889");
+		PeerAddress slowAddress = PeerAddress.fromString("10.0.0.2:9889");
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PeerAddressBook peerAddressBook = new PeerAddressBook();
+
+			assertTrue(peerAddressBook.add(new PeerData(fastAddress, 0L, "TEST")));
+			assertTrue(peerAddressBook.add(new PeerData(slowAddress, 0L, "TEST")));
+			assertFalse(peerAddressBook.add(new PeerData(PeerAddress.fromString("10.0.0.1:9889"), 0L, "TEST")));
+
+			// Hostnames differing by case only are the same peer
+			assertTrue(peerAddressBook.add(new PeerData(PeerAddress.fromString("peer.example.com:9889"), 0L, "TEST")));
+			assertFalse(peerAddressBook.add(new PeerData(PeerAddress.fromString("Peer.Example.com:9889"), 0L, "TEST")));
+
+			// Not saved yet
+			assertTrue(repository.getNetworkRepository().getAllPeers().isEmpty());
+
+			peerAddressBook.saveChanges(repository);
+			assertEquals(3, repository.getNetworkRepository().getAllPeers().size());
+
+			assertTrue(peerAddressBook.remove(slowAddress));
+			assertFalse(peerAddressBook.remove(slowAddress));
+			peerAddressBook.saveChanges(repository);
+
+			// Fresh address book loads from repository
+			PeerAddressBook loadedAddressBook = new PeerAddressBook();
+			assertEquals(2, loadedAddressBook.size());
+			assertTrue(loadedAddressBook.contains(fastAddress));
+			assertFalse(loadedAddressBook.contains(slowAddress));
+		}
+	}
+
+	@Test
+	public void testScoring() throws DataException {
+		PeerAddress fastAddress = PeerAddress.fromString("10.0.0.1:9889");
+		PeerAddress slowAddress = PeerAddress.fromString("10.0.0.2:9889");
+		PeerAddress unreliableAddress = PeerAddress.fromString("10.0.0.3:9889");
+
+		PeerAddressBook peerAddressBook = new PeerAddressBook();
+		final long now = System.currentTimeMillis();
+
+		PeerData fastPeerData = new PeerData(fastAddress, 0L, "TEST");
+		PeerData slowPeerData = new PeerData(slowAddress, 0L, "TEST");
+		peerAddressBook.add(fastPeerData);
+		peerAddressBook.add(slowPeerData);
+		peerAddressBook.add(new PeerData(unreliableAddress, 0L, "TEST"));
+
+		fastPeerData.setLastConnected(now);
+		peerAddressBook.onConnected(fastPeerData);
+		peerAddressBook.onPing(fastAddress, 50);
+
+		slowPeerData.setLastConnected(now);
+		peerAddressBook.onConnected(slowPeerData);
+		peerAddressBook.onPing(slowAddress, 2000);
+
+		peerAddressBook.onConnectFailure(unreliableAddress);
+		peerAddressBook.onConnectFailure(unreliableAddress);
+
+		double fastScore = peerAddressBook.getScore(fastAddress, now);
+		double slowScore = peerAddressBook.getScore(slowAddress, now);
+		double unreliableScore = peerAddressBook.getScore(unreliableAddress, now);
+
+		assertTrue(fastScore > slowScore);
+		assertTrue(slowScore > unreliableScore);
+
+		// Misbehaving costs a peer its lead
+		fastPeerData.setLastMisbehaved(now);
+		assertTrue(peerAddressBook.getScore(fastAddress, now) < slowScore);
+
+		// Only peers we've connected to are "tried"
+		List<PeerData> triedPeers = peerAddressBook.getTriedPeers();
+		assertEquals(2, triedPeers.size());
+
+		// Picked peers honour filter and are marked as attempted
+		List<PeerData> pickedPeers = peerAddressBook.pickPeers(3, peerData -> peerData != slowPeerData, now);
+		assertFalse(pickedPeers.isEmpty());
+		assertFalse(pickedPeers.contains(slowPeerData));
+		for (PeerData peerData : pickedPeers)
+			assertEquals(Long.valueOf(now), peerData.getLastAttempted());
+	}
+
+}
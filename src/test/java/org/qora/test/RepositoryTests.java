@@ -3,15 +3,30 @@ package org.qora.test;
 import org.junit.Before;
 import org.junit.Test;
 import org.qora.account.Account;
+import org.qora.account.PrivateKeyAccount;
 import org.qora.asset.Asset;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
+import org.qora.repository.hsqldb.HSQLDBRepository;
 import org.qora.test.common.Common;
+import org.qora.test.common.TransactionUtils;
+import org.qora.transaction.Transaction;
+import org.qora.transaction.Transaction.ApprovalStatus;
+import org.qora.transaction.Transaction.TransactionType;
+import org.qora.transform.TransformationException;
+import org.qora.transform.transaction.TransactionTransformer;
 
 import static org.junit.Assert.*;
 
 import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -90,4 +105,153 @@ public class RepositoryTests extends Common {
 		}
 	}
 
+	@Test
+	public void testFromSignatures() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			// Genesis block contains a mix of transaction types
+			BlockData genesisBlockData = repository.getBlockRepository().fromHeight(1);
+			List<TransactionData> blockTransactions = repository.getBlockRepository().getTransactionsFromSignature(genesisBlockData.getSignature());
+			assertFalse(blockTransactions.isEmpty());
+
+			List<byte[]> signatures = new ArrayList<>();
+			for (TransactionData transactionData : blockTransactions)
+				signatures.add(transactionData.getSignature());
+
+			// Unknown signature should result in null entry
+			signatures.add(new byte[64]);
+
+			List<TransactionData> transactions = repository.getTransactionRepository().fromSignatures(signatures);
+			assertEquals(signatures.size(), transactions.size());
+			assertNull(transactions.get(transactions.size() - 1));
+
+			for (int i = 0; i < blockTransactions.size(); ++i) {
+				TransactionData expectedTransactionData = repository.getTransactionRepository().fromSignature(signatures.get(i));
+
+				assertArrayEquals(TransactionTransformer.toBytes(expectedTransactionData), TransactionTransformer.toBytes(transactions.get(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testFromSignaturesAllTypes() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount signingAccount = Common.getTestAccount(repository, "alice");
+
+			// Save a couple of transactions of every (serializable) type, so bulk fetch of each type is exercised
+			List<byte[]> signatures = new ArrayList<>();
+			for (TransactionType txType : TransactionType.values()) {
+				switch (txType) {
+					case GENESIS:
+					case ACCOUNT_FLAGS:
+					case AT:
+					case DELEGATION:
+					case SUPERNODE:
+					case AIRDROP:
+						continue;
+
+					default:
+						// fall-through
+				}
+
+				for (int i = 0; i < 2; ++i) {
+					TransactionData transactionData = TransactionUtils.randomTransaction(repository, signingAccount, txType, true);
+					Transaction.fromData(repository, transactionData).sign(signingAccount);
+					transactionData.setApprovalStatus(ApprovalStatus.NOT_REQUIRED);
+
+					repository.getTransactionRepository().save(transactionData);
+					signatures.add(transactionData.getSignature());
+				}
+			}
+
+			List<TransactionData> transactions = repository.getTransactionRepository().fromSignatures(signatures);
+			assertEquals(signatures.size(), transactions.size());
+
+			for (int i = 0; i < signatures.size(); ++i) {
+				TransactionData expectedTransactionData = repository.getTransactionRepository().fromSignature(signatures.get(i));
+				assertNotNull(expectedTransactionData);
+				assertNotNull(String.format("Missing %s transaction", expectedTransactionData.getType().name()), transactions.get(i));
+
+				assertArrayEquals(String.format("%s transaction differs", expectedTransactionData.getType().name()),
+						TransactionTransformer.toBytes(expectedTransactionData), TransactionTransformer.toBytes(transactions.get(i)));
+			}
+
+			repository.discardChanges();
+		}
+	}
+
+	@Test
+	public void testExistingSignatures() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			BlockData genesisBlockData = repository.getBlockRepository().fromHeight(1);
+			List<TransactionData> blockTransactions = repository.getBlockRepository().getTransactionsFromSignature(genesisBlockData.getSignature());
+			assertFalse(blockTransactions.isEmpty());
+
+			// Interleave unknown signatures with known ones
+			List<byte[]> signatures = new ArrayList<>();
+			for (int i = 0; i < blockTransactions.size(); ++i) {
+				signatures.add(blockTransactions.get(i).getSignature());
+
+				byte[] unknownSignature = new byte[64];
+				unknownSignature[0] = (byte) (i + 1);
+				signatures.add(unknownSignature);
+			}
+
+			List<byte[]> existingSignatures = repository.getTransactionRepository().getExistingSignatures(signatures);
+			assertEquals(blockTransactions.size(), existingSignatures.size());
+
+			for (TransactionData transactionData : blockTransactions)
+				assertTrue(existingSignatures.stream().anyMatch(signature -> Arrays.equals(signature, transactionData.getSignature())));
+
+			assertTrue(repository.getTransactionRepository().getExistingSignatures(new ArrayList<>()).isEmpty());
+		}
+	}
+
+	@Test
+	public void testStatementCache() throws DataException, SQLException {
+		try (final HSQLDBRepository repository = (HSQLDBRepository) RepositoryManager.getRepository()) {
+			final String sql = "SELECT height FROM Blocks WHERE height >= ? ORDER BY height";
+
+			long previousHits = HSQLDBRepository.getStatementCacheHits();
+
+			try (ResultSet resultSet = repository.checkedExecute(sql, 1)) {
+				assertNotNull(resultSet);
+
+				// Nested query with same SQL mustn't disturb outer ResultSet
+				try (ResultSet nestedResultSet = repository.checkedExecute(sql, 1)) {
+					assertNotNull(nestedResultSet);
+				}
+
+				assertEquals(1, resultSet.getInt(1));
+			}
+
+			assertEquals(previousHits, HSQLDBRepository.getStatementCacheHits());
+
+			// Cached statement should now be reused
+			try (ResultSet resultSet = repository.checkedExecute(sql, 1)) {
+				assertNotNull(resultSet);
+			}
+
+			assertEquals(previousHits + 1, HSQLDBRepository.getStatementCacheHits());
+		}
+	}
+
+	@Test
+	public void testInListStatementCache() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			long previousMisses = HSQLDBRepository.getStatementCacheMisses();
+
+			// Lists of every length from 1 to 64 should only need one statement per padded size, i.e. 1, 4, 16 and 64
+			List<byte[]> signatures = new ArrayList<>();
+			for (int i = 0; i < 64; ++i) {
+				byte[] unknownSignature = new byte[64];
+				unknownSignature[0] = (byte) (i + 1);
+				signatures.add(unknownSignature);
+
+				assertTrue(repository.getTransactionRepository().getExistingSignatures(signatures).isEmpty());
+			}
+
+			assertEquals(previousMisses + 4, HSQLDBRepository.getStatementCacheMisses());
+		}
+	}
+
 }
@@ -3,12 +3,17 @@ package org.qora.test;
 import org.junit.Test;
 import org.qora.account.PrivateKeyAccount;
 import org.qora.block.Block;
+import org.qora.block.BlockGenerator;
 import org.qora.block.GenesisBlock;
+import org.qora.crypto.SignatureVerifier;
 import org.qora.data.block.BlockData;
+import org.qora.data.transaction.TransactionData;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
 import org.qora.test.common.Common;
+import org.qora.test.common.TransactionUtils;
+import org.qora.transaction.Transaction.TransactionType;
 import org.qora.utils.Base58;
 
 import static org.junit.Assert.*;
@@ -64,4 +69,49 @@ public class SignatureTests extends Common {
 		}
 	}
 
+	@Test
+	public void testVerifiedSignatureCache() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount signer = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount otherAccount = Common.getTestAccount(repository, "bob");
+
+			byte[] message = "test message".getBytes();
+			byte[] signature = signer.sign(message);
+
+			assertTrue(SignatureVerifier.verify(signer.getPublicKey(), signature, message));
+			// Again, this time using cache
+			assertTrue(SignatureVerifier.verify(signer.getPublicKey(), signature, message));
+
+			// Cached signature must not validate different message or public key
+			assertFalse(SignatureVerifier.verify(signer.getPublicKey(), signature, "other message".getBytes()));
+			assertFalse(SignatureVerifier.verify(otherAccount.getPublicKey(), signature, message));
+		}
+	}
+
+	@Test
+	public void testBlockPreVerification() throws DataException {
+		Common.useDefaultSettings();
+
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+
+			for (int i = 0; i < 5; ++i) {
+				TransactionData transactionData = TransactionUtils.randomTransaction(repository, alice, TransactionType.PAYMENT, true);
+				TransactionUtils.signAsUnconfirmed(repository, transactionData, alice);
+			}
+
+			BlockGenerator.generateTestingBlock(repository, alice);
+
+			Block block = new Block(repository, repository.getBlockRepository().getLastBlock());
+			assertEquals(5, block.getTransactions().size());
+
+			assertTrue(block.preVerifySignatures());
+			assertTrue(block.isSignatureValid());
+
+			// Tamper with a transaction's signature
+			block.getTransactions().get(0).getTransactionData().getSignature()[0] ^= 0x01;
+			assertFalse(block.preVerifySignatures());
+		}
+	}
+
 }
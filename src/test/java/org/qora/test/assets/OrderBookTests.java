@@ -0,0 +1,156 @@
+package org.qora.test.assets;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.account.PrivateKeyAccount;
+import org.qora.asset.Order;
+import org.qora.asset.OrderBook;
+import org.qora.block.BlockGenerator;
+import org.qora.data.asset.AssetData;
+import org.qora.data.asset.OrderData;
+import org.qora.data.transaction.BaseTransactionData;
+import org.qora.data.transaction.CreateAssetOrderTransactionData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.AssetUtils;
+import org.qora.test.common.BlockUtils;
+import org.qora.test.common.Common;
+import org.qora.test.common.TransactionUtils;
+import org.qora.utils.Base58;
+
+public class OrderBookTests extends Common {
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@After
+	public void afterTest() throws DataException {
+		Common.orphanCheck();
+	}
+
+	@Test
+	public void testOrderBookMatchesRepository() throws DataException {
+		BigDecimal amount = new BigDecimal("100").setScale(8);
+		BigDecimal price = new BigDecimal("1.5").setScale(8);
+		BigDecimal betterPrice = new BigDecimal("1.25").setScale(8);
+
+		try (Repository repository = RepositoryManager.getRepository()) {
+			// Force order book to load before any orders exist
+			assertEquals(0, OrderBook.getInstance().size());
+
+			AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, amount, price);
+			assertOrderBookMatches(repository);
+
+			AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, amount, price);
+			assertOrderBookMatches(repository);
+
+			byte[] betterOrderId = AssetUtils.createOrder(repository, "alice", AssetUtils.testAssetId, AssetUtils.otherAssetId, amount, betterPrice);
+			assertOrderBookMatches(repository);
+
+			// Partially match alice's orders
+			AssetUtils.createOrder(repository, "bob", AssetUtils.otherAssetId, AssetUtils.testAssetId, new BigDecimal("150").setScale(8), price);
+			assertOrderBookMatches(repository);
+
+			AssetUtils.cancelOrder(repository, "alice", betterOrderId);
+			assertOrderBookMatches(repository);
+
+			// Orphaning should restore orders
+			for (int i = 0; i < 5; ++i) {
+				BlockUtils.orphanLastBlock(repository);
+				assertOrderBookMatches(repository);
+			}
+
+			assertEquals(0, OrderBook.getInstance().size());
+		}
+	}
+
+	@Test
+	public void testMatchingWithinBlock() throws DataException {
+		BigDecimal amount = new BigDecimal("100").setScale(8);
+		BigDecimal price = new BigDecimal("1.5").setScale(8);
+
+		try (Repository repository = RepositoryManager.getRepository()) {
+			// Force order book to load before any orders exist
+			assertEquals(0, OrderBook.getInstance().size());
+
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+
+			// Both orders go into the same block, with alice's order first, so bob's order can only match uncommitted order
+			long aliceTimestamp = repository.getTransactionRepository().fromSignature(alice.getLastReference()).getTimestamp() + 1;
+			long bobTimestamp = Math.max(repository.getTransactionRepository().fromSignature(bob.getLastReference()).getTimestamp(), aliceTimestamp) + 1;
+
+			TransactionData aliceOrder = new CreateAssetOrderTransactionData(new BaseTransactionData(aliceTimestamp, AssetUtils.txGroupId, alice.getLastReference(),
+					alice.getPublicKey(), AssetUtils.fee, null), AssetUtils.testAssetId, AssetUtils.otherAssetId, amount, price);
+			TransactionData bobOrder = new CreateAssetOrderTransactionData(new BaseTransactionData(bobTimestamp, AssetUtils.txGroupId, bob.getLastReference(),
+					bob.getPublicKey(), AssetUtils.fee, null), AssetUtils.otherAssetId, AssetUtils.testAssetId, amount, price);
+
+			TransactionUtils.signAsUnconfirmed(repository, aliceOrder, alice);
+			TransactionUtils.signAsUnconfirmed(repository, bobOrder, bob);
+
+			BlockGenerator.generateTestingBlock(repository, alice);
+
+			for (PrivateKeyAccount account : new PrivateKeyAccount[] { alice, bob }) {
+				List<OrderData> orders = repository.getAssetRepository().getAccountsOrders(account.getPublicKey(), null, null);
+				assertEquals(1, orders.size());
+				assertTrue(String.format("%s's order should have traded", account.getAddress()), orders.get(0).getFulfilled().signum() > 0);
+			}
+
+			assertOrderBookMatches(repository);
+		}
+	}
+
+	private void assertOrderBookMatches(Repository repository) throws DataException {
+		long[][] assetPairs = new long[][] { { AssetUtils.testAssetId, AssetUtils.otherAssetId }, { AssetUtils.otherAssetId, AssetUtils.testAssetId } };
+
+		for (long[] assetPair : assetPairs) {
+			long haveAssetId = assetPair[0];
+			long wantAssetId = assetPair[1];
+
+			Set<String> expectedOrderIds = repository.getAssetRepository().getOpenOrders(haveAssetId, wantAssetId).stream()
+					.map(orderData -> Base58.encode(orderData.getOrderId())).collect(Collectors.toSet());
+			Set<String> actualOrderIds = OrderBook.getInstance().getOpenOrders(haveAssetId, wantAssetId).stream()
+					.map(orderData -> Base58.encode(orderData.getOrderId())).collect(Collectors.toSet());
+			assertEquals("Open orders differ", expectedOrderIds, actualOrderIds);
+
+			AssetData haveAssetData = repository.getAssetRepository().fromAssetId(haveAssetId);
+			AssetData wantAssetData = repository.getAssetRepository().fromAssetId(wantAssetId);
+
+			// Aggregate repository's open orders by price
+			TreeMap<BigDecimal, OrderData> priceLevels = new TreeMap<>();
+			for (OrderData orderData : repository.getAssetRepository().getOpenOrders(haveAssetId, wantAssetId))
+				priceLevels.merge(orderData.getPrice(),
+						new OrderData(null, null, haveAssetId, wantAssetId, Order.getAmountLeft(orderData), BigDecimal.ZERO, orderData.getPrice(), orderData.getTimestamp(), false, false),
+						(level, order) -> new OrderData(null, null, haveAssetId, wantAssetId, level.getAmount().add(order.getAmount()), BigDecimal.ZERO,
+								level.getPrice(), Math.max(level.getTimestamp(), order.getTimestamp()), false, false));
+
+			for (Boolean reverse : new Boolean[] { null, true }) {
+				List<OrderData> expectedOrders = new ArrayList<>(reverse != null && reverse ? priceLevels.descendingMap().values() : priceLevels.values());
+				List<OrderData> actualOrders = OrderBook.getInstance().getAggregatedOpenOrders(haveAssetData, wantAssetData, null, null, reverse);
+
+				assertEquals("Number of price levels differs", expectedOrders.size(), actualOrders.size());
+
+				for (int i = 0; i < expectedOrders.size(); ++i) {
+					assertEquals("Price differs", expectedOrders.get(i).getPrice(), actualOrders.get(i).getPrice());
+					assertEquals("Unfulfilled amount differs", expectedOrders.get(i).getAmount(), actualOrders.get(i).getAmount());
+					assertEquals("Timestamp differs", expectedOrders.get(i).getTimestamp(), actualOrders.get(i).getTimestamp());
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,274 @@
+package org.qora.test.block;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.ciyam.at.MachineState;
+import org.ciyam.at.OpCode;
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.account.Account;
+import org.qora.account.PrivateKeyAccount;
+import org.qora.asset.Asset;
+import org.qora.block.Block;
+import org.qora.block.Block.ValidationResult;
+import org.qora.data.account.AccountBalanceData;
+import org.qora.data.account.ProxyForgerData;
+import org.qora.data.at.ATStateData;
+import org.qora.data.block.BlockData;
+import org.qora.data.transaction.BaseTransactionData;
+import org.qora.data.transaction.DeployAtTransactionData;
+import org.qora.data.transaction.PaymentTransactionData;
+import org.qora.data.transaction.TransactionData;
+import org.qora.repository.AccountRepository.BalanceOrdering;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.AccountUtils;
+import org.qora.test.common.BlockUtils;
+import org.qora.test.common.Common;
+import org.qora.test.common.TransactionUtils;
+import org.qora.transaction.DeployAtTransaction;
+import org.qora.transaction.Transaction;
+import org.qora.transaction.Transaction.TransactionType;
+import org.qora.utils.Base58;
+
+/** Checks {@link Block#validateAndProcess()} has same outcome as {@link Block#isValid()} followed by {@link Block#process()}. */
+public class BlockProcessingTests extends Common {
+
+	private static final BigDecimal INITIAL_SHARE = new BigDecimal("25");
+	private static final BigDecimal NEW_SHARE = new BigDecimal("60");
+
+	private static final BigDecimal AT_AMOUNT = BigDecimal.valueOf(10L).setScale(8);
+	private static final BigDecimal PAYMENT_AMOUNT = BigDecimal.valueOf(5L).setScale(8);
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@Test
+	public void testLocallyGeneratedBlock() throws DataException {
+		testMatchesIsValidThenProcess(false);
+	}
+
+	@Test
+	public void testSyncedBlock() throws DataException {
+		testMatchesIsValidThenProcess(true);
+	}
+
+	@Test
+	public void testInvalidSyncedBlock() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount proxyAccount = new PrivateKeyAccount(repository, AccountUtils.proxyForging(repository, "alice", "bob", INITIAL_SHARE));
+			// No AT, as re-executing ATs in a block received from a peer needs block generator's private key
+			String atAddress = null;
+
+			// Valid payment, which is trial-processed before invalid payment is reached
+			PrivateKeyAccount chloe = Common.getTestAccount(repository, "chloe");
+			TransactionData validPayment = buildPayment(repository, chloe, "dilbert", BigDecimal.ONE.setScale(8));
+			TransactionUtils.signAsUnconfirmed(repository, validPayment, chloe);
+
+			// Payment of more than sender's balance, so can't be imported as unconfirmed
+			PrivateKeyAccount dilbert = Common.getTestAccount(repository, "dilbert");
+			BigDecimal excessiveAmount = dilbert.getConfirmedBalance(Asset.QORA).add(BigDecimal.ONE);
+			TransactionData invalidPayment = buildPayment(repository, dilbert, "chloe", excessiveAmount);
+			invalidPayment.setTimestamp(validPayment.getTimestamp() + 1);
+			Transaction.fromData(repository, invalidPayment).sign(dilbert);
+
+			List<String> initialState = describeState(repository, proxyAccount, atAddress);
+
+			Block block = buildBlock(repository, proxyAccount, System.currentTimeMillis(), true, validPayment, invalidPayment);
+			assertEquals(ValidationResult.TRANSACTION_INVALID, block.validateAndProcess());
+
+			assertEquals(initialState, describeState(repository, proxyAccount, atAddress));
+			assertFalse(repository.getTransactionRepository().isConfirmed(validPayment.getSignature()));
+		}
+	}
+
+	private void testMatchesIsValidThenProcess(boolean isSynced) throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount proxyAccount = new PrivateKeyAccount(repository, AccountUtils.proxyForging(repository, "alice", "bob", INITIAL_SHARE));
+			// Re-executing ATs in a block received from a peer recalculates block's transactions signature,
+			// which needs block generator's private key, so only locally generated block has an AT
+			String atAddress = isSynced ? null : deployAt(repository, "chloe");
+
+			// Block, forged by proxy account, also changes proxy account's reward share
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			TransactionData proxyForgingData = AccountUtils.createProxyForging(repository, "alice", "bob", NEW_SHARE);
+			TransactionUtils.signAsUnconfirmed(repository, proxyForgingData, alice);
+
+			PrivateKeyAccount dilbert = Common.getTestAccount(repository, "dilbert");
+			TransactionData paymentData = buildPayment(repository, dilbert, "chloe", PAYMENT_AMOUNT);
+			TransactionUtils.signAsUnconfirmed(repository, paymentData, dilbert);
+
+			final long timestamp = System.currentTimeMillis();
+			final BigDecimal reward = BlockUtils.getNextBlockReward(repository);
+			final BigDecimal initialBobBalance = AccountUtils.getBalance(repository, "bob", Asset.QORA);
+			final BigDecimal initialChloeBalance = AccountUtils.getBalance(repository, "chloe", Asset.QORA);
+
+			// Expected outcome, using isValid() then process()
+			repository.setSavepoint();
+
+			Block expectedBlock = buildBlock(repository, proxyAccount, timestamp, isSynced, proxyForgingData, paymentData);
+			assertEquals(ValidationResult.OK, expectedBlock.isValid());
+			expectedBlock.process();
+
+			List<String> expectedState = describeState(repository, proxyAccount, atAddress);
+
+			// Block reward is split using share from before block, but fees are split using share after block's transactions
+			BigDecimal totalFees = expectedBlock.getBlockData().getTotalFees();
+			BigDecimal expectedBobIncrease = reward.multiply(INITIAL_SHARE.movePointLeft(2)).setScale(8, RoundingMode.DOWN)
+					.add(totalFees.multiply(NEW_SHARE.movePointLeft(2)).setScale(8, RoundingMode.DOWN));
+			assertEqualBigDecimals("Bob's share incorrect", initialBobBalance.add(expectedBobIncrease), AccountUtils.getBalance(repository, "bob", Asset.QORA));
+
+			if (!isSynced) {
+				assertTrue("Block should contain AT-generated payment",
+						expectedBlock.getTransactions().stream().anyMatch(transaction -> transaction.getTransactionData().getType() == TransactionType.AT));
+
+				// Chloe, as AT creator, should have received AT's refund along with dilbert's payment
+				assertTrue("Chloe should have received AT payment",
+						AccountUtils.getBalance(repository, "chloe", Asset.QORA).compareTo(initialChloeBalance.add(PAYMENT_AMOUNT)) > 0);
+			}
+
+			repository.rollbackToSavepoint();
+
+			// Actual outcome, using validateAndProcess()
+			Block actualBlock = buildBlock(repository, proxyAccount, timestamp, isSynced, proxyForgingData, paymentData);
+			assertEquals(ValidationResult.OK, actualBlock.validateAndProcess());
+
+			assertEquals(expectedState, describeState(repository, proxyAccount, atAddress));
+		}
+	}
+
+	/** Returns unsigned payment, using sender's last reference. */
+	private static TransactionData buildPayment(Repository repository, PrivateKeyAccount sender, String recipient, BigDecimal amount) throws DataException {
+		byte[] reference = sender.getLastReference();
+		long timestamp = repository.getTransactionRepository().fromSignature(reference).getTimestamp() + 1;
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, AccountUtils.txGroupId, reference, sender.getPublicKey(), AccountUtils.fee, null);
+		return new PaymentTransactionData(baseTransactionData, Common.getTestAccount(repository, recipient).getAddress(), amount);
+	}
+
+	/** Deploys, and forges, AT that finishes on its first execution, refunding its balance to its creator. Returns AT's address. */
+	private static String deployAt(Repository repository, String creator) throws DataException {
+		PrivateKeyAccount creatorAccount = Common.getTestAccount(repository, creator);
+
+		byte[] reference = creatorAccount.getLastReference();
+		long timestamp = repository.getTransactionRepository().fromSignature(reference).getTimestamp() + 1;
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, AccountUtils.txGroupId, reference, creatorAccount.getPublicKey(), AccountUtils.fee, null);
+		DeployAtTransactionData deployAtTransactionData = new DeployAtTransactionData(baseTransactionData, "Test AT", "Pays creator", "Test", "test",
+				buildCreationBytes(), AT_AMOUNT, Asset.QORA);
+
+		TransactionUtils.signAndForge(repository, deployAtTransactionData, creatorAccount);
+
+		return new DeployAtTransaction(repository, deployAtTransactionData).getATAccount().getAddress();
+	}
+
+	/** Returns creation bytes for AT that immediately finishes. */
+	private static byte[] buildCreationBytes() {
+		byte[] codeBytes = new byte[] { OpCode.FIN_IMD.value };
+
+		final short numCodePages = (short) codeBytes.length; // v2 code pages are single bytes
+		final short numDataPages = 2;
+
+		ByteBuffer creationBytes = ByteBuffer.allocate(MachineState.HEADER_LENGTH + numCodePages + numDataPages + 8).order(ByteOrder.LITTLE_ENDIAN);
+		creationBytes.putShort((short) 2); // version
+		creationBytes.putShort((short) 0); // reserved
+		creationBytes.putShort(numCodePages);
+		creationBytes.putShort(numDataPages);
+		creationBytes.putShort((short) 0); // call stack pages
+		creationBytes.putShort((short) 0); // user stack pages
+		creationBytes.putLong(0L); // minimum activation amount
+		creationBytes.put(codeBytes);
+		// Initial data left as zeros
+
+		return creationBytes.array();
+	}
+
+	/**
+	 * Returns new block, forged by <tt>generator</tt> on top of current chain tip, containing passed (signed) transactions
+	 * as well as any AT-generated transactions.
+	 * <p>
+	 * If <tt>isSynced</tt>, block is rebuilt as if received from a peer, i.e. without AT-Transactions and with only AT states' hashes and fees.
+	 */
+	private static Block buildBlock(Repository repository, PrivateKeyAccount generator, long timestamp, boolean isSynced, TransactionData... transactions)
+			throws DataException {
+		BlockData parentBlockData = repository.getBlockRepository().getLastBlock();
+
+		Block block = new Block(repository, parentBlockData, generator, timestamp);
+
+		for (TransactionData transactionData : transactions)
+			assertTrue(block.addTransaction(transactionData));
+
+		block.sign();
+
+		if (!isSynced)
+			return block;
+
+		List<TransactionData> syncedTransactions = block.getTransactions().stream().map(Transaction::getTransactionData)
+				.filter(transactionData -> transactionData.getType() != TransactionType.AT).collect(Collectors.toList());
+
+		List<ATStateData> syncedAtStates = block.getATStates().stream()
+				.map(atStateData -> new ATStateData(atStateData.getATAddress(), atStateData.getStateHash(), atStateData.getFees())).collect(Collectors.toList());
+
+		BlockData blockData = block.getBlockData();
+		BlockData syncedBlockData = new BlockData(blockData.getVersion(), blockData.getReference(), syncedTransactions.size(), blockData.getTotalFees(),
+				blockData.getTransactionsSignature(), null, blockData.getTimestamp(), blockData.getGeneratingBalance(), blockData.getGeneratorPublicKey(),
+				blockData.getGeneratorSignature(), blockData.getATCount(), blockData.getATFees());
+
+		return new Block(repository, syncedBlockData, syncedTransactions, syncedAtStates);
+	}
+
+	/** Returns description of repository state that block processing affects, for comparison. */
+	private static List<String> describeState(Repository repository, PrivateKeyAccount proxyAccount, String atAddress) throws DataException {
+		List<String> state = new ArrayList<>();
+
+		int height = repository.getBlockRepository().getBlockchainHeight();
+		state.add(String.format("height %d", height));
+
+		BlockData blockData = repository.getBlockRepository().fromHeight(height);
+		state.add(String.format("block %s: reference %s, transactions %d, total fees %s, ATs %d, AT fees %s",
+				Base58.encode(blockData.getSignature()), Base58.encode(blockData.getReference()), blockData.getTransactionCount(),
+				blockData.getTotalFees().toPlainString(), blockData.getATCount(), blockData.getATFees().toPlainString()));
+
+		for (TransactionData transactionData : repository.getBlockRepository().getTransactionsFromSignature(blockData.getSignature()))
+			state.add(String.format("block transaction %s %s", transactionData.getType().name(), Base58.encode(transactionData.getSignature())));
+
+		List<AccountBalanceData> balances = repository.getAccountRepository().getAssetBalances(Collections.emptyList(), Collections.emptyList(),
+				BalanceOrdering.ASSET_ACCOUNT, false, null, null, null);
+		for (AccountBalanceData balance : balances)
+			state.add(String.format("balance %s asset %d: %s", balance.getAddress(), balance.getAssetId(), balance.getBalance().toPlainString()));
+
+		List<Account> accounts = new ArrayList<>(Common.getTestAccounts(repository));
+		accounts.add(proxyAccount);
+		if (atAddress != null)
+			accounts.add(new Account(repository, atAddress));
+		for (Account account : accounts) {
+			byte[] lastReference = account.getLastReference();
+			state.add(String.format("last reference %s: %s", account.getAddress(), lastReference == null ? "none" : Base58.encode(lastReference)));
+		}
+
+		ProxyForgerData proxyForgerData = repository.getAccountRepository().getProxyForgeData(proxyAccount.getPublicKey());
+		state.add(String.format("proxy share %s", proxyForgerData == null ? "none" : proxyForgerData.getShare().toPlainString()));
+
+		if (atAddress == null)
+			return state;
+
+		ATStateData atStateData = repository.getATRepository().getLatestATState(atAddress);
+		state.add(String.format("AT state height %d, hash %s, fees %s", atStateData.getHeight(), Base58.encode(atStateData.getStateHash()),
+				atStateData.getFees().toPlainString()));
+
+		return state;
+	}
+
+}
@@ -1,25 +1,38 @@
 package org.qora.test.block;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.qora.api.model.BlockForgerSummary;
 import org.qora.account.PrivateKeyAccount;
 import org.qora.block.Block;
+import org.qora.block.BlockChain;
+import org.qora.block.BlockCache;
+import org.qora.block.BlockCache.CachedBlock;
 import org.qora.block.BlockGenerator;
+import org.qora.block.BlockTemplate;
 import org.qora.block.GenesisBlock;
 import org.qora.data.at.ATStateData;
 import org.qora.data.block.BlockData;
+import org.qora.data.block.ValidationCheckpointData;
+import org.qora.data.transaction.BaseTransactionData;
+import org.qora.data.transaction.PaymentTransactionData;
 import org.qora.data.transaction.TransactionData;
+import org.qora.group.Group;
+import org.qora.repository.BlockRepository;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
+import org.qora.test.common.BlockUtils;
 import org.qora.test.common.Common;
 import org.qora.test.common.TransactionUtils;
 import org.qora.transaction.Transaction;
 import org.qora.transaction.Transaction.TransactionType;
 import org.qora.transform.TransformationException;
+import org.qora.transform.Transformer;
 import org.qora.transform.block.BlockTransformer;
 import org.qora.transform.transaction.TransactionTransformer;
 import org.qora.utils.Base58;
@@ -134,4 +147,193 @@ public class BlockTests extends Common {
 		}
 	}
 
+	@Test
+	public void testBlockCache() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount signingAccount = Common.getTestAccount(repository, "alice");
+
+			BlockGenerator.generateTestingBlock(repository, signingAccount);
+
+			BlockData blockData = repository.getBlockRepository().getLastBlock();
+			Block block = new Block(repository, blockData);
+
+			// Processed block isn't cached until served
+			assertNull(BlockCache.getInstance().get(blockData.getSignature()));
+
+			BlockCache.getInstance().put(block);
+
+			CachedBlock cachedBlock = BlockCache.getInstance().get(blockData.getSignature());
+			assertNotNull(cachedBlock);
+			assertEquals(blockData.getHeight().intValue(), cachedBlock.height);
+			assertArrayEquals(BlockTransformer.toBytes(block), cachedBlock.bytes);
+
+			// Orphaned block should not be cached
+			BlockUtils.orphanLastBlock(repository);
+			assertNull(BlockCache.getInstance().get(blockData.getSignature()));
+		}
+	}
+
+	@Test
+	public void testValidationCheckpoint() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount signingAccount = Common.getTestAccount(repository, "alice");
+
+			// Validation at start-up should leave checkpoint at blockchain tip
+			ValidationCheckpointData firstCheckpointData = repository.getBlockRepository().getLatestValidationCheckpoint();
+			assertNotNull(firstCheckpointData);
+			assertEquals(repository.getBlockRepository().getBlockchainHeight(), firstCheckpointData.getHeight());
+
+			BlockGenerator.generateTestingBlock(repository, signingAccount);
+			BlockGenerator.generateTestingBlock(repository, signingAccount);
+			BlockChain.validate();
+
+			// Checkpoint should have moved to new tip
+			ValidationCheckpointData secondCheckpointData = repository.getBlockRepository().getLatestValidationCheckpoint();
+			assertEquals(firstCheckpointData.getHeight() + 2, secondCheckpointData.getHeight());
+			assertArrayEquals(repository.getBlockRepository().getLastBlock().getSignature(), secondCheckpointData.getSignature());
+
+			// Full validation should produce same chain hash
+			repository.getBlockRepository().deleteValidationCheckpoints(Integer.MAX_VALUE);
+			repository.saveChanges();
+			BlockChain.validate();
+
+			ValidationCheckpointData fullCheckpointData = repository.getBlockRepository().getLatestValidationCheckpoint();
+			assertEquals(secondCheckpointData.getHeight(), fullCheckpointData.getHeight());
+			assertArrayEquals(secondCheckpointData.getChainHash(), fullCheckpointData.getChainHash());
+
+			// Orphaning checkpoint's block should remove checkpoint
+			BlockUtils.orphanLastBlock(repository);
+			ValidationCheckpointData orphanedCheckpointData = repository.getBlockRepository().getLatestValidationCheckpoint();
+			assertTrue(orphanedCheckpointData == null || orphanedCheckpointData.getHeight() < secondCheckpointData.getHeight());
+
+			// Validation should carry on from whatever checkpoint remains
+			repository.discardChanges(); // end our read transaction so we see validation's changes
+			BlockChain.validate();
+
+			ValidationCheckpointData thirdCheckpointData = repository.getBlockRepository().getLatestValidationCheckpoint();
+			assertEquals(secondCheckpointData.getHeight() - 1, thirdCheckpointData.getHeight());
+			assertArrayEquals(repository.getBlockRepository().getLastBlock().getSignature(), thirdCheckpointData.getSignature());
+		}
+	}
+
+	@Test
+	public void testForgerStats() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount signingAccount = Common.getTestAccount(repository, "alice");
+			BlockRepository blockRepository = repository.getBlockRepository();
+
+			final int initialCount = blockRepository.countForgedBlocks(signingAccount.getPublicKey());
+
+			BlockGenerator.generateTestingBlock(repository, signingAccount);
+			BlockGenerator.generateTestingBlock(repository, signingAccount);
+			BlockGenerator.generateTestingBlock(repository, signingAccount);
+			assertEquals(initialCount + 3, blockRepository.countForgedBlocks(signingAccount.getPublicKey()));
+
+			// Every block is counted against one forger
+			List<BlockForgerSummary> summaries = blockRepository.getBlockForgers(null, null, null, null);
+			assertEquals(blockRepository.getBlockchainHeight(), summaries.stream().mapToInt(summary -> summary.blockCount).sum());
+
+			BlockUtils.orphanLastBlock(repository);
+			BlockUtils.orphanLastBlock(repository);
+			BlockUtils.orphanLastBlock(repository);
+			assertEquals(initialCount, blockRepository.countForgedBlocks(signingAccount.getPublicKey()));
+
+			summaries = blockRepository.getBlockForgers(null, null, null, null);
+			assertEquals(blockRepository.getBlockchainHeight(), summaries.stream().mapToInt(summary -> summary.blockCount).sum());
+		}
+	}
+
+	@Test
+	public void testBlockAssemblySkipsInvalidTransactions() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+			PrivateKeyAccount chloe = Common.getTestAccount(repository, "chloe");
+
+			// Two payments by alice using the same reference, so only the first can go into a block
+			TransactionData firstPayment = buildPayment(repository, alice, bob, 0);
+			TransactionData conflictingPayment = buildPayment(repository, alice, chloe, 1);
+			// Unrelated payment, after the conflicting one, which should still be included
+			TransactionData otherPayment = buildPayment(repository, bob, chloe, 2);
+
+			Transaction.fromData(repository, firstPayment).sign(alice);
+			Transaction.fromData(repository, conflictingPayment).sign(alice);
+			Transaction.fromData(repository, otherPayment).sign(bob);
+
+			BlockData parentBlockData = repository.getBlockRepository().getLastBlock();
+			Block block = new Block(repository, parentBlockData, alice, System.currentTimeMillis());
+
+			assertEquals(2, block.addValidTransactions(Arrays.asList(firstPayment, conflictingPayment, otherPayment)));
+			assertEquals(2, block.getBlockData().getTransactionCount());
+
+			List<Transaction> transactions = block.getTransactions();
+			assertEquals(2, transactions.size());
+			assertArrayEquals(firstPayment.getSignature(), transactions.get(0).getTransactionData().getSignature());
+			assertArrayEquals(otherPayment.getSignature(), transactions.get(1).getTransactionData().getSignature());
+
+			// Assembly shouldn't leave any changes behind, and assembled block should be valid as a whole
+			assertArrayEquals(firstPayment.getReference(), alice.getLastReference());
+
+			block.sign();
+			assertEquals(Block.ValidationResult.OK, block.isValid());
+		}
+	}
+
+	@Test
+	public void testBlockTemplateFeePriority() throws DataException, TransformationException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			PrivateKeyAccount alice = Common.getTestAccount(repository, "alice");
+			PrivateKeyAccount bob = Common.getTestAccount(repository, "bob");
+			PrivateKeyAccount chloe = Common.getTestAccount(repository, "chloe");
+
+			// Alice's low-fee payment is followed by a high-fee payment that depends on it
+			TransactionData lowFeePayment = buildPayment(repository, alice, chloe, alice.getLastReference(), 0, new BigDecimal("0.1").setScale(8));
+			Transaction.fromData(repository, lowFeePayment).sign(alice);
+			TransactionData highFeePayment = buildPayment(repository, alice, chloe, lowFeePayment.getSignature(), 1, new BigDecimal("5").setScale(8));
+			Transaction.fromData(repository, highFeePayment).sign(alice);
+
+			// Bob's payment pays more per byte than alice's first payment alone, but less than both of alice's together
+			TransactionData bobPayment = buildPayment(repository, bob, chloe, bob.getLastReference(), 2, BigDecimal.ONE.setScale(8));
+			Transaction.fromData(repository, bobPayment).sign(bob);
+
+			for (TransactionData transactionData : Arrays.asList(lowFeePayment, highFeePayment, bobPayment))
+				assertEquals(Transaction.ValidationResult.OK, Transaction.fromData(repository, transactionData).importAsUnconfirmed());
+
+			BlockData parentBlockData = repository.getBlockRepository().getLastBlock();
+
+			BlockTemplate blockTemplate = BlockTemplate.build(repository, parentBlockData);
+			assertTrue(blockTemplate.isCurrent(parentBlockData));
+
+			// Plenty of room: everything, in block order
+			Block newBlock = new Block(repository, parentBlockData, alice, System.currentTimeMillis());
+			List<TransactionData> transactions = blockTemplate.getTransactions(newBlock);
+			assertEquals(3, transactions.size());
+			assertArrayEquals(lowFeePayment.getSignature(), transactions.get(0).getSignature());
+			assertArrayEquals(highFeePayment.getSignature(), transactions.get(1).getSignature());
+			assertArrayEquals(bobPayment.getSignature(), transactions.get(2).getSignature());
+
+			// Only room for two payments: alice's pair pays more in total than bob's payment plus alice's first
+			long paymentLength = Transformer.INT_LENGTH + TransactionTransformer.getDataLength(lowFeePayment);
+			transactions = blockTemplate.getTransactions(2 * paymentLength);
+			assertEquals(2, transactions.size());
+			assertArrayEquals(lowFeePayment.getSignature(), transactions.get(0).getSignature());
+			assertArrayEquals(highFeePayment.getSignature(), transactions.get(1).getSignature());
+
+			// Selected transactions all fit alongside block header
+			assertEquals(3, newBlock.addValidTransactions(blockTemplate.getTransactions(newBlock)));
+			assertTrue(BlockTransformer.getDataLength(newBlock) <= Block.MAX_BLOCK_BYTES);
+		}
+	}
+
+	private TransactionData buildPayment(Repository repository, PrivateKeyAccount sender, PrivateKeyAccount recipient, int timestampOffset) throws DataException {
+		return buildPayment(repository, sender, recipient, sender.getLastReference(), timestampOffset, BigDecimal.ONE.setScale(8));
+	}
+
+	private TransactionData buildPayment(Repository repository, PrivateKeyAccount sender, PrivateKeyAccount recipient, byte[] reference, int timestampOffset, BigDecimal fee) throws DataException {
+		long timestamp = repository.getTransactionRepository().fromSignature(sender.getLastReference()).getTimestamp() + 1 + timestampOffset;
+
+		BaseTransactionData baseTransactionData = new BaseTransactionData(timestamp, Group.NO_GROUP, reference, sender.getPublicKey(), fee, null);
+		return new PaymentTransactionData(baseTransactionData, recipient.getAddress(), BigDecimal.TEN.setScale(8));
+	}
+
 }
@@ -8,6 +8,9 @@ import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 
@@ -15,14 +18,17 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.qora.account.PrivateKeyAccount;
+import org.qora.block.Block;
 import org.qora.block.BlockChain;
 import org.qora.crypto.Crypto;
+import org.qora.data.account.ProxyForgerData;
 import org.qora.data.block.BlockSummaryData;
 import org.qora.repository.DataException;
 import org.qora.repository.Repository;
 import org.qora.repository.RepositoryManager;
 import org.qora.test.common.AccountUtils;
 import org.qora.test.common.Common;
+import org.qora.utils.ByteArray;
 
 import com.google.common.primitives.Bytes;
 
@@ -170,6 +176,40 @@ public class BlockchainTests extends Common {
 		assertFalse(distances.get(0).equals(distances.get(1)));
 	}
 
+	@Test
+	public void testMatchesReferenceImplementation() throws DataException {
+		Random random = new Random();
+
+		// Include root forgers as well as their proxies, so second round is exercised
+		List<PrivateKeyAccount> generators = new ArrayList<>(allAccounts);
+		generators.add(new PrivateKeyAccount(repository, AccountUtils.proxyForging(repository, "alice", "chloe", new BigDecimal("0.2"))));
+
+		for (int run = 0; run < 500; ++run) {
+			// Straddle switch to new distance algorithm
+			BlockSummaryData parentBlockSummary = generateSummary(1 + random.nextInt(15), generators.get(random.nextInt(generators.size())));
+
+			List<List<BlockSummaryData>> subsets = new ArrayList<>();
+			final int nChains = 1 + random.nextInt(6);
+			for (int ci = 0; ci < nChains; ++ci) {
+				List<BlockSummaryData> blockSummaries = new ArrayList<>();
+				final int nBlocks = 1 + random.nextInt(20);
+				for (int bi = 1; bi <= nBlocks; ++bi)
+					blockSummaries.add(generateSummary(parentBlockSummary.getHeight() + bi, generators.get(random.nextInt(generators.size()))));
+
+				subsets.add(blockSummaries);
+			}
+
+			// Chains that share blocks tie in every round
+			if (nChains > 1 && random.nextBoolean())
+				subsets.set(nChains - 1, subsets.get(0));
+
+			List<BigInteger> expectedDistances = calcReferenceBlockchainDistances(repository, parentBlockSummary, subsets);
+			List<BigInteger> actualDistances = BlockChain.calcBlockchainDistances(repository, parentBlockSummary, subsets);
+
+			assertEquals(expectedDistances, actualDistances);
+		}
+	}
+
 	@Test
 	public void testWinningDistribution() throws DataException {
 		BigDecimal share = new BigDecimal("0.5");
@@ -221,4 +261,158 @@ public class BlockchainTests extends Common {
 		assertTrue(Math.abs(wins[0] - wins[1] * 2) < (wins[0] * marginPct / 100));
 	}
 
+	/** Original BigInteger-based implementation of {@link BlockChain#calcBlockchainDistances}, kept for comparison. */
+	private static List<BigInteger> calcReferenceBlockchainDistances(Repository repository, BlockSummaryData parentBlockSummary, List<List<BlockSummaryData>> allBlockSummaries) throws DataException {
+		final int nChains = allBlockSummaries.size();
+
+		List<HashSet<ByteArray>> uniqueForgersPerChain = new ArrayList<>(nChains);
+		int largestChainSize = 0;
+		for (int ci = 0; ci < nChains; ++ci) {
+			uniqueForgersPerChain.add(new HashSet<ByteArray>());
+			largestChainSize = Math.max(largestChainSize, allBlockSummaries.get(ci).size());
+		}
+
+		final int nBlocks = largestChainSize;
+
+		HashMap<ByteArray, ProxyForgerData> cachedProxyForgerData = new HashMap<>();
+
+		List<BigInteger> totalDistances = new ArrayList<>(Collections.nCopies(nChains, BigInteger.ZERO));
+
+		List<BlockSummaryData> parentSummaries = new ArrayList<>(Collections.nCopies(nChains, parentBlockSummary));
+
+		int height = parentBlockSummary.getHeight();
+		for (int bi = 0; bi < nBlocks; ++bi) {
+			++height;
+
+			final boolean isNewBehaviour = height >= BlockChain.getInstance().getNewBlockDistanceHeight();
+			List<BigInteger> distances = new ArrayList<>(nChains);
+			List<BigInteger> idealGenerators = new ArrayList<>(nChains);
+
+			int indexOfClosest = 0;
+
+			// 1st round - compare root forgers
+			for (int ci = 0; ci < nChains; ++ci) {
+				// Per chain
+
+				// 'Ideal'
+				byte[] idealGenerator = Block.calcIdealGeneratorPublicKey(height - 1, parentSummaries.get(ci).getSignature());
+				BigInteger idealGeneratorBI = new BigInteger(idealGenerator);
+				idealGenerators.add(idealGeneratorBI);
+
+				BlockSummaryData blockSummaryData = getPaddedBlockSummary(allBlockSummaries, ci, bi);
+				ByteArray generatorBA = new ByteArray(blockSummaryData.getGeneratorPublicKey());
+
+				// Check for proxy forging
+				ProxyForgerData proxyForgerData = cachedProxyForgerData.get(generatorBA);
+				if (proxyForgerData == null && !cachedProxyForgerData.containsKey(generatorBA)) {
+					proxyForgerData = repository.getAccountRepository().getProxyForgeData(generatorBA.raw);
+					cachedProxyForgerData.put(generatorBA, proxyForgerData);
+				}
+
+				byte[] publicKey;
+				if (isNewBehaviour)
+					// New behaviour: If proxy forged then use forger's key
+					publicKey = proxyForgerData != null ? proxyForgerData.getForgerPublicKey() : blockSummaryData.getGeneratorPublicKey();
+				else
+					// Previous behaviour only ever uses block's "generator" public key, which is typically proxy public key
+					publicKey = blockSummaryData.getGeneratorPublicKey();
+
+				// Unique forger?
+				uniqueForgersPerChain.get(ci).add(new ByteArray(publicKey));
+
+				byte[] perturbedPublicKey = Block.calcHeightPerturbedPublicKey(height, publicKey);
+				BigInteger generatorBI = new BigInteger(perturbedPublicKey);
+
+				BigInteger distance = idealGeneratorBI.subtract(generatorBI).abs();
+				distances.add(distance);
+
+				// Is this the closest to ideal (i.e. smallest distance)?
+				if (distance.compareTo(distances.get(indexOfClosest)) < 0)
+					indexOfClosest = ci;
+
+				// Update parent summary
+				parentSummaries.set(ci, blockSummaryData);
+			}
+
+			BigInteger smallestDistance = distances.get(indexOfClosest);
+
+			// If there are more than one block summaries with the same root forging account then we need to do round two
+			// (This should not happen for blocks under old behaviour)
+			final long nSmallest = distances.stream().filter(distance -> distance.compareTo(smallestDistance) == 0).count();
+			if (nSmallest > 1) {
+				// 2nd round - compare proxy-forged blocks with same root forger
+
+				BlockSummaryData smallestBlockSummaryData = getPaddedBlockSummary(allBlockSummaries, indexOfClosest, bi);
+
+				// Forger from block(s) with smallest distance from 1st round
+				ProxyForgerData smallestProxyForgerData = cachedProxyForgerData.get(new ByteArray(smallestBlockSummaryData.getGeneratorPublicKey()));
+				if (smallestProxyForgerData == null) {
+					// Wasn't proxy forged - multiple chains with a block forged directly
+				} else {
+					byte[] forgerPublicKey = smallestProxyForgerData.getForgerPublicKey();
+
+					// Keep track of largest distance
+					Integer indexOfLargest = null;
+
+					for (int ci = 0; ci < nChains; ++ci) {
+						BlockSummaryData blockSummaryData = getPaddedBlockSummary(allBlockSummaries, ci, bi);
+						ProxyForgerData proxyForgerData = cachedProxyForgerData.get(new ByteArray(blockSummaryData.getGeneratorPublicKey()));
+
+						// We're only interested in blocks with the same root forger as the one with smallest distance from 1st round
+						if (proxyForgerData == null || !Arrays.equals(proxyForgerData.getForgerPublicKey(), forgerPublicKey))
+							continue;
+
+						// Compare using proxy public key
+						byte[] perturbedPublicKey = Block.calcHeightPerturbedPublicKey(blockSummaryData.getHeight(), proxyForgerData.getProxyPublicKey());
+						BigInteger generatorBI = new BigInteger(perturbedPublicKey);
+
+						BigInteger distance = idealGenerators.get(ci).subtract(generatorBI).abs();
+						distances.set(ci, distance);
+
+						// Is this the largest distance?
+						if (indexOfLargest == null || distance.compareTo(distances.get(indexOfLargest)) > 0)
+							indexOfLargest = ci;
+					}
+
+					// Set distances of all other blocks NOT with same root forger to largest distance + 1
+					// This is so those blocks appear 'worse' than all the ones processed in 2nd round
+					BigInteger fakeLargestDistance = distances.get(indexOfLargest).add(BigInteger.ONE);
+					for (int ci = 0; ci < nChains; ++ci) {
+						BlockSummaryData blockSummaryData = getPaddedBlockSummary(allBlockSummaries, ci, bi);
+						ProxyForgerData proxyForgerData = cachedProxyForgerData.get(new ByteArray(blockSummaryData.getGeneratorPublicKey()));
+
+						// We're only interested in blocks WITHOUT the same root forger as the one with smallest distance from 1st round
+						if (proxyForgerData !=null && Arrays.equals(proxyForgerData.getForgerPublicKey(), forgerPublicKey))
+							continue;
+
+						distances.set(ci, fakeLargestDistance);
+					}
+				}
+			}
+
+			// Add final distance to total for each blockchain
+			for (int ci = 0; ci < nChains; ++ci)
+				totalDistances.set(ci, totalDistances.get(ci).add(distances.get(ci)));
+		}
+
+		// A variety of generators is a benefit
+		for (int ci = 0; ci < nChains; ++ci) {
+			BigInteger uniqueForgers = BigInteger.valueOf(uniqueForgersPerChain.get(ci).size());
+			totalDistances.set(ci, totalDistances.get(ci).divide(uniqueForgers));
+		}
+
+		return totalDistances;
+	}
+
+	private static BlockSummaryData getPaddedBlockSummary(List<List<BlockSummaryData>> allBlockSummaries, int chainIndex, int blockIndex) {
+		List<BlockSummaryData> blockSummaries = allBlockSummaries.get(chainIndex);
+
+		final int size = blockSummaries.size();
+
+		if (blockIndex >= size)
+			blockIndex = size - 1;
+
+		return blockSummaries.get(blockIndex);
+	}
+
 }
@@ -0,0 +1,136 @@
+package org.qora.test.forging;
+
+import static org.junit.Assert.*;
+
+import java.math.BigDecimal;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.qora.account.Account;
+import org.qora.account.PrivateKeyAccount;
+import org.qora.asset.Asset;
+import org.qora.block.Block;
+import org.qora.block.BlockChain;
+import org.qora.block.BlockGenerator;
+import org.qora.data.block.BlockData;
+import org.qora.repository.DataException;
+import org.qora.repository.Repository;
+import org.qora.repository.RepositoryManager;
+import org.qora.test.common.AccountUtils;
+import org.qora.test.common.BlockUtils;
+import org.qora.test.common.Common;
+import org.qora.transaction.Transaction;
+
+public class GeneratingBalanceTests extends Common {
+
+	private static final String[] ACCOUNT_NAMES = new String[] { "alice", "bob", "chloe", "dilbert" };
+
+	@Before
+	public void beforeTest() throws DataException {
+		Common.useDefaultSettings();
+	}
+
+	@After
+	public void afterTest() throws DataException {
+		Common.orphanCheck();
+	}
+
+	@Test
+	public void testRecentPayment() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			Account bob = Common.getTestAccount(repository, "bob");
+			BigDecimal amount = BigDecimal.valueOf(123L).setScale(8);
+
+			AccountUtils.pay(repository, "alice", "bob", amount);
+
+			// Payment is ignored for generating balance while it's in recent blocks
+			BigDecimal expectedBalance = bob.getConfirmedBalance(Asset.QORA).subtract(amount);
+			assertEqualBigDecimals("Generating balance incorrect", expectedBalance, bob.getGeneratingBalance());
+			assertBalancesMatchBlockWalk(repository);
+
+			PrivateKeyAccount forgingAccount = Common.getTestAccount(repository, "alice");
+			final int interval = BlockChain.getInstance().getBlockDifficultyInterval();
+
+			// Payment's block is the last of (interval - 1) recent blocks
+			for (int i = 1; i < interval - 1; ++i) {
+				BlockGenerator.generateTestingBlock(repository, forgingAccount);
+				assertEqualBigDecimals("Generating balance incorrect", expectedBalance, bob.getGeneratingBalance());
+				assertBalancesMatchBlockWalk(repository);
+			}
+
+			// One more block and payment is no longer recent
+			BlockGenerator.generateTestingBlock(repository, forgingAccount);
+			assertEqualBigDecimals("Generating balance incorrect", bob.getConfirmedBalance(Asset.QORA), bob.getGeneratingBalance());
+			assertBalancesMatchBlockWalk(repository);
+
+			// Orphaning brings payment back into recent blocks
+			BlockUtils.orphanLastBlock(repository);
+			assertEqualBigDecimals("Generating balance incorrect", expectedBalance, bob.getGeneratingBalance());
+			assertBalancesMatchBlockWalk(repository);
+		}
+	}
+
+	@Test
+	public void testOrphaning() throws DataException {
+		try (final Repository repository = RepositoryManager.getRepository()) {
+			final int interval = BlockChain.getInstance().getBlockDifficultyInterval();
+			BigDecimal amount = BigDecimal.valueOf(10L).setScale(8);
+
+			// Alternate payments so several accounts have inflows at various heights
+			for (int i = 0; i < interval * 2; ++i) {
+				String sender = ACCOUNT_NAMES[i % ACCOUNT_NAMES.length];
+				String recipient = ACCOUNT_NAMES[(i + 1) % ACCOUNT_NAMES.length];
+
+				AccountUtils.pay(repository, sender, recipient, amount);
+				assertBalancesMatchBlockWalk(repository);
+			}
+
+			for (int i = 0; i < interval * 2; ++i) {
+				BlockUtils.orphanLastBlock(repository);
+				assertBalancesMatchBlockWalk(repository);
+			}
+		}
+	}
+
+	/** Checks generating balances, and balances with more confirmations, against those from walking recent blocks. */
+	private void assertBalancesMatchBlockWalk(Repository repository) throws DataException {
+		final int interval = BlockChain.getInstance().getBlockDifficultyInterval();
+
+		for (String accountName : ACCOUNT_NAMES) {
+			Account account = Common.getTestAccount(repository, accountName);
+
+			assertEqualBigDecimals(String.format("%s's generating balance differs", accountName), walkBlocks(repository, account, interval, true), account.getGeneratingBalance());
+
+			for (int confirmations = 1; confirmations <= interval + 1; ++confirmations)
+				assertEqualBigDecimals(String.format("%s's balance with %d confirmations differs", accountName, confirmations),
+						walkBlocks(repository, account, confirmations, false), account.getBalance(Asset.QORA, confirmations));
+		}
+	}
+
+	/** Returns balance after undoing amounts in recent blocks, the long way. */
+	private BigDecimal walkBlocks(Repository repository, Account account, int blockCount, boolean positiveOnly) throws DataException {
+		BigDecimal balance = account.getConfirmedBalance(Asset.QORA);
+		BlockData blockData = repository.getBlockRepository().getLastBlock();
+
+		for (int i = 1; i < blockCount && blockData != null && blockData.getHeight() > 1; ++i) {
+			Block block = new Block(repository, blockData);
+
+			for (Transaction transaction : block.getTransactions())
+				if (transaction.isInvolved(account)) {
+					BigDecimal amount = transaction.getAmount(account);
+
+					if (!positiveOnly || amount.compareTo(BigDecimal.ZERO) > 0)
+						balance = balance.subtract(amount);
+				}
+
+			blockData = block.getParent();
+		}
+
+		if (positiveOnly)
+			balance = balance.max(BigDecimal.ZERO);
+
+		return balance;
+	}
+
+}